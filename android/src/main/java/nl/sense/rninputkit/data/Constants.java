@@ -9,7 +9,8 @@ import java.util.EnumMap;
 public class Constants {
     public enum EVENTS {
         actionTrigger, requestSessionId,
-        inputKitUpdates, inputKitTracking
+        inputKitUpdates, inputKitTracking,
+        inputKitHistoryProgress
     }
 
     public static final EnumMap<EVENTS, String> JS_SUPPORTED_EVENTS = new EnumMap<>(EVENTS.class);
@@ -18,6 +19,7 @@ public class Constants {
         JS_SUPPORTED_EVENTS.put(EVENTS.requestSessionId, "REQUEST_VALID_SESSION_ID");
         JS_SUPPORTED_EVENTS.put(EVENTS.inputKitUpdates, "inputKitUpdates");
         JS_SUPPORTED_EVENTS.put(EVENTS.inputKitTracking, "inputKitTracking");
+        JS_SUPPORTED_EVENTS.put(EVENTS.inputKitHistoryProgress, "inputKitHistoryProgress");
     }
 
     /** Used by Input Kits */
@@ -8,17 +8,23 @@ import android.util.Pair;
 
 import java.lang.ref.WeakReference;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.TimeUnit;
 
 import nl.sense.rninputkit.inputkit.InputKit.Callback;
+import nl.sense.rninputkit.inputkit.InputKit.ProgressListener;
 import nl.sense.rninputkit.inputkit.InputKit.Result;
 import nl.sense.rninputkit.inputkit.constant.IKStatus;
 import nl.sense.rninputkit.inputkit.constant.Interval;
 import nl.sense.rninputkit.inputkit.constant.SampleType.SampleName;
+import nl.sense.rninputkit.inputkit.constant.Summary;
+import nl.sense.rninputkit.inputkit.entity.DistanceContent;
 import nl.sense.rninputkit.inputkit.entity.SensorDataPoint;
 import nl.sense.rninputkit.inputkit.entity.StepContent;
 import nl.sense.rninputkit.inputkit.entity.IKValue;
 import nl.sense.rninputkit.inputkit.entity.Weight;
+import nl.sense.rninputkit.inputkit.entity.WeightContent;
+import nl.sense.rninputkit.inputkit.helper.InputKitTimeUtils;
 import nl.sense.rninputkit.inputkit.status.IKResultInfo;
 
 import static nl.sense.rninputkit.inputkit.constant.IKStatus.Code.IK_NOT_AVAILABLE;
@@ -161,6 +167,35 @@ public abstract class HealthProvider {
         return true;
     }
 
+    /**
+     * Call {@link Result#onError(IKResultInfo)} whenever given time period is invalid.
+     *
+     * @param startTime Start time
+     * @param endTime   End time
+     * @param callback  {@link Result} callback which to be handled
+     * @return True if valid time period, False otherwise.
+     */
+    protected boolean validateTimeInput(long startTime,
+                                        long endTime,
+                                        @NonNull Result callback) {
+        if (!InputKitTimeUtils.isValidTimePeriod(startTime, endTime)) {
+            callback.onError(new IKResultInfo(
+                    IKStatus.Code.INVALID_REQUEST,
+                    "Invalid time period. Start time and end time should be greater than 0!"
+            ));
+            return false;
+        }
+
+        if (!InputKitTimeUtils.isValidStartTime(startTime, endTime)) {
+            callback.onError(new IKResultInfo(
+                    IKStatus.Code.INVALID_REQUEST,
+                    "Invalid time period. Start time should less or equals than end time!"
+            ));
+            return false;
+        }
+        return true;
+    }
+
     /**
      * Check Health provider availability.
      *
@@ -205,9 +240,25 @@ public abstract class HealthProvider {
      * @param endTime   epoch for the end date
      * @param callback  {@link Result<Integer>} containing number of total steps count
      */
+    public void getStepCount(long startTime,
+                             long endTime,
+                             int limit,
+                             @NonNull Result<Integer> callback) {
+        getStepCount(startTime, endTime, limit, 0, callback);
+    }
+
+    /**
+     * Get total steps count of specific range within a deadline
+     *
+     * @param startTime epoch for the start date
+     * @param endTime   epoch for the end date
+     * @param timeout   overall time budget in milliseconds, set to 0 if there is no deadline
+     * @param callback  {@link Result<Integer>} containing number of total steps count
+     */
     public abstract void getStepCount(long startTime,
                                       long endTime,
                                       int limit,
+                                      long timeout,
                                       @NonNull Result<Integer> callback);
 
     /**
@@ -220,12 +271,127 @@ public abstract class HealthProvider {
      *                  set to null if you want to calculate all available distance within specific range
      * @param callback  {@link Result<StepContent>} Steps content set if available.
      **/
+    public void getStepCountDistribution(long startTime,
+                                         long endTime,
+                                         @NonNull @Interval.IntervalName String interval,
+                                         int limit,
+                                         @NonNull Result<StepContent> callback) {
+        getStepCountDistribution(startTime, endTime, interval, limit, 0, callback);
+    }
+
+    /**
+     * Return data distribution of step count value through out a specific range within a deadline.
+     *
+     * @param startTime epoch for the start date of the range where the distribution should be calculated from.
+     * @param endTime   epoch for the end date of the range where the distribution should be calculated from.
+     * @param interval  Interval
+     * @param limit     historical data limitation
+     *                  set to null if you want to calculate all available distance within specific range
+     * @param timeout   overall time budget in milliseconds, set to 0 if there is no deadline
+     * @param callback  {@link Result<StepContent>} Steps content set if available.
+     **/
+    public void getStepCountDistribution(long startTime,
+                                         long endTime,
+                                         @NonNull @Interval.IntervalName String interval,
+                                         int limit,
+                                         long timeout,
+                                         @NonNull Result<StepContent> callback) {
+        getStepCountDistribution(startTime, endTime, interval, limit, timeout, null, callback);
+    }
+
+    /**
+     * Return data distribution of step count value through out a specific range, while partial
+     * distribution of every history request is published as soon as it's read.
+     *
+     * @param startTime        epoch for the start date of the range where the distribution should be calculated from.
+     * @param endTime          epoch for the end date of the range where the distribution should be calculated from.
+     * @param interval         Interval
+     * @param limit            historical data limitation
+     *                         set to null if you want to calculate all available distance within specific range
+     * @param timeout          overall time budget in milliseconds, set to 0 if there is no deadline
+     * @param progressListener {@link ProgressListener<StepContent>} Partial steps content,
+     *                         or null if progress is not needed.
+     * @param callback         {@link Result<StepContent>} Steps content set if available.
+     **/
     public abstract void getStepCountDistribution(long startTime,
                                                   long endTime,
                                                   @NonNull @Interval.IntervalName String interval,
                                                   int limit,
+                                                  long timeout,
+                                                  @Nullable ProgressListener<StepContent> progressListener,
                                                   @NonNull Result<StepContent> callback);
 
+    /**
+     * Return data distribution of step count value through out a specific range at several
+     * intervals at once. History is only read at the finest interval, coarser intervals are
+     * rolled up out of it.
+     *
+     * @param startTime epoch for the start date of the range where the distribution should be calculated from.
+     * @param endTime   epoch for the end date of the range where the distribution should be calculated from.
+     * @param intervals Intervals, each of them one of {@link Interval.IntervalName}
+     * @param timeout   overall time budget in milliseconds, set to 0 if there is no deadline
+     * @param callback  {@link Result} Steps content of every interval, keyed by interval
+     *                  in order of the requested intervals.
+     **/
+    public abstract void getStepCountRollup(long startTime,
+                                            long endTime,
+                                            @NonNull List<String> intervals,
+                                            long timeout,
+                                            @NonNull Result<Map<String, StepContent>> callback);
+
+    /**
+     * Get total walking and running distance of specific range within a deadline
+     *
+     * @param startTime epoch for the start date
+     * @param endTime   epoch for the end date
+     * @param limit     historical data limitation
+     *                  set to null if you want to calculate all available distance within specific range
+     * @param timeout   overall time budget in milliseconds, set to 0 if there is no deadline
+     * @param callback  {@link Result<Float>} containing total distance in meters
+     */
+    public abstract void getDistance(long startTime,
+                                     long endTime,
+                                     int limit,
+                                     long timeout,
+                                     @NonNull Result<Float> callback);
+
+    /**
+     * Return data distribution of walking and running distance through out a specific range
+     * within a deadline.
+     *
+     * @param startTime epoch for the start date of the range where the distribution should be calculated from.
+     * @param endTime   epoch for the end date of the range where the distribution should be calculated from.
+     * @param interval  Interval
+     * @param limit     historical data limitation
+     *                  set to null if you want to calculate all available distance within specific range
+     * @param timeout   overall time budget in milliseconds, set to 0 if there is no deadline
+     * @param callback  {@link Result<DistanceContent>} Distance content set if available.
+     **/
+    public abstract void getDistanceDistribution(long startTime,
+                                                 long endTime,
+                                                 @NonNull @Interval.IntervalName String interval,
+                                                 int limit,
+                                                 long timeout,
+                                                 @NonNull Result<DistanceContent> callback);
+
+    /**
+     * Return data distribution of weight through out a specific range within a deadline, where
+     * every time window holds a summary of its weight measurements.
+     *
+     * @param startTime epoch for the start date of the range where the distribution should be calculated from.
+     * @param endTime   epoch for the end date of the range where the distribution should be calculated from.
+     * @param interval  Interval
+     * @param summary   Summary of time windows, one of {@link Summary.SummaryName}
+     * @param timeout   overall time budget in milliseconds, set to 0 if there is no deadline
+     * @param callback  {@link Result<WeightContent>} Weight content set if available.
+     **/
+    public abstract void getWeightDistribution(long startTime,
+                                               long endTime,
+                                               @NonNull @Interval.IntervalName String interval,
+                                               @NonNull @Summary.SummaryName String summary,
+                                               long timeout,
+                                               @NonNull Result<WeightContent> callback);
+
     /**
      * Start monitoring health sensors.
      *
@@ -7,17 +7,22 @@ import androidx.annotation.Nullable;
 import android.util.Pair;
 
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.TimeUnit;
 
 import nl.sense.rninputkit.inputkit.HealthProvider.IReleasableHostProvider;
 import nl.sense.rninputkit.inputkit.HealthProvider.ProviderType;
 import nl.sense.rninputkit.inputkit.HealthProvider.SensorListener;
+import nl.sense.rninputkit.inputkit.constant.IKStatus;
 import nl.sense.rninputkit.inputkit.constant.Interval;
 import nl.sense.rninputkit.inputkit.constant.SampleType;
+import nl.sense.rninputkit.inputkit.constant.Summary;
+import nl.sense.rninputkit.inputkit.entity.DistanceContent;
 import nl.sense.rninputkit.inputkit.entity.IKValue;
 import nl.sense.rninputkit.inputkit.entity.SensorDataPoint;
 import nl.sense.rninputkit.inputkit.entity.StepContent;
 import nl.sense.rninputkit.inputkit.entity.Weight;
+import nl.sense.rninputkit.inputkit.entity.WeightContent;
 import nl.sense.rninputkit.inputkit.status.IKResultInfo;
 import nl.sense.rninputkit.inputkit.status.IKProviderInfo;
 import nl.sense.rninputkit.inputkit.googlefit.GoogleFitHealthProvider;
@@ -52,6 +57,22 @@ public class InputKit implements IReleasableHostProvider {
         void onError(@NonNull IKResultInfo error);
     }
 
+    /**
+     * A progress listener of long running Input Kit queries.
+     *
+     * @param <T> Expected partial result.
+     */
+    public interface ProgressListener<T> {
+        /**
+         * Callback function to handle partial data, which is available before the final result.
+         *
+         * @param data              Partial data
+         * @param completedRequests Number of history requests which have been read so far
+         * @param totalRequests     Total number of history requests
+         */
+        void onProgress(T data, int completedRequests, int totalRequests);
+    }
+
     public interface Callback {
         /**
          * This action will be triggered when successfully connected to Input Kit Service.
@@ -177,6 +198,25 @@ public class InputKit implements IReleasableHostProvider {
         mCurrentHealthProvider.getStepCount(startTime, endTime, limit, callback);
     }
 
+    /**
+     * Get total steps count of specific range within a deadline.
+     * @param startTime epoch for the start date
+     * @param endTime   epoch for the end date
+     * @param limit     historical data limitation
+     *                  set to 0 if you want to calculate all available distance within specific range
+     * @param timeout   overall time budget of the query in milliseconds, set to 0 if there is no deadline.
+     *                  Exceeded deadline is reported as {@link IKStatus.Code#DEADLINE_EXCEEDED}.
+     * @param callback {@link Result <Integer>} containing number of total steps count
+     */
+    @SuppressWarnings("unused")//This is a public API
+    public void getStepCount(long startTime,
+                             long endTime,
+                             int limit,
+                             long timeout,
+                             @NonNull Result<Integer> callback) {
+        mCurrentHealthProvider.getStepCount(startTime, endTime, limit, timeout, callback);
+    }
+
     /**
      * Get distribution step count history by specific time period.
      * This function should be called within asynchronous process because of
@@ -199,6 +239,144 @@ public class InputKit implements IReleasableHostProvider {
         mCurrentHealthProvider.getStepCountDistribution(startTime, endTime, interval, limit, callback);
     }
 
+    /**
+     * Get distribution step count history by specific time period within a deadline.
+     * Once the deadline is exceeded, history which has been read so far is returned and
+     * {@link StepContent#isPartial()} is set.
+     *
+     * @param startTime epoch for the start date
+     * @param endTime   epoch for the end date
+     * @param interval  on of any {@link nl.sense.rninputkit.inputkit.constant.Interval.IntervalName}
+     * @param limit     historical data limitation
+     *                  set to null if you want to calculate all available step count within specific range
+     * @param timeout   overall time budget of the query in milliseconds, set to 0 if there is no deadline.
+     * @param callback {@link Result <StepContent>} containing a set of history step content
+     */
+    @SuppressWarnings("unused")//This is a public API
+    public void getStepCountDistribution(long startTime,
+                                         long endTime,
+                                         @NonNull @Interval.IntervalName String interval,
+                                         int limit,
+                                         long timeout,
+                                         @NonNull Result<StepContent> callback) {
+        mCurrentHealthProvider.getStepCountDistribution(startTime, endTime, interval, limit,
+                timeout, callback);
+    }
+
+    /**
+     * Get distribution step count history by specific time period, while every history request
+     * is published as soon as it's read. The most recent history is published first.
+     * Partial data is a preview only, the final result is identical with the one of
+     * {@link #getStepCountDistribution(long, long, String, int, long, Result)}.
+     *
+     * @param startTime        epoch for the start date
+     * @param endTime          epoch for the end date
+     * @param interval         on of any {@link nl.sense.rninputkit.inputkit.constant.Interval.IntervalName}
+     * @param limit            historical data limitation
+     *                         set to null if you want to calculate all available step count within specific range
+     * @param timeout          overall time budget of the query in milliseconds, set to 0 if there is no deadline.
+     * @param progressListener {@link ProgressListener <StepContent>} of partial history step content
+     * @param callback         {@link Result <StepContent>} containing a set of history step content
+     */
+    @SuppressWarnings("unused")//This is a public API
+    public void getStepCountDistribution(long startTime,
+                                         long endTime,
+                                         @NonNull @Interval.IntervalName String interval,
+                                         int limit,
+                                         long timeout,
+                                         @NonNull ProgressListener<StepContent> progressListener,
+                                         @NonNull Result<StepContent> callback) {
+        mCurrentHealthProvider.getStepCountDistribution(startTime, endTime, interval, limit,
+                timeout, progressListener, callback);
+    }
+
+    /**
+     * Get distribution step count history of several intervals at once, eg. minutes, hours and
+     * days of the same range. History is only read and normalized at the finest interval,
+     * every coarser interval is rolled up out of it.
+     *
+     * @param startTime epoch for the start date
+     * @param endTime   epoch for the end date
+     * @param intervals any of {@link nl.sense.rninputkit.inputkit.constant.Interval.IntervalName}
+     * @param timeout   overall time budget of the query in milliseconds, set to 0 if there is no deadline.
+     * @param callback  {@link Result} containing history step content of every interval,
+     *                  keyed by interval
+     */
+    @SuppressWarnings("unused")//This is a public API
+    public void getStepCountRollup(long startTime,
+                                   long endTime,
+                                   @NonNull List<String> intervals,
+                                   long timeout,
+                                   @NonNull Result<Map<String, StepContent>> callback) {
+        mCurrentHealthProvider.getStepCountRollup(startTime, endTime, intervals, timeout, callback);
+    }
+
+    /**
+     * Get total walking and running distance of specific range within a deadline.
+     * @param startTime epoch for the start date
+     * @param endTime   epoch for the end date
+     * @param limit     historical data limitation
+     *                  set to 0 if you want to calculate all available distance within specific range
+     * @param timeout   overall time budget of the query in milliseconds, set to 0 if there is no deadline.
+     *                  Exceeded deadline is reported as {@link IKStatus.Code#DEADLINE_EXCEEDED}.
+     * @param callback {@link Result <Float>} containing total distance in meters
+     */
+    @SuppressWarnings("unused")//This is a public API
+    public void getDistance(long startTime,
+                            long endTime,
+                            int limit,
+                            long timeout,
+                            @NonNull Result<Float> callback) {
+        mCurrentHealthProvider.getDistance(startTime, endTime, limit, timeout, callback);
+    }
+
+    /**
+     * Get distribution of walking and running distance by specific time period within a deadline.
+     * Once the deadline is exceeded, history which has been read so far is returned and
+     * {@link DistanceContent#isPartial()} is set.
+     *
+     * @param startTime epoch for the start date
+     * @param endTime   epoch for the end date
+     * @param interval  on of any {@link nl.sense.rninputkit.inputkit.constant.Interval.IntervalName}
+     * @param limit     historical data limitation
+     *                  set to null if you want to calculate all available distance within specific range
+     * @param timeout   overall time budget of the query in milliseconds, set to 0 if there is no deadline.
+     * @param callback {@link Result <DistanceContent>} containing a set of history distance content
+     */
+    @SuppressWarnings("unused")//This is a public API
+    public void getDistanceDistribution(long startTime,
+                                        long endTime,
+                                        @NonNull @Interval.IntervalName String interval,
+                                        int limit,
+                                        long timeout,
+                                        @NonNull Result<DistanceContent> callback) {
+        mCurrentHealthProvider.getDistanceDistribution(startTime, endTime, interval, limit,
+                timeout, callback);
+    }
+
+    /**
+     * Get distribution of weight by specific time period within a deadline, where every time
+     * window holds a summary of its weight measurements. Time windows without any measurement
+     * are left out.
+     *
+     * @param startTime epoch for the start date
+     * @param endTime   epoch for the end date
+     * @param interval  on of any {@link nl.sense.rninputkit.inputkit.constant.Interval.IntervalName}
+     * @param summary   on of any {@link Summary.SummaryName}
+     * @param timeout   overall time budget of the query in milliseconds, set to 0 if there is no deadline.
+     * @param callback {@link Result <WeightContent>} containing a set of history weight content
+     */
+    @SuppressWarnings("unused")//This is a public API
+    public void getWeightDistribution(long startTime,
+                                      long endTime,
+                                      @NonNull @Interval.IntervalName String interval,
+                                      @NonNull @Summary.SummaryName String summary,
+                                      long timeout,
+                                      @NonNull Result<WeightContent> callback) {
+        mCurrentHealthProvider.getWeightDistribution(startTime, endTime, interval, summary,
+                timeout, callback);
+    }
+
     /* Start monitoring health sensors.
      * @param sensorType     sensor type should be one of these {@link SampleType.SampleName} sensor
      * @param samplingRate   sensor sampling rate.
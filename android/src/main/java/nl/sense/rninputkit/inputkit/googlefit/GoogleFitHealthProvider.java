@@ -19,24 +19,32 @@ import com.google.android.gms.tasks.Continuation;
 import com.google.android.gms.tasks.OnCompleteListener;
 import com.google.android.gms.tasks.Task;
 
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.concurrent.TimeUnit;
 
 import nl.sense.rninputkit.inputkit.HealthProvider;
 import nl.sense.rninputkit.inputkit.HealthTrackerState;
 import nl.sense.rninputkit.inputkit.InputKit.Callback;
+import nl.sense.rninputkit.inputkit.InputKit.ProgressListener;
 import nl.sense.rninputkit.inputkit.InputKit.Result;
 import nl.sense.rninputkit.inputkit.Options;
 import nl.sense.rninputkit.inputkit.constant.Constant;
 import nl.sense.rninputkit.inputkit.constant.IKStatus;
 import nl.sense.rninputkit.inputkit.constant.Interval;
 import nl.sense.rninputkit.inputkit.constant.SampleType;
+import nl.sense.rninputkit.inputkit.constant.Summary;
+import nl.sense.rninputkit.inputkit.entity.DistanceContent;
 import nl.sense.rninputkit.inputkit.entity.SensorDataPoint;
 import nl.sense.rninputkit.inputkit.entity.StepContent;
 import nl.sense.rninputkit.inputkit.entity.TimeInterval;
+import nl.sense.rninputkit.inputkit.entity.WeightContent;
 import nl.sense.rninputkit.inputkit.googlefit.history.FitHistory;
+import nl.sense.rninputkit.inputkit.googlefit.history.RollupDataNormalizer;
 import nl.sense.rninputkit.inputkit.googlefit.sensor.SensorManager;
 import nl.sense.rninputkit.inputkit.helper.AppHelper;
-import nl.sense.rninputkit.inputkit.helper.InputKitTimeUtils;
 import nl.sense.rninputkit.inputkit.status.IKProviderInfo;
 import nl.sense.rninputkit.inputkit.status.IKResultInfo;
 
@@ -135,6 +143,7 @@ public class GoogleFitHealthProvider extends HealthProvider {
         assert context != null;
         final GoogleSignInAccount account = GoogleSignIn.getLastSignedInAccount(context);
         if (account != null) {
+            mFitHistory.clearCache();
             // Disconnect from Fit App and revoke existing permission access.
             Fitness.getConfigClient(context, account).disableFit()
                     .continueWithTask(new Continuation<Void, Task<Void>>() {
@@ -177,10 +186,11 @@ public class GoogleFitHealthProvider extends HealthProvider {
     public void getStepCount(final long startTime,
                              final long endTime,
                              final int limit,
+                             final long timeout,
                              @NonNull final Result<Integer> callback) {
         if (isInvalidContext(getContext(), callback)) return;
         if (!isAvailable(callback)) return;
-        if (!InputKitTimeUtils.validateTimeInput(startTime, endTime, callback)) return;
+        if (!validateTimeInput(startTime, endTime, callback)) return;
 
         callWithValidToken(new AccessTokenListener() {
             @Override
@@ -188,7 +198,8 @@ public class GoogleFitHealthProvider extends HealthProvider {
                 Options.Builder builder = new Options.Builder()
                         .startTime(startTime)
                         .endTime(endTime)
-                        .limitation(limit <= 0 ? DataReadRequest.NO_LIMIT : limit);
+                        .limitation(limit <= 0 ? DataReadRequest.NO_LIMIT : limit)
+                        .timeout(timeout);
                 // Guard the aggregation data. If limit is not specified then we need to use
                 // data aggregation to optimize query performance.
                 if (limit <= 0) builder.useDataAggregation();
@@ -209,10 +220,12 @@ public class GoogleFitHealthProvider extends HealthProvider {
                                          final long endTime,
                                          @NonNull @Interval.IntervalName final String interval,
                                          final int limit,
+                                         final long timeout,
+                                         @Nullable final ProgressListener<StepContent> progressListener,
                                          @NonNull final Result<StepContent> callback) {
         if (isInvalidContext(getContext(), callback)) return;
         if (!isAvailable(callback)) return;
-        if (!InputKitTimeUtils.validateTimeInput(startTime, endTime, callback)) return;
+        if (!validateTimeInput(startTime, endTime, callback)) return;
 
         callWithValidToken(new AccessTokenListener() {
             @Override
@@ -222,12 +235,17 @@ public class GoogleFitHealthProvider extends HealthProvider {
                         .startTime(startTime)
                         .endTime(endTime)
                         .timeInterval(timeInterval)
-                        .limitation(limit <= 0 ? DataReadRequest.NO_LIMIT : limit);
+                        .limitation(limit <= 0 ? DataReadRequest.NO_LIMIT : limit)
+                        .timeout(timeout);
                 // Guard the aggregation data. If limit is not specified then we need to use
                 // data aggregation to optimize query performance.
                 if (limit <= 0) builder.useDataAggregation();
                 Options options = builder.build();
-                mFitHistory.getStepCountDistribution(options, callback);
+                if (progressListener == null) {
+                    mFitHistory.getStepCountDistribution(options, callback);
+                } else {
+                    mFitHistory.getStepCountDistribution(options, progressListener, callback);
+                }
             }
 
             @Override
@@ -238,6 +256,175 @@ public class GoogleFitHealthProvider extends HealthProvider {
         }, SampleType.STEP_COUNT);
     }
 
+    @Override
+    public void getStepCountRollup(final long startTime,
+                                   final long endTime,
+                                   @NonNull final List<String> intervals,
+                                   final long timeout,
+                                   @NonNull final Result<Map<String, StepContent>> callback) {
+        if (isInvalidContext(getContext(), callback)) return;
+        if (!isAvailable(callback)) return;
+        if (!validateTimeInput(startTime, endTime, callback)) return;
+        if (intervals.isEmpty()) {
+            callback.onError(new IKResultInfo(IKStatus.Code.INVALID_REQUEST,
+                    "Intervals must be provided."));
+            return;
+        }
+        for (String interval : intervals) {
+            if (!Interval.isValid(interval)) {
+                callback.onError(new IKResultInfo(IKStatus.Code.INVALID_REQUEST,
+                        "Unknown interval: " + interval + "."));
+                return;
+            }
+        }
+
+        callWithValidToken(new AccessTokenListener() {
+            @Override
+            public void onSuccess() {
+                final List<TimeInterval> timeIntervals = new ArrayList<>(intervals.size());
+                for (String interval : intervals) {
+                    timeIntervals.add(new TimeInterval(interval));
+                }
+                // Rolling up needs the whole history, so it's always read in buckets
+                Options options = new Options.Builder()
+                        .startTime(startTime)
+                        .endTime(endTime)
+                        .timeInterval(RollupDataNormalizer.getFinestInterval(timeIntervals))
+                        .limitation(DataReadRequest.NO_LIMIT)
+                        .timeout(timeout)
+                        .useDataAggregation()
+                        .build();
+                mFitHistory.getStepCountRollup(options, timeIntervals,
+                        new Result<List<StepContent>>() {
+                            @Override
+                            public void onNewData(List<StepContent> data) {
+                                Map<String, StepContent> contents = new LinkedHashMap<>();
+                                for (int i = 0; i < data.size(); i++) {
+                                    contents.put(intervals.get(i), data.get(i));
+                                }
+                                callback.onNewData(contents);
+                            }
+
+                            @Override
+                            public void onError(@NonNull IKResultInfo error) {
+                                callback.onError(error);
+                            }
+                        });
+            }
+
+            @Override
+            public void onFailure(Exception e) {
+                callback.onError(new IKResultInfo(IKStatus.Code.INVALID_REQUEST,
+                        e.getMessage()));
+            }
+        }, SampleType.STEP_COUNT);
+    }
+
+    @Override
+    public void getDistance(final long startTime,
+                            final long endTime,
+                            final int limit,
+                            final long timeout,
+                            @NonNull final Result<Float> callback) {
+        if (isInvalidContext(getContext(), callback)) return;
+        if (!isAvailable(callback)) return;
+        if (!validateTimeInput(startTime, endTime, callback)) return;
+
+        callWithValidToken(new AccessTokenListener() {
+            @Override
+            public void onSuccess() {
+                Options.Builder builder = new Options.Builder()
+                        .startTime(startTime)
+                        .endTime(endTime)
+                        .limitation(limit <= 0 ? DataReadRequest.NO_LIMIT : limit)
+                        .timeout(timeout);
+                // Guard the aggregation data. If limit is not specified then we need to use
+                // data aggregation to optimize query performance.
+                if (limit <= 0) builder.useDataAggregation();
+                Options options = builder.build();
+                mFitHistory.getDistance(options, callback);
+            }
+
+            @Override
+            public void onFailure(Exception e) {
+                callback.onError(new IKResultInfo(IKStatus.Code.INVALID_REQUEST,
+                        e.getMessage()));
+            }
+        }, SampleType.DISTANCE_WALKING_RUNNING);
+    }
+
+    @Override
+    public void getDistanceDistribution(final long startTime,
+                                        final long endTime,
+                                        @NonNull @Interval.IntervalName final String interval,
+                                        final int limit,
+                                        final long timeout,
+                                        @NonNull final Result<DistanceContent> callback) {
+        if (isInvalidContext(getContext(), callback)) return;
+        if (!isAvailable(callback)) return;
+        if (!validateTimeInput(startTime, endTime, callback)) return;
+
+        callWithValidToken(new AccessTokenListener() {
+            @Override
+            public void onSuccess() {
+                TimeInterval timeInterval = new TimeInterval(interval);
+                Options.Builder builder = new Options.Builder()
+                        .startTime(startTime)
+                        .endTime(endTime)
+                        .timeInterval(timeInterval)
+                        .limitation(limit <= 0 ? DataReadRequest.NO_LIMIT : limit)
+                        .timeout(timeout);
+                // Guard the aggregation data. If limit is not specified then we need to use
+                // data aggregation to optimize query performance.
+                if (limit <= 0) builder.useDataAggregation();
+                Options options = builder.build();
+                mFitHistory.getDistanceDistribution(options, callback);
+            }
+
+            @Override
+            public void onFailure(Exception e) {
+                callback.onError(new IKResultInfo(IKStatus.Code.INVALID_REQUEST,
+                        e.getMessage()));
+            }
+        }, SampleType.DISTANCE_WALKING_RUNNING);
+    }
+
+    @Override
+    public void getWeightDistribution(final long startTime,
+                                      final long endTime,
+                                      @NonNull @Interval.IntervalName final String interval,
+                                      @NonNull @Summary.SummaryName final String summary,
+                                      final long timeout,
+                                      @NonNull final Result<WeightContent> callback) {
+        if (isInvalidContext(getContext(), callback)) return;
+        if (!isAvailable(callback)) return;
+        if (!validateTimeInput(startTime, endTime, callback)) return;
+
+        callWithValidToken(new AccessTokenListener() {
+            @Override
+            public void onSuccess() {
+                TimeInterval timeInterval = new TimeInterval(interval);
+                Options.Builder builder = new Options.Builder()
+                        .startTime(startTime)
+                        .endTime(endTime)
+                        .timeInterval(timeInterval)
+                        .limitation(DataReadRequest.NO_LIMIT)
+                        .timeout(timeout);
+                // Weight summaries keep multi-year queries cheap, but they can't tell
+                // the last measurement of a bucket.
+                if (!Summary.LAST.equals(summary)) builder.useDataAggregation();
+                Options options = builder.build();
+                mFitHistory.getWeightDistribution(options, summary, callback);
+            }
+
+            @Override
+            public void onFailure(Exception e) {
+                callback.onError(new IKResultInfo(IKStatus.Code.INVALID_REQUEST,
+                        e.getMessage()));
+            }
+        }, SampleType.WEIGHT);
+    }
+
     @Override
     public void startMonitoring(@NonNull @SampleType.SampleName final String sensorType,
                                 @NonNull final Pair<Integer, TimeUnit> samplingRate,
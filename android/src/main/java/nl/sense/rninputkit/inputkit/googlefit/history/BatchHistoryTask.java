@@ -0,0 +1,168 @@
+package nl.sense.rninputkit.inputkit.googlefit.history;
+
+import android.util.Pair;
+
+import com.google.android.gms.fitness.data.DataType;
+import com.google.android.gms.fitness.result.DataReadResponse;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import nl.sense.rninputkit.inputkit.Options;
+import nl.sense.rninputkit.inputkit.entity.TimeSeries;
+
+/**
+ * History task of several data types for the same time period.
+ * Every request chunk reads all of the data types within a single request, so the number of Fit
+ * reads doesn't grow with the number of data types. Data sets of the responses are routed into
+ * their own {@link HistoryChannel}.
+ * Result holds a normalized time series of every channel, in the same order as the channels.
+ */
+class BatchHistoryTask extends HistoryTaskFactory<List<TimeSeries>> {
+    private List<HistoryChannel<?>> channels;
+
+    private BatchHistoryTask(IFitReader fitDataReader,
+                             long[] safeRequests,
+                             Options options,
+                             List<HistoryChannel<?>> channels,
+                             OnCompleteListener<List<TimeSeries>> onCompleteListener,
+                             OnFailureListener onFailureListener) {
+        super(fitDataReader,
+            safeRequests,
+            options,
+            getDataTypes(channels),
+            getAggregateTypes(channels),
+            onCompleteListener,
+            onFailureListener
+        );
+        this.channels = channels;
+    }
+
+    @Override
+    protected List<TimeSeries> getValues(List<DataReadResponse> responses) {
+        List<DataReadResponse> successfulResponses = new ArrayList<>();
+        boolean hasUnsuccessfulResponse = false;
+        if (responses != null) {
+            for (DataReadResponse response : responses) {
+                if (response.getStatus().isSuccess()) successfulResponses.add(response);
+                else hasUnsuccessfulResponse = true;
+            }
+        }
+
+        boolean isPartial = hasFailedRequests() || hasUnsuccessfulResponse;
+        List<TimeSeries> values = new ArrayList<>(channels.size());
+        for (HistoryChannel<?> channel : channels) {
+            TimeSeries normalized = getValues(channel, successfulResponses);
+            normalized.setPartial(isPartial);
+            normalized.setDeadlineExceeded(isDeadlineExceeded());
+            values.add(normalized);
+        }
+        return values;
+    }
+
+    /**
+     * Extract and normalize history of a single channel
+     * @param channel   {@link HistoryChannel}
+     * @param responses Successful responses
+     * @param <S>       Type of time series
+     * @return Normalized time series
+     */
+    private <S extends TimeSeries> S getValues(HistoryChannel<S> channel,
+                                               List<DataReadResponse> responses) {
+        S fitValues = channel.newSeries();
+        for (DataReadResponse response : responses) {
+            channel.extract(response, isUseDataAggregation(), fitValues);
+        }
+        return channel.normalize(options.getStartTime(), options.getEndTime(),
+                fitValues, options.getTimeInterval());
+    }
+
+    private static List<DataType> getDataTypes(List<HistoryChannel<?>> channels) {
+        List<DataType> dataTypes = new ArrayList<>(channels.size());
+        for (HistoryChannel<?> channel : channels) {
+            dataTypes.add(channel.getDataType());
+        }
+        return dataTypes;
+    }
+
+    private static List<Pair<?, DataType>> getAggregateTypes(List<HistoryChannel<?>> channels) {
+        List<Pair<?, DataType>> aggregateTypes = new ArrayList<>(channels.size());
+        for (HistoryChannel<?> channel : channels) {
+            aggregateTypes.add(channel.getAggregateType());
+        }
+        return aggregateTypes;
+    }
+
+    static class Builder {
+        private IFitReader fitDataReader;
+        private long[] safeRequests;
+        private long[] bucketLengths;
+        private Options options;
+        private List<HistoryChannel<?>> channels = new ArrayList<>();
+        private RequestPlanModel requestPlanModel;
+        private OnCompleteListener<List<TimeSeries>> onCompleteListener;
+        private OnFailureListener onFailureListener;
+
+        Builder withFitDataReader(IFitReader fitDataReader) {
+            this.fitDataReader = fitDataReader;
+            return this;
+        }
+
+        Builder addRequestPlan(SafeRequestHandler.RequestPlan requestPlan) {
+            this.safeRequests = requestPlan.getBoundaries();
+            this.bucketLengths = requestPlan.getBucketLengths();
+            return this;
+        }
+
+        Builder addOptions(Options options) {
+            this.options = options;
+            return this;
+        }
+
+        Builder addChannel(HistoryChannel<?> channel) {
+            this.channels.add(channel);
+            return this;
+        }
+
+        Builder withRequestPlanModel(RequestPlanModel requestPlanModel) {
+            this.requestPlanModel = requestPlanModel;
+            return this;
+        }
+
+        Builder addOnCompleteListener(OnCompleteListener<List<TimeSeries>> onCompleteListener) {
+            this.onCompleteListener = onCompleteListener;
+            return this;
+        }
+
+        Builder addOnFailureListener(OnFailureListener onFailureListener) {
+            this.onFailureListener = onFailureListener;
+            return this;
+        }
+
+        private void validate() {
+            if (fitDataReader == null)
+                throw new IllegalStateException("Fit history must be provided.");
+            if (safeRequests == null)
+                throw new IllegalStateException("Time requests must be provided.");
+            if (channels.isEmpty())
+                throw new IllegalStateException("History channels must be provided.");
+            if (options == null)
+                throw new IllegalStateException("Options history must be provided.");
+        }
+
+        BatchHistoryTask build() {
+            validate();
+            BatchHistoryTask task = new BatchHistoryTask(
+                    fitDataReader,
+                    safeRequests,
+                    options,
+                    channels,
+                    onCompleteListener,
+                    onFailureListener
+            );
+            task.setRequestPlanModel(requestPlanModel);
+            task.setBucketLengths(bucketLengths);
+            return task;
+        }
+    }
+}
@@ -0,0 +1,186 @@
+package nl.sense.rninputkit.inputkit.googlefit.history;
+
+import androidx.annotation.Nullable;
+import android.util.Pair;
+
+import com.google.android.gms.fitness.data.DataPoint;
+import com.google.android.gms.fitness.data.DataType;
+import com.google.android.gms.fitness.result.DataReadResponse;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import nl.sense.rninputkit.inputkit.Options;
+import nl.sense.rninputkit.inputkit.entity.Distance;
+import nl.sense.rninputkit.inputkit.entity.DistanceContent;
+import nl.sense.rninputkit.inputkit.entity.FloatTimeSeries;
+
+/**
+ * History task of walking and running distance in meters.
+ * Distance deltas are extracted into a {@link FloatTimeSeries} and normalized by
+ * {@link FloatDataNormalizer}, so no input kit value is created per data point.
+ */
+class DistanceHistoryTask extends HistoryTaskFactory<FloatTimeSeries> {
+    private FloatDataNormalizer normalizer = new FloatDataNormalizer();
+    private ExactDataNormalizer exactNormalizer = new ExactDataNormalizer();
+    private HistoryExtractor<Float> extractor = new HistoryExtractor<Float>() {
+        @Override
+        protected Float getDataPointValue(@Nullable DataPoint dataPoint) {
+            return this.asFloat(dataPoint);
+        }
+    };
+
+    private DistanceHistoryTask(IFitReader fitDataReader,
+                                long[] safeRequests,
+                                Options options,
+                                DataType dataTypeRequest,
+                                Pair<?, DataType> aggregateType,
+                                OnCompleteListener<FloatTimeSeries> onCompleteListener,
+                                OnFailureListener onFailureListener) {
+        super(fitDataReader,
+            safeRequests,
+            options,
+            dataTypeRequest,
+            aggregateType,
+            onCompleteListener,
+            onFailureListener
+        );
+    }
+
+    @Override
+    protected FloatTimeSeries getValues(List<DataReadResponse> responses) {
+        FloatTimeSeries fitValues = new FloatTimeSeries();
+        boolean hasUnsuccessfulResponse = false;
+        if (responses != null) {
+            for (DataReadResponse response : responses) {
+                if (!response.getStatus().isSuccess()) {
+                    hasUnsuccessfulResponse = true;
+                    continue;
+                }
+
+                // extract value history
+                extractor.extractHistory(response, isUseDataAggregation(), fitValues);
+            }
+        }
+        FloatTimeSeries normalized = options.isExactDistribution()
+                ? exactNormalizer.normalize(options.getStartTime(), options.getEndTime(),
+                        fitValues, options.getTimeInterval())
+                : normalizer.normalize(options.getStartTime(), options.getEndTime(),
+                        fitValues, options.getTimeInterval());
+        normalized.setPartial(hasFailedRequests() || hasUnsuccessfulResponse);
+        normalized.setDeadlineExceeded(isDeadlineExceeded());
+        return normalized;
+    }
+
+    /**
+     * Convert distance time series into distance content
+     * @param values    distance time series
+     * @param startTime start time of content
+     * @param endTime   end time of content
+     * @return Distance content
+     */
+    public static DistanceContent toDistanceContent(FloatTimeSeries values,
+                                                    long startTime,
+                                                    long endTime) {
+        List<Distance> distances = new ArrayList<>(values == null ? 0 : values.size());
+        if (values != null) {
+            for (int i = 0; i < values.size(); i++) {
+                distances.add(new Distance(
+                        values.getValue(i),
+                        values.getStartTime(i),
+                        values.getEndTime(i))
+                );
+            }
+        }
+        DistanceContent content = new DistanceContent(
+                true,
+                startTime,
+                endTime,
+                distances
+        );
+        content.setPartial(values != null && values.isPartial());
+        return content;
+    }
+
+    static class Builder {
+        private IFitReader fitDataReader;
+        private long[] safeRequests;
+        private long[] bucketLengths;
+        private Options options;
+        private DataType dataTypeRequest;
+        private Pair<?, DataType> aggregateType;
+        private RequestPlanModel requestPlanModel;
+        private OnCompleteListener<FloatTimeSeries> onCompleteListener;
+        private OnFailureListener onFailureListener;
+
+        Builder withFitDataReader(IFitReader fitDataReader) {
+            this.fitDataReader = fitDataReader;
+            return this;
+        }
+
+        Builder addRequestPlan(SafeRequestHandler.RequestPlan requestPlan) {
+            this.safeRequests = requestPlan.getBoundaries();
+            this.bucketLengths = requestPlan.getBucketLengths();
+            return this;
+        }
+
+        Builder addOptions(Options options) {
+            this.options = options;
+            return this;
+        }
+
+        Builder addDataType(DataType dataTypeRequest) {
+            this.dataTypeRequest = dataTypeRequest;
+            return this;
+        }
+
+        Builder addAggregateSourceType(Pair<?, DataType> aggregateType) {
+            this.aggregateType = aggregateType;
+            return this;
+        }
+
+        Builder withRequestPlanModel(RequestPlanModel requestPlanModel) {
+            this.requestPlanModel = requestPlanModel;
+            return this;
+        }
+
+        Builder addOnCompleteListener(OnCompleteListener<FloatTimeSeries> onCompleteListener) {
+            this.onCompleteListener = onCompleteListener;
+            return this;
+        }
+
+        Builder addOnFailureListener(OnFailureListener onFailureListener) {
+            this.onFailureListener = onFailureListener;
+            return this;
+        }
+
+        private void validate() {
+            if (fitDataReader == null)
+                throw new IllegalStateException("Fit history must be provided.");
+            if (safeRequests == null)
+                throw new IllegalStateException("Time requests must be provided.");
+            if (dataTypeRequest == null)
+                throw new IllegalStateException("Data type request must be provided.");
+            if (aggregateType == null)
+                throw new IllegalStateException("Aggregate type must be provided.");
+            if (options == null)
+                throw new IllegalStateException("Options history must be provided.");
+        }
+
+        DistanceHistoryTask build() {
+            validate();
+            DistanceHistoryTask task = new DistanceHistoryTask(
+                    fitDataReader,
+                    safeRequests,
+                    options,
+                    dataTypeRequest,
+                    aggregateType,
+                    onCompleteListener,
+                    onFailureListener
+            );
+            task.setRequestPlanModel(requestPlanModel);
+            task.setBucketLengths(bucketLengths);
+            return task;
+        }
+    }
+}
@@ -1,6 +1,7 @@
 package nl.sense.rninputkit.inputkit.googlefit.history;
 
 import android.content.Context;
+import android.text.TextUtils;
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 import android.util.Pair;
@@ -17,15 +18,29 @@ import com.google.android.gms.tasks.OnFailureListener;
 import com.google.android.gms.tasks.OnSuccessListener;
 import com.google.android.gms.tasks.Task;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.TimeZone;
+import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
 
+import nl.sense.rninputkit.inputkit.InputKit.ProgressListener;
 import nl.sense.rninputkit.inputkit.InputKit.Result;
 import nl.sense.rninputkit.inputkit.Options;
 import nl.sense.rninputkit.inputkit.constant.IKStatus;
+import nl.sense.rninputkit.inputkit.constant.Summary;
+import nl.sense.rninputkit.inputkit.entity.DistanceContent;
+import nl.sense.rninputkit.inputkit.entity.FloatTimeSeries;
 import nl.sense.rninputkit.inputkit.entity.IKValue;
+import nl.sense.rninputkit.inputkit.entity.IntTimeSeries;
 import nl.sense.rninputkit.inputkit.entity.StepContent;
 import nl.sense.rninputkit.inputkit.entity.TimeInterval;
+import nl.sense.rninputkit.inputkit.entity.TimeSeries;
+import nl.sense.rninputkit.inputkit.entity.WeightContent;
 import nl.sense.rninputkit.inputkit.status.IKResultInfo;
 
 /**
@@ -35,14 +50,33 @@ import nl.sense.rninputkit.inputkit.status.IKResultInfo;
 @SuppressWarnings("SpellCheckingInspection")
 public class FitHistory implements IFitReader {
     private Context mContext;
-    private SafeRequestHandler mSafeRequestHandler;
+    private HistoryCache mHistoryCache;
+    private HistoryResultCache<IntTimeSeries> mStepCountResultCache = new HistoryResultCache<>();
+    private final Map<String, RequestPlanModel> mRequestPlanModels = new HashMap<>();
+    private volatile SafeRequestHandler.RequestPlan mLastRequestPlan;
 
     public FitHistory(@NonNull Context context) {
         this.mContext = context;
-        this.mSafeRequestHandler = new SafeRequestHandler();
+        this.mHistoryCache = HistoryCache.getInstance(context);
     }
 
 
+    /**
+     * Remove all cached history, eg. when user is disconnected from Fit.
+     */
+    public void clearCache() {
+        HistoryExecutor.getInstance().execute(new Runnable() {
+            @Override
+            public void run() {
+                mHistoryCache.clear();
+                for (String name : getRequestPlanModelNames()) {
+                    getRequestPlanModel(name).clear();
+                }
+            }
+        });
+        mStepCountResultCache.clear();
+    }
+
     /**
      * Get daily total step count.
      *
@@ -73,28 +107,39 @@ public class FitHistory implements IFitReader {
     }
 
     /**
-     * Get total steps count of specific range
+     * Get total steps count of specific range.
+     * Total of a partial history would be misleading, so it's reported as
+     * {@link IKStatus.Code#DEADLINE_EXCEEDED} once the deadline of given options is exceeded.
      *
      * @param options  Steps count options
      * @param callback {@link Result <Integer>} containing number of total steps count
+     * @return Cancellable handle of the history task
      */
     @SuppressWarnings("unused")//This is a public API
-    public void getStepCount(@NonNull final Options options,
+    public Future<?> getStepCount(@NonNull final Options options,
                              @NonNull final Result<Integer> callback) {
         // Invoke the History API to fetch the data with the query and await the result of
         // the read request.
-        List<Pair<Long, Long>> safeRequests = mSafeRequestHandler.getSafeRequest(options.getStartTime(),
-                options.getEndTime(), options.getTimeInterval());
-        new StepCountHistoryTask.Builder()
+        RequestPlanModel requestPlanModel = getRequestPlanModel(DataType.TYPE_STEP_COUNT_DELTA);
+        SafeRequestHandler.RequestPlan requestPlan = getRequestPlan(options, requestPlanModel);
+        return new StepCountHistoryTask.Builder()
                 .withFitDataReader(this)
-                .addSafeRequests(safeRequests)
+                .addRequestPlan(requestPlan)
                 .addOptions(options)
                 .addDataType(DataType.TYPE_STEP_COUNT_DELTA)
                 .addAggregateSourceType(Pair.create(getFitStepCountDataSource(), DataType.AGGREGATE_STEP_COUNT_DELTA))
-                .addOnCompleteListener(new HistoryTaskFactory.OnCompleteListener<Integer>() {
+                .withHistoryCache(mHistoryCache)
+                .withRequestPlanModel(requestPlanModel)
+                .addOnCompleteListener(new HistoryTaskFactory.OnCompleteListener<IntTimeSeries>() {
                     @Override
-                    public void onComplete(List<IKValue<Integer>> result) {
-                        callback.onNewData(IKValue.getTotalIntegers(result));
+                    public void onComplete(IntTimeSeries result) {
+                        // Totals of failed requests are kept as they used to be
+                        if (result.isDeadlineExceeded()) {
+                            callback.onError(new IKResultInfo(IKStatus.Code.DEADLINE_EXCEEDED,
+                                    IKStatus.INPUT_KIT_DEADLINE_EXCEEDED));
+                            return;
+                        }
+                        callback.onNewData(result.getTotal());
                     }
                 })
                 .addOnFailureListener(new HistoryTaskFactory.OnFailureListener() {
@@ -113,30 +158,235 @@ public class FitHistory implements IFitReader {
      * This function should be called within asynchronous process because of
      * reading historical data through {@link Fitness#HistoryApi} will be executed on main
      * thread by default.
+     * Identical queries which are fired at about the same time share a single history task.
+     * When the deadline of given options is exceeded, history which has been read so far is
+     * returned as a partial {@link StepContent}.
      *
      * @param options  Steps count options
      * @param callback {@link Result} containing a set of step content
+     * @return Cancellable handle of this query, the history task which is shared by identical
+     *         queries is cancelled once all of them are. It's null when the result is served
+     *         from cache.
      */
     @SuppressWarnings("unused")//This is a public API
-    public void getStepCountDistribution(@NonNull final Options options,
+    public Future<?> getStepCountDistribution(@NonNull final Options options,
                                          @NonNull final Result<StepContent> callback) {
+        return getStepCountHistory(options,
+                new HistoryTaskFactory.OnCompleteListener<IntTimeSeries>() {
+                    @Override
+                    public void onComplete(IntTimeSeries result) {
+                        StepContent content = StepCountHistoryTask.toStepContent(result,
+                                options.getStartTime(), options.getEndTime());
+                        callback.onNewData(content);
+                    }
+                },
+                new HistoryTaskFactory.OnFailureListener() {
+                    @Override
+                    public void onFailure(List<Exception> exceptions) {
+                        callback.onError(new IKResultInfo(IKStatus.Code.INVALID_REQUEST,
+                                exceptions.get(0).getMessage()));
+                    }
+                });
+    }
+
+    /**
+     * Get step count history of several resolutions at once, eg. minutes, hours and days of
+     * a summary screen. History is read and normalized only once, at the time interval of
+     * given options, which must be the finest one of the requested intervals. Every coarser
+     * resolution is rolled up out of it by {@link RollupDataNormalizer}.
+     * The finest history is shared with identical {@link #getStepCountDistribution} queries.
+     *
+     * @param options   Steps count options, at the finest time interval
+     * @param intervals Requested time intervals
+     * @param callback  {@link Result} containing step content of every interval, in order of
+     *                  the requested intervals
+     * @return Cancellable handle of this query, the history task which is shared by identical
+     *         queries is cancelled once all of them are. It's null when the result is served
+     *         from cache, or when options aren't at the finest interval, which is reported
+     *         to given callback as {@link IKStatus.Code#INVALID_REQUEST}.
+     */
+    @SuppressWarnings("unused")//This is a public API
+    public Future<?> getStepCountRollup(@NonNull final Options options,
+                                        @NonNull final List<TimeInterval> intervals,
+                                        @NonNull final Result<List<StepContent>> callback) {
+        if (!options.getTimeInterval().equals(RollupDataNormalizer.getFinestInterval(intervals))) {
+            callback.onError(new IKResultInfo(IKStatus.Code.INVALID_REQUEST,
+                    "Options must be at the finest requested interval."));
+            return null;
+        }
+        return getStepCountHistory(options,
+                new HistoryTaskFactory.OnCompleteListener<IntTimeSeries>() {
+                    @Override
+                    public void onComplete(IntTimeSeries result) {
+                        List<IntTimeSeries> resolutions = new RollupDataNormalizer().rollup(
+                                options.getStartTime(), options.getEndTime(), result, intervals);
+                        List<StepContent> contents = new ArrayList<>(resolutions.size());
+                        for (IntTimeSeries resolution : resolutions) {
+                            contents.add(StepCountHistoryTask.toStepContent(resolution,
+                                    options.getStartTime(), options.getEndTime()));
+                        }
+                        callback.onNewData(contents);
+                    }
+                },
+                new HistoryTaskFactory.OnFailureListener() {
+                    @Override
+                    public void onFailure(List<Exception> exceptions) {
+                        callback.onError(new IKResultInfo(IKStatus.Code.INVALID_REQUEST,
+                                exceptions.get(0).getMessage()));
+                    }
+                });
+    }
+
+    /**
+     * Read normalized step count history. Identical queries which are fired at about the same
+     * time share a single history task. The shared result is kept untouched, every caller gets
+     * its own copy with the limitation of given options applied.
+     *
+     * @param options           Steps count options
+     * @param onCompleteListener Listener of normalized step count
+     * @param onFailureListener Listener of failed history requests
+     * @return Cancellable handle of this query. Cancelling it detaches given listeners, the
+     *         shared history task is cancelled only once every identical query is cancelled.
+     *         It's null when the result is served from cache.
+     */
+    private Future<?> getStepCountHistory(
+            @NonNull final Options options,
+            @NonNull final HistoryTaskFactory.OnCompleteListener<IntTimeSeries> onCompleteListener,
+            @NonNull HistoryTaskFactory.OnFailureListener onFailureListener) {
+        final String key = getQueryKey(options);
+        HistoryResultCache<IntTimeSeries>.Subscription subscription = mStepCountResultCache.enqueue(
+                key,
+                new HistoryTaskFactory.OnCompleteListener<IntTimeSeries>() {
+                    @Override
+                    public void onComplete(IntTimeSeries result) {
+                        onCompleteListener.onComplete(
+                                applyLimitation(options.getLimitation(), result.copy()));
+                    }
+                },
+                onFailureListener);
+        // Identical query is either cached or in-flight
+        if (subscription == null || !subscription.isNewQuery()) return subscription;
+
         // Invoke the History API to fetch the data with the query and await the result of
         // the read request.
-        List<Pair<Long, Long>> safeRequests = mSafeRequestHandler.getSafeRequest(options.getStartTime(),
-                options.getEndTime(), options.getTimeInterval());
-        new StepCountHistoryTask.Builder()
+        RequestPlanModel requestPlanModel = getRequestPlanModel(DataType.TYPE_STEP_COUNT_DELTA);
+        SafeRequestHandler.RequestPlan requestPlan = getRequestPlan(options, requestPlanModel);
+        Future<?> future = new StepCountHistoryTask.Builder()
+                .withFitDataReader(this)
+                .addRequestPlan(requestPlan)
+                .addOptions(options)
+                .addDataType(DataType.TYPE_STEP_COUNT_DELTA)
+                .addAggregateSourceType(Pair.create(getFitStepCountDataSource(), DataType.AGGREGATE_STEP_COUNT_DELTA))
+                .withHistoryCache(mHistoryCache)
+                .withRequestPlanModel(requestPlanModel)
+                .addOnCompleteListener(new HistoryTaskFactory.OnCompleteListener<IntTimeSeries>() {
+                    @Override
+                    public void onComplete(IntTimeSeries result) {
+                        // Partial result is not shared, next query might read the whole history
+                        mStepCountResultCache.complete(key, result, !result.isPartial());
+                    }
+                })
+                .addOnFailureListener(new HistoryTaskFactory.OnFailureListener() {
+                    @Override
+                    public void onFailure(List<Exception> exceptions) {
+                        mStepCountResultCache.fail(key, exceptions);
+                    }
+                })
+                .build()
+                .start();
+        mStepCountResultCache.setInFlight(key, future);
+        return subscription;
+    }
+
+    /**
+     * Get distribution step count history by specific time period, while step count of every
+     * history request is published as soon as it's read, starting from the most recent one.
+     * Streaming queries are not coalesced with identical ones, since joined callers would miss
+     * the progress which is already published.
+     *
+     * @param options          Steps count options
+     * @param progressListener {@link ProgressListener} of partial step content. Partial content is
+     *                         a preview only, buckets which are crossing the boundary of history
+     *                         requests are incomplete.
+     * @param callback         {@link Result} containing a set of step content, which is identical
+     *                         with the one of {@link #getStepCountDistribution(Options, Result)}
+     * @return Cancellable handle of the history task
+     */
+    @SuppressWarnings("unused")//This is a public API
+    public Future<?> getStepCountDistribution(@NonNull final Options options,
+                                         @NonNull final ProgressListener<StepContent> progressListener,
+                                         @NonNull final Result<StepContent> callback) {
+        RequestPlanModel requestPlanModel = getRequestPlanModel(DataType.TYPE_STEP_COUNT_DELTA);
+        SafeRequestHandler.RequestPlan requestPlan = getRequestPlan(options, requestPlanModel);
+        return new StepCountHistoryTask.Builder()
                 .withFitDataReader(this)
-                .addSafeRequests(safeRequests)
+                .addRequestPlan(requestPlan)
                 .addOptions(options)
                 .addDataType(DataType.TYPE_STEP_COUNT_DELTA)
                 .addAggregateSourceType(Pair.create(getFitStepCountDataSource(), DataType.AGGREGATE_STEP_COUNT_DELTA))
-                .addOnCompleteListener(new HistoryTaskFactory.OnCompleteListener<Integer>() {
+                .withHistoryCache(mHistoryCache)
+                .withRequestPlanModel(requestPlanModel)
+                .addOnProgressListener(new HistoryTaskFactory.OnProgressListener<IntTimeSeries>() {
+                    @Override
+                    public void onProgress(IntTimeSeries values,
+                                           int completedRequests,
+                                           int totalRequests) {
+                        if (values.isEmpty()) return;
+                        StepContent content = StepCountHistoryTask.toStepContent(values,
+                                values.getStartTime(0), values.getEndTime(values.size() - 1));
+                        content.setPartial(true);
+                        progressListener.onProgress(content, completedRequests, totalRequests);
+                    }
+                })
+                .addOnCompleteListener(new HistoryTaskFactory.OnCompleteListener<IntTimeSeries>() {
                     @Override
-                    public void onComplete(List<IKValue<Integer>> result) {
-                        StepContent content = StepCountHistoryTask.toStepContent(
+                    public void onComplete(IntTimeSeries result) {
+                        callback.onNewData(StepCountHistoryTask.toStepContent(
                                 applyLimitation(options.getLimitation(), result),
-                                options.getStartTime(), options.getEndTime());
-                        callback.onNewData(content);
+                                options.getStartTime(), options.getEndTime()));
+                    }
+                })
+                .addOnFailureListener(new HistoryTaskFactory.OnFailureListener() {
+                    @Override
+                    public void onFailure(List<Exception> exceptions) {
+                        callback.onError(new IKResultInfo(IKStatus.Code.INVALID_REQUEST,
+                                exceptions.get(0).getMessage()));
+                    }
+                })
+                .build()
+                .start();
+    }
+
+    /**
+     * Get total walking and running distance of specific range in meters.
+     * Total of a partial history would be misleading, so it's reported as
+     * {@link IKStatus.Code#DEADLINE_EXCEEDED} once the deadline of given options is exceeded.
+     *
+     * @param options  Distance options
+     * @param callback {@link Result} containing total distance
+     * @return Cancellable handle of the history task
+     */
+    @SuppressWarnings("unused")//This is a public API
+    public Future<?> getDistance(@NonNull final Options options,
+                                 @NonNull final Result<Float> callback) {
+        RequestPlanModel requestPlanModel = getRequestPlanModel(DataType.TYPE_DISTANCE_DELTA);
+        SafeRequestHandler.RequestPlan requestPlan = getRequestPlan(options, requestPlanModel);
+        return new DistanceHistoryTask.Builder()
+                .withFitDataReader(this)
+                .addRequestPlan(requestPlan)
+                .addOptions(options)
+                .addDataType(DataType.TYPE_DISTANCE_DELTA)
+                .addAggregateSourceType(getDistanceAggregateType())
+                .withRequestPlanModel(requestPlanModel)
+                .addOnCompleteListener(new HistoryTaskFactory.OnCompleteListener<FloatTimeSeries>() {
+                    @Override
+                    public void onComplete(FloatTimeSeries result) {
+                        if (result.isDeadlineExceeded()) {
+                            callback.onError(new IKResultInfo(IKStatus.Code.DEADLINE_EXCEEDED,
+                                    IKStatus.INPUT_KIT_DEADLINE_EXCEEDED));
+                            return;
+                        }
+                        callback.onNewData(result.getTotal());
                     }
                 })
                 .addOnFailureListener(new HistoryTaskFactory.OnFailureListener() {
@@ -150,6 +400,251 @@ public class FitHistory implements IFitReader {
                 .start();
     }
 
+    /**
+     * Get distribution of walking and running distance by specific time period.
+     * When the deadline of given options is exceeded, history which has been read so far is
+     * returned as a partial {@link DistanceContent}.
+     *
+     * @param options  Distance options
+     * @param callback {@link Result} containing a set of distance content
+     * @return Cancellable handle of the history task
+     */
+    @SuppressWarnings("unused")//This is a public API
+    public Future<?> getDistanceDistribution(@NonNull final Options options,
+                                             @NonNull final Result<DistanceContent> callback) {
+        RequestPlanModel requestPlanModel = getRequestPlanModel(DataType.TYPE_DISTANCE_DELTA);
+        SafeRequestHandler.RequestPlan requestPlan = getRequestPlan(options, requestPlanModel);
+        return new DistanceHistoryTask.Builder()
+                .withFitDataReader(this)
+                .addRequestPlan(requestPlan)
+                .addOptions(options)
+                .addDataType(DataType.TYPE_DISTANCE_DELTA)
+                .addAggregateSourceType(getDistanceAggregateType())
+                .withRequestPlanModel(requestPlanModel)
+                .addOnCompleteListener(new HistoryTaskFactory.OnCompleteListener<FloatTimeSeries>() {
+                    @Override
+                    public void onComplete(FloatTimeSeries result) {
+                        callback.onNewData(DistanceHistoryTask.toDistanceContent(
+                                applyLimitation(options.getLimitation(), result),
+                                options.getStartTime(), options.getEndTime()));
+                    }
+                })
+                .addOnFailureListener(new HistoryTaskFactory.OnFailureListener() {
+                    @Override
+                    public void onFailure(List<Exception> exceptions) {
+                        callback.onError(new IKResultInfo(IKStatus.Code.INVALID_REQUEST,
+                                exceptions.get(0).getMessage()));
+                    }
+                })
+                .build()
+                .start();
+    }
+
+    /**
+     * Get distribution of weight by specific time period, where every time window holds a summary
+     * of its weight measurements. Time windows without any measurement are left out.
+     * Aggregated options read {@link DataType#AGGREGATE_WEIGHT_SUMMARY} buckets, which can't tell
+     * the last measurement of a bucket, so {@link Summary#LAST} should be read without aggregation.
+     *
+     * @param options  Weight options
+     * @param summary  {@link Summary.SummaryName} of time windows
+     * @param callback {@link Result} containing a set of weight content
+     * @return Cancellable handle of the history task
+     */
+    @SuppressWarnings("unused")//This is a public API
+    public Future<?> getWeightDistribution(@NonNull final Options options,
+                                           @NonNull @Summary.SummaryName String summary,
+                                           @NonNull final Result<WeightContent> callback) {
+        RequestPlanModel requestPlanModel = getRequestPlanModel(DataType.TYPE_WEIGHT);
+        SafeRequestHandler.RequestPlan requestPlan = getRequestPlan(options, requestPlanModel);
+        return new WeightHistoryTask.Builder()
+                .withFitDataReader(this)
+                .addRequestPlan(requestPlan)
+                .addOptions(options)
+                .addDataType(DataType.TYPE_WEIGHT)
+                .addAggregateSourceType(Pair.create(DataType.TYPE_WEIGHT, DataType.AGGREGATE_WEIGHT_SUMMARY))
+                .withRequestPlanModel(requestPlanModel)
+                .addSummary(summary)
+                .addOnCompleteListener(new HistoryTaskFactory.OnCompleteListener<FloatTimeSeries>() {
+                    @Override
+                    public void onComplete(FloatTimeSeries result) {
+                        callback.onNewData(WeightHistoryTask.toWeightContent(
+                                applyLimitation(options.getLimitation(), result),
+                                options.getStartTime(), options.getEndTime()));
+                    }
+                })
+                .addOnFailureListener(new HistoryTaskFactory.OnFailureListener() {
+                    @Override
+                    public void onFailure(List<Exception> exceptions) {
+                        callback.onError(new IKResultInfo(IKStatus.Code.INVALID_REQUEST,
+                                exceptions.get(0).getMessage()));
+                    }
+                })
+                .build()
+                .start();
+    }
+
+    /**
+     * Get distribution history of several data types for the same time period.
+     * Every history request reads all of the given data types at once, instead of a separate set
+     * of history requests per data type. Supported data types are
+     * {@link DataType#TYPE_STEP_COUNT_DELTA} and {@link DataType#TYPE_DISTANCE_DELTA}.
+     *
+     * @param options   History options
+     * @param dataTypes Fitness data types
+     * @param callback  {@link Result} containing normalized time series of every data type,
+     *                  in the same order as the given data types. Time series are either
+     *                  {@link IntTimeSeries} or {@link FloatTimeSeries}.
+     * @return Cancellable handle of the history task
+     * @throws IllegalStateException when a data type is not supported
+     */
+    @SuppressWarnings("unused")//This is a public API
+    public Future<?> getHistory(@NonNull final Options options,
+                                @NonNull List<DataType> dataTypes,
+                                @NonNull final Result<List<TimeSeries>> callback) {
+        BatchHistoryTask.Builder builder = new BatchHistoryTask.Builder()
+                .withFitDataReader(this)
+                .addOptions(options);
+        for (DataType dataType : dataTypes) {
+            builder.addChannel(getHistoryChannel(dataType));
+        }
+
+        // Every data type is read within the same requests, so they share a model
+        RequestPlanModel requestPlanModel = getRequestPlanModel(getRequestPlanModelName(dataTypes));
+        SafeRequestHandler.RequestPlan requestPlan = getRequestPlan(options, requestPlanModel);
+        return builder
+                .addRequestPlan(requestPlan)
+                .withRequestPlanModel(requestPlanModel)
+                .addOnCompleteListener(new HistoryTaskFactory.OnCompleteListener<List<TimeSeries>>() {
+                    @Override
+                    public void onComplete(List<TimeSeries> result) {
+                        for (TimeSeries values : result) {
+                            applyLimitation(options.getLimitation(), values);
+                        }
+                        callback.onNewData(result);
+                    }
+                })
+                .addOnFailureListener(new HistoryTaskFactory.OnFailureListener() {
+                    @Override
+                    public void onFailure(List<Exception> exceptions) {
+                        callback.onError(new IKResultInfo(IKStatus.Code.INVALID_REQUEST,
+                                exceptions.get(0).getMessage()));
+                    }
+                })
+                .build()
+                .start();
+    }
+
+    /**
+     * Get in-memory result cache of step count distribution, eg. to read its hit, miss and
+     * coalesced counters.
+     *
+     * @return {@link HistoryResultCache}
+     */
+    public HistoryResultCache<IntTimeSeries> getStepCountResultCache() {
+        return mStepCountResultCache;
+    }
+
+    /**
+     * Get the latest plan of history request chunks, eg. for diagnostics. It tells how history
+     * was routed, see {@link SafeRequestHandler.Strategy}.
+     *
+     * @return {@link SafeRequestHandler.RequestPlan}, or null if nothing has been requested yet.
+     */
+    @Nullable
+    public SafeRequestHandler.RequestPlan getLastRequestPlan() {
+        return mLastRequestPlan;
+    }
+
+    /**
+     * Get observed data density and latency which are used to plan history request chunks of
+     * a data type. Data types have their own density, so each of them has a model of its own.
+     *
+     * @param dataType Fitness data type
+     * @return {@link RequestPlanModel}
+     */
+    public RequestPlanModel getRequestPlanModel(@NonNull DataType dataType) {
+        return getRequestPlanModel(dataType.getName());
+    }
+
+    /**
+     * Get request plan model by name, it's loaded from {@link RequestPlanStore} on first use.
+     * @param name Name of the model
+     * @return {@link RequestPlanModel}
+     */
+    private synchronized RequestPlanModel getRequestPlanModel(@NonNull String name) {
+        RequestPlanModel model = mRequestPlanModels.get(name);
+        if (model == null) {
+            model = new RequestPlanModel(
+                    new RequestPlanStore(mContext.getApplicationContext(), name));
+            mRequestPlanModels.put(name, model);
+        }
+        return model;
+    }
+
+    /**
+     * Get name of the model of several data types which are read within the same requests.
+     * @param dataTypes Fitness data types
+     * @return Model name, which doesn't depend on the order of data types
+     */
+    private static String getRequestPlanModelName(@NonNull List<DataType> dataTypes) {
+        List<String> names = new ArrayList<>(dataTypes.size());
+        for (DataType dataType : dataTypes) {
+            if (!names.contains(dataType.getName())) names.add(dataType.getName());
+        }
+        Collections.sort(names);
+        return TextUtils.join("+", names);
+    }
+
+    /**
+     * @return Names of every request plan model which may have been stored
+     */
+    private static List<String> getRequestPlanModelNames() {
+        List<String> names = new ArrayList<>();
+        names.add(DataType.TYPE_STEP_COUNT_DELTA.getName());
+        names.add(DataType.TYPE_DISTANCE_DELTA.getName());
+        names.add(DataType.TYPE_WEIGHT.getName());
+        names.add(getRequestPlanModelName(Arrays.asList(
+                DataType.TYPE_STEP_COUNT_DELTA, DataType.TYPE_DISTANCE_DELTA)));
+        return names;
+    }
+
+    /**
+     * Split requested time period into chunks which Fit can safely serve, and route every chunk
+     * to either raw or aggregated reads.
+     * @param options          History options
+     * @param requestPlanModel Observations of the requested data type
+     * @return {@link SafeRequestHandler.RequestPlan}
+     */
+    private SafeRequestHandler.RequestPlan getRequestPlan(@NonNull Options options,
+                                                          @NonNull RequestPlanModel requestPlanModel) {
+        SafeRequestHandler.RequestPlan plan = new SafeRequestHandler(requestPlanModel).getRequestPlan(
+                options.getStartTime(),
+                options.getEndTime(),
+                options.getTimeInterval(),
+                options.isUseDataAggregation(),
+                TimeZone.getDefault());
+        mLastRequestPlan = plan;
+        return plan;
+    }
+
+    /**
+     * Get key of a history query
+     * @param options History options
+     * @return Query key
+     */
+    private static String getQueryKey(@NonNull Options options) {
+        TimeInterval interval = options.getTimeInterval();
+        return options.getStartTime()
+                + "|" + options.getEndTime()
+                + "|" + interval.getValue() + " " + interval.getTimeUnit().name()
+                + "|" + options.isUseDataAggregation()
+                + "|" + options.getLimitation()
+                + "|" + options.isIncremental()
+                + "|" + options.getTimeout()
+                + "|" + options.isExactDistribution();
+    }
+
     /**
      * To make sure that returned step count data exactly the same with GoogleFit App
      * we need to define Google Fit data source
@@ -164,34 +659,138 @@ public class FitHistory implements IFitReader {
                 .build();
     }
 
+    /**
+     * Get history channel of a fitness data type, see {@link #getHistory}.
+     * @param dataType Fitness data type
+     * @return {@link HistoryChannel}
+     */
+    private HistoryChannel<?> getHistoryChannel(@NonNull DataType dataType) {
+        if (DataType.TYPE_STEP_COUNT_DELTA.equals(dataType)) {
+            return HistoryChannel.ofInt(DataType.TYPE_STEP_COUNT_DELTA,
+                    Pair.create(getFitStepCountDataSource(), DataType.AGGREGATE_STEP_COUNT_DELTA));
+        }
+        if (DataType.TYPE_DISTANCE_DELTA.equals(dataType)) {
+            return HistoryChannel.ofFloat(DataType.TYPE_DISTANCE_DELTA, getDistanceAggregateType());
+        }
+        throw new IllegalStateException("Unsupported data type " + dataType.getName());
+    }
+
+    /**
+     * Distance is aggregated from every available source of distance deltas
+     * @return Pair of aggregate source and aggregate data type of distance
+     */
+    private static Pair<DataType, DataType> getDistanceAggregateType() {
+        return Pair.create(DataType.TYPE_DISTANCE_DELTA, DataType.AGGREGATE_DISTANCE_DELTA);
+    }
+
     @Override
-    public synchronized Task<DataReadResponse> readHistory(long startTime,
-                                                           long endTime,
-                                                           boolean useDataAggregation,
-                                                           @NonNull TimeInterval timeIntervalAggregator,
-                                                           DataType fitDataType,
-                                                           Pair<?, DataType> typeAggregator) {
-        DataReadRequest.Builder requestBuilder = new DataReadRequest.Builder();
+    public Task<DataReadResponse> readHistory(long startTime,
+                                              long endTime,
+                                              boolean useDataAggregation,
+                                              @NonNull TimeInterval timeIntervalAggregator,
+                                              DataType fitDataType,
+                                              Pair<?, DataType> typeAggregator) {
+        DataReadRequest.Builder requestBuilder;
         if (useDataAggregation) {
-            // The data request can specify multiple data types to return, effectively
-            // combining multiple data queries into one call.
-            // In this example, it's very unlikely that the request is for several hundred
-            // data points each consisting of cumulative distance in meters and a timestamp.
-            // The more likely scenario is wanting to see how many distance were achieved
-            // per day, for several days.
-            if (DataSource.class.isInstance(typeAggregator.first)) {
-                requestBuilder.aggregate((DataSource) typeAggregator.first, typeAggregator.second);
-            } else if (DataType.class.isInstance(typeAggregator.first)) {
-                requestBuilder.aggregate((DataType) typeAggregator.first, typeAggregator.second);
-            } else {
-                throw new IllegalStateException("Unsupported aggregate type");
-            }
+            requestBuilder = newAggregateRequest(typeAggregator);
             // Analogous to a "Group By" in SQL, defines how data should be aggregated.
             // bucketByTime allows for a time span, whereas bucketBySession would allow
             // bucketing by "sessions", which would need to be defined in code.
             requestBuilder.bucketByTime(timeIntervalAggregator.getValue(), timeIntervalAggregator.getTimeUnit());
-        } else requestBuilder.read(fitDataType);
+        } else requestBuilder = new DataReadRequest.Builder().read(fitDataType);
+
+        return readData(requestBuilder, startTime, endTime);
+    }
+
+    @Override
+    public Task<DataReadResponse> readHistory(long startTime,
+                                              long endTime,
+                                              long bucketLength,
+                                              boolean useDataAggregation,
+                                              DataType fitDataType,
+                                              Pair<?, DataType> typeAggregator) {
+        return readHistory(startTime, endTime, bucketLength, useDataAggregation,
+                Collections.singletonList(fitDataType),
+                Collections.<Pair<?, DataType>>singletonList(typeAggregator));
+    }
+
+    @Override
+    public Task<DataReadResponse> readHistory(long startTime,
+                                              long endTime,
+                                              long bucketLength,
+                                              boolean useDataAggregation,
+                                              @NonNull List<DataType> fitDataTypes,
+                                              @NonNull List<Pair<?, DataType>> typeAggregators) {
+        DataReadRequest.Builder requestBuilder = new DataReadRequest.Builder();
+        if (bucketLength > 0) {
+            for (Pair<?, DataType> typeAggregator : typeAggregators) {
+                addAggregate(requestBuilder, typeAggregator);
+            }
+            // Planned buckets are exactly the time windows of the query
+            if (bucketLength <= Integer.MAX_VALUE) {
+                requestBuilder.bucketByTime((int) bucketLength, TimeUnit.MILLISECONDS);
+            } else {
+                requestBuilder.bucketByTime((int) TimeUnit.MILLISECONDS.toMinutes(bucketLength),
+                        TimeUnit.MINUTES);
+            }
+        } else {
+            for (int i = 0; i < fitDataTypes.size(); i++) {
+                Object aggregateSource = typeAggregators.get(i).first;
+                // Aggregated history which is routed raw reads the data points of its aggregate
+                if (useDataAggregation && aggregateSource instanceof DataSource) {
+                    requestBuilder.read((DataSource) aggregateSource);
+                } else {
+                    requestBuilder.read(fitDataTypes.get(i));
+                }
+            }
+        }
+
+        return readData(requestBuilder, startTime, endTime);
+    }
+
+    /**
+     * Create a request of aggregated history
+     * @param typeAggregator Pair of aggregate source and aggregate data type
+     * @return {@link DataReadRequest.Builder} without buckets
+     */
+    private DataReadRequest.Builder newAggregateRequest(Pair<?, DataType> typeAggregator) {
+        return addAggregate(new DataReadRequest.Builder(), typeAggregator);
+    }
 
+    /**
+     * Add an aggregated data type into history request
+     * @param requestBuilder {@link DataReadRequest.Builder}
+     * @param typeAggregator Pair of aggregate source and aggregate data type
+     * @return Given {@link DataReadRequest.Builder}
+     */
+    private DataReadRequest.Builder addAggregate(DataReadRequest.Builder requestBuilder,
+                                                 Pair<?, DataType> typeAggregator) {
+        // The data request can specify multiple data types to return, effectively
+        // combining multiple data queries into one call.
+        // In this example, it's very unlikely that the request is for several hundred
+        // data points each consisting of cumulative distance in meters and a timestamp.
+        // The more likely scenario is wanting to see how many distance were achieved
+        // per day, for several days.
+        if (DataSource.class.isInstance(typeAggregator.first)) {
+            requestBuilder.aggregate((DataSource) typeAggregator.first, typeAggregator.second);
+        } else if (DataType.class.isInstance(typeAggregator.first)) {
+            requestBuilder.aggregate((DataType) typeAggregator.first, typeAggregator.second);
+        } else {
+            throw new IllegalStateException("Unsupported aggregate type");
+        }
+        return requestBuilder;
+    }
+
+    /**
+     * Read history of a time range from Fit
+     * @param requestBuilder {@link DataReadRequest.Builder} of raw or aggregated history
+     * @param startTime      Start time
+     * @param endTime        End time
+     * @return History task
+     */
+    private Task<DataReadResponse> readData(DataReadRequest.Builder requestBuilder,
+                                            long startTime,
+                                            long endTime) {
         DataReadRequest request = requestBuilder
                 .setTimeRange(startTime, endTime, TimeUnit.MILLISECONDS)
                 .enableServerQueries()
@@ -205,12 +804,12 @@ public class FitHistory implements IFitReader {
      * Helper function to apply limitation from Client
      * @param limit Data limitation
      * @param data  Current data result
-     * @param <T>   Data type
+     * @param <T>   Time series type
      * @return Limited data set
      */
-    private <T> List<T> applyLimitation(Integer limit, List<T> data) {
+    private <T extends TimeSeries> T applyLimitation(Integer limit, T data) {
         if (limit == null || limit <= 0 || limit > data.size()) return data;
-        data.subList(limit, data.size()).clear();
+        data.truncate(limit);
         return data;
     }
 }
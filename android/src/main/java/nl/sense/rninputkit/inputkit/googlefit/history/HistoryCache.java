@@ -0,0 +1,248 @@
+package nl.sense.rninputkit.inputkit.googlefit.history;
+
+import android.content.ContentValues;
+import android.content.Context;
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteException;
+import android.database.sqlite.SQLiteOpenHelper;
+import android.util.Log;
+import androidx.annotation.NonNull;
+import androidx.annotation.VisibleForTesting;
+
+import java.util.concurrent.TimeUnit;
+
+import nl.sense.rninputkit.inputkit.entity.IntTimeSeries;
+import nl.sense.rninputkit.inputkit.entity.TimeInterval;
+
+/**
+ * On-device cache of normalized history buckets.
+ * Buckets of the past don't change anymore once they are closed, so they don't need to be
+ * read from Fit over and over. A bucket is considered as closed when it ended at least
+ * {@link #INVALIDATION_WINDOW} ago, which gives late-arriving data some time to be synced.
+ * Only closed buckets will be stored.
+ * It also holds the watermarks of incremental history sync, see
+ * {@link nl.sense.rninputkit.inputkit.Options.Builder#incremental()}.
+ */
+public class HistoryCache extends SQLiteOpenHelper {
+    private static final String TAG = "HistoryCache";
+    public static final long INVALIDATION_WINDOW = TimeUnit.HOURS.toMillis(24);
+
+    static final String DATABASE_NAME = "ik_history_cache.db";
+    // Version 3 drops buckets of minutes distribution which were stored regardless of the range
+    // of their query
+    static final int DATABASE_VERSION = 3;
+
+    private static final String TABLE_BUCKETS = "buckets";
+    private static final String COLUMN_KEY = "cache_key";
+    private static final String COLUMN_INTERVAL = "interval";
+    private static final String COLUMN_START_TIME = "start_time";
+    private static final String COLUMN_END_TIME = "end_time";
+    private static final String COLUMN_VALUE = "value";
+    private static final String TABLE_WATERMARKS = "watermarks";
+    private static final String COLUMN_WATERMARK = "watermark";
+
+    private static HistoryCache sInstance;
+
+    @VisibleForTesting
+    HistoryCache(@NonNull Context context) {
+        super(context, DATABASE_NAME, null, DATABASE_VERSION);
+    }
+
+    /**
+     * Get instance of history cache.
+     *
+     * @param context current application context
+     * @return {@link HistoryCache}
+     */
+    public static synchronized HistoryCache getInstance(@NonNull Context context) {
+        if (sInstance == null) sInstance = new HistoryCache(context.getApplicationContext());
+        return sInstance;
+    }
+
+    @Override
+    public void onCreate(SQLiteDatabase db) {
+        db.execSQL("CREATE TABLE " + TABLE_BUCKETS + " ("
+                + COLUMN_KEY + " TEXT NOT NULL, "
+                + COLUMN_INTERVAL + " TEXT NOT NULL, "
+                + COLUMN_START_TIME + " INTEGER NOT NULL, "
+                + COLUMN_END_TIME + " INTEGER NOT NULL, "
+                + COLUMN_VALUE + " NUMERIC NOT NULL, "
+                + "PRIMARY KEY (" + COLUMN_KEY + ", " + COLUMN_INTERVAL + ", "
+                + COLUMN_START_TIME + "))");
+        db.execSQL("CREATE TABLE " + TABLE_WATERMARKS + " ("
+                + COLUMN_KEY + " TEXT NOT NULL, "
+                + COLUMN_INTERVAL + " TEXT NOT NULL, "
+                + COLUMN_WATERMARK + " INTEGER NOT NULL, "
+                + "PRIMARY KEY (" + COLUMN_KEY + ", " + COLUMN_INTERVAL + "))");
+    }
+
+    @Override
+    public void onUpgrade(SQLiteDatabase db, int oldVersion, int newVersion) {
+        db.execSQL("DROP TABLE IF EXISTS " + TABLE_BUCKETS);
+        db.execSQL("DROP TABLE IF EXISTS " + TABLE_WATERMARKS);
+        onCreate(db);
+    }
+
+    /**
+     * Read cached buckets of the given time windows.
+     * Only the leading time windows which are available in cache will be returned,
+     * so the rest of time windows can be read from Fit at once.
+     *
+     * @param key        Cache key, eg. data type and its aggregation
+     * @param interval   {@link TimeInterval} of the buckets
+     * @param boundaries Time window boundaries, see
+     *                   {@link nl.sense.rninputkit.inputkit.helper.InputKitTimeUtils#populateTimeWindowBoundaries}
+     * @return Cached buckets. It is empty when the first time window is not cached.
+     */
+    @NonNull
+    public IntTimeSeries readIntBuckets(@NonNull String key,
+                                        @NonNull TimeInterval interval,
+                                        @NonNull long[] boundaries) {
+        IntTimeSeries series = new IntTimeSeries();
+        if (boundaries.length < 2) return series;
+
+        Cursor cursor = null;
+        try {
+            cursor = getReadableDatabase().query(
+                    TABLE_BUCKETS,
+                    new String[] {COLUMN_START_TIME, COLUMN_END_TIME, COLUMN_VALUE},
+                    COLUMN_KEY + " = ? AND " + COLUMN_INTERVAL + " = ? AND "
+                            + COLUMN_START_TIME + " >= ? AND " + COLUMN_START_TIME + " < ?",
+                    new String[] {
+                            key,
+                            toIntervalKey(interval),
+                            String.valueOf(boundaries[0]),
+                            String.valueOf(boundaries[boundaries.length - 1])
+                    },
+                    null,
+                    null,
+                    COLUMN_START_TIME + " ASC"
+            );
+            int i = 0;
+            while (i < boundaries.length - 1 && cursor.moveToNext()) {
+                // stop on the first hole
+                if (cursor.getLong(0) != boundaries[i]
+                        || cursor.getLong(1) != boundaries[i + 1]) break;
+                series.add(boundaries[i], boundaries[i + 1], cursor.getInt(2));
+                i++;
+            }
+        } catch (SQLiteException e) {
+            Log.e(TAG, "Unable to read cached buckets", e);
+        } finally {
+            if (cursor != null) cursor.close();
+        }
+        return series;
+    }
+
+    /**
+     * Store closed buckets into cache.
+     *
+     * @param key          Cache key, eg. data type and its aggregation
+     * @param interval     {@link TimeInterval} of the buckets
+     * @param series       Normalized buckets
+     * @param closedBefore Only buckets which are ending at or before this time will be stored,
+     *                     eg. `now - INVALIDATION_WINDOW`
+     * @return End time of the last stored bucket, or 0 if nothing is stored.
+     */
+    public long writeIntBuckets(@NonNull String key,
+                                @NonNull TimeInterval interval,
+                                @NonNull IntTimeSeries series,
+                                long closedBefore) {
+        long lastEndTime = 0;
+        String intervalKey = toIntervalKey(interval);
+        try {
+            SQLiteDatabase db = getWritableDatabase();
+            db.beginTransaction();
+            try {
+                ContentValues values = new ContentValues();
+                for (int i = 0; i < series.size(); i++) {
+                    if (series.getEndTime(i) > closedBefore) break;
+
+                    values.put(COLUMN_KEY, key);
+                    values.put(COLUMN_INTERVAL, intervalKey);
+                    values.put(COLUMN_START_TIME, series.getStartTime(i));
+                    values.put(COLUMN_END_TIME, series.getEndTime(i));
+                    values.put(COLUMN_VALUE, series.getValue(i));
+                    db.insertWithOnConflict(TABLE_BUCKETS, null, values,
+                            SQLiteDatabase.CONFLICT_REPLACE);
+                    lastEndTime = series.getEndTime(i);
+                }
+                db.setTransactionSuccessful();
+            } finally {
+                db.endTransaction();
+            }
+        } catch (SQLiteException e) {
+            Log.e(TAG, "Unable to store buckets", e);
+            return 0;
+        }
+        return lastEndTime;
+    }
+
+    /**
+     * Read watermark of incremental history sync.
+     *
+     * @param key      Cache key, eg. data type and its aggregation
+     * @param interval {@link TimeInterval} of the buckets
+     * @return Time until when history has been synced, or 0 if it has never been synced.
+     */
+    public long readWatermark(@NonNull String key, @NonNull TimeInterval interval) {
+        Cursor cursor = null;
+        try {
+            cursor = getReadableDatabase().query(
+                    TABLE_WATERMARKS,
+                    new String[] {COLUMN_WATERMARK},
+                    COLUMN_KEY + " = ? AND " + COLUMN_INTERVAL + " = ?",
+                    new String[] {key, toIntervalKey(interval)},
+                    null,
+                    null,
+                    null
+            );
+            return cursor.moveToFirst() ? cursor.getLong(0) : 0;
+        } catch (SQLiteException e) {
+            Log.e(TAG, "Unable to read watermark", e);
+            return 0;
+        } finally {
+            if (cursor != null) cursor.close();
+        }
+    }
+
+    /**
+     * Advance watermark of incremental history sync. Watermark never goes backward.
+     *
+     * @param key       Cache key, eg. data type and its aggregation
+     * @param interval  {@link TimeInterval} of the buckets
+     * @param watermark Time until when history has been synced
+     */
+    public void writeWatermark(@NonNull String key, @NonNull TimeInterval interval, long watermark) {
+        if (watermark <= readWatermark(key, interval)) return;
+
+        ContentValues values = new ContentValues();
+        values.put(COLUMN_KEY, key);
+        values.put(COLUMN_INTERVAL, toIntervalKey(interval));
+        values.put(COLUMN_WATERMARK, watermark);
+        try {
+            getWritableDatabase().insertWithOnConflict(TABLE_WATERMARKS, null, values,
+                    SQLiteDatabase.CONFLICT_REPLACE);
+        } catch (SQLiteException e) {
+            Log.e(TAG, "Unable to store watermark", e);
+        }
+    }
+
+    /**
+     * Remove all cached buckets and watermarks.
+     */
+    public void clear() {
+        try {
+            SQLiteDatabase db = getWritableDatabase();
+            db.delete(TABLE_BUCKETS, null, null);
+            db.delete(TABLE_WATERMARKS, null, null);
+        } catch (SQLiteException e) {
+            Log.e(TAG, "Unable to clear cached buckets", e);
+        }
+    }
+
+    private static String toIntervalKey(@NonNull TimeInterval interval) {
+        return interval.getValue() + " " + interval.getTimeUnit().name();
+    }
+}
@@ -0,0 +1,151 @@
+package nl.sense.rninputkit.inputkit.googlefit.history;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import android.util.Pair;
+
+import com.google.android.gms.fitness.data.DataPoint;
+import com.google.android.gms.fitness.data.DataType;
+import com.google.android.gms.fitness.result.DataReadResponse;
+
+import nl.sense.rninputkit.inputkit.entity.FloatTimeSeries;
+import nl.sense.rninputkit.inputkit.entity.IntTimeSeries;
+import nl.sense.rninputkit.inputkit.entity.TimeInterval;
+import nl.sense.rninputkit.inputkit.entity.TimeSeries;
+
+/**
+ * A data type of batched history, see {@link BatchHistoryTask}.
+ * Every channel extracts its own data sets out of responses of several data types and normalizes
+ * them into time windows of the query.
+ *
+ * @param <S> Type of time series
+ */
+public abstract class HistoryChannel<S extends TimeSeries> {
+    private final DataType dataType;
+    private final Pair<?, DataType> aggregateType;
+
+    protected HistoryChannel(@NonNull DataType dataType, @NonNull Pair<?, DataType> aggregateType) {
+        this.dataType = dataType;
+        this.aggregateType = aggregateType;
+    }
+
+    /**
+     * Create a channel of integer values, eg. step count.
+     * @param dataType      Fitness data type
+     * @param aggregateType Pair of aggregate source and aggregate data type
+     * @return {@link HistoryChannel} of {@link IntTimeSeries}
+     */
+    public static HistoryChannel<IntTimeSeries> ofInt(@NonNull DataType dataType,
+                                                      @NonNull Pair<?, DataType> aggregateType) {
+        return new HistoryChannel<IntTimeSeries>(dataType, aggregateType) {
+            private final IntDataNormalizer normalizer = new IntDataNormalizer();
+            private final HistoryExtractor<Integer> extractor = new HistoryExtractor<Integer>() {
+                @Override
+                protected Integer getDataPointValue(@Nullable DataPoint dataPoint) {
+                    return this.asInt(dataPoint);
+                }
+            };
+
+            @Override
+            protected IntTimeSeries newSeries() {
+                return new IntTimeSeries();
+            }
+
+            @Override
+            protected void extract(DataReadResponse response,
+                                   boolean useDataAggregation,
+                                   IntTimeSeries series) {
+                extractor.extractHistory(response, useDataAggregation,
+                        getResponseDataType(useDataAggregation), series);
+            }
+
+            @Override
+            protected IntTimeSeries normalize(long startTime,
+                                              long endTime,
+                                              IntTimeSeries values,
+                                              TimeInterval interval) {
+                return normalizer.normalize(startTime, endTime, values, interval);
+            }
+        };
+    }
+
+    /**
+     * Create a channel of float values, eg. distance.
+     * @param dataType      Fitness data type
+     * @param aggregateType Pair of aggregate source and aggregate data type
+     * @return {@link HistoryChannel} of {@link FloatTimeSeries}
+     */
+    public static HistoryChannel<FloatTimeSeries> ofFloat(@NonNull DataType dataType,
+                                                          @NonNull Pair<?, DataType> aggregateType) {
+        return new HistoryChannel<FloatTimeSeries>(dataType, aggregateType) {
+            private final FloatDataNormalizer normalizer = new FloatDataNormalizer();
+            private final HistoryExtractor<Float> extractor = new HistoryExtractor<Float>() {
+                @Override
+                protected Float getDataPointValue(@Nullable DataPoint dataPoint) {
+                    return this.asFloat(dataPoint);
+                }
+            };
+
+            @Override
+            protected FloatTimeSeries newSeries() {
+                return new FloatTimeSeries();
+            }
+
+            @Override
+            protected void extract(DataReadResponse response,
+                                   boolean useDataAggregation,
+                                   FloatTimeSeries series) {
+                extractor.extractHistory(response, useDataAggregation,
+                        getResponseDataType(useDataAggregation), series);
+            }
+
+            @Override
+            protected FloatTimeSeries normalize(long startTime,
+                                                long endTime,
+                                                FloatTimeSeries values,
+                                                TimeInterval interval) {
+                return normalizer.normalize(startTime, endTime, values, interval);
+            }
+        };
+    }
+
+    public DataType getDataType() {
+        return dataType;
+    }
+
+    public Pair<?, DataType> getAggregateType() {
+        return aggregateType;
+    }
+
+    /**
+     * Get data type of data sets which belong to this channel
+     * @param useDataAggregation True if history is read in buckets of time periods
+     * @return Aggregate data type of aggregated history, otherwise fitness data type.
+     */
+    protected DataType getResponseDataType(boolean useDataAggregation) {
+        return useDataAggregation ? aggregateType.second : dataType;
+    }
+
+    /**
+     * @return Empty time series of source values
+     */
+    protected abstract S newSeries();
+
+    /**
+     * Extract data sets of this channel into source values
+     * @param response           {@link DataReadResponse} of several data types
+     * @param useDataAggregation True if history is read in buckets of time periods
+     * @param series             Source values
+     */
+    protected abstract void extract(DataReadResponse response, boolean useDataAggregation, S series);
+
+    /**
+     * Normalize source values into time windows
+     * @param startTime Start time
+     * @param endTime   End time
+     * @param values    Source values
+     * @param interval  {@link TimeInterval}
+     * @return Time series within proper time windows.
+     */
+    protected abstract S normalize(long startTime, long endTime, S values, TimeInterval interval);
+}
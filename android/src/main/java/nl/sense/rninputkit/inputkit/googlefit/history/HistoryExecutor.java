@@ -0,0 +1,77 @@
+package nl.sense.rninputkit.inputkit.googlefit.history;
+
+import androidx.annotation.NonNull;
+
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Input kit owned executor of history tasks.
+ * History tasks are blocking on Fit responses for quite some time, so they are not executed on
+ * shared {@link android.os.AsyncTask#THREAD_POOL_EXECUTOR} to avoid starving another tasks
+ * of the application. Number of worker threads is bounded, remaining tasks will be queued.
+ */
+public class HistoryExecutor {
+    private static final int POOL_SIZE = 2;
+    private static final long KEEP_ALIVE_SECONDS = 30;
+    private static HistoryExecutor sInstance;
+    private final ThreadPoolExecutor mExecutor;
+
+    private HistoryExecutor() {
+        mExecutor = new ThreadPoolExecutor(
+                POOL_SIZE,
+                POOL_SIZE,
+                KEEP_ALIVE_SECONDS,
+                TimeUnit.SECONDS,
+                new LinkedBlockingQueue<Runnable>(),
+                new ThreadFactory() {
+                    private final AtomicInteger mCount = new AtomicInteger(1);
+
+                    @Override
+                    public Thread newThread(@NonNull Runnable runnable) {
+                        return new Thread(runnable, "InputKitHistory #" + mCount.getAndIncrement());
+                    }
+                });
+        mExecutor.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * Get instance of history executor.
+     *
+     * @return {@link HistoryExecutor}
+     */
+    public static synchronized HistoryExecutor getInstance() {
+        if (sInstance == null) sInstance = new HistoryExecutor();
+        return sInstance;
+    }
+
+    /**
+     * Execute history task runnable.
+     *
+     * @param runnable History task runnable
+     */
+    void execute(@NonNull Runnable runnable) {
+        mExecutor.execute(runnable);
+    }
+
+    /**
+     * Get number of history tasks which are waiting for a worker thread.
+     *
+     * @return Queue depth
+     */
+    public int getQueueSize() {
+        return mExecutor.getQueue().size();
+    }
+
+    /**
+     * Get approximate number of history tasks which are being executed.
+     *
+     * @return Active task count
+     */
+    public int getActiveCount() {
+        return mExecutor.getActiveCount();
+    }
+}
@@ -1,11 +1,12 @@
 package nl.sense.rninputkit.inputkit.googlefit.history;
 
+import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
-import android.util.Log;
 
 import com.google.android.gms.fitness.data.Bucket;
 import com.google.android.gms.fitness.data.DataPoint;
 import com.google.android.gms.fitness.data.DataSet;
+import com.google.android.gms.fitness.data.DataType;
 import com.google.android.gms.fitness.data.Field;
 import com.google.android.gms.fitness.data.Value;
 import com.google.android.gms.fitness.result.DataReadResponse;
@@ -16,7 +17,9 @@ import java.util.List;
 import java.util.concurrent.TimeUnit;
 
 import nl.sense.rninputkit.inputkit.entity.DateContent;
+import nl.sense.rninputkit.inputkit.entity.FloatTimeSeries;
 import nl.sense.rninputkit.inputkit.entity.IKValue;
+import nl.sense.rninputkit.inputkit.entity.IntTimeSeries;
 
 /**
  * Abstraction historical data extractor from Google Fitness API
@@ -26,7 +29,12 @@ import nl.sense.rninputkit.inputkit.entity.IKValue;
  */
 
 public abstract class HistoryExtractor<T> {
-    private static final String TAG = "HistoryExtractor";
+    /**
+     * Visitor of data points history, it receives data points in order of the response.
+     */
+    public interface DataPointVisitor {
+        void visit(@NonNull DataPoint dataPoint);
+    }
 
     /**
      * Helper function to extract historical data based on {@link DataReadResponse} and aggregation
@@ -36,68 +44,222 @@ public abstract class HistoryExtractor<T> {
      * @return {@link List<IKValue<T>>} Input kit values
      */
     public List<IKValue<T>> extractHistory(DataReadResponse dataReadResponse, boolean useDataAggregation) {
-        if (useDataAggregation) {
-            return historyFromBucket(dataReadResponse.getBuckets());
-        } else {
-            return historyFromDataSet(dataReadResponse.getDataSets());
-        }
+        final List<IKValue<T>> contents = new ArrayList<>(
+                countDataPoints(dataReadResponse, useDataAggregation));
+        visitHistory(dataReadResponse, useDataAggregation, new DataPointVisitor() {
+            @Override
+            public void visit(@NonNull DataPoint dataPoint) {
+                contents.add(toIKValue(dataPoint));
+            }
+        });
+        return contents;
     }
 
     /**
-     * Helper function to extract data points history from {@link DataSet}
-     * @param dataSet {@link DataSet}
-     * @return {@link List<IKValue<T>} Input kit values
+     * Helper function to extract historical data into integer {@link IntTimeSeries}.
+     * No input kit value is created per data point.
+     * @param dataReadResponse      {@link DataReadResponse} history
+     * @param useDataAggregation    Set true to aggregate existing data by a bucket of time periods
+     * @param series                Target time series
      */
-    public List<IKValue<T>> historyFromDataSet(@Nullable DataSet dataSet) {
-        if (dataSet == null) return Collections.emptyList();
-        Log.i(TAG, "Data returned for Data type: " + dataSet.getDataType().getName());
+    public void extractHistory(DataReadResponse dataReadResponse,
+                               boolean useDataAggregation,
+                               @NonNull final IntTimeSeries series) {
+        series.ensureCapacity(series.size() + countDataPoints(dataReadResponse, useDataAggregation));
+        visitHistory(dataReadResponse, useDataAggregation, new DataPointVisitor() {
+            @Override
+            public void visit(@NonNull DataPoint dataPoint) {
+                series.add(dataPoint.getStartTime(TimeUnit.MILLISECONDS),
+                        dataPoint.getEndTime(TimeUnit.MILLISECONDS),
+                        asInt(dataPoint));
+            }
+        });
+    }
+
+    /**
+     * Helper function to extract historical data of a single data type into integer
+     * {@link IntTimeSeries}, eg. out of a response of several data types.
+     * @param dataReadResponse      {@link DataReadResponse} history
+     * @param useDataAggregation    Set true to aggregate existing data by a bucket of time periods
+     * @param dataType              Data type of extracted data sets
+     * @param series                Target time series
+     */
+    public void extractHistory(DataReadResponse dataReadResponse,
+                               boolean useDataAggregation,
+                               @NonNull DataType dataType,
+                               @NonNull final IntTimeSeries series) {
+        series.ensureCapacity(series.size()
+                + countDataPoints(dataReadResponse, useDataAggregation, dataType));
+        visitHistory(dataReadResponse, useDataAggregation, dataType, new DataPointVisitor() {
+            @Override
+            public void visit(@NonNull DataPoint dataPoint) {
+                series.add(dataPoint.getStartTime(TimeUnit.MILLISECONDS),
+                        dataPoint.getEndTime(TimeUnit.MILLISECONDS),
+                        asInt(dataPoint));
+            }
+        });
+    }
+
+    /**
+     * Helper function to extract historical data of a single data type into float
+     * {@link FloatTimeSeries}, eg. out of a response of several data types.
+     * @param dataReadResponse      {@link DataReadResponse} history
+     * @param useDataAggregation    Set true to aggregate existing data by a bucket of time periods
+     * @param dataType              Data type of extracted data sets
+     * @param series                Target time series
+     */
+    public void extractHistory(DataReadResponse dataReadResponse,
+                               boolean useDataAggregation,
+                               @NonNull DataType dataType,
+                               @NonNull final FloatTimeSeries series) {
+        series.ensureCapacity(series.size()
+                + countDataPoints(dataReadResponse, useDataAggregation, dataType));
+        visitHistory(dataReadResponse, useDataAggregation, dataType, new DataPointVisitor() {
+            @Override
+            public void visit(@NonNull DataPoint dataPoint) {
+                series.add(dataPoint.getStartTime(TimeUnit.MILLISECONDS),
+                        dataPoint.getEndTime(TimeUnit.MILLISECONDS),
+                        asFloat(dataPoint));
+            }
+        });
+    }
+
+    /**
+     * Helper function to extract historical data into float {@link FloatTimeSeries}.
+     * No input kit value is created per data point.
+     * @param dataReadResponse      {@link DataReadResponse} history
+     * @param useDataAggregation    Set true to aggregate existing data by a bucket of time periods
+     * @param series                Target time series
+     */
+    public void extractHistory(DataReadResponse dataReadResponse,
+                               boolean useDataAggregation,
+                               @NonNull final FloatTimeSeries series) {
+        series.ensureCapacity(series.size() + countDataPoints(dataReadResponse, useDataAggregation));
+        visitHistory(dataReadResponse, useDataAggregation, new DataPointVisitor() {
+            @Override
+            public void visit(@NonNull DataPoint dataPoint) {
+                series.add(dataPoint.getStartTime(TimeUnit.MILLISECONDS),
+                        dataPoint.getEndTime(TimeUnit.MILLISECONDS),
+                        asFloat(dataPoint));
+            }
+        });
+    }
+
+    /**
+     * Walk through data points of {@link DataReadResponse} without flattening its buckets
+     * or data sets into intermediate collections.
+     * @param dataReadResponse      {@link DataReadResponse} history
+     * @param useDataAggregation    Set true to visit data points of aggregated buckets
+     * @param visitor               {@link DataPointVisitor}
+     */
+    public static void visitHistory(DataReadResponse dataReadResponse,
+                                    boolean useDataAggregation,
+                                    @NonNull DataPointVisitor visitor) {
+        visitHistory(dataReadResponse, useDataAggregation, null, visitor);
+    }
 
-        List<IKValue<T>> contents = new ArrayList<>();
+    /**
+     * Walk through data points of a single data type of {@link DataReadResponse}.
+     * @param dataReadResponse      {@link DataReadResponse} history
+     * @param useDataAggregation    Set true to visit data points of aggregated buckets
+     * @param dataType              Data type of visited data sets, or null to visit all of them
+     * @param visitor               {@link DataPointVisitor}
+     */
+    public static void visitHistory(DataReadResponse dataReadResponse,
+                                    boolean useDataAggregation,
+                                    @Nullable DataType dataType,
+                                    @NonNull DataPointVisitor visitor) {
+        if (!useDataAggregation) {
+            visitDataSets(dataReadResponse.getDataSets(), dataType, visitor);
+            return;
+        }
 
-        for (DataPoint dp : dataSet.getDataPoints()) {
-            contents.add(new IKValue<>(
-                    getDataPointValue(dp),
-                    new DateContent(dp.getStartTime(TimeUnit.MILLISECONDS)),
-                    new DateContent(dp.getEndTime(TimeUnit.MILLISECONDS))
-            ));
+        List<Bucket> buckets = dataReadResponse.getBuckets();
+        if (buckets == null) return;
+        for (Bucket bucket : buckets) {
+            visitDataSets(bucket.getDataSets(), dataType, visitor);
         }
-        return contents;
     }
 
     /**
-     * Helper function to extract historical from {@link Bucket}
-     * @param buckets {@link List<Bucket>}
-     * @return {@link List<IKValue<T>>} Input kit values
+     * Count data points of {@link DataReadResponse}, eg. to presize the output.
+     * @param dataReadResponse      {@link DataReadResponse} history
+     * @param useDataAggregation    Set true to count data points of aggregated buckets
+     * @return Number of data points
+     */
+    public static int countDataPoints(DataReadResponse dataReadResponse, boolean useDataAggregation) {
+        return countDataPoints(dataReadResponse, useDataAggregation, null);
+    }
+
+    /**
+     * Count data points of a single data type of {@link DataReadResponse}.
+     * @param dataReadResponse      {@link DataReadResponse} history
+     * @param useDataAggregation    Set true to count data points of aggregated buckets
+     * @param dataType              Data type of counted data sets, or null to count all of them
+     * @return Number of data points
      */
-    private List<IKValue<T>> historyFromBucket(@Nullable List<Bucket> buckets) {
-        if (buckets == null || buckets.isEmpty()) return Collections.emptyList();
+    public static int countDataPoints(DataReadResponse dataReadResponse,
+                                      boolean useDataAggregation,
+                                      @Nullable DataType dataType) {
+        if (!useDataAggregation) return countDataPoints(dataReadResponse.getDataSets(), dataType);
 
-        List<IKValue<T>> contents = new ArrayList<>();
-        int startFormIndex = 0;
+        List<Bucket> buckets = dataReadResponse.getBuckets();
+        if (buckets == null) return 0;
+        int count = 0;
         for (Bucket bucket : buckets) {
-            List<DataSet> dataSets = bucket.getDataSets();
-            contents.addAll(startFormIndex, historyFromDataSet(dataSets));
-            startFormIndex = contents.size();
+            count += countDataPoints(bucket.getDataSets(), dataType);
         }
-        return contents;
+        return count;
     }
 
     /**
-     * Helper function to extract data point history from {@link DataSet}
-     * @param dataSets {@link DataSet}
-     * @return {@link List<IKValue<T>>} Input kit values
+     * Helper function to extract data points history from {@link DataSet}
+     * @param dataSet {@link DataSet}
+     * @return {@link List<IKValue<T>} Input kit values
      */
-    private List<IKValue<T>> historyFromDataSet(@Nullable List<DataSet> dataSets) {
-        if (dataSets == null || dataSets.isEmpty()) return Collections.emptyList();
+    public List<IKValue<T>> historyFromDataSet(@Nullable DataSet dataSet) {
+        if (dataSet == null) return Collections.emptyList();
+
+        List<DataPoint> dataPoints = dataSet.getDataPoints();
+        List<IKValue<T>> contents = new ArrayList<>(dataPoints.size());
+        for (DataPoint dp : dataPoints) {
+            contents.add(toIKValue(dp));
+        }
+        return contents;
+    }
 
-        List<IKValue<T>> contents = new ArrayList<>();
-        int startFormIndex = 0;
+    private IKValue<T> toIKValue(@NonNull DataPoint dp) {
+        return new IKValue<>(
+                getDataPointValue(dp),
+                new DateContent(dp.getStartTime(TimeUnit.MILLISECONDS)),
+                new DateContent(dp.getEndTime(TimeUnit.MILLISECONDS))
+        );
+    }
+
+    private static void visitDataSets(@Nullable List<DataSet> dataSets,
+                                      @Nullable DataType dataType,
+                                      @NonNull DataPointVisitor visitor) {
+        if (dataSets == null) return;
         for (DataSet dataSet : dataSets) {
-            contents.addAll(startFormIndex, historyFromDataSet(dataSet));
-            startFormIndex = contents.size();
+            if (!isOfDataType(dataSet, dataType)) continue;
+            for (DataPoint dp : dataSet.getDataPoints()) {
+                visitor.visit(dp);
+            }
         }
+    }
 
-        return contents;
+    private static int countDataPoints(@Nullable List<DataSet> dataSets,
+                                       @Nullable DataType dataType) {
+        if (dataSets == null) return 0;
+        int count = 0;
+        for (DataSet dataSet : dataSets) {
+            if (isOfDataType(dataSet, dataType)) count += dataSet.getDataPoints().size();
+        }
+        return count;
+    }
+
+    private static boolean isOfDataType(@NonNull DataSet dataSet, @Nullable DataType dataType) {
+        return dataType == null || dataType.equals(dataSet.getDataType());
     }
 
     /**
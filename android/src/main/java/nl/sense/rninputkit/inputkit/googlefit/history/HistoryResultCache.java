@@ -0,0 +1,321 @@
+package nl.sense.rninputkit.inputkit.googlefit.history;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+import android.util.LruCache;
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Short living, size-bounded in-memory cache of history results.
+ * Identical history queries which are fired at about the same time are coalesced onto a
+ * single in-flight history task, so N callers cost only one Fit read. Every caller gets its own
+ * {@link Subscription}, so one of them cancelling doesn't abort the task for the others.
+ * Cached results are shared by callers, so they must not be modified.
+ *
+ * @param <V> Type of history result
+ */
+public class HistoryResultCache<V> {
+    public static final int DEFAULT_MAX_SIZE = 32;
+    public static final long DEFAULT_TTL = TimeUnit.SECONDS.toMillis(5);
+
+    private final LruCache<String, CachedResult<V>> mResults;
+    private final Map<String, InFlight> mInFlights = new HashMap<>();
+    private final Handler mMainHandler = new Handler(Looper.getMainLooper());
+    private final long mTtl;
+    private long mHitCount;
+    private long mMissCount;
+    private long mCoalescedCount;
+
+    public HistoryResultCache() {
+        this(DEFAULT_MAX_SIZE, DEFAULT_TTL);
+    }
+
+    public HistoryResultCache(int maxSize, long ttl) {
+        this.mResults = new LruCache<>(maxSize);
+        this.mTtl = ttl;
+    }
+
+    /**
+     * Register listeners of a history query.
+     * Listeners are called on main thread, either with a cached result, or once the in-flight
+     * history task of the same query is done.
+     *
+     * @param key                History query key
+     * @param onCompleteListener Result listener
+     * @param onFailureListener  Failure listener
+     * @return Null if the result is served from cache. Otherwise a cancellable handle of given
+     *         listeners. When {@link Subscription#isNewQuery()} is true, there is no in-flight
+     *         task for given key yet, so the caller should start a history task and bind it with
+     *         {@link #setInFlight}, {@link #complete} and {@link #fail}.
+     */
+    @Nullable
+    public Subscription enqueue(@NonNull String key,
+                                @NonNull final HistoryTaskFactory.OnCompleteListener<V> onCompleteListener,
+                                @NonNull HistoryTaskFactory.OnFailureListener onFailureListener) {
+        final V result;
+        synchronized (this) {
+            CachedResult<V> cached = mResults.get(key);
+            if (cached != null && SystemClock.elapsedRealtime() - cached.createdAt > mTtl) {
+                mResults.remove(key);
+                cached = null;
+            }
+
+            if (cached == null) {
+                InFlight inFlight = mInFlights.get(key);
+                boolean isNewQuery = inFlight == null;
+                if (isNewQuery) {
+                    mMissCount++;
+                    inFlight = new InFlight();
+                    mInFlights.put(key, inFlight);
+                } else {
+                    mCoalescedCount++;
+                }
+                Subscription subscription = new Subscription(key, inFlight, isNewQuery,
+                        onCompleteListener, onFailureListener);
+                inFlight.subscriptions.add(subscription);
+                return subscription;
+            }
+
+            mHitCount++;
+            result = cached.value;
+        }
+
+        mMainHandler.post(new Runnable() {
+            @Override
+            public void run() {
+                onCompleteListener.onComplete(result);
+            }
+        });
+        return null;
+    }
+
+    /**
+     * Bind in-flight history task of a query. The task is cancelled right away if every
+     * subscription of the query has been cancelled in the meantime.
+     *
+     * @param key    History query key
+     * @param future Cancellable handle of history task
+     */
+    public void setInFlight(@NonNull String key, @Nullable Future<?> future) {
+        synchronized (this) {
+            InFlight inFlight = mInFlights.get(key);
+            if (inFlight != null) {
+                inFlight.future = future;
+                return;
+            }
+        }
+        if (future != null) future.cancel(true);
+    }
+
+    /**
+     * Store result of a history query and notify all of its listeners.
+     * Should be called on main thread.
+     *
+     * @param key    History query key
+     * @param result History result
+     */
+    public void complete(@NonNull String key, V result) {
+        complete(key, result, true);
+    }
+
+    /**
+     * Notify all listeners of a history query about its result, and store the result if
+     * it's cacheable. Should be called on main thread.
+     *
+     * @param key       History query key
+     * @param result    History result
+     * @param cacheable False if the result shouldn't be served to upcoming queries,
+     *                  eg. a partial result of an exceeded deadline.
+     */
+    public void complete(@NonNull String key, V result, boolean cacheable) {
+        InFlight inFlight;
+        synchronized (this) {
+            inFlight = mInFlights.remove(key);
+            if (cacheable) {
+                mResults.put(key, new CachedResult<>(result, SystemClock.elapsedRealtime()));
+            }
+        }
+        if (inFlight == null) return;
+
+        for (Subscription subscription : getSubscriptions(inFlight)) {
+            if (subscription.finish()) subscription.onCompleteListener.onComplete(result);
+        }
+    }
+
+    /**
+     * Notify all listeners of a history query about the failure. Failures are not cached.
+     * Should be called on main thread.
+     *
+     * @param key        History query key
+     * @param exceptions Failure causes
+     */
+    public void fail(@NonNull String key, List<Exception> exceptions) {
+        InFlight inFlight;
+        synchronized (this) {
+            inFlight = mInFlights.remove(key);
+        }
+        if (inFlight == null) return;
+
+        for (Subscription subscription : getSubscriptions(inFlight)) {
+            if (subscription.finish()) subscription.onFailureListener.onFailure(exceptions);
+        }
+    }
+
+    private synchronized List<Subscription> getSubscriptions(@NonNull InFlight inFlight) {
+        return new ArrayList<>(inFlight.subscriptions);
+    }
+
+    /**
+     * Remove all cached results. In-flight history tasks are not affected.
+     */
+    public synchronized void clear() {
+        mResults.evictAll();
+    }
+
+    /**
+     * @return Number of queries which are served from cache
+     */
+    public synchronized long getHitCount() {
+        return mHitCount;
+    }
+
+    /**
+     * @return Number of queries which started a new history task
+     */
+    public synchronized long getMissCount() {
+        return mMissCount;
+    }
+
+    /**
+     * @return Number of queries which joined an in-flight history task
+     */
+    public synchronized long getCoalescedCount() {
+        return mCoalescedCount;
+    }
+
+    private static class CachedResult<V> {
+        private final V value;
+        private final long createdAt;
+
+        CachedResult(V value, long createdAt) {
+            this.value = value;
+            this.createdAt = createdAt;
+        }
+    }
+
+    private class InFlight {
+        private final List<Subscription> subscriptions = new ArrayList<>();
+        private Future<?> future;
+    }
+
+    /**
+     * Cancellable handle of a single caller of a history query.
+     * Identical queries share one history task, so cancelling a subscription only detaches its
+     * own listeners. The shared history task is cancelled once its last subscription is.
+     * {@link #get()} waits until listeners of this subscription are notified, the result itself
+     * is delivered to the listeners.
+     */
+    public class Subscription implements Future<Void> {
+        private final String key;
+        private final InFlight inFlight;
+        private final boolean isNewQuery;
+        private final HistoryTaskFactory.OnCompleteListener<V> onCompleteListener;
+        private final HistoryTaskFactory.OnFailureListener onFailureListener;
+        private final CountDownLatch doneSignal = new CountDownLatch(1);
+        private boolean isDone;
+        private boolean isCancelled;
+
+        private Subscription(@NonNull String key,
+                             @NonNull InFlight inFlight,
+                             boolean isNewQuery,
+                             @NonNull HistoryTaskFactory.OnCompleteListener<V> onCompleteListener,
+                             @NonNull HistoryTaskFactory.OnFailureListener onFailureListener) {
+            this.key = key;
+            this.inFlight = inFlight;
+            this.isNewQuery = isNewQuery;
+            this.onCompleteListener = onCompleteListener;
+            this.onFailureListener = onFailureListener;
+        }
+
+        /**
+         * @return True if there was no in-flight task of this query, so the caller should
+         *         start one.
+         */
+        public boolean isNewQuery() {
+            return isNewQuery;
+        }
+
+        @Override
+        public boolean cancel(boolean mayInterruptIfRunning) {
+            Future<?> orphanedTask = null;
+            synchronized (HistoryResultCache.this) {
+                if (isDone) return false;
+                isDone = true;
+                isCancelled = true;
+                inFlight.subscriptions.remove(this);
+                if (inFlight.subscriptions.isEmpty() && mInFlights.get(key) == inFlight) {
+                    // Nobody is waiting for the history task anymore
+                    mInFlights.remove(key);
+                    orphanedTask = inFlight.future;
+                }
+            }
+            doneSignal.countDown();
+            if (orphanedTask != null) orphanedTask.cancel(mayInterruptIfRunning);
+            return true;
+        }
+
+        @Override
+        public boolean isCancelled() {
+            synchronized (HistoryResultCache.this) {
+                return isCancelled;
+            }
+        }
+
+        @Override
+        public boolean isDone() {
+            synchronized (HistoryResultCache.this) {
+                return isDone;
+            }
+        }
+
+        @Override
+        public Void get() throws InterruptedException {
+            doneSignal.await();
+            if (isCancelled()) throw new CancellationException();
+            return null;
+        }
+
+        @Override
+        public Void get(long timeout, @NonNull TimeUnit unit)
+                throws InterruptedException, TimeoutException {
+            if (!doneSignal.await(timeout, unit)) throw new TimeoutException();
+            if (isCancelled()) throw new CancellationException();
+            return null;
+        }
+
+        /**
+         * Mark this subscription as done, before its listeners are notified.
+         * @return False if it has been cancelled, so its listeners shouldn't be notified.
+         */
+        private boolean finish() {
+            synchronized (HistoryResultCache.this) {
+                if (isDone) return false;
+                isDone = true;
+            }
+            doneSignal.countDown();
+            return true;
+        }
+    }
+}
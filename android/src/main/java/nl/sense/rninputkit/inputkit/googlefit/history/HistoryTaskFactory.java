@@ -1,114 +1,463 @@
 package nl.sense.rninputkit.inputkit.googlefit.history;
 
-import android.os.AsyncTask;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
 import android.util.Pair;
 
 import com.google.android.gms.fitness.data.DataType;
 import com.google.android.gms.fitness.result.DataReadResponse;
+import com.google.android.gms.tasks.Task;
 import com.google.android.gms.tasks.Tasks;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
 
 import nl.sense.rninputkit.inputkit.Options;
 import nl.sense.rninputkit.inputkit.constant.Interval;
-import nl.sense.rninputkit.inputkit.entity.IKValue;
 import nl.sense.rninputkit.inputkit.entity.TimeInterval;
 
-public abstract class  HistoryTaskFactory<T> extends AsyncTask<Void, Integer, List<IKValue<T>>> {
+public abstract class  HistoryTaskFactory<T> implements Callable<T> {
     public interface OnCompleteListener<T> {
-        void onComplete(List<IKValue<T>> result);
+        void onComplete(T result);
     }
     public interface OnFailureListener {
         void onFailure(List<Exception> exceptions);
     }
+    public interface OnProgressListener<T> {
+        /**
+         * Called on main thread once a request chunk is read.
+         * @param values            Values of the chunk, see {@link #getChunkValues}
+         * @param completedRequests Number of request chunks which have been read so far
+         * @param totalRequests     Total number of request chunks
+         */
+        void onProgress(T values, int completedRequests, int totalRequests);
+    }
 
     private IFitReader fitDataReader;
-    private List<Pair<Long, Long>> safeRequests;
-    private DataType dataTypeRequest;
-    private Pair<?, DataType> aggregateType;
+    private long[] safeRequests;
+    private long[] bucketLengths;
+    private List<DataType> dataTypeRequests;
+    private List<Pair<?, DataType>> aggregateTypes;
     private OnCompleteListener<T> onCompleteListener;
     private OnFailureListener onFailureListener;
+    private OnProgressListener<T> onProgressListener;
+    private Handler mainHandler = new Handler(Looper.getMainLooper());
     private HistoryResponseSet responseSet;
+    private RequestPlanModel requestPlanModel;
+    private long deadline;
+    private volatile boolean isDeadlineExceeded;
     protected Options options;
 
     protected HistoryTaskFactory(IFitReader fitDataReader,
-                       List<Pair<Long, Long>> safeRequests,
+                       long[] safeRequests,
                        Options options,
                        DataType dataTypeRequest,
                        Pair<?, DataType> aggregateType,
                        OnCompleteListener<T> onCompleteListener,
                        OnFailureListener onFailureListener) {
+        this(fitDataReader,
+                safeRequests,
+                options,
+                Collections.singletonList(dataTypeRequest),
+                Collections.<Pair<?, DataType>>singletonList(aggregateType),
+                onCompleteListener,
+                onFailureListener);
+    }
+
+    /**
+     * Create a history task of several data types, which are read within the same requests.
+     * See {@link IFitReader#readHistory(long, long, long, List, List)}.
+     */
+    protected HistoryTaskFactory(IFitReader fitDataReader,
+                       long[] safeRequests,
+                       Options options,
+                       List<DataType> dataTypeRequests,
+                       List<Pair<?, DataType>> aggregateTypes,
+                       OnCompleteListener<T> onCompleteListener,
+                       OnFailureListener onFailureListener) {
         this.fitDataReader = fitDataReader;
         this.safeRequests = safeRequests;
         this.options = options;
-        this.dataTypeRequest = dataTypeRequest;
-        this.aggregateType = aggregateType;
+        this.dataTypeRequests = dataTypeRequests;
+        this.aggregateTypes = aggregateTypes;
         this.onCompleteListener = onCompleteListener;
         this.onFailureListener = onFailureListener;
+        this.responseSet = new HistoryResponseSet();
+        // Time budget of the query is counted since it's created, so time spent in the queue of
+        // history executor is a part of it.
+        this.deadline = options.getTimeout() == null
+                ? 0
+                : SystemClock.elapsedRealtime() + options.getTimeout();
     }
 
-    @Override
-    protected void onPreExecute() {
-        super.onPreExecute();
-        responseSet = new HistoryResponseSet();
+    /**
+     * Record density and latency of history requests, so the next requests can be planned
+     * accordingly. See {@link SafeRequestHandler}.
+     * @param requestPlanModel {@link RequestPlanModel}
+     */
+    protected void setRequestPlanModel(RequestPlanModel requestPlanModel) {
+        this.requestPlanModel = requestPlanModel;
     }
 
+    /**
+     * Read every request chunk with its own bucket length, as planned by
+     * {@link SafeRequestHandler#getRequestPlan(long, long, TimeInterval, boolean, java.util.TimeZone)}.
+     * Without bucket lengths, chunks are aggregated as requested by {@link Options}.
+     * @param bucketLengths Bucket length of every request chunk in milliseconds,
+     *                      zero if the chunk is read raw.
+     */
+    protected void setBucketLengths(long[] bucketLengths) {
+        this.bucketLengths = bucketLengths;
+    }
+
+    /**
+     * Publish values of every request chunk as soon as it is read.
+     * Request chunks are then read from the most recent one, so the latest history is published
+     * first. The final result is still mapped from all responses in chronological order.
+     * @param onProgressListener {@link OnProgressListener}
+     */
+    protected void setOnProgressListener(OnProgressListener<T> onProgressListener) {
+        this.onProgressListener = onProgressListener;
+    }
+
+    /**
+     * Read and map history on a worker thread of {@link HistoryExecutor}.
+     * @return Mapped values, or null when this task has been cancelled.
+     */
     @Override
-    protected List<IKValue<T>> doInBackground(Void... aVoid) {
-        for (Pair<Long, Long> request : safeRequests) {
+    public T call() {
+        TimeInterval intervalAggregator = options.getTimeInterval()
+                .getTimeUnit() == TimeUnit.DAYS
+                ? new TimeInterval(Interval.ONE_DAY)
+                : options.getTimeInterval();
+        long timeout = intervalAggregator
+                .getTimeUnit() == TimeUnit.DAYS
+                ? TimeUnit.SECONDS.toMillis(150)
+                : TimeUnit.MINUTES.toMillis(1);
+
+        // Fan out request chunks, but keep at most `maxInFlight` of them in flight.
+        // Responses are awaited in chunk order, so they are merged in the same order as requested.
+        // Request chunk `r` is starting at `safeRequests[r]` and ending at `safeRequests[r + 1]`.
+        int maxInFlight = Math.max(1, options.getMaxConcurrentRequests());
+        int requestCount = getRequestCount();
+        boolean isNewestFirst = onProgressListener != null;
+        List<Task<DataReadResponse>> pendingTasks = new ArrayList<>(requestCount);
+        long[] requestedAt = new long[requestCount];
+        int completedRequests = 0;
+        for (int i = 0; i < requestCount; i++) {
+            // Task has been cancelled, stop awaiting the rest of chunks and skip normalization
+            if (Thread.currentThread().isInterrupted()) return null;
+
+            long remainingTime = getRemainingTime();
+            if (remainingTime <= 0) {
+                // Time budget is exhausted, give up the rest of chunks
+                isDeadlineExceeded = true;
+                for (int j = i; j < requestCount; j++) {
+                    responseSet.addException(new TimeoutException(
+                            "Deadline of history query exceeded"));
+                }
+                break;
+            }
+
+            while (pendingTasks.size() < requestCount
+                    && pendingTasks.size() - i < maxInFlight) {
+                int request = toRequestIndex(pendingTasks.size(), requestCount, isNewestFirst);
+                requestedAt[request] = SystemClock.elapsedRealtime();
+                pendingTasks.add(readHistory(request, intervalAggregator));
+            }
+
+            // Remaining time budget is split across chunks which are still outstanding
+            int remainingRounds = (requestCount - i + maxInFlight - 1) / maxInFlight;
+            long chunkTimeout = Math.min(timeout, remainingTime / remainingRounds);
+            int request = toRequestIndex(i, requestCount, isNewestFirst);
             try {
-                TimeInterval intervalAggregator = options.getTimeInterval()
-                        .getTimeUnit() == TimeUnit.DAYS
-                        ? new TimeInterval(Interval.ONE_DAY)
-                        : options.getTimeInterval();
-                Pair<Integer, TimeUnit> timeout = intervalAggregator
-                        .getTimeUnit() == TimeUnit.DAYS
-                        ? Pair.create(150, TimeUnit.SECONDS)
-                        : Pair.create(1, TimeUnit.MINUTES);
-                DataReadResponse response = Tasks.await(
-                    fitDataReader.readHistory(
-                        request.first,
-                        request.second,
-                        options.isUseDataAggregation(),
-                        intervalAggregator,
-                        dataTypeRequest,
-                        aggregateType
-                    ), timeout.first, timeout.second);
+                DataReadResponse response = Tasks.await(pendingTasks.get(i),
+                        chunkTimeout, TimeUnit.MILLISECONDS);
                 responseSet.addResponse(response);
-            } catch (ExecutionException | InterruptedException | TimeoutException e) {
+                if (requestPlanModel != null) {
+                    requestPlanModel.record(options.getTimeInterval(),
+                            isAggregated(request),
+                            safeRequests[request],
+                            safeRequests[request + 1],
+                            HistoryExtractor.countDataPoints(response, isAggregated(request)),
+                            SystemClock.elapsedRealtime() - requestedAt[request]);
+                }
+                if (isNewestFirst) {
+                    publishProgress(getChunkValues(response,
+                            safeRequests[request], safeRequests[request + 1]),
+                            ++completedRequests, requestCount);
+                }
+            } catch (InterruptedException e) {
+                // Task has been cancelled while awaiting a chunk
+                Thread.currentThread().interrupt();
+                return null;
+            } catch (TimeoutException e) {
+                responseSet.addException(e);
+                if (chunkTimeout < timeout) isDeadlineExceeded = true;
+                // Timeouts which are cut by the time budget don't say much about latency
+                if (requestPlanModel != null && chunkTimeout == timeout) {
+                    requestPlanModel.recordTimeout(options.getTimeInterval(),
+                            isAggregated(request),
+                            safeRequests[request],
+                            safeRequests[request + 1],
+                            timeout);
+                }
+            } catch (ExecutionException e) {
                 responseSet.addException(e);
             }
+            pendingTasks.set(i, null);
         }
 
+        if (requestPlanModel != null) requestPlanModel.save();
+        // Map responses in chronological order, exactly like a non-streaming task does
+        if (isNewestFirst) Collections.reverse(responseSet.responses());
         return getValues(responseSet.responses());
     }
 
-    @Override
-    protected void onPostExecute(List<IKValue<T>> results) {
-        if (!responseSet.responses().isEmpty() || responseSet.exceptions().isEmpty()) {
+    /**
+     * Read a request chunk from Fit
+     * @param request            Index of request chunk
+     * @param intervalAggregator Bucket of aggregated history when it's not planned per chunk
+     * @return History task of the chunk
+     */
+    private Task<DataReadResponse> readHistory(int request, TimeInterval intervalAggregator) {
+        if (dataTypeRequests.size() > 1) {
+            // Every data type of a batched read shares the same buckets
+            long bucketLength = bucketLengths != null
+                    ? bucketLengths[request]
+                    : options.isUseDataAggregation()
+                            ? intervalAggregator.getTimeUnit().toMillis(intervalAggregator.getValue())
+                            : 0;
+            return fitDataReader.readHistory(
+                    safeRequests[request],
+                    safeRequests[request + 1],
+                    bucketLength,
+                    options.isUseDataAggregation(),
+                    dataTypeRequests,
+                    aggregateTypes
+            );
+        }
+
+        if (bucketLengths == null) {
+            return fitDataReader.readHistory(
+                    safeRequests[request],
+                    safeRequests[request + 1],
+                    options.isUseDataAggregation(),
+                    intervalAggregator,
+                    dataTypeRequests.get(0),
+                    aggregateTypes.get(0)
+            );
+        }
+        return fitDataReader.readHistory(
+                safeRequests[request],
+                safeRequests[request + 1],
+                bucketLengths[request],
+                options.isUseDataAggregation(),
+                dataTypeRequests.get(0),
+                aggregateTypes.get(0)
+        );
+    }
+
+    /**
+     * Deliver the result on main thread.
+     * A task which has no result without being cancelled, eg. its worker thread was interrupted,
+     * is reported as failed, so complete listeners always get a result.
+     * @param results Mapped values
+     */
+    private void onPostExecute(T results) {
+        if (results != null
+                && (!responseSet.responses().isEmpty() || responseSet.exceptions().isEmpty())) {
             if (onCompleteListener != null) onCompleteListener.onComplete(results);
             return;
         }
 
-        if (onFailureListener != null) onFailureListener.onFailure(responseSet.exceptions());
+        if (onFailureListener == null) return;
+        List<Exception> exceptions = responseSet.exceptions();
+        if (exceptions.isEmpty()) {
+            exceptions = Collections.<Exception>singletonList(
+                    new IllegalStateException("History task was stopped without a result."));
+        }
+        onFailureListener.onFailure(exceptions);
+    }
+
+    /**
+     * Skip the part of history requests before the given time, eg. when it is already cached.
+     * Should be called before history requests are executed.
+     * @param startTime Start time of remaining history requests
+     */
+    protected void skipRequestsBefore(long startTime) {
+        // Skip request chunks which are ending at or before the given time
+        int first = 0;
+        while (first < safeRequests.length - 1 && safeRequests[first + 1] <= startTime) {
+            first++;
+        }
+        if (first >= safeRequests.length - 1) {
+            safeRequests = new long[0];
+            if (bucketLengths != null) bucketLengths = new long[0];
+            return;
+        }
+
+        long[] remainingRequests = Arrays.copyOfRange(safeRequests, first, safeRequests.length);
+        if (remainingRequests[0] < startTime) remainingRequests[0] = startTime;
+        safeRequests = remainingRequests;
+        if (bucketLengths != null) {
+            bucketLengths = Arrays.copyOfRange(bucketLengths, first, bucketLengths.length);
+        }
+    }
+
+    /**
+     * Check whether history of this task is read in buckets of time periods.
+     * @return True if history is aggregated, False if it's read raw.
+     */
+    protected boolean isUseDataAggregation() {
+        if (bucketLengths == null) return options.isUseDataAggregation();
+        for (long bucketLength : bucketLengths) {
+            if (bucketLength > 0) return true;
+        }
+        return false;
     }
 
     /**
-     * Get mapped input kit values from data response
-     * @param responses Collection of {@link DataReadResponse} if distance sample
-     * @return List of distance sample
+     * Check whether a request chunk is read in buckets of time periods.
+     * @param request Index of request chunk
+     * @return True if the chunk is aggregated, False if it's read raw.
      */
-    protected abstract List<IKValue<T>> getValues(List<DataReadResponse> responses);
+    private boolean isAggregated(int request) {
+        if (bucketLengths == null) return options.isUseDataAggregation();
+        return bucketLengths[request] > 0;
+    }
 
     /**
-     * Execute task history within thread pool executor
+     * @return Number of request chunks which are going to be read
      */
-    public void start() {
-        executeOnExecutor(AsyncTask.THREAD_POOL_EXECUTOR);
+    protected int getRequestCount() {
+        return Math.max(0, safeRequests.length - 1);
+    }
+
+    /**
+     * Check whether some of history requests were failed.
+     * History requests which are given up because of exceeded deadline are counted as failed.
+     * @return True if there is a failed history request, False otherwise.
+     */
+    protected boolean hasFailedRequests() {
+        return !responseSet.exceptions().isEmpty();
+    }
+
+    /**
+     * Check whether the time budget of this task ran out, see {@link Options#getTimeout()}.
+     * Unlike {@link #hasFailedRequests()}, it doesn't count requests which failed on their own.
+     * @return True if a history request was given up or timed out because of the deadline.
+     */
+    protected boolean isDeadlineExceeded() {
+        return isDeadlineExceeded;
+    }
+
+    /**
+     * Deliver values of a request chunk on main thread, if progress of this task is published.
+     * @param values            Chunk values, nothing is published if it's null
+     * @param completedRequests Number of request chunks which have been read so far
+     * @param totalRequests     Total number of request chunks
+     */
+    protected void publishProgress(final T values,
+                                   final int completedRequests,
+                                   final int totalRequests) {
+        if (values == null || onProgressListener == null) return;
+        // Task has been cancelled, its listeners shouldn't be called anymore
+        if (Thread.currentThread().isInterrupted()) return;
+
+        mainHandler.post(new Runnable() {
+            @Override
+            public void run() {
+                onProgressListener.onProgress(values, completedRequests, totalRequests);
+            }
+        });
+    }
+
+    /**
+     * Map request position into request chunk index
+     * @param position      Position in which request chunks are read
+     * @param requestCount  Total number of request chunks
+     * @param isNewestFirst True if the most recent request chunk is read first
+     * @return Index of request chunk
+     */
+    private static int toRequestIndex(int position, int requestCount, boolean isNewestFirst) {
+        return isNewestFirst ? requestCount - 1 - position : position;
+    }
+
+    /**
+     * Get remaining time budget of this task, see {@link Options#getTimeout()}.
+     * @return Remaining time in milliseconds, or {@link Long#MAX_VALUE} if there is no deadline.
+     */
+    private long getRemainingTime() {
+        if (deadline == 0) return Long.MAX_VALUE;
+        return deadline - SystemClock.elapsedRealtime();
+    }
+
+    /**
+     * Get mapped values from data response
+     * @param responses Collection of {@link DataReadResponse}
+     * @return Mapped values, eg. normalized {@link nl.sense.rninputkit.inputkit.entity.TimeSeries}
+     */
+    protected abstract T getValues(List<DataReadResponse> responses);
+
+    /**
+     * Get mapped values of a single request chunk, which are published as progress.
+     * Values of a chunk are a preview only, they don't have to be identical with the part of
+     * {@link #getValues} result within the chunk.
+     * @param response  {@link DataReadResponse} of the chunk
+     * @param startTime Start time of the chunk
+     * @param endTime   End time of the chunk
+     * @return Mapped values, or null if there is nothing to publish.
+     */
+    protected T getChunkValues(DataReadResponse response, long startTime, long endTime) {
+        return null;
+    }
+
+    /**
+     * Execute task history within {@link HistoryExecutor}.
+     * Listeners are called on main thread once the task is completed, unless it has been cancelled.
+     *
+     * @return Cancellable handle of this task.
+     *         Cancelling it interrupts the outstanding awaits of history requests.
+     */
+    public Future<T> start() {
+        FutureTask<T> task = new FutureTask<T>(this) {
+            @Override
+            protected void done() {
+                if (isCancelled()) return;
+
+                T results = null;
+                try {
+                    results = get();
+                } catch (InterruptedException | CancellationException e) {
+                    return;
+                } catch (ExecutionException e) {
+                    Throwable cause = e.getCause();
+                    responseSet.addException(cause instanceof Exception
+                            ? (Exception) cause : e);
+                    responseSet.responses().clear();
+                }
+                final T finalResults = results;
+                mainHandler.post(new Runnable() {
+                    @Override
+                    public void run() {
+                        onPostExecute(finalResults);
+                    }
+                });
+            }
+        };
+        HistoryExecutor.getInstance().execute(task);
+        return task;
     }
 
     class HistoryResponseSet {
@@ -7,11 +7,15 @@ import com.google.android.gms.fitness.data.DataType;
 import com.google.android.gms.fitness.result.DataReadResponse;
 import com.google.android.gms.tasks.Task;
 
+import java.util.List;
+
 import nl.sense.rninputkit.inputkit.entity.TimeInterval;
 
 public interface IFitReader {
     /**
      * Read historical data from Fitness API.
+     * History tasks may issue several reads before the previous ones are completed, so returned
+     * task should not wait for other reads.
      *
      * @param startTime              Start time cumulative distance
      * @param endTime                End time cumulative distance
@@ -28,4 +32,46 @@ public interface IFitReader {
                                        @NonNull TimeInterval timeIntervalAggregator,
                                        DataType fitDataType,
                                        Pair<?, DataType> typeAggregator);
+
+    /**
+     * Read historical data from Fitness API with a bucket length in milliseconds, eg. a time
+     * window of a day which is an hour shorter due to daylight saving.
+     * Raw data points of an aggregated history are read from the source of aggregate, so they
+     * are the same data points which Fit would have aggregated.
+     *
+     * @param startTime          Start time of history
+     * @param endTime            End time of history
+     * @param bucketLength       Bucket length in milliseconds, or zero to read raw data points
+     * @param useDataAggregation True if history is aggregated, even if this request is read raw
+     * @param fitDataType        Fitness data type
+     * @param typeAggregator     Pair of aggregator data type.
+     *                              First value must be source of aggregate. eg.
+     *                              Second value must be aggregate value.
+     */
+    Task<DataReadResponse> readHistory(long startTime,
+                                       long endTime,
+                                       long bucketLength,
+                                       boolean useDataAggregation,
+                                       DataType fitDataType,
+                                       Pair<?, DataType> typeAggregator);
+
+    /**
+     * Read historical data of several data types within a single request from Fitness API.
+     * Every data type is returned as its own data set, either of the response or of every bucket.
+     *
+     * @param startTime          Start time of history
+     * @param endTime            End time of history
+     * @param bucketLength       Bucket length in milliseconds, or zero to read raw data points
+     * @param useDataAggregation True if history is aggregated, even if this request is read raw
+     * @param fitDataTypes       Fitness data types
+     * @param typeAggregators    Pair of aggregator data type of every fitness data type.
+     *                              First value must be source of aggregate. eg.
+     *                              Second value must be aggregate value.
+     */
+    Task<DataReadResponse> readHistory(long startTime,
+                                       long endTime,
+                                       long bucketLength,
+                                       boolean useDataAggregation,
+                                       @NonNull List<DataType> fitDataTypes,
+                                       @NonNull List<Pair<?, DataType>> typeAggregators);
 }
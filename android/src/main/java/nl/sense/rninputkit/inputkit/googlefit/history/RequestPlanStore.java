@@ -0,0 +1,53 @@
+package nl.sense.rninputkit.inputkit.googlefit.history;
+
+import android.content.Context;
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.google.android.gms.fitness.data.DataType;
+
+import nl.sense.rninputkit.inputkit.helper.PreferenceHelper;
+
+/**
+ * Keep {@link RequestPlanModel} in shared preferences, so request chunks are planned upon
+ * observations of previous sessions. Every data type has a model of its own.
+ */
+class RequestPlanStore implements RequestPlanModel.Store {
+    private static final String KEY_REQUEST_PLAN_MODEL = "IK_REQUEST_PLAN_MODEL";
+    private final Context mContext;
+    private final String mKey;
+    private final boolean mIsLegacyModel;
+
+    /**
+     * @param context Application context
+     * @param name    Name of the model, eg. name of its data type
+     */
+    RequestPlanStore(@NonNull Context context, @NonNull String name) {
+        this.mContext = context;
+        this.mKey = KEY_REQUEST_PLAN_MODEL + "_" + name;
+        // Former single model, which was kept without a name, only observed step count
+        this.mIsLegacyModel = DataType.TYPE_STEP_COUNT_DELTA.getName().equals(name);
+    }
+
+    @Nullable
+    @Override
+    public String read() {
+        String json = PreferenceHelper.get(mContext, mKey);
+        if (mIsLegacyModel) {
+            String legacyJson = PreferenceHelper.get(mContext, KEY_REQUEST_PLAN_MODEL);
+            if (legacyJson != null) {
+                if (json == null) {
+                    json = legacyJson;
+                    write(json);
+                }
+                PreferenceHelper.remove(mContext, KEY_REQUEST_PLAN_MODEL);
+            }
+        }
+        return json;
+    }
+
+    @Override
+    public void write(@NonNull String json) {
+        PreferenceHelper.add(mContext, mKey, json);
+    }
+}
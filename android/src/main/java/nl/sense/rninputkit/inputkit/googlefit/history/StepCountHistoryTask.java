@@ -1,6 +1,5 @@
 package nl.sense.rninputkit.inputkit.googlefit.history;
 
-import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 import android.util.Pair;
 
@@ -10,24 +9,29 @@ import com.google.android.gms.fitness.data.DataType;
 import com.google.android.gms.fitness.result.DataReadResponse;
 
 import java.util.ArrayList;
-import java.util.Collections;
+import java.util.Arrays;
 import java.util.List;
 
 import nl.sense.rninputkit.inputkit.Options;
-import nl.sense.rninputkit.inputkit.entity.IKValue;
+import nl.sense.rninputkit.inputkit.entity.IntTimeSeries;
 import nl.sense.rninputkit.inputkit.entity.Step;
 import nl.sense.rninputkit.inputkit.entity.StepContent;
+import nl.sense.rninputkit.inputkit.entity.TimeInterval;
 
-class StepCountHistoryTask extends HistoryTaskFactory<Integer> {
-    private DataNormalizer<Integer> normalizer = new DataNormalizer<Integer>() {
-        @NonNull
-        @Override
-        protected void setValueItems(@NonNull IKValue<Integer> currentItem,
-                                     @Nullable IKValue<Integer> nextItem,
-                                     @NonNull List<IKValue<Integer>> sourceValues) {
-            this.setAsInt(currentItem, nextItem, sourceValues);
-        }
-    };
+import static nl.sense.rninputkit.inputkit.helper.InputKitTimeUtils.populateTimeWindowBoundaries;
+
+class StepCountHistoryTask extends HistoryTaskFactory<IntTimeSeries> {
+    private static final String CACHE_KEY = "step_count";
+    private static final String CACHE_KEY_AGGREGATED = "step_count_aggregated";
+    private static final String CACHE_KEY_INCREMENTAL_SUFFIX = "_incremental";
+    private static final String CACHE_KEY_EXACT_SUFFIX = "_exact";
+    private IntDataNormalizer normalizer = new IntDataNormalizer();
+    private ExactDataNormalizer exactNormalizer = new ExactDataNormalizer();
+    private HistoryCache historyCache;
+    private long fetchStartTime;
+    private long[] fetchBoundaries;
+    private boolean[] stableWindows;
+    private boolean hasUnsuccessfulResponse;
 
     private HistoryExtractor<Integer> extractor = new HistoryExtractor<Integer>() {
         @Override
@@ -37,11 +41,12 @@ class StepCountHistoryTask extends HistoryTaskFactory<Integer> {
     };
 
     private StepCountHistoryTask(IFitReader fitDataReader,
-                                 List<Pair<Long, Long>> safeRequests,
+                                 long[] safeRequests,
                                  Options options,
                                  DataType dataTypeRequest,
                                  Pair<DataSource, DataType> aggregateType,
-                                 OnCompleteListener<Integer> onCompleteListener,
+                                 HistoryCache historyCache,
+                                 OnCompleteListener<IntTimeSeries> onCompleteListener,
                                  OnFailureListener onFailureListener) {
         super(fitDataReader,
             safeRequests,
@@ -51,73 +56,238 @@ class StepCountHistoryTask extends HistoryTaskFactory<Integer> {
             onCompleteListener,
             onFailureListener
         );
+        this.historyCache = historyCache;
+        this.fetchStartTime = options.getStartTime();
     }
 
+    /**
+     * Read closed buckets from {@link HistoryCache} if it's provided,
+     * so only uncached buckets and the still open ones will be read from Fit.
+     * By minutes distribution, only buckets whose value doesn't depend on the range of the query
+     * are stored, see {@link PrimitiveDataNormalizer#getStableWindows}. So a query which is
+     * partly served from cache gives the same buckets with a query which is read from Fit.
+     * On incremental mode, the watermark of a sync is the end of the last closed bucket, and
+     * the next sync only reads history since then. Late-arriving data within
+     * {@link HistoryCache#INVALIDATION_WINDOW} is therefore read again by the next sync.
+     * @return Normalized step count, or null when this task has been cancelled.
+     */
     @Override
-    protected List<IKValue<Integer>> getValues(List<DataReadResponse> responses) {
-        if (responses == null) return Collections.emptyList();
+    public IntTimeSeries call() {
+        if (historyCache == null) return super.call();
 
-        List<IKValue<Integer>> fitValues = new ArrayList<>();
-        for (DataReadResponse response : responses) {
-            if (!response.getStatus().isSuccess()) continue;
+        String cacheKey = options.isUseDataAggregation() ? CACHE_KEY_AGGREGATED : CACHE_KEY;
+        if (options.isIncremental()) cacheKey += CACHE_KEY_INCREMENTAL_SUFFIX;
+        if (options.isExactDistribution()) cacheKey += CACHE_KEY_EXACT_SUFFIX;
+        TimeInterval interval = options.getTimeInterval();
+        long[] boundaries = populateTimeWindowBoundaries(options.getStartTime(),
+                options.getEndTime(), interval);
+        IntTimeSeries cached = historyCache.readIntBuckets(cacheKey, interval, boundaries);
+        if (options.isIncremental()) {
+            // Only buckets before the watermark are completely synced
+            long watermark = historyCache.readWatermark(cacheKey, interval);
+            int size = 0;
+            while (size < cached.size() && cached.getEndTime(size) <= watermark) size++;
+            cached.truncate(size);
+        }
+        if (boundaries.length > 1 && cached.size() == boundaries.length - 1) return cached;
 
-            // extract value history
-            List<IKValue<Integer>> values = extractor.extractHistory(response, options.isUseDataAggregation());
+        if (!cached.isEmpty()) {
+            fetchStartTime = cached.getEndTime(cached.size() - 1);
+            skipRequestsBefore(fetchStartTime);
+            publishProgress(cached, 0, getRequestCount());
+        }
 
-            // check data source availability
-            if (values.isEmpty()) continue;
+        long now = System.currentTimeMillis();
+        IntTimeSeries fetched = super.call();
+        if (fetched == null) return null;
 
-            fitValues.addAll(values);
+        // Don't store buckets of incomplete history
+        if (!hasFailedRequests() && !hasUnsuccessfulResponse) {
+            long watermark = historyCache.writeIntBuckets(cacheKey, interval,
+                    getStableBuckets(fetched), now - HistoryCache.INVALIDATION_WINDOW);
+            if (options.isIncremental()) historyCache.writeWatermark(cacheKey, interval, watermark);
         }
-        return normalizer.normalize(options.getStartTime(),
-                options.getEndTime(), fitValues, options.getTimeInterval());
+
+        if (cached.isEmpty()) return fetched;
+        IntTimeSeries merged = new IntTimeSeries(cached.size() + fetched.size());
+        merged.setPartial(fetched.isPartial());
+        merged.setDeadlineExceeded(fetched.isDeadlineExceeded());
+        for (int i = 0; i < cached.size(); i++) {
+            merged.add(cached.getStartTime(i), cached.getEndTime(i), cached.getValue(i));
+        }
+        for (int i = 0; i < fetched.size(); i++) {
+            merged.add(fetched.getStartTime(i), fetched.getEndTime(i), fetched.getValue(i));
+        }
+        return merged;
+    }
+
+    @Override
+    protected IntTimeSeries getValues(List<DataReadResponse> responses) {
+        IntTimeSeries fitValues = new IntTimeSeries();
+        if (responses != null) {
+            for (DataReadResponse response : responses) {
+                if (!response.getStatus().isSuccess()) {
+                    hasUnsuccessfulResponse = true;
+                    continue;
+                }
+
+                // extract value history
+                extractor.extractHistory(response, isUseDataAggregation(), fitValues);
+            }
+        }
+        if (!options.isExactDistribution()) {
+            // A value which ends right at the start of the query belongs to the window before it
+            fitValues = getValuesEndingAfter(fitValues, fetchStartTime);
+            if (historyCache != null) {
+                stableWindows = PrimitiveDataNormalizer.getStableWindows(
+                        populateTimeWindowBoundaries(fetchStartTime, options.getEndTime(),
+                                options.getTimeInterval()),
+                        fitValues.getStartTimes(), fitValues.getEndTimes(), fitValues.size());
+            }
+        }
+        IntTimeSeries normalized = normalize(fetchStartTime, options.getEndTime(), fitValues);
+        normalized.setPartial(hasFailedRequests() || hasUnsuccessfulResponse);
+        normalized.setDeadlineExceeded(isDeadlineExceeded());
+        return normalized;
+    }
+
+    /**
+     * Normalize a single request chunk into the time windows of the whole query, so its buckets
+     * line up with the final result. Buckets which are crossing the chunk boundaries only hold
+     * the part of the chunk.
+     */
+    @Override
+    protected IntTimeSeries getChunkValues(DataReadResponse response, long startTime, long endTime) {
+        if (!response.getStatus().isSuccess()) return null;
+
+        if (fetchBoundaries == null) {
+            fetchBoundaries = populateTimeWindowBoundaries(fetchStartTime,
+                    options.getEndTime(), options.getTimeInterval());
+        }
+        int first = Arrays.binarySearch(fetchBoundaries, startTime);
+        if (first < 0) first = Math.max(0, -first - 2);
+        int last = Arrays.binarySearch(fetchBoundaries, endTime);
+        if (last < 0) last = Math.min(fetchBoundaries.length - 1, -last - 1);
+        if (last <= first) return null;
+
+        IntTimeSeries chunkValues = new IntTimeSeries();
+        extractor.extractHistory(response, isUseDataAggregation(), chunkValues);
+        IntTimeSeries normalized = normalize(fetchBoundaries[first], fetchBoundaries[last],
+                chunkValues);
+        normalized.setPartial(true);
+        return normalized;
     }
 
     /**
-     * Convert input kit integer values into step content
-     * @param values    input kit integer values
+     * Get buckets which can be served from cache to any other query.
+     * Every bucket of exact distribution is, while buckets of minutes distribution are only
+     * when they are stable.
+     * @param fetched Normalized step count of fetched history
+     * @return Stable buckets, there may be holes between them
+     */
+    private IntTimeSeries getStableBuckets(IntTimeSeries fetched) {
+        if (stableWindows == null) return fetched;
+
+        IntTimeSeries stable = new IntTimeSeries(fetched.size());
+        for (int i = 0; i < fetched.size() && i < stableWindows.length; i++) {
+            if (!stableWindows[i]) continue;
+            stable.add(fetched.getStartTime(i), fetched.getEndTime(i), fetched.getValue(i));
+        }
+        return stable;
+    }
+
+    /**
+     * Leave out source values which end at or before the given time.
+     * @param values    Source values
+     * @param startTime Start time of normalized history
+     * @return Source values which are ending after the given time
+     */
+    private static IntTimeSeries getValuesEndingAfter(IntTimeSeries values, long startTime) {
+        int count = 0;
+        for (int i = 0; i < values.size(); i++) {
+            if (values.getEndTime(i) > startTime) count++;
+        }
+        if (count == values.size()) return values;
+
+        IntTimeSeries endingAfter = new IntTimeSeries(count);
+        for (int i = 0; i < values.size(); i++) {
+            if (values.getEndTime(i) <= startTime) continue;
+            endingAfter.add(values.getStartTime(i), values.getEndTime(i), values.getValue(i));
+        }
+        return endingAfter;
+    }
+
+    /**
+     * Normalize step count by minutes, or by milliseconds on exact distribution.
+     * @param startTime Start time
+     * @param endTime   End time
+     * @param values    Extracted step count
+     * @return Step count within time windows of the query
+     */
+    private IntTimeSeries normalize(long startTime, long endTime, IntTimeSeries values) {
+        if (options.isExactDistribution()) {
+            return exactNormalizer.normalize(startTime, endTime, values, options.getTimeInterval());
+        }
+        return normalizer.normalize(startTime, endTime, values, options.getTimeInterval());
+    }
+
+    /**
+     * Convert step count time series into step content
+     * @param values    step count time series
      * @param startTime start time of content
      * @param endTime   end time of content
      * @return Step content
      */
-    public static StepContent toStepContent(List<IKValue<Integer>> values, long startTime, long endTime) {
-        List<Step> steps = new ArrayList<>();
+    public static StepContent toStepContent(IntTimeSeries values, long startTime, long endTime) {
+        List<Step> steps = new ArrayList<>(values == null ? 0 : values.size());
         if (values != null) {
-            for (IKValue<Integer> value : values) {
+            for (int i = 0; i < values.size(); i++) {
                 steps.add(new Step(
-                        value.getValue(),
-                        value.getStartDate().getEpoch(),
-                        value.getEndDate().getEpoch())
+                        values.getValue(i),
+                        values.getStartTime(i),
+                        values.getEndTime(i))
                 );
             }
         }
-        return new StepContent(
+        StepContent content = new StepContent(
                 true,
                 startTime,
                 endTime,
                 steps
         );
+        content.setPartial(values != null && values.isPartial());
+        return content;
     }
 
     static class Builder {
         private IFitReader fitDataReader;
-        private List<Pair<Long, Long>> safeRequests;
+        private long[] safeRequests;
+        private long[] bucketLengths;
         private Options options;
         private DataType dataTypeRequest;
         private Pair<DataSource, DataType> aggregateType;
-        private OnCompleteListener<Integer> onCompleteListener;
+        private HistoryCache historyCache;
+        private RequestPlanModel requestPlanModel;
+        private OnCompleteListener<IntTimeSeries> onCompleteListener;
         private OnFailureListener onFailureListener;
+        private OnProgressListener<IntTimeSeries> onProgressListener;
 
         Builder withFitDataReader(IFitReader fitDataReader) {
             this.fitDataReader = fitDataReader;
             return this;
         }
 
-        Builder addSafeRequests(List<Pair<Long, Long>> safeRequests) {
+        Builder addSafeRequests(long[] safeRequests) {
             this.safeRequests = safeRequests;
             return this;
         }
 
+        Builder addRequestPlan(SafeRequestHandler.RequestPlan requestPlan) {
+            this.safeRequests = requestPlan.getBoundaries();
+            this.bucketLengths = requestPlan.getBucketLengths();
+            return this;
+        }
+
         Builder addOptions(Options options) {
             this.options = options;
             return this;
@@ -133,7 +303,17 @@ class StepCountHistoryTask extends HistoryTaskFactory<Integer> {
             return this;
         }
 
-        Builder addOnCompleteListener(OnCompleteListener<Integer> onCompleteListener) {
+        Builder withHistoryCache(HistoryCache historyCache) {
+            this.historyCache = historyCache;
+            return this;
+        }
+
+        Builder withRequestPlanModel(RequestPlanModel requestPlanModel) {
+            this.requestPlanModel = requestPlanModel;
+            return this;
+        }
+
+        Builder addOnCompleteListener(OnCompleteListener<IntTimeSeries> onCompleteListener) {
             this.onCompleteListener = onCompleteListener;
             return this;
         }
@@ -143,6 +323,11 @@ class StepCountHistoryTask extends HistoryTaskFactory<Integer> {
             return this;
         }
 
+        Builder addOnProgressListener(OnProgressListener<IntTimeSeries> onProgressListener) {
+            this.onProgressListener = onProgressListener;
+            return this;
+        }
+
         private void validate() {
             if (fitDataReader == null)
                 throw new IllegalStateException("Fit history must be provided.");
@@ -158,15 +343,20 @@ class StepCountHistoryTask extends HistoryTaskFactory<Integer> {
 
         StepCountHistoryTask build() {
             validate();
-            return new StepCountHistoryTask(
+            StepCountHistoryTask task = new StepCountHistoryTask(
                     fitDataReader,
                     safeRequests,
                     options,
                     dataTypeRequest,
                     aggregateType,
+                    historyCache,
                     onCompleteListener,
                     onFailureListener
             );
+            task.setRequestPlanModel(requestPlanModel);
+            task.setBucketLengths(bucketLengths);
+            task.setOnProgressListener(onProgressListener);
+            return task;
         }
     }
 }
@@ -0,0 +1,228 @@
+package nl.sense.rninputkit.inputkit.googlefit.history;
+
+import androidx.annotation.NonNull;
+import android.util.Pair;
+
+import com.google.android.gms.fitness.data.DataPoint;
+import com.google.android.gms.fitness.data.DataType;
+import com.google.android.gms.fitness.data.Field;
+import com.google.android.gms.fitness.result.DataReadResponse;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import nl.sense.rninputkit.inputkit.Options;
+import nl.sense.rninputkit.inputkit.constant.Summary;
+import nl.sense.rninputkit.inputkit.entity.DateContent;
+import nl.sense.rninputkit.inputkit.entity.FloatTimeSeries;
+import nl.sense.rninputkit.inputkit.entity.IKValue;
+import nl.sense.rninputkit.inputkit.entity.WeightContent;
+
+/**
+ * History task of weight in kilograms.
+ * Weight is not additive, so every time window is reduced into a {@link Summary} by
+ * {@link SummaryDataNormalizer} instead of being distributed by minutes.
+ * Aggregated history reads {@link DataType#AGGREGATE_WEIGHT_SUMMARY} buckets, which only hold
+ * average, min and max of a bucket. {@link Summary#LAST} should therefore be read raw.
+ * Summaries don't tell how many measurements they hold either, so averages of several buckets
+ * can't be weighted. {@link Summary#AVERAGE} is therefore only aggregated by buckets of the exact
+ * time windows, see {@link SafeRequestHandler.Strategy#BUCKETED}, and read raw otherwise.
+ */
+class WeightHistoryTask extends HistoryTaskFactory<FloatTimeSeries> {
+    private SummaryDataNormalizer normalizer = new SummaryDataNormalizer();
+    private String summary;
+
+    private WeightHistoryTask(IFitReader fitDataReader,
+                              long[] safeRequests,
+                              Options options,
+                              DataType dataTypeRequest,
+                              Pair<?, DataType> aggregateType,
+                              @Summary.SummaryName String summary,
+                              OnCompleteListener<FloatTimeSeries> onCompleteListener,
+                              OnFailureListener onFailureListener) {
+        super(fitDataReader,
+            safeRequests,
+            options,
+            dataTypeRequest,
+            aggregateType,
+            onCompleteListener,
+            onFailureListener
+        );
+        this.summary = summary;
+    }
+
+    @Override
+    protected FloatTimeSeries getValues(List<DataReadResponse> responses) {
+        final FloatTimeSeries fitValues = new FloatTimeSeries();
+        boolean hasUnsuccessfulResponse = false;
+        boolean useDataAggregation = isUseDataAggregation();
+        final Field field = getField(useDataAggregation, summary);
+        if (responses != null) {
+            for (DataReadResponse response : responses) {
+                if (!response.getStatus().isSuccess()) {
+                    hasUnsuccessfulResponse = true;
+                    continue;
+                }
+
+                // extract value history
+                HistoryExtractor.visitHistory(response, useDataAggregation,
+                        new HistoryExtractor.DataPointVisitor() {
+                            @Override
+                            public void visit(@NonNull DataPoint dataPoint) {
+                                fitValues.add(dataPoint.getStartTime(TimeUnit.MILLISECONDS),
+                                        dataPoint.getEndTime(TimeUnit.MILLISECONDS),
+                                        dataPoint.getValue(field).asFloat());
+                            }
+                        });
+            }
+        }
+        FloatTimeSeries normalized = normalizer.normalize(options.getStartTime(),
+                options.getEndTime(), fitValues, options.getTimeInterval(), summary);
+        normalized.setPartial(hasFailedRequests() || hasUnsuccessfulResponse);
+        normalized.setDeadlineExceeded(isDeadlineExceeded());
+        return normalized;
+    }
+
+    /**
+     * Get field of weight data points
+     * @param useDataAggregation True if history is read from weight summaries
+     * @param summary            {@link Summary.SummaryName} of time windows
+     * @return {@link Field} which matches with the summary of time windows
+     */
+    private static Field getField(boolean useDataAggregation,
+                                  @Summary.SummaryName String summary) {
+        if (!useDataAggregation) return Field.FIELD_WEIGHT;
+        if (Summary.MIN.equals(summary)) return Field.FIELD_MIN;
+        if (Summary.MAX.equals(summary)) return Field.FIELD_MAX;
+        return Field.FIELD_AVERAGE;
+    }
+
+    /**
+     * Convert weight time series into weight content
+     * @param values    weight time series
+     * @param startTime start time of content
+     * @param endTime   end time of content
+     * @return Weight content
+     */
+    public static WeightContent toWeightContent(FloatTimeSeries values,
+                                                long startTime,
+                                                long endTime) {
+        List<IKValue<Float>> weights = new ArrayList<>(values == null ? 0 : values.size());
+        if (values != null) {
+            for (int i = 0; i < values.size(); i++) {
+                weights.add(new IKValue<>(
+                        values.getValue(i),
+                        new DateContent(values.getStartTime(i)),
+                        new DateContent(values.getEndTime(i)))
+                );
+            }
+        }
+        WeightContent content = new WeightContent(
+                true,
+                startTime,
+                endTime,
+                weights
+        );
+        content.setPartial(values != null && values.isPartial());
+        return content;
+    }
+
+    static class Builder {
+        private IFitReader fitDataReader;
+        private long[] safeRequests;
+        private long[] bucketLengths;
+        private Options options;
+        private DataType dataTypeRequest;
+        private Pair<?, DataType> aggregateType;
+        private String summary;
+        private RequestPlanModel requestPlanModel;
+        private OnCompleteListener<FloatTimeSeries> onCompleteListener;
+        private OnFailureListener onFailureListener;
+
+        Builder withFitDataReader(IFitReader fitDataReader) {
+            this.fitDataReader = fitDataReader;
+            return this;
+        }
+
+        Builder addRequestPlan(SafeRequestHandler.RequestPlan requestPlan) {
+            this.safeRequests = requestPlan.getBoundaries();
+            this.bucketLengths = requestPlan.getBucketLengths();
+            return this;
+        }
+
+        Builder addOptions(Options options) {
+            this.options = options;
+            return this;
+        }
+
+        Builder addDataType(DataType dataTypeRequest) {
+            this.dataTypeRequest = dataTypeRequest;
+            return this;
+        }
+
+        Builder addAggregateSourceType(Pair<?, DataType> aggregateType) {
+            this.aggregateType = aggregateType;
+            return this;
+        }
+
+        Builder addSummary(@Summary.SummaryName String summary) {
+            this.summary = summary;
+            return this;
+        }
+
+        Builder withRequestPlanModel(RequestPlanModel requestPlanModel) {
+            this.requestPlanModel = requestPlanModel;
+            return this;
+        }
+
+        Builder addOnCompleteListener(OnCompleteListener<FloatTimeSeries> onCompleteListener) {
+            this.onCompleteListener = onCompleteListener;
+            return this;
+        }
+
+        Builder addOnFailureListener(OnFailureListener onFailureListener) {
+            this.onFailureListener = onFailureListener;
+            return this;
+        }
+
+        private void validate() {
+            if (fitDataReader == null)
+                throw new IllegalStateException("Fit history must be provided.");
+            if (safeRequests == null)
+                throw new IllegalStateException("Time requests must be provided.");
+            if (dataTypeRequest == null)
+                throw new IllegalStateException("Data type request must be provided.");
+            if (aggregateType == null)
+                throw new IllegalStateException("Aggregate type must be provided.");
+            if (summary == null)
+                throw new IllegalStateException("Summary must be provided.");
+            if (options == null)
+                throw new IllegalStateException("Options history must be provided.");
+        }
+
+        WeightHistoryTask build() {
+            validate();
+            WeightHistoryTask task = new WeightHistoryTask(
+                    fitDataReader,
+                    safeRequests,
+                    options,
+                    dataTypeRequest,
+                    aggregateType,
+                    summary,
+                    onCompleteListener,
+                    onFailureListener
+            );
+            task.setRequestPlanModel(requestPlanModel);
+            if (bucketLengths == null
+                    && options.isUseDataAggregation()
+                    && Summary.AVERAGE.equals(summary)) {
+                // Buckets don't match the time windows, read every chunk raw instead
+                task.setBucketLengths(new long[Math.max(0, safeRequests.length - 1)]);
+            } else {
+                task.setBucketLengths(bucketLengths);
+            }
+            return task;
+        }
+    }
+}
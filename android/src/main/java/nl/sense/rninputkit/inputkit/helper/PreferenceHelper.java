@@ -38,6 +38,22 @@ public class PreferenceHelper {
         editor.apply();
     }
 
+    /**
+     * Remove value from Shared Preference.
+     *
+     * @param context current application context
+     * @param key     Key preference
+     */
+    public static void remove(@NonNull Context context,
+                              @NonNull String key) {
+        SharedPreferences.Editor editor = context.getSharedPreferences(
+                PREFERENCE_NAME,
+                Context.MODE_PRIVATE
+        ).edit();
+        editor.remove(key);
+        editor.apply();
+    }
+
     /**
      * Get value from Shared Preference.
      *
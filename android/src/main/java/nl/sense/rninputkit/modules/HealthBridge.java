@@ -15,6 +15,7 @@ import nl.sense.rninputkit.helper.WeightConverter;
 import nl.sense.rninputkit.modules.health.HealthPermissionPromise;
 import nl.sense.rninputkit.modules.health.event.EventHandler;
 import com.facebook.react.bridge.ActivityEventListener;
+import com.facebook.react.bridge.Arguments;
 import com.facebook.react.bridge.Callback;
 import com.facebook.react.bridge.LifecycleEventListener;
 import com.facebook.react.bridge.Promise;
@@ -22,11 +23,13 @@ import com.facebook.react.bridge.ReactApplicationContext;
 import com.facebook.react.bridge.ReactContextBaseJavaModule;
 import com.facebook.react.bridge.ReactMethod;
 import com.facebook.react.bridge.ReadableArray;
+import com.facebook.react.bridge.ReadableMap;
 import com.facebook.react.bridge.WritableArray;
 import com.facebook.react.bridge.WritableMap;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.TimeUnit;
 
 import nl.sense.rninputkit.inputkit.HealthProvider; // TODO IMPORTS
@@ -34,10 +37,13 @@ import nl.sense.rninputkit.inputkit.HealthProvider.ProviderType;
 import nl.sense.rninputkit.inputkit.InputKit;
 import nl.sense.rninputkit.inputkit.constant.IKStatus;
 import nl.sense.rninputkit.inputkit.constant.SampleType;
+import nl.sense.rninputkit.inputkit.constant.Summary;
+import nl.sense.rninputkit.inputkit.entity.DistanceContent;
 import nl.sense.rninputkit.inputkit.entity.IKValue;
 import nl.sense.rninputkit.inputkit.entity.SensorDataPoint;
 import nl.sense.rninputkit.inputkit.entity.StepContent;
 import nl.sense.rninputkit.inputkit.entity.Weight;
+import nl.sense.rninputkit.inputkit.entity.WeightContent;
 import nl.sense.rninputkit.inputkit.googlefit.GoogleFitHealthProvider;
 import nl.sense.rninputkit.inputkit.helper.AppHelper;
 import nl.sense.rninputkit.inputkit.status.IKProviderInfo;
@@ -55,6 +61,11 @@ public class HealthBridge extends ReactContextBaseJavaModule implements Activity
 
     private static final String HEALTH_FIT_MODULE_NAME = "HealthBridge";
     private static final String TAG = HEALTH_FIT_MODULE_NAME;
+    private static final String TIMEOUT_OPTION = "timeout";
+    private static final String PARTIAL_PROPS = "partial";
+    private static final String QUERY_ID_PROPS = "queryId";
+    private static final String COMPLETED_REQUESTS_PROPS = "completedRequests";
+    private static final String TOTAL_REQUESTS_PROPS = "totalRequests";
     private ReactApplicationContext mReactContext;
     private InputKit mInputKit;
     private List<HealthPermissionPromise> mRequestHealthPromises;
@@ -239,18 +250,21 @@ public class HealthBridge extends ReactContextBaseJavaModule implements Activity
      * Get total steps count of specific range
      * @param startTime epoch for the start date
      * @param endTime   epoch for the end date
+     * @param options   query options, eg. `timeout` in milliseconds
      * @param promise containing number of total steps count
      */
     @ReactMethod
     @SuppressWarnings("unused")//Used by React Native application
     public void getStepCount(final Double startTime,
                              final Double endTime,
+                             final ReadableMap options,
                              final Promise promise) {
         Log.d(TAG, "getStepCount: " + startTime + ", " + endTime);
         mInputKit.getStepCount(
                 startTime.longValue(),
                 endTime.longValue(),
                 0,
+                getTimeout(options),
                 new InputKit.Result<Integer>() {
                     @Override
                     public void onNewData(Integer data) {
@@ -271,16 +285,19 @@ public class HealthBridge extends ReactContextBaseJavaModule implements Activity
      *  @param startTime    epoch for the start date of the range where the distribution should be calculated from.
      *  @param endTime      epoch for the end date of the range where the distribution should be calculated from.
      *  @param interval     Interval
+     *  @param options      query options, eg. `timeout` in milliseconds
      *  @param promise      containing:
      *     value: array of data points
      *     startDate: start date
      *     endDate: end date
+     *     partial: true if the deadline was exceeded before the whole history was read
      **/
     @ReactMethod
     @SuppressWarnings("unused")//Used by React Native application
     public void getStepCountDistribution(final Double startTime,
                                          final Double endTime,
                                          final String interval,
+                                         final ReadableMap options,
                                          final Promise promise) {
         Log.d(TAG, "getStepCountDistribution: " + startTime + ", " + endTime + ", " + interval);
         mInputKit.getStepCountDistribution(
@@ -288,11 +305,13 @@ public class HealthBridge extends ReactContextBaseJavaModule implements Activity
                 endTime.longValue(),
                 interval,
                 0,
+                getTimeout(options),
                 new InputKit.Result<StepContent>() {
                     @Override
                     public void onNewData(StepContent data) {
                         Log.d(TAG, "getStepCountDistribution#onNewData: " + data.toJson());
                         WritableMap object = ValueConverter.toWritableMap(data);
+                        object.putBoolean(PARTIAL_PROPS, data.isPartial());
                         Log.d(TAG, "getStepCountDistribution#onNewData: CONVERTED " + object);
                         promise.resolve(object);
                     }
@@ -304,6 +323,248 @@ public class HealthBridge extends ReactContextBaseJavaModule implements Activity
                 });
     }
 
+    /**
+     *  Returns Promise contains distribution of step count value through out a specific range
+     *  at several intervals at once. History is only read at the finest interval, coarser
+     *  intervals are rolled up out of it.
+     *
+     *  @param startTime    epoch for the start date of the range where the distribution should be calculated from.
+     *  @param endTime      epoch for the end date of the range where the distribution should be calculated from.
+     *  @param intervals    Intervals
+     *  @param options      query options, eg. `timeout` in milliseconds
+     *  @param promise      containing a distribution of every interval, keyed by interval, with
+     *                      the same content as {@link #getStepCountDistribution}
+     **/
+    @ReactMethod
+    @SuppressWarnings("unused")//Used by React Native application
+    public void getStepCountRollup(final Double startTime,
+                                   final Double endTime,
+                                   final ReadableArray intervals,
+                                   final ReadableMap options,
+                                   final Promise promise) {
+        Log.d(TAG, "getStepCountRollup: " + startTime + ", " + endTime + ", " + intervals);
+        List<String> intervalNames = new ArrayList<>();
+        if (intervals != null) {
+            for (Object interval : intervals.toArrayList()) {
+                intervalNames.add(String.valueOf(interval));
+            }
+        }
+
+        mInputKit.getStepCountRollup(
+                startTime.longValue(),
+                endTime.longValue(),
+                intervalNames,
+                getTimeout(options),
+                new InputKit.Result<Map<String, StepContent>>() {
+                    @Override
+                    public void onNewData(Map<String, StepContent> data) {
+                        WritableMap result = Arguments.createMap();
+                        for (Map.Entry<String, StepContent> entry : data.entrySet()) {
+                            WritableMap object = ValueConverter.toWritableMap(entry.getValue());
+                            object.putBoolean(PARTIAL_PROPS, entry.getValue().isPartial());
+                            result.putMap(entry.getKey(), object);
+                        }
+                        promise.resolve(result);
+                    }
+
+                    @Override
+                    public void onError(@NonNull IKResultInfo error) {
+                        promise.reject(String.valueOf(error.getResultCode()), error.getMessage());
+                    }
+                });
+    }
+
+    /**
+     *  Returns Promise contains distribution of step count value through out a specific range,
+     *  while partial distribution of every history request is emitted as
+     *  `inputKitHistoryProgress` event as soon as it's read, starting from the most recent one.
+     *
+     *  @param startTime    epoch for the start date of the range where the distribution should be calculated from.
+     *  @param endTime      epoch for the end date of the range where the distribution should be calculated from.
+     *  @param interval     Interval
+     *  @param queryId      identifier of the query, which is sent along with its progress events
+     *  @param options      query options, eg. `timeout` in milliseconds
+     *  @param promise      containing the same result with {@link #getStepCountDistribution}
+     **/
+    @ReactMethod
+    @SuppressWarnings("unused")//Used by React Native application
+    public void getStepCountDistributionWithProgress(final Double startTime,
+                                                     final Double endTime,
+                                                     final String interval,
+                                                     final String queryId,
+                                                     final ReadableMap options,
+                                                     final Promise promise) {
+        Log.d(TAG, "getStepCountDistributionWithProgress: " + startTime + ", " + endTime
+                + ", " + interval + ", " + queryId);
+        mInputKit.getStepCountDistribution(
+                startTime.longValue(),
+                endTime.longValue(),
+                interval,
+                0,
+                getTimeout(options),
+                new InputKit.ProgressListener<StepContent>() {
+                    @Override
+                    public void onProgress(StepContent data,
+                                           int completedRequests,
+                                           int totalRequests) {
+                        EventHandler eventHandler = mReactContext.getNativeModule(EventHandler.class);
+                        if (eventHandler == null) return;
+
+                        WritableMap object = ValueConverter.toWritableMap(data);
+                        object.putBoolean(PARTIAL_PROPS, true);
+                        object.putString(QUERY_ID_PROPS, queryId);
+                        object.putInt(COMPLETED_REQUESTS_PROPS, completedRequests);
+                        object.putInt(TOTAL_REQUESTS_PROPS, totalRequests);
+                        eventHandler.emitProgress(
+                                JS_SUPPORTED_EVENTS.get(Constants.EVENTS.inputKitHistoryProgress),
+                                object);
+                    }
+                },
+                new InputKit.Result<StepContent>() {
+                    @Override
+                    public void onNewData(StepContent data) {
+                        WritableMap object = ValueConverter.toWritableMap(data);
+                        object.putBoolean(PARTIAL_PROPS, data.isPartial());
+                        promise.resolve(object);
+                    }
+
+                    @Override
+                    public void onError(@NonNull IKResultInfo error) {
+                        promise.reject(String.valueOf(error.getResultCode()), error.getMessage());
+                    }
+                });
+    }
+
+    /**
+     * Get total walking and running distance of specific range
+     * @param startTime epoch for the start date
+     * @param endTime   epoch for the end date
+     * @param options   query options, eg. `timeout` in milliseconds
+     * @param promise containing total distance in meters
+     */
+    @ReactMethod
+    @SuppressWarnings("unused")//Used by React Native application
+    public void getDistance(final Double startTime,
+                            final Double endTime,
+                            final ReadableMap options,
+                            final Promise promise) {
+        Log.d(TAG, "getDistance: " + startTime + ", " + endTime);
+        mInputKit.getDistance(
+                startTime.longValue(),
+                endTime.longValue(),
+                0,
+                getTimeout(options),
+                new InputKit.Result<Float>() {
+                    @Override
+                    public void onNewData(Float data) {
+                        Log.d(TAG, "getDistance#onNewData: " + data);
+                        promise.resolve(data.doubleValue());
+                    }
+
+                    @Override
+                    public void onError(@NonNull IKResultInfo error) {
+                        promise.reject(String.valueOf(error.getResultCode()), error.getMessage());
+                    }
+                });
+    }
+
+    /**
+     *  Returns Promise contains distribution of walking and running distance through out a specific range.
+     *
+     *  @param startTime    epoch for the start date of the range where the distribution should be calculated from.
+     *  @param endTime      epoch for the end date of the range where the distribution should be calculated from.
+     *  @param interval     Interval
+     *  @param options      query options, eg. `timeout` in milliseconds
+     *  @param promise      containing:
+     *     value: array of data points, distance in meters
+     *     startDate: start date
+     *     endDate: end date
+     *     partial: true if the deadline was exceeded before the whole history was read
+     **/
+    @ReactMethod
+    @SuppressWarnings("unused")//Used by React Native application
+    public void getDistanceDistribution(final Double startTime,
+                                        final Double endTime,
+                                        final String interval,
+                                        final ReadableMap options,
+                                        final Promise promise) {
+        Log.d(TAG, "getDistanceDistribution: " + startTime + ", " + endTime + ", " + interval);
+        mInputKit.getDistanceDistribution(
+                startTime.longValue(),
+                endTime.longValue(),
+                interval,
+                0,
+                getTimeout(options),
+                new InputKit.Result<DistanceContent>() {
+                    @Override
+                    public void onNewData(DistanceContent data) {
+                        WritableMap object = ValueConverter.toWritableMap(data);
+                        object.putBoolean(PARTIAL_PROPS, data.isPartial());
+                        promise.resolve(object);
+                    }
+
+                    @Override
+                    public void onError(@NonNull IKResultInfo error) {
+                        promise.reject(String.valueOf(error.getResultCode()), error.getMessage());
+                    }
+                });
+    }
+
+    /**
+     *  Returns Promise contains distribution of weight through out a specific range, where every
+     *  interval holds a summary of its weight measurements.
+     *
+     *  @param startTime    epoch for the start date of the range where the distribution should be calculated from.
+     *  @param endTime      epoch for the end date of the range where the distribution should be calculated from.
+     *  @param interval     Interval
+     *  @param summary      Summary of an interval, one of {@link Summary.SummaryName}
+     *  @param options      query options, eg. `timeout` in milliseconds
+     *  @param promise      containing:
+     *     value: array of data points, weight in kilograms. Intervals without any measurement are left out.
+     *     startDate: start date
+     *     endDate: end date
+     *     partial: true if the deadline was exceeded before the whole history was read
+     **/
+    @ReactMethod
+    @SuppressWarnings("unused")//Used by React Native application
+    public void getWeightDistribution(final Double startTime,
+                                      final Double endTime,
+                                      final String interval,
+                                      final String summary,
+                                      final ReadableMap options,
+                                      final Promise promise) {
+        Log.d(TAG, "getWeightDistribution: " + startTime + ", " + endTime + ", " + interval
+                + ", " + summary);
+        if (!Summary.LAST.equals(summary)
+                && !Summary.MIN.equals(summary)
+                && !Summary.MAX.equals(summary)
+                && !Summary.AVERAGE.equals(summary)) {
+            promise.reject(String.valueOf(IKStatus.Code.INVALID_REQUEST),
+                    summary + " is not supported in InputKit!");
+            return;
+        }
+
+        mInputKit.getWeightDistribution(
+                startTime.longValue(),
+                endTime.longValue(),
+                interval,
+                summary,
+                getTimeout(options),
+                new InputKit.Result<WeightContent>() {
+                    @Override
+                    public void onNewData(WeightContent data) {
+                        WritableMap object = ValueConverter.toWritableMap(data);
+                        object.putBoolean(PARTIAL_PROPS, data.isPartial());
+                        promise.resolve(object);
+                    }
+
+                    @Override
+                    public void onError(@NonNull IKResultInfo error) {
+                        promise.reject(String.valueOf(error.getResultCode()), error.getMessage());
+                    }
+                });
+    }
+
     /**
      * Start tracking specific sensor.
      *
@@ -445,4 +706,17 @@ public class HealthBridge extends ReactContextBaseJavaModule implements Activity
         }
         return converted.toArray(new String[]{});
     }
+
+    /**
+     * Read overall time budget of a history query from JS options.
+     * @param options Query options
+     * @return Timeout in milliseconds, or 0 if there is no deadline
+     */
+    private long getTimeout(ReadableMap options) {
+        if (options == null || !options.hasKey(TIMEOUT_OPTION)
+                || options.isNull(TIMEOUT_OPTION)) {
+            return 0;
+        }
+        return (long) options.getDouble(TIMEOUT_OPTION);
+    }
 }
@@ -12,6 +12,7 @@ import com.facebook.react.bridge.ReactApplicationContext;
 import com.facebook.react.bridge.ReactContext;
 import com.facebook.react.bridge.ReactContextBaseJavaModule;
 import com.facebook.react.bridge.ReactMethod;
+import com.facebook.react.bridge.WritableMap;
 import com.facebook.react.modules.core.DeviceEventManagerModule;
 import com.google.gson.Gson;
 import com.google.gson.reflect.TypeToken;
@@ -140,6 +141,18 @@ public class EventHandler extends ReactContextBaseJavaModule implements Lifecycl
                             @NonNull Callback completionBlock) {
     }
 
+    // Not exposed to JS
+    // called by history queries to publish their progress.
+    // Progress is fire and forget : it's neither kept until a listener is ready,
+    // nor awaiting JS to process it, since the final result of the query follows anyway.
+    public void emitProgress(@NonNull String eventName, @NonNull WritableMap payload) {
+        if (!mAvailableListeners.contains(eventName) || mIsHostDestroyed) return;
+
+        mReactContext
+                .getJSModule(DeviceEventManagerModule.RCTDeviceEventEmitter.class)
+                .emit(eventName, payload);
+    }
+
     // Not exposed to JS
     // called by native components such as Health Kit.
     // This method can be called from multiple threads
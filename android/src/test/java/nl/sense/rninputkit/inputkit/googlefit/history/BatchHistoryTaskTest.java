@@ -0,0 +1,105 @@
+package nl.sense.rninputkit.inputkit.googlefit.history;
+
+import android.util.Pair;
+
+import com.google.android.gms.fitness.data.DataType;
+
+import org.junit.After;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import java.util.List;
+import java.util.TimeZone;
+import java.util.concurrent.TimeUnit;
+
+import nl.sense.rninputkit.inputkit.Options;
+import nl.sense.rninputkit.inputkit.constant.Interval;
+import nl.sense.rninputkit.inputkit.entity.FloatTimeSeries;
+import nl.sense.rninputkit.inputkit.entity.IntTimeSeries;
+import nl.sense.rninputkit.inputkit.entity.TimeInterval;
+import nl.sense.rninputkit.inputkit.entity.TimeSeries;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Routing of data sets of batched history requests into their {@link HistoryChannel}.
+ */
+@RunWith(RobolectricTestRunner.class)
+public class BatchHistoryTaskTest {
+    /** 2019-01-01T00:00:00Z */
+    private static final long START_TIME = 1546300800000L;
+    private static final long ONE_MINUTE = TimeUnit.MINUTES.toMillis(1);
+    private static final long TEN_MINUTES = TimeUnit.MINUTES.toMillis(10);
+    private static final long ONE_HOUR = TimeUnit.HOURS.toMillis(1);
+    private static final int HOURS = 72;
+
+    private final FakeFitReader fitReader = new FakeFitReader(0);
+
+    @After
+    public void tearDown() {
+        fitReader.shutdown();
+    }
+
+    @Test
+    public void dataSetsAreRoutedIntoTheirChannels() throws Exception {
+        for (int i = 0; i < HOURS; i++) {
+            long time = START_TIME + i * ONE_HOUR;
+            fitReader.addDataPoint(FakeFitReader.dataPoint(DataType.TYPE_STEP_COUNT_DELTA,
+                    time + 2 * ONE_MINUTE, time + 3 * ONE_MINUTE, 10));
+            fitReader.addDataPoint(FakeFitReader.dataPoint(DataType.TYPE_DISTANCE_DELTA,
+                    time + 5 * ONE_MINUTE, time + 6 * ONE_MINUTE, 7.5f));
+            // Data type which is not requested
+            fitReader.addDataPoint(FakeFitReader.dataPoint(DataType.TYPE_WEIGHT,
+                    time + 7 * ONE_MINUTE, time + 8 * ONE_MINUTE, 80f));
+        }
+        long endTime = START_TIME + HOURS * ONE_HOUR;
+        TimeInterval interval = new TimeInterval(Interval.TEN_MINUTE);
+        Options options = new Options.Builder()
+                .startTime(START_TIME)
+                .endTime(endTime)
+                .timeInterval(interval)
+                .build();
+        SafeRequestHandler.RequestPlan requestPlan = new SafeRequestHandler()
+                .getRequestPlan(START_TIME, endTime, interval, false, TimeZone.getDefault());
+
+        List<TimeSeries> result = new BatchHistoryTask.Builder()
+                .withFitDataReader(fitReader)
+                .addRequestPlan(requestPlan)
+                .addOptions(options)
+                .addChannel(HistoryChannel.ofInt(DataType.TYPE_STEP_COUNT_DELTA,
+                        new Pair<>(DataType.TYPE_STEP_COUNT_DELTA,
+                                DataType.AGGREGATE_STEP_COUNT_DELTA)))
+                .addChannel(HistoryChannel.ofFloat(DataType.TYPE_DISTANCE_DELTA,
+                        new Pair<>(DataType.TYPE_DISTANCE_DELTA,
+                                DataType.AGGREGATE_DISTANCE_DELTA)))
+                .build()
+                .start()
+                .get(10, TimeUnit.SECONDS);
+
+        // Both data types are read within the same request chunks
+        assertTrue(requestPlan.getChunkCount() > 1);
+        assertEquals(requestPlan.getChunkCount(), fitReader.getRequestedStartTimes().size());
+
+        // Time series are in order of the channels
+        assertEquals(2, result.size());
+        assertTrue(result.get(0) instanceof IntTimeSeries);
+        assertTrue(result.get(1) instanceof FloatTimeSeries);
+        IntTimeSeries steps = (IntTimeSeries) result.get(0);
+        FloatTimeSeries distance = (FloatTimeSeries) result.get(1);
+        assertFalse(steps.isPartial());
+        assertFalse(distance.isPartial());
+        assertEquals(6 * HOURS, steps.size());
+        assertEquals(6 * HOURS, distance.size());
+        for (int i = 0; i < 6 * HOURS; i++) {
+            // Values are within the first ten minutes of every hour
+            boolean isFirstWindow = i % 6 == 0;
+            assertEquals(START_TIME + i * TEN_MINUTES, steps.getStartTime(i));
+            assertEquals(isFirstWindow ? 10 : 0, steps.getValue(i));
+            assertEquals(START_TIME + i * TEN_MINUTES, distance.getStartTime(i));
+            assertEquals(isFirstWindow ? 7.5f : 0f, distance.getValue(i), 1e-3f);
+        }
+    }
+}
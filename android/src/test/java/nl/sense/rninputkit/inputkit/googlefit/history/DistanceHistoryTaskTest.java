@@ -0,0 +1,125 @@
+package nl.sense.rninputkit.inputkit.googlefit.history;
+
+import android.util.Pair;
+
+import com.google.android.gms.fitness.data.DataType;
+
+import org.junit.After;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import java.util.TimeZone;
+import java.util.concurrent.TimeUnit;
+
+import nl.sense.rninputkit.inputkit.Options;
+import nl.sense.rninputkit.inputkit.constant.Interval;
+import nl.sense.rninputkit.inputkit.entity.FloatTimeSeries;
+import nl.sense.rninputkit.inputkit.entity.TimeInterval;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Distance history read from a {@link FakeFitReader}.
+ */
+@RunWith(RobolectricTestRunner.class)
+public class DistanceHistoryTaskTest {
+    /** 2019-01-01T00:00:00Z */
+    private static final long START_TIME = 1546300800000L;
+    private static final long HALF_A_MINUTE = TimeUnit.SECONDS.toMillis(30);
+    private static final long ONE_MINUTE = TimeUnit.MINUTES.toMillis(1);
+    private static final long TEN_MINUTES = TimeUnit.MINUTES.toMillis(10);
+    private static final long ONE_HOUR = TimeUnit.HOURS.toMillis(1);
+    private static final int HOURS = 72;
+
+    private final FakeFitReader fitReader = new FakeFitReader(0);
+
+    @After
+    public void tearDown() {
+        fitReader.shutdown();
+    }
+
+    @Test
+    public void distanceIsSplitOverWindows() throws Exception {
+        // 8 meters from the eighth until the twelfth minute of every hour
+        for (int i = 0; i < HOURS; i++) {
+            long time = START_TIME + i * ONE_HOUR;
+            addDistance(time + 8 * ONE_MINUTE, time + 12 * ONE_MINUTE, 8f);
+        }
+        Options options = getOptions(new Options.Builder());
+        FloatTimeSeries result = read(options);
+
+        assertFalse(result.isPartial());
+        assertFalse(result.isDeadlineExceeded());
+        assertEquals(6 * HOURS, result.size());
+        for (int i = 0; i < result.size(); i++) {
+            // Every window gets the minutes of the data point which are within it
+            boolean isSplitWindow = i % 6 == 0 || i % 6 == 1;
+            assertEquals(START_TIME + i * TEN_MINUTES, result.getStartTime(i));
+            assertEquals(START_TIME + (i + 1) * TEN_MINUTES, result.getEndTime(i));
+            assertEquals(isSplitWindow ? 4f : 0f, result.getValue(i), 1e-3f);
+        }
+        assertEquals(8f * HOURS, sum(result), 1e-2f);
+    }
+
+    @Test
+    public void exactDistributionSplitsSubMinuteDistance() throws Exception {
+        // 1.5 meters within the 30 seconds around the tenth minute of every hour
+        for (int i = 0; i < HOURS; i++) {
+            long time = START_TIME + i * ONE_HOUR + TEN_MINUTES;
+            addDistance(time - HALF_A_MINUTE / 2, time + HALF_A_MINUTE / 2, 1.5f);
+        }
+        FloatTimeSeries result = read(getOptions(new Options.Builder().exactDistribution()));
+
+        assertFalse(result.isPartial());
+        assertEquals(6 * HOURS, result.size());
+        for (int i = 0; i < result.size(); i++) {
+            boolean isSplitWindow = i % 6 == 0 || i % 6 == 1;
+            assertEquals(isSplitWindow ? 0.75f : 0f, result.getValue(i), 1e-3f);
+        }
+        assertEquals(1.5f * HOURS, sum(result), 1e-2f);
+    }
+
+    private FloatTimeSeries read(Options options) throws Exception {
+        SafeRequestHandler.RequestPlan requestPlan = new SafeRequestHandler()
+                .getRequestPlan(options.getStartTime(), options.getEndTime(),
+                        options.getTimeInterval(), false, TimeZone.getDefault());
+        FloatTimeSeries result = new DistanceHistoryTask.Builder()
+                .withFitDataReader(fitReader)
+                .addRequestPlan(requestPlan)
+                .addOptions(options)
+                .addDataType(DataType.TYPE_DISTANCE_DELTA)
+                .addAggregateSourceType(new Pair<>(DataType.TYPE_DISTANCE_DELTA,
+                        DataType.AGGREGATE_DISTANCE_DELTA))
+                .build()
+                .start()
+                .get(10, TimeUnit.SECONDS);
+        // Every request chunk is read once
+        assertTrue(requestPlan.getChunkCount() > 1);
+        assertEquals(requestPlan.getChunkCount(), fitReader.getRequestedStartTimes().size());
+        return result;
+    }
+
+    private static Options getOptions(Options.Builder builder) {
+        return builder
+                .startTime(START_TIME)
+                .endTime(START_TIME + HOURS * ONE_HOUR)
+                .timeInterval(new TimeInterval(Interval.TEN_MINUTE))
+                .build();
+    }
+
+    private void addDistance(long startTime, long endTime, float meters) {
+        fitReader.addDataPoint(FakeFitReader.dataPoint(DataType.TYPE_DISTANCE_DELTA,
+                startTime, endTime, meters));
+    }
+
+    private static float sum(FloatTimeSeries series) {
+        float sum = 0;
+        for (int i = 0; i < series.size(); i++) {
+            sum += series.getValue(i);
+        }
+        return sum;
+    }
+}
@@ -0,0 +1,203 @@
+package nl.sense.rninputkit.inputkit.googlefit.history;
+
+import androidx.annotation.NonNull;
+import android.util.Pair;
+
+import com.google.android.gms.common.api.Status;
+import com.google.android.gms.fitness.data.Bucket;
+import com.google.android.gms.fitness.data.DataPoint;
+import com.google.android.gms.fitness.data.DataSet;
+import com.google.android.gms.fitness.data.DataSource;
+import com.google.android.gms.fitness.data.DataType;
+import com.google.android.gms.fitness.result.DataReadResponse;
+import com.google.android.gms.tasks.Task;
+import com.google.android.gms.tasks.TaskCompletionSource;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import nl.sense.rninputkit.inputkit.entity.TimeInterval;
+
+/**
+ * {@link IFitReader} which answers history requests after an injected latency, without Fit.
+ * Latencies are taken in order of the requests and the last one is repeated, so later requests
+ * may be answered before earlier ones. It keeps track of the requests which are in flight.
+ * Raw history can be added with {@link #addDataPoint}, every request is answered with the data
+ * points of its data types which overlap the requested range. Aggregated requests get no buckets.
+ */
+class FakeFitReader implements IFitReader {
+    private final long[] latencies;
+    private final ScheduledExecutorService scheduler = Executors.newScheduledThreadPool(16);
+    private final Map<DataReadResponse, Long> startTimes =
+            Collections.synchronizedMap(new IdentityHashMap<DataReadResponse, Long>());
+    private final List<Long> requestedStartTimes =
+            Collections.synchronizedList(new ArrayList<Long>());
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicInteger maxInFlight = new AtomicInteger();
+    private final List<DataPoint> history = Collections.synchronizedList(new ArrayList<DataPoint>());
+
+    /**
+     * @param latencies Latency of every request in milliseconds
+     */
+    FakeFitReader(long... latencies) {
+        this.latencies = latencies;
+    }
+
+    @Override
+    public Task<DataReadResponse> readHistory(long startTime,
+                                              long endTime,
+                                              boolean useDataAggregation,
+                                              @NonNull TimeInterval timeIntervalAggregator,
+                                              DataType fitDataType,
+                                              Pair<?, DataType> typeAggregator) {
+        return read(startTime, endTime, Collections.singletonList(fitDataType));
+    }
+
+    @Override
+    public Task<DataReadResponse> readHistory(long startTime,
+                                              long endTime,
+                                              long bucketLength,
+                                              boolean useDataAggregation,
+                                              DataType fitDataType,
+                                              Pair<?, DataType> typeAggregator) {
+        return read(startTime, endTime, Collections.singletonList(fitDataType));
+    }
+
+    @Override
+    public Task<DataReadResponse> readHistory(long startTime,
+                                              long endTime,
+                                              long bucketLength,
+                                              boolean useDataAggregation,
+                                              @NonNull List<DataType> fitDataTypes,
+                                              @NonNull List<Pair<?, DataType>> typeAggregators) {
+        return read(startTime, endTime, fitDataTypes);
+    }
+
+    /**
+     * Add a data point into history of this reader.
+     * @param dataPoint Raw data point, see {@link #dataPoint}
+     */
+    void addDataPoint(@NonNull DataPoint dataPoint) {
+        history.add(dataPoint);
+    }
+
+    /**
+     * Create a raw data point of integer field, eg. step count.
+     */
+    static DataPoint dataPoint(@NonNull DataType dataType, long startTime, long endTime, int value) {
+        return DataPoint.builder(getDataSource(dataType))
+                .setTimeInterval(startTime, endTime, TimeUnit.MILLISECONDS)
+                .setField(dataType.getFields().get(0), value)
+                .build();
+    }
+
+    /**
+     * Create a raw data point of float field, eg. distance.
+     */
+    static DataPoint dataPoint(@NonNull DataType dataType, long startTime, long endTime, float value) {
+        return DataPoint.builder(getDataSource(dataType))
+                .setTimeInterval(startTime, endTime, TimeUnit.MILLISECONDS)
+                .setField(dataType.getFields().get(0), value)
+                .build();
+    }
+
+    /**
+     * @param response Response of this reader
+     * @return Start time of the request which is answered by the given response
+     */
+    long getStartTime(@NonNull DataReadResponse response) {
+        return startTimes.get(response);
+    }
+
+    /**
+     * @return Start time of every request, in order of the requests
+     */
+    List<Long> getRequestedStartTimes() {
+        return new ArrayList<>(requestedStartTimes);
+    }
+
+    /**
+     * @return Highest number of requests which were in flight at the same time
+     */
+    int getMaxInFlight() {
+        return maxInFlight.get();
+    }
+
+    void shutdown() {
+        scheduler.shutdownNow();
+    }
+
+    private static DataSource getDataSource(@NonNull DataType dataType) {
+        return new DataSource.Builder()
+                .setAppPackageName("nl.sense.rninputkit")
+                .setDataType(dataType)
+                .setType(DataSource.TYPE_RAW)
+                .build();
+    }
+
+    private List<DataSet> getDataSets(long startTime, long endTime, List<DataType> dataTypes) {
+        List<DataSet> dataSets = new ArrayList<>(dataTypes.size());
+        synchronized (history) {
+            for (DataType dataType : dataTypes) {
+                DataSet.Builder dataSet = DataSet.builder(getDataSource(dataType));
+                for (DataPoint dataPoint : history) {
+                    if (!dataType.equals(dataPoint.getDataType())
+                            || dataPoint.getStartTime(TimeUnit.MILLISECONDS) >= endTime
+                            || dataPoint.getEndTime(TimeUnit.MILLISECONDS) <= startTime) continue;
+                    dataSet.add(dataPoint);
+                }
+                dataSets.add(dataSet.build());
+            }
+        }
+        return dataSets;
+    }
+
+    private Task<DataReadResponse> read(final long startTime,
+                                        final long endTime,
+                                        final List<DataType> dataTypes) {
+        int request = requestedStartTimes.size();
+        requestedStartTimes.add(startTime);
+        long latency = latencies[Math.min(request, latencies.length - 1)];
+
+        int current = inFlight.incrementAndGet();
+        int max = maxInFlight.get();
+        while (current > max && !maxInFlight.compareAndSet(max, current)) {
+            max = maxInFlight.get();
+        }
+
+        final TaskCompletionSource<DataReadResponse> source = new TaskCompletionSource<>();
+        scheduler.schedule(new Runnable() {
+            @Override
+            public void run() {
+                final List<DataSet> dataSets = getDataSets(startTime, endTime, dataTypes);
+                DataReadResponse response = new DataReadResponse() {
+                    @Override
+                    public Status getStatus() {
+                        return Status.RESULT_SUCCESS;
+                    }
+
+                    @Override
+                    public List<DataSet> getDataSets() {
+                        return dataSets;
+                    }
+
+                    @Override
+                    public List<Bucket> getBuckets() {
+                        return Collections.emptyList();
+                    }
+                };
+                startTimes.put(response, startTime);
+                inFlight.decrementAndGet();
+                source.setResult(response);
+            }
+        }, latency, TimeUnit.MILLISECONDS);
+        return source.getTask();
+    }
+}
@@ -0,0 +1,139 @@
+package nl.sense.rninputkit.inputkit.googlefit.history;
+
+import android.content.ContentValues;
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteOpenHelper;
+
+import org.junit.After;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+
+import java.util.concurrent.TimeUnit;
+
+import nl.sense.rninputkit.inputkit.constant.Interval;
+import nl.sense.rninputkit.inputkit.entity.IntTimeSeries;
+import nl.sense.rninputkit.inputkit.entity.TimeInterval;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Storage of closed history buckets and incremental sync watermarks.
+ */
+@RunWith(RobolectricTestRunner.class)
+public class HistoryCacheTest {
+    private static final String KEY = "steps";
+    private static final long MINUTE = TimeUnit.MINUTES.toMillis(1);
+    private static final TimeInterval INTERVAL = new TimeInterval(Interval.ONE_MINUTE);
+
+    private final HistoryCache cache = new HistoryCache(RuntimeEnvironment.application);
+
+    @After
+    public void tearDown() {
+        cache.close();
+    }
+
+    @Test
+    public void readsLeadingRunOfCachedBuckets() {
+        IntTimeSeries buckets = new IntTimeSeries();
+        buckets.add(0, MINUTE, 1);
+        buckets.add(MINUTE, 2 * MINUTE, 2);
+        // hole on the third minute
+        buckets.add(3 * MINUTE, 4 * MINUTE, 4);
+        cache.writeIntBuckets(KEY, INTERVAL, buckets, Long.MAX_VALUE);
+
+        IntTimeSeries cached = cache.readIntBuckets(KEY, INTERVAL, minutes(0, 4));
+        assertEquals(2, cached.size());
+        assertEquals(MINUTE, cached.getEndTime(0));
+        assertEquals(2, cached.getValue(1));
+        assertEquals(2 * MINUTE, cached.getEndTime(1));
+
+        // Nothing is served when the first time window is not cached
+        assertTrue(cache.readIntBuckets(KEY, INTERVAL, minutes(2, 4)).isEmpty());
+        assertEquals(4, cache.readIntBuckets(KEY, INTERVAL, minutes(3, 4)).getValue(0));
+        // Buckets of other intervals or keys are not mixed up
+        assertTrue(cache.readIntBuckets(KEY + "_exact", INTERVAL, minutes(0, 4)).isEmpty());
+        assertTrue(cache.readIntBuckets(KEY, new TimeInterval(Interval.TEN_MINUTE),
+                minutes(0, 10)).isEmpty());
+    }
+
+    @Test
+    public void onlyClosedBucketsAreStored() {
+        long now = 10 * HistoryCache.INVALIDATION_WINDOW;
+        long closedBefore = now - HistoryCache.INVALIDATION_WINDOW;
+        IntTimeSeries buckets = new IntTimeSeries();
+        buckets.add(closedBefore - 2 * MINUTE, closedBefore - MINUTE, 1);
+        buckets.add(closedBefore - MINUTE, closedBefore, 2);
+        buckets.add(closedBefore, closedBefore + MINUTE, 3);
+
+        assertEquals(closedBefore, cache.writeIntBuckets(KEY, INTERVAL, buckets, closedBefore));
+        IntTimeSeries cached = cache.readIntBuckets(KEY, INTERVAL,
+                new long[] {closedBefore - 2 * MINUTE, closedBefore - MINUTE, closedBefore,
+                        closedBefore + MINUTE});
+        assertEquals(2, cached.size());
+        assertEquals(closedBefore, cached.getEndTime(1));
+
+        // Nothing is closed yet
+        IntTimeSeries open = new IntTimeSeries();
+        open.add(now - MINUTE, now, 5);
+        assertEquals(0, cache.writeIntBuckets(KEY, INTERVAL, open, closedBefore));
+    }
+
+    @Test
+    public void watermarkNeverGoesBackward() {
+        assertEquals(0, cache.readWatermark(KEY, INTERVAL));
+
+        cache.writeWatermark(KEY, INTERVAL, 2 * MINUTE);
+        assertEquals(2 * MINUTE, cache.readWatermark(KEY, INTERVAL));
+        cache.writeWatermark(KEY, INTERVAL, MINUTE);
+        assertEquals(2 * MINUTE, cache.readWatermark(KEY, INTERVAL));
+        cache.writeWatermark(KEY, INTERVAL, 3 * MINUTE);
+        assertEquals(3 * MINUTE, cache.readWatermark(KEY, INTERVAL));
+        assertEquals(0, cache.readWatermark(KEY, new TimeInterval(Interval.TEN_MINUTE)));
+
+        cache.clear();
+        assertEquals(0, cache.readWatermark(KEY, INTERVAL));
+    }
+
+    @Test
+    public void upgradeDropsBucketsOfOlderVersions() {
+        // Schema of version 1, which didn't have watermarks yet
+        SQLiteOpenHelper v1 = new SQLiteOpenHelper(RuntimeEnvironment.application,
+                HistoryCache.DATABASE_NAME, null, 1) {
+            @Override
+            public void onCreate(SQLiteDatabase db) {
+                db.execSQL("CREATE TABLE buckets (cache_key TEXT NOT NULL, "
+                        + "interval TEXT NOT NULL, start_time INTEGER NOT NULL, "
+                        + "end_time INTEGER NOT NULL, value NUMERIC NOT NULL, "
+                        + "PRIMARY KEY (cache_key, interval, start_time))");
+            }
+
+            @Override
+            public void onUpgrade(SQLiteDatabase db, int oldVersion, int newVersion) {
+            }
+        };
+        ContentValues values = new ContentValues();
+        values.put("cache_key", KEY);
+        values.put("interval", "1 MINUTES");
+        values.put("start_time", 0L);
+        values.put("end_time", MINUTE);
+        values.put("value", 7);
+        v1.getWritableDatabase().insertWithOnConflict("buckets", null, values,
+                SQLiteDatabase.CONFLICT_REPLACE);
+        v1.close();
+
+        assertTrue(cache.readIntBuckets(KEY, INTERVAL, minutes(0, 1)).isEmpty());
+        cache.writeWatermark(KEY, INTERVAL, MINUTE);
+        assertEquals(MINUTE, cache.readWatermark(KEY, INTERVAL));
+    }
+
+    private static long[] minutes(int from, int to) {
+        long[] boundaries = new long[to - from + 1];
+        for (int i = 0; i < boundaries.length; i++) {
+            boundaries[i] = (from + i) * MINUTE;
+        }
+        return boundaries;
+    }
+}
@@ -0,0 +1,144 @@
+package nl.sense.rninputkit.inputkit.googlefit.history;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Coalescing and cancellation of identical history queries.
+ */
+@RunWith(RobolectricTestRunner.class)
+public class HistoryResultCacheTest {
+    private static final String KEY = "query";
+
+    private final HistoryResultCache<String> cache = new HistoryResultCache<>();
+    private final List<String> results = Collections.synchronizedList(new ArrayList<String>());
+    private final List<String> failures = Collections.synchronizedList(new ArrayList<String>());
+
+    @Test
+    public void identicalQueriesShareOneTask() throws Exception {
+        HistoryResultCache<String>.Subscription first = enqueue("first");
+        HistoryResultCache<String>.Subscription second = enqueue("second");
+        assertTrue(first.isNewQuery());
+        assertFalse(second.isNewQuery());
+
+        cache.complete(KEY, "steps");
+        first.get(1, TimeUnit.SECONDS);
+        second.get(1, TimeUnit.SECONDS);
+        assertEquals(list("first steps", "second steps"), results);
+        assertEquals(1, cache.getMissCount());
+        assertEquals(1, cache.getCoalescedCount());
+
+        // Next identical query is served from cache
+        assertNull(enqueue("third"));
+        assertEquals(1, cache.getHitCount());
+    }
+
+    @Test
+    public void cancelledCallerDoesNotAbortOthers() throws Exception {
+        FutureTask<Void> task = newTask();
+        HistoryResultCache<String>.Subscription first = enqueue("first");
+        cache.setInFlight(KEY, task);
+        HistoryResultCache<String>.Subscription second = enqueue("second");
+
+        assertTrue(first.cancel(true));
+        assertTrue(first.isCancelled());
+        assertFalse(task.isCancelled());
+        assertFalse(second.isDone());
+
+        cache.complete(KEY, "steps");
+        second.get(1, TimeUnit.SECONDS);
+        assertEquals(list("second steps"), results);
+        try {
+            first.get();
+            fail("Cancelled subscription must not have a result");
+        } catch (CancellationException expected) {
+            // expected
+        }
+    }
+
+    @Test
+    public void lastCancelledCallerAbortsTask() {
+        FutureTask<Void> task = newTask();
+        HistoryResultCache<String>.Subscription first = enqueue("first");
+        cache.setInFlight(KEY, task);
+        HistoryResultCache<String>.Subscription second = enqueue("second");
+
+        first.cancel(true);
+        second.cancel(true);
+        assertTrue(task.isCancelled());
+
+        // Late result of the aborted task isn't delivered, next query starts a new task
+        cache.fail(KEY, Collections.<Exception>emptyList());
+        assertTrue(failures.isEmpty());
+        HistoryResultCache<String>.Subscription third = enqueue("third");
+        assertNotNull(third);
+        assertTrue(third.isNewQuery());
+    }
+
+    @Test
+    public void taskOfCancelledQueryIsAbortedOnBinding() {
+        HistoryResultCache<String>.Subscription first = enqueue("first");
+        first.cancel(true);
+
+        FutureTask<Void> task = newTask();
+        cache.setInFlight(KEY, task);
+        assertTrue(task.isCancelled());
+    }
+
+    @Test
+    public void failureIsNotifiedToEveryCaller() throws Exception {
+        HistoryResultCache<String>.Subscription first = enqueue("first");
+        HistoryResultCache<String>.Subscription second = enqueue("second");
+
+        cache.fail(KEY, Collections.<Exception>emptyList());
+        first.get(1, TimeUnit.SECONDS);
+        second.get(1, TimeUnit.SECONDS);
+        assertEquals(list("first", "second"), failures);
+        assertFalse(first.cancel(true));
+    }
+
+    private HistoryResultCache<String>.Subscription enqueue(final String caller) {
+        return cache.enqueue(KEY,
+                new HistoryTaskFactory.OnCompleteListener<String>() {
+                    @Override
+                    public void onComplete(String result) {
+                        results.add(caller + " " + result);
+                    }
+                },
+                new HistoryTaskFactory.OnFailureListener() {
+                    @Override
+                    public void onFailure(List<Exception> exceptions) {
+                        failures.add(caller);
+                    }
+                });
+    }
+
+    private static FutureTask<Void> newTask() {
+        return new FutureTask<>(new Runnable() {
+            @Override
+            public void run() {
+            }
+        }, null);
+    }
+
+    private static List<String> list(String... items) {
+        List<String> list = new ArrayList<>();
+        Collections.addAll(list, items);
+        return list;
+    }
+}
@@ -0,0 +1,210 @@
+package nl.sense.rninputkit.inputkit.googlefit.history;
+
+import android.util.Pair;
+
+import com.google.android.gms.fitness.data.DataType;
+import com.google.android.gms.fitness.result.DataReadResponse;
+
+import org.junit.After;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.shadows.ShadowLooper;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import nl.sense.rninputkit.inputkit.Options;
+import nl.sense.rninputkit.inputkit.constant.Interval;
+import nl.sense.rninputkit.inputkit.entity.TimeInterval;
+import nl.sense.rninputkit.inputkit.googlefit.history.HistoryTaskFactory.OnCompleteListener;
+import nl.sense.rninputkit.inputkit.googlefit.history.HistoryTaskFactory.OnFailureListener;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Fan-out of history request chunks, read from a {@link FakeFitReader} with injected latency.
+ */
+@RunWith(RobolectricTestRunner.class)
+public class HistoryTaskFactoryTest {
+    /** 2019-01-01T00:00:00Z */
+    private static final long START_TIME = 1546300800000L;
+    private static final long ONE_DAY = TimeUnit.DAYS.toMillis(1);
+    private static final long LATENCY = 100;
+    private static final int CHUNKS = 8;
+
+    private FakeFitReader fitReader;
+
+    @After
+    public void tearDown() {
+        if (fitReader != null) fitReader.shutdown();
+    }
+
+    @Test
+    public void chunkResultsKeepRequestOrder() throws Exception {
+        // Earlier chunks are answered later than the following ones
+        fitReader = new FakeFitReader(400, 300, 200, 100, 0);
+        List<Long> results = start(fitReader, 3);
+
+        assertEquals(getChunkStartTimes(), results);
+        assertEquals(getChunkStartTimes(), fitReader.getRequestedStartTimes());
+    }
+
+    @Test
+    public void inFlightRequestsAreCapped() throws Exception {
+        for (int maxInFlight = 1; maxInFlight <= CHUNKS; maxInFlight *= 2) {
+            fitReader = new FakeFitReader(LATENCY);
+            start(fitReader, maxInFlight);
+            assertEquals(maxInFlight, fitReader.getMaxInFlight());
+            fitReader.shutdown();
+        }
+    }
+
+    @Test
+    public void chunksWaitForFreeSlots() throws Exception {
+        // Lower bounds only, a loaded machine may be slower but never faster than the latency
+        for (int maxInFlight = 1; maxInFlight <= CHUNKS; maxInFlight *= 2) {
+            fitReader = new FakeFitReader(LATENCY);
+            long wallTime = measure(fitReader, maxInFlight);
+            assertTrue("max in flight " + maxInFlight + " wall time " + wallTime,
+                    wallTime >= CHUNKS / maxInFlight * LATENCY);
+            fitReader.shutdown();
+        }
+    }
+
+    @Test
+    public void deadlineIsExceededOnlyByTimeBudget() throws Exception {
+        fitReader = new FakeFitReader(LATENCY);
+        HistoryTaskFactory<List<Long>> task = create(fitReader, 2, null);
+        task.start().get(10, TimeUnit.SECONDS);
+        assertFalse(task.isDeadlineExceeded());
+        assertFalse(task.hasFailedRequests());
+
+        // Only a couple of chunks can be read within the time budget
+        task = create(fitReader, 1, 2 * LATENCY + LATENCY / 2);
+        List<Long> results = task.start().get(10, TimeUnit.SECONDS);
+        assertTrue(task.isDeadlineExceeded());
+        assertTrue(task.hasFailedRequests());
+        assertTrue(results.size() < CHUNKS);
+    }
+
+    @Test
+    public void missingResultIsReportedAsFailure() throws Exception {
+        fitReader = new FakeFitReader(0);
+        final List<List<Long>> completed = Collections.synchronizedList(
+                new ArrayList<List<Long>>());
+        final List<Exception> failures = Collections.synchronizedList(
+                new ArrayList<Exception>());
+        final CountDownLatch delivered = new CountDownLatch(1);
+        new HistoryTaskFactory<List<Long>>(
+                fitReader,
+                getSafeRequests(),
+                getOptions(1, null),
+                DataType.TYPE_STEP_COUNT_DELTA,
+                new Pair<>(DataType.TYPE_STEP_COUNT_DELTA, DataType.AGGREGATE_STEP_COUNT_DELTA),
+                new OnCompleteListener<List<Long>>() {
+                    @Override
+                    public void onComplete(List<Long> result) {
+                        completed.add(result);
+                        delivered.countDown();
+                    }
+                },
+                new OnFailureListener() {
+                    @Override
+                    public void onFailure(List<Exception> exceptions) {
+                        failures.addAll(exceptions);
+                        delivered.countDown();
+                    }
+                }) {
+            @Override
+            protected List<Long> getValues(List<DataReadResponse> responses) {
+                // eg. a subclass which is stopped by an interrupt of its worker thread
+                return null;
+            }
+        }.start();
+
+        awaitOnMainLooper(delivered);
+        assertTrue(completed.isEmpty());
+        assertEquals(1, failures.size());
+    }
+
+    /**
+     * Wait for listeners which are posted to the main looper from worker threads.
+     */
+    private static void awaitOnMainLooper(CountDownLatch latch) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(10);
+        while (!latch.await(10, TimeUnit.MILLISECONDS)) {
+            ShadowLooper.idleMainLooper();
+            assertTrue(System.currentTimeMillis() < deadline);
+        }
+    }
+
+    private long measure(FakeFitReader fitReader, int maxInFlight) throws Exception {
+        long startedAt = System.nanoTime();
+        start(fitReader, maxInFlight);
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startedAt);
+    }
+
+    /**
+     * Read every chunk on a worker thread of {@link HistoryExecutor} and wait for the result.
+     */
+    private static List<Long> start(FakeFitReader fitReader, int maxInFlight) throws Exception {
+        return create(fitReader, maxInFlight, null).start().get(10, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Create a task which maps every response into the start time of its chunk.
+     */
+    private static HistoryTaskFactory<List<Long>> create(final FakeFitReader fitReader,
+                                                         int maxInFlight,
+                                                         Long timeout) {
+        return new HistoryTaskFactory<List<Long>>(
+                fitReader,
+                getSafeRequests(),
+                getOptions(maxInFlight, timeout),
+                DataType.TYPE_STEP_COUNT_DELTA,
+                new Pair<>(DataType.TYPE_STEP_COUNT_DELTA, DataType.AGGREGATE_STEP_COUNT_DELTA),
+                null,
+                null) {
+            @Override
+            protected List<Long> getValues(List<DataReadResponse> responses) {
+                List<Long> startTimes = new ArrayList<>(responses.size());
+                for (DataReadResponse response : responses) {
+                    startTimes.add(fitReader.getStartTime(response));
+                }
+                return startTimes;
+            }
+        };
+    }
+
+    private static Options getOptions(int maxInFlight, Long timeout) {
+        return new Options.Builder()
+                .startTime(START_TIME)
+                .endTime(START_TIME + CHUNKS * ONE_DAY)
+                .timeInterval(new TimeInterval(Interval.TEN_MINUTE))
+                .maxConcurrentRequests(maxInFlight)
+                .timeout(timeout)
+                .build();
+    }
+
+        private static long[] getSafeRequests() {
+        long[] safeRequests = new long[CHUNKS + 1];
+        for (int i = 0; i <= CHUNKS; i++) {
+            safeRequests[i] = START_TIME + i * ONE_DAY;
+        }
+        return safeRequests;
+    }
+
+    private static List<Long> getChunkStartTimes() {
+        List<Long> startTimes = new ArrayList<>(CHUNKS);
+        for (int i = 0; i < CHUNKS; i++) {
+            startTimes.add(START_TIME + i * ONE_DAY);
+        }
+        return startTimes;
+    }
+}
@@ -0,0 +1,57 @@
+package nl.sense.rninputkit.inputkit.googlefit.history;
+
+import android.content.Context;
+
+import com.google.android.gms.fitness.data.DataType;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+
+import nl.sense.rninputkit.inputkit.helper.PreferenceHelper;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+/**
+ * Migration of the former single request plan model into the model of step count.
+ */
+@RunWith(RobolectricTestRunner.class)
+public class RequestPlanStoreTest {
+    private static final String LEGACY_KEY = "IK_REQUEST_PLAN_MODEL";
+    private static final String LEGACY_JSON = "{\"MINUTES\":[]}";
+
+    private final Context context = RuntimeEnvironment.application;
+
+    @Test
+    public void legacyModelIsMovedIntoStepCountModel() {
+        PreferenceHelper.add(context, LEGACY_KEY, LEGACY_JSON);
+
+        // Other data types don't take over observations of step count
+        RequestPlanStore distance = new RequestPlanStore(context,
+                DataType.TYPE_DISTANCE_DELTA.getName());
+        assertNull(distance.read());
+        assertEquals(LEGACY_JSON, PreferenceHelper.get(context, LEGACY_KEY));
+
+        RequestPlanStore steps = new RequestPlanStore(context,
+                DataType.TYPE_STEP_COUNT_DELTA.getName());
+        assertEquals(LEGACY_JSON, steps.read());
+        assertNull(PreferenceHelper.get(context, LEGACY_KEY));
+
+        // Migrated model is kept under its own key
+        assertEquals(LEGACY_JSON, new RequestPlanStore(context,
+                DataType.TYPE_STEP_COUNT_DELTA.getName()).read());
+    }
+
+    @Test
+    public void legacyModelDoesNotOverwriteNewerModel() {
+        RequestPlanStore steps = new RequestPlanStore(context,
+                DataType.TYPE_STEP_COUNT_DELTA.getName());
+        steps.write("{}");
+        PreferenceHelper.add(context, LEGACY_KEY, LEGACY_JSON);
+
+        assertEquals("{}", steps.read());
+        assertNull(PreferenceHelper.get(context, LEGACY_KEY));
+    }
+}
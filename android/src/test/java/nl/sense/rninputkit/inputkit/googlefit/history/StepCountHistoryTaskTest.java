@@ -0,0 +1,211 @@
+package nl.sense.rninputkit.inputkit.googlefit.history;
+
+import android.util.Pair;
+
+import com.google.android.gms.fitness.data.DataSource;
+import com.google.android.gms.fitness.data.DataType;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.shadows.ShadowLooper;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import nl.sense.rninputkit.inputkit.Options;
+import nl.sense.rninputkit.inputkit.constant.Interval;
+import nl.sense.rninputkit.inputkit.entity.IntTimeSeries;
+import nl.sense.rninputkit.inputkit.entity.TimeInterval;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Step count history read from a {@link FakeFitReader}.
+ */
+@RunWith(RobolectricTestRunner.class)
+public class StepCountHistoryTaskTest {
+    private static final long ONE_MINUTE = TimeUnit.MINUTES.toMillis(1);
+    private static final long TEN_MINUTES = TimeUnit.MINUTES.toMillis(10);
+    private static final long ONE_HOUR = TimeUnit.HOURS.toMillis(1);
+    private static final long ONE_DAY = TimeUnit.DAYS.toMillis(1);
+    private static final int DAYS = 3;
+
+    private FakeFitReader fitReader;
+    private HistoryCache historyCache;
+    private long startTime;
+    private long endTime;
+
+    @Before
+    public void setUp() {
+        fitReader = new FakeFitReader(0);
+        historyCache = new HistoryCache(RuntimeEnvironment.application);
+        // Queries end at the latest time window, so the most recent day isn't closed yet
+        endTime = System.currentTimeMillis() / TEN_MINUTES * TEN_MINUTES;
+        startTime = endTime - DAYS * ONE_DAY;
+        // Ten steps in the third minute of every hour
+        for (long time = startTime; time < endTime; time += ONE_HOUR) {
+            addSteps(time + 2 * ONE_MINUTE, 10);
+        }
+    }
+
+    @After
+    public void tearDown() {
+        fitReader.shutdown();
+        historyCache.close();
+    }
+
+    @Test
+    public void incrementalSyncReadsSinceWatermark() throws Exception {
+        IntTimeSeries first = sync(getIncrementalOptions());
+        assertEquals(DAYS * 144, first.size());
+        assertEquals(DAYS * 24 * 10, sum(first));
+        List<Long> requests = fitReader.getRequestedStartTimes();
+        assertEquals(DAYS, requests.size());
+
+        // Late data of closed buckets is not read anymore, while the open ones are read again
+        addSteps(endTime - 2 * ONE_DAY + 5 * ONE_MINUTE, 100);
+        addSteps(endTime - 3 * ONE_HOUR + 5 * ONE_MINUTE, 7);
+        IntTimeSeries second = sync(getIncrementalOptions());
+        assertEquals(DAYS * 144, second.size());
+        assertEquals(DAYS * 24 * 10 + 7, sum(second));
+
+        // Only the chunk since the watermark is read, which lags by the invalidation window
+        requests = fitReader.getRequestedStartTimes().subList(requests.size(),
+                fitReader.getRequestedStartTimes().size());
+        assertEquals(1, requests.size());
+        assertTrue(requests.get(0) >= endTime - HistoryCache.INVALIDATION_WINDOW);
+        assertTrue(requests.get(0) <= endTime - HistoryCache.INVALIDATION_WINDOW + TEN_MINUTES);
+        for (int i = 0; i < second.size(); i++) {
+            assertEquals(startTime + i * TEN_MINUTES, second.getStartTime(i));
+        }
+    }
+
+    @Test
+    public void progressIsStreamedNewestFirst() throws Exception {
+        final List<IntTimeSeries> progress = Collections.synchronizedList(
+                new ArrayList<IntTimeSeries>());
+        final List<Integer> completedRequests = Collections.synchronizedList(
+                new ArrayList<Integer>());
+        final CountDownLatch delivered = new CountDownLatch(DAYS);
+        Options options = new Options.Builder()
+                .startTime(startTime)
+                .endTime(endTime)
+                .timeInterval(new TimeInterval(Interval.TEN_MINUTE))
+                .maxConcurrentRequests(1)
+                .build();
+        IntTimeSeries result = newTask(options)
+                .addOnProgressListener(new HistoryTaskFactory.OnProgressListener<IntTimeSeries>() {
+                    @Override
+                    public void onProgress(IntTimeSeries values, int completed, int total) {
+                        assertEquals(DAYS, total);
+                        progress.add(values);
+                        completedRequests.add(completed);
+                        delivered.countDown();
+                    }
+                })
+                .build()
+                .start()
+                .get(10, TimeUnit.SECONDS);
+        awaitOnMainLooper(delivered);
+
+        // The most recent chunk is read and published first
+        List<Long> chunkStartTimes = new ArrayList<>();
+        for (int i = DAYS - 1; i >= 0; i--) {
+            chunkStartTimes.add(startTime + i * ONE_DAY);
+        }
+        assertEquals(chunkStartTimes, fitReader.getRequestedStartTimes());
+        assertEquals(Arrays.asList(1, 2, 3), completedRequests);
+        for (int i = 0; i < DAYS; i++) {
+            IntTimeSeries chunk = progress.get(i);
+            assertTrue(chunk.isPartial());
+            assertEquals(144, chunk.size());
+            assertEquals((long) chunkStartTimes.get(i), chunk.getStartTime(0));
+            assertEquals(24 * 10, sum(chunk));
+            // Chunk buckets line up with buckets of the final result
+            int offset = (int) ((chunk.getStartTime(0) - startTime) / TEN_MINUTES);
+            for (int j = 0; j < chunk.size(); j++) {
+                assertEquals(result.getStartTime(offset + j), chunk.getStartTime(j));
+                assertEquals(result.getValue(offset + j), chunk.getValue(j));
+            }
+        }
+
+        // Final result is in chronological order, as it is without streaming
+        assertFalse(result.isPartial());
+        assertEquals(DAYS * 144, result.size());
+        assertEquals(startTime, result.getStartTime(0));
+        assertEquals(DAYS * 24 * 10, sum(result));
+    }
+
+    private IntTimeSeries sync(Options options) throws Exception {
+        return newTask(options)
+                .withHistoryCache(historyCache)
+                .build()
+                .start()
+                .get(10, TimeUnit.SECONDS);
+    }
+
+    private StepCountHistoryTask.Builder newTask(Options options) {
+        return new StepCountHistoryTask.Builder()
+                .withFitDataReader(fitReader)
+                .addSafeRequests(getSafeRequests())
+                .addOptions(options)
+                .addDataType(DataType.TYPE_STEP_COUNT_DELTA)
+                .addAggregateSourceType(new Pair<>(new DataSource.Builder()
+                        .setAppPackageName("com.google.android.gms")
+                        .setDataType(DataType.TYPE_STEP_COUNT_DELTA)
+                        .setType(DataSource.TYPE_DERIVED)
+                        .setStreamName("estimated_steps")
+                        .build(), DataType.AGGREGATE_STEP_COUNT_DELTA));
+    }
+
+    private Options getIncrementalOptions() {
+        return new Options.Builder()
+                .startTime(startTime)
+                .endTime(endTime)
+                .timeInterval(new TimeInterval(Interval.TEN_MINUTE))
+                .incremental()
+                .build();
+    }
+
+    private long[] getSafeRequests() {
+        long[] safeRequests = new long[DAYS + 1];
+        for (int i = 0; i <= DAYS; i++) {
+            safeRequests[i] = startTime + i * ONE_DAY;
+        }
+        return safeRequests;
+    }
+
+    private void addSteps(long time, int steps) {
+        fitReader.addDataPoint(FakeFitReader.dataPoint(DataType.TYPE_STEP_COUNT_DELTA,
+                time, time + ONE_MINUTE, steps));
+    }
+
+    /**
+     * Wait for listeners which are posted to the main looper from worker threads.
+     */
+    private static void awaitOnMainLooper(CountDownLatch latch) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(10);
+        while (!latch.await(10, TimeUnit.MILLISECONDS)) {
+            ShadowLooper.idleMainLooper();
+            assertTrue(System.currentTimeMillis() < deadline);
+        }
+    }
+
+    private static int sum(IntTimeSeries series) {
+        int sum = 0;
+        for (int i = 0; i < series.size(); i++) {
+            sum += series.getValue(i);
+        }
+        return sum;
+    }
+}
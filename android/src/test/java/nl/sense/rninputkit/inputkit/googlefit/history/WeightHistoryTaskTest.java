@@ -0,0 +1,73 @@
+package nl.sense.rninputkit.inputkit.googlefit.history;
+
+import android.util.Pair;
+
+import com.google.android.gms.fitness.data.DataType;
+
+import org.junit.After;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import java.util.TimeZone;
+import java.util.concurrent.TimeUnit;
+
+import nl.sense.rninputkit.inputkit.Options;
+import nl.sense.rninputkit.inputkit.constant.Interval;
+import nl.sense.rninputkit.inputkit.constant.Summary;
+import nl.sense.rninputkit.inputkit.entity.TimeInterval;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Averages of weight summaries are only aggregated by buckets of the exact time windows.
+ */
+@RunWith(RobolectricTestRunner.class)
+public class WeightHistoryTaskTest {
+    /** 2019-01-07T00:00:00Z */
+    private static final long START_TIME = 1546819200000L;
+    private static final long END_TIME = START_TIME + TimeUnit.DAYS.toMillis(28);
+    private static final TimeInterval ONE_WEEK = new TimeInterval(Interval.ONE_WEEK);
+
+    private final FakeFitReader fitReader = new FakeFitReader(0);
+
+    @After
+    public void tearDown() {
+        fitReader.shutdown();
+    }
+
+    @Test
+    public void averageOfDailyBucketsIsReadRaw() {
+        // Legacy plan aggregates weekly time windows per day
+        SafeRequestHandler.RequestPlan plan = new SafeRequestHandler()
+                .getRequestPlan(START_TIME, END_TIME, ONE_WEEK, true);
+        assertFalse(create(plan, Summary.AVERAGE).isUseDataAggregation());
+        assertTrue(create(plan, Summary.MAX).isUseDataAggregation());
+    }
+
+    @Test
+    public void averageOfExactBucketsIsAggregated() {
+        SafeRequestHandler.RequestPlan plan = new SafeRequestHandler()
+                .getRequestPlan(START_TIME, END_TIME, ONE_WEEK, true, TimeZone.getTimeZone("UTC"));
+        assertTrue(create(plan, Summary.AVERAGE).isUseDataAggregation());
+    }
+
+    private WeightHistoryTask create(SafeRequestHandler.RequestPlan plan, String summary) {
+        Options options = new Options.Builder()
+                .startTime(START_TIME)
+                .endTime(END_TIME)
+                .timeInterval(ONE_WEEK)
+                .useDataAggregation()
+                .build();
+        return new WeightHistoryTask.Builder()
+                .withFitDataReader(fitReader)
+                .addRequestPlan(plan)
+                .addOptions(options)
+                .addDataType(DataType.TYPE_WEIGHT)
+                .addAggregateSourceType(Pair.create(DataType.TYPE_WEIGHT,
+                        DataType.AGGREGATE_WEIGHT_SUMMARY))
+                .addSummary(summary)
+                .build();
+    }
+}
@@ -0,0 +1,68 @@
+package nl.sense.rninputkit.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import nl.sense.rninputkit.inputkit.constant.Interval;
+import nl.sense.rninputkit.inputkit.entity.IntTimeSeries;
+import nl.sense.rninputkit.inputkit.entity.TimeInterval;
+import nl.sense.rninputkit.inputkit.googlefit.history.BatchDataNormalizer;
+
+/**
+ * Step count normalization of many users at once with {@link BatchDataNormalizer}.
+ */
+@State(Scope.Benchmark)
+public class BatchNormalizerBenchmark {
+    @Param({"1000"})
+    public int users;
+
+    @Param({"1000"})
+    public int samples;
+
+    @Param({"1", "2", "4", "8"})
+    public int threads;
+
+    @Param({Interval.TEN_MINUTE, Interval.ONE_DAY})
+    public String interval;
+
+    private ExecutorService executor;
+    private BatchDataNormalizer normalizer;
+    private List<BatchDataNormalizer.Request<IntTimeSeries>> requests;
+
+    @Setup
+    public void setup() {
+        executor = Executors.newFixedThreadPool(threads);
+        normalizer = new BatchDataNormalizer(executor);
+        TimeInterval timeInterval = new TimeInterval(interval);
+        requests = new ArrayList<>(users);
+        for (int i = 0; i < users; i++) {
+            StepDataSet dataSet = StepDataSet.generate(samples, i);
+            requests.add(new BatchDataNormalizer.Request.Builder<IntTimeSeries>()
+                    .id(String.valueOf(i))
+                    .startTime(StepDataSet.START_TIME)
+                    .endTime(dataSet.endTime)
+                    .values(dataSet.toTimeSeries())
+                    .timeInterval(timeInterval)
+                    .build());
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        executor.shutdown();
+    }
+
+    @Benchmark
+    public BatchDataNormalizer.BatchResult<IntTimeSeries> normalize() throws InterruptedException {
+        return normalizer.normalizeInt(requests);
+    }
+}
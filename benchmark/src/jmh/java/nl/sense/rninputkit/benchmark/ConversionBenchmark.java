@@ -0,0 +1,59 @@
+package nl.sense.rninputkit.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import nl.sense.rninputkit.inputkit.entity.DateContent;
+import nl.sense.rninputkit.inputkit.entity.IntTimeSeries;
+import nl.sense.rninputkit.inputkit.entity.Step;
+import nl.sense.rninputkit.inputkit.entity.StepContent;
+
+/**
+ * Conversion of normalized step count into step content, and the per step work of
+ * {@code ValueConverter#toWritableMap}. React Native writable maps require the native bridge,
+ * so only the values which are put into the maps are read here.
+ */
+@State(Scope.Benchmark)
+public class ConversionBenchmark {
+    @Param({"1000", "10000", "100000", "1000000"})
+    public int samples;
+
+    private IntTimeSeries series;
+
+    @Setup
+    public void setup() {
+        series = StepDataSet.generate(samples, 42).toTimeSeries();
+    }
+
+    @Benchmark
+    public StepContent toStepContent() {
+        List<Step> steps = new ArrayList<>(series.size());
+        for (int i = 0; i < series.size(); i++) {
+            steps.add(new Step(series.getValue(i), series.getStartTime(i), series.getEndTime(i)));
+        }
+        return new StepContent(true, series.getStartTime(0),
+                series.getEndTime(series.size() - 1), steps);
+    }
+
+    @Benchmark
+    public void toWritableValues(Blackhole blackhole) {
+        StepContent content = toStepContent();
+        for (Step step : content.getValue()) {
+            blackhole.consume(step.getValue());
+            consume(blackhole, step.getStartDate());
+            consume(blackhole, step.getEndDate());
+        }
+    }
+
+    private static void consume(Blackhole blackhole, DateContent dateContent) {
+        blackhole.consume(dateContent.getEpoch());
+        blackhole.consume(dateContent.getString());
+    }
+}
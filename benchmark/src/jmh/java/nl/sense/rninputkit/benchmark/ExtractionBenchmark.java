@@ -0,0 +1,52 @@
+package nl.sense.rninputkit.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import nl.sense.rninputkit.inputkit.entity.DateContent;
+import nl.sense.rninputkit.inputkit.entity.IKValue;
+import nl.sense.rninputkit.inputkit.entity.IntTimeSeries;
+
+/**
+ * Output side of {@code HistoryExtractor}. Fit data points can't be created off-device,
+ * so this measures what the extractor produces per data point: an input kit value or
+ * a time series sample.
+ */
+@State(Scope.Benchmark)
+public class ExtractionBenchmark {
+    @Param({"1000", "10000", "100000", "1000000"})
+    public int samples;
+
+    private StepDataSet dataSet;
+
+    @Setup
+    public void setup() {
+        dataSet = StepDataSet.generate(samples, 42);
+    }
+
+    @Benchmark
+    public List<IKValue<Integer>> ikValues() {
+        List<IKValue<Integer>> contents = new ArrayList<>(dataSet.size);
+        for (int i = 0; i < dataSet.size; i++) {
+            contents.add(new IKValue<>(dataSet.values[i],
+                    new DateContent(dataSet.startTimes[i]),
+                    new DateContent(dataSet.endTimes[i])));
+        }
+        return contents;
+    }
+
+    @Benchmark
+    public IntTimeSeries timeSeries() {
+        IntTimeSeries series = new IntTimeSeries(dataSet.size);
+        for (int i = 0; i < dataSet.size; i++) {
+            series.add(dataSet.startTimes[i], dataSet.endTimes[i], dataSet.values[i]);
+        }
+        return series;
+    }
+}
@@ -0,0 +1,79 @@
+package nl.sense.rninputkit.benchmark;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.List;
+
+import nl.sense.rninputkit.inputkit.constant.Interval;
+import nl.sense.rninputkit.inputkit.entity.IKValue;
+import nl.sense.rninputkit.inputkit.entity.IntTimeSeries;
+import nl.sense.rninputkit.inputkit.entity.TimeInterval;
+import nl.sense.rninputkit.inputkit.googlefit.history.DataNormalizer;
+import nl.sense.rninputkit.inputkit.googlefit.history.ExactDataNormalizer;
+import nl.sense.rninputkit.inputkit.googlefit.history.IntDataNormalizer;
+
+/**
+ * Step count normalization of {@link DataNormalizer}, {@link IntDataNormalizer} and
+ * the millisecond precision {@link ExactDataNormalizer}.
+ */
+@State(Scope.Benchmark)
+public class NormalizerBenchmark {
+    @Param({"1000", "10000", "100000", "1000000"})
+    public int samples;
+
+    @Param({
+            Interval.ONE_MINUTE,
+            Interval.TEN_MINUTE,
+            Interval.HALF_HOUR,
+            Interval.AN_HOUR,
+            Interval.ONE_DAY,
+            Interval.ONE_WEEK
+    })
+    public String interval;
+
+    private StepDataSet dataSet;
+    private TimeInterval timeInterval;
+    private List<IKValue<Integer>> ikValues;
+    private IntTimeSeries series;
+    private final IntDataNormalizer intNormalizer = new IntDataNormalizer();
+    private final ExactDataNormalizer exactNormalizer = new ExactDataNormalizer();
+    private final DataNormalizer<Integer> normalizer = new DataNormalizer<Integer>() {
+        @Override
+        protected void setValueItems(@NonNull IKValue<Integer> currentItem,
+                                     @Nullable IKValue<Integer> nextItem,
+                                     @NonNull List<IKValue<Integer>> sourceValues,
+                                     @NonNull OverlapState overlapState) {
+            setAsInt(currentItem, nextItem, sourceValues, overlapState);
+        }
+    };
+
+    @Setup
+    public void setup() {
+        dataSet = StepDataSet.generate(samples, 42);
+        timeInterval = new TimeInterval(interval);
+        series = dataSet.toTimeSeries();
+        ikValues = dataSet.toIKValues();
+    }
+
+    @Benchmark
+    public List<IKValue<Integer>> legacy() {
+        return normalizer.normalize(StepDataSet.START_TIME, dataSet.endTime, ikValues, timeInterval);
+    }
+
+    @Benchmark
+    public IntTimeSeries primitive() {
+        return intNormalizer.normalize(StepDataSet.START_TIME, dataSet.endTime, series, timeInterval);
+    }
+
+    @Benchmark
+    public IntTimeSeries exact() {
+        return exactNormalizer.normalize(StepDataSet.START_TIME, dataSet.endTime, series, timeInterval);
+    }
+}
@@ -0,0 +1,75 @@
+package nl.sense.rninputkit.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.TimeZone;
+
+import nl.sense.rninputkit.inputkit.constant.Interval;
+import nl.sense.rninputkit.inputkit.entity.FloatTimeSeries;
+import nl.sense.rninputkit.inputkit.entity.TimeInterval;
+import nl.sense.rninputkit.inputkit.googlefit.history.BucketReducer;
+import nl.sense.rninputkit.inputkit.googlefit.history.ReducingDataNormalizer;
+
+/**
+ * Normalization of {@link ReducingDataNormalizer} per {@link BucketReducer}, where
+ * the proportional sum is the only one which splits source values across time windows.
+ */
+@State(Scope.Benchmark)
+public class ReducerBenchmark {
+    private static final TimeZone UTC = TimeZone.getTimeZone("UTC");
+
+    @Param({"10000", "1000000"})
+    public int samples;
+
+    @Param({Interval.TEN_MINUTE, Interval.ONE_DAY})
+    public String interval;
+
+    @Param({"sumProportional", "sumByStart", "max", "mean", "last", "histogram"})
+    public String reducer;
+
+    private StepDataSet dataSet;
+    private TimeInterval timeInterval;
+    private FloatTimeSeries series;
+    private BucketReducer bucketReducer;
+    private final ReducingDataNormalizer normalizer = new ReducingDataNormalizer();
+
+    @Setup
+    public void setup() {
+        dataSet = StepDataSet.generate(samples, 42);
+        timeInterval = new TimeInterval(interval);
+        series = new FloatTimeSeries(dataSet.size);
+        for (int i = 0; i < dataSet.size; i++) {
+            series.add(dataSet.startTimes[i], dataSet.endTimes[i], dataSet.values[i]);
+        }
+        bucketReducer = getReducer(reducer);
+    }
+
+    @Benchmark
+    public FloatTimeSeries normalize() {
+        return normalizer.normalize(StepDataSet.START_TIME, dataSet.endTime, series,
+                timeInterval, bucketReducer, UTC);
+    }
+
+    private static BucketReducer getReducer(String name) {
+        switch (name) {
+            case "sumProportional":
+                return BucketReducer.SUM_PROPORTIONAL;
+            case "sumByStart":
+                return BucketReducer.SUM_BY_START;
+            case "max":
+                return BucketReducer.MAX;
+            case "mean":
+                return BucketReducer.MEAN;
+            case "last":
+                return BucketReducer.LAST;
+            case "histogram":
+                return BucketReducer.histogram(30, 60, 90, 120, 150);
+            default:
+                throw new IllegalStateException("Unknown reducer " + name);
+        }
+    }
+}
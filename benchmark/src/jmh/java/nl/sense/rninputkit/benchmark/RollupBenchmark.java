@@ -0,0 +1,72 @@
+package nl.sense.rninputkit.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.TimeZone;
+
+import nl.sense.rninputkit.inputkit.constant.Interval;
+import nl.sense.rninputkit.inputkit.entity.IntTimeSeries;
+import nl.sense.rninputkit.inputkit.entity.TimeInterval;
+import nl.sense.rninputkit.inputkit.googlefit.history.IntDataNormalizer;
+import nl.sense.rninputkit.inputkit.googlefit.history.RollupDataNormalizer;
+
+/**
+ * Step count of minutes, hours and days of the same range, either normalized once per interval
+ * or normalized at minutes and rolled up by {@link RollupDataNormalizer}.
+ */
+@State(Scope.Benchmark)
+public class RollupBenchmark {
+    private static final TimeZone UTC = TimeZone.getTimeZone("UTC");
+
+    @Param({"10000", "100000"})
+    public int samples;
+
+    private StepDataSet dataSet;
+    private IntTimeSeries series;
+    private List<TimeInterval> intervals;
+    private final IntDataNormalizer normalizer = new IntDataNormalizer();
+    private final RollupDataNormalizer rollupNormalizer = new RollupDataNormalizer();
+
+    @Setup
+    public void setup() {
+        dataSet = StepDataSet.generate(samples, 42);
+        series = dataSet.toTimeSeries();
+        intervals = Arrays.asList(
+                new TimeInterval(Interval.ONE_MINUTE),
+                new TimeInterval(Interval.AN_HOUR),
+                new TimeInterval(Interval.ONE_DAY));
+    }
+
+    @Benchmark
+    public IntTimeSeries finestOnly() {
+        return normalize(intervals.get(0));
+    }
+
+    @Benchmark
+    public List<IntTimeSeries> normalizeEach() {
+        List<IntTimeSeries> results = new ArrayList<>(intervals.size());
+        for (TimeInterval interval : intervals) {
+            results.add(normalize(interval));
+        }
+        return results;
+    }
+
+    @Benchmark
+    public List<IntTimeSeries> rollup() {
+        IntTimeSeries finest = normalize(RollupDataNormalizer.getFinestInterval(intervals));
+        return rollupNormalizer.rollup(StepDataSet.START_TIME, dataSet.endTime, finest,
+                intervals, UTC);
+    }
+
+    private IntTimeSeries normalize(TimeInterval interval) {
+        return normalizer.normalize(StepDataSet.START_TIME, dataSet.endTime, dataSet.startTimes,
+                dataSet.endTimes, dataSet.values, dataSet.size, interval, UTC);
+    }
+}
@@ -0,0 +1,44 @@
+package nl.sense.rninputkit.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import nl.sense.rninputkit.inputkit.entity.IKValue;
+import nl.sense.rninputkit.inputkit.helper.CollectionUtils;
+
+/**
+ * {@link CollectionUtils#sort} of shuffled input kit values.
+ */
+@State(Scope.Benchmark)
+public class SortBenchmark {
+    @Param({"1000", "10000", "100000", "1000000"})
+    public int samples;
+
+    private StepDataSet dataSet;
+    private List<IKValue<Integer>> values;
+
+    @Setup
+    public void setup() {
+        dataSet = StepDataSet.generate(samples, 42);
+    }
+
+    @Setup(Level.Invocation)
+    public void shuffle() {
+        values = dataSet.toIKValues();
+        Collections.shuffle(values, new Random(7));
+    }
+
+    @Benchmark
+    public List<IKValue<Integer>> sortAscending() {
+        CollectionUtils.sort(true, values);
+        return values;
+    }
+}
@@ -0,0 +1,67 @@
+package nl.sense.rninputkit.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import nl.sense.rninputkit.inputkit.entity.DateContent;
+import nl.sense.rninputkit.inputkit.entity.IKValue;
+import nl.sense.rninputkit.inputkit.entity.IntTimeSeries;
+
+/**
+ * Synthetic step count history, shaped like step deltas of Fit.
+ * Most samples are one minute long, some of them span a few minutes so they overlap
+ * time window boundaries, and there are idle gaps in between.
+ */
+final class StepDataSet {
+    /** 2019-01-01T00:00:00Z */
+    static final long START_TIME = 1546300800000L;
+    private static final long ONE_MINUTE = TimeUnit.MINUTES.toMillis(1);
+
+    final long[] startTimes;
+    final long[] endTimes;
+    final int[] values;
+    final int size;
+    final long endTime;
+
+    private StepDataSet(long[] startTimes, long[] endTimes, int[] values, int size, long endTime) {
+        this.startTimes = startTimes;
+        this.endTimes = endTimes;
+        this.values = values;
+        this.size = size;
+        this.endTime = endTime;
+    }
+
+    static StepDataSet generate(int size, long seed) {
+        Random random = new Random(seed);
+        long[] startTimes = new long[size];
+        long[] endTimes = new long[size];
+        int[] values = new int[size];
+        long time = START_TIME;
+        for (int i = 0; i < size; i++) {
+            // idle gap of up to 3 minutes
+            time += random.nextInt(4) * ONE_MINUTE;
+            long length = random.nextInt(10) == 0 ? (2 + random.nextInt(4)) * ONE_MINUTE : ONE_MINUTE;
+            startTimes[i] = time + random.nextInt(30) * 1000L;
+            endTimes[i] = startTimes[i] + length;
+            values[i] = random.nextInt(180);
+            time = endTimes[i];
+        }
+        return new StepDataSet(startTimes, endTimes, values, size, time + ONE_MINUTE);
+    }
+
+    List<IKValue<Integer>> toIKValues() {
+        List<IKValue<Integer>> list = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            list.add(new IKValue<>(values[i],
+                    new DateContent(startTimes[i]),
+                    new DateContent(endTimes[i])));
+        }
+        return list;
+    }
+
+    IntTimeSeries toTimeSeries() {
+        return new IntTimeSeries(startTimes.clone(), endTimes.clone(), values.clone(), size);
+    }
+}
@@ -0,0 +1,73 @@
+package nl.sense.rninputkit.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import nl.sense.rninputkit.inputkit.constant.Interval;
+import nl.sense.rninputkit.inputkit.entity.TimeInterval;
+import nl.sense.rninputkit.inputkit.helper.InputKitTimeUtils;
+
+/**
+ * Time window generation over a year, for every {@link Interval}.
+ */
+@State(Scope.Benchmark)
+public class TimeWindowBenchmark {
+    @Param({
+            Interval.ONE_MINUTE,
+            Interval.TEN_MINUTE,
+            Interval.HALF_HOUR,
+            Interval.AN_HOUR,
+            Interval.ONE_DAY,
+            Interval.ONE_WEEK
+    })
+    public String interval;
+
+    private TimeInterval timeInterval;
+    private long startTime;
+    private long endTime;
+
+    @Setup
+    public void setup() {
+        timeInterval = new TimeInterval(interval);
+        startTime = StepDataSet.START_TIME;
+        endTime = startTime + TimeUnit.DAYS.toMillis(365);
+    }
+
+    @Benchmark
+    public long[] boundaries() {
+        return InputKitTimeUtils.populateTimeWindowBoundaries(startTime, endTime, timeInterval);
+    }
+
+    /**
+     * Baseline of calendar based time windows with an object per time window,
+     * as they used to be computed.
+     */
+    @Benchmark
+    public List<long[]> calendarWindows() {
+        List<long[]> timeWindows = new ArrayList<>();
+        long time = startTime;
+        while (time < endTime) {
+            Calendar cal = Calendar.getInstance();
+            cal.setTimeInMillis(time);
+            if (timeInterval.getTimeUnit() == TimeUnit.DAYS) {
+                cal.add(Calendar.DAY_OF_MONTH, timeInterval.getValue());
+            } else if (timeInterval.getTimeUnit() == TimeUnit.HOURS) {
+                cal.add(Calendar.HOUR_OF_DAY, timeInterval.getValue());
+            } else {
+                cal.add(Calendar.MINUTE, timeInterval.getValue());
+            }
+            long relativeEndTime = Math.min(cal.getTimeInMillis(), endTime);
+            timeWindows.add(new long[] {time, relativeEndTime});
+            time = relativeEndTime;
+        }
+        return timeWindows;
+    }
+}
@@ -12,23 +12,36 @@ import static nl.sense.rninputkit.inputkit.Options.Validator.validateStartTime;
 
 public class Options {
     private static final TimeInterval DEFAULT_TIME_INTERVAL = new TimeInterval(Interval.TEN_MINUTE);
+    private static final int DEFAULT_MAX_CONCURRENT_REQUESTS = 4;
 
     private Long startTime;
     private Long endTime;
     private boolean useDataAggregation;
     private TimeInterval timeInterval;
     private Integer limitation;
+    private int maxConcurrentRequests;
+    private boolean incremental;
+    private Long timeout;
+    private boolean exactDistribution;
 
     private Options(Long startTime,
                     Long endTime,
                     boolean useDataAggregation,
                     TimeInterval timeInterval,
-                    Integer limitation) {
+                    Integer limitation,
+                    int maxConcurrentRequests,
+                    boolean incremental,
+                    Long timeout,
+                    boolean exactDistribution) {
         this.startTime = startTime;
         this.endTime = endTime;
         this.useDataAggregation = useDataAggregation;
         this.timeInterval = timeInterval;
         this.limitation = limitation;
+        this.maxConcurrentRequests = maxConcurrentRequests;
+        this.incremental = incremental;
+        this.timeout = timeout;
+        this.exactDistribution = exactDistribution;
     }
 
     public Long getStartTime() {
@@ -51,12 +64,32 @@ public class Options {
         return limitation;
     }
 
+    public int getMaxConcurrentRequests() {
+        return maxConcurrentRequests;
+    }
+
+    public boolean isIncremental() {
+        return incremental;
+    }
+
+    public Long getTimeout() {
+        return timeout;
+    }
+
+    public boolean isExactDistribution() {
+        return exactDistribution;
+    }
+
     public static class Builder {
         private Long newStartTime;
         private Long newEndTime;
         private boolean newUseDataAggregation;
         private TimeInterval newTimeInterval;
         private Integer newLimitation;
+        private Integer newMaxConcurrentRequests;
+        private boolean newIncremental;
+        private Long newTimeout;
+        private boolean newExactDistribution;
 
         /**
          * Set start time of steps history.
@@ -107,6 +140,54 @@ public class Options {
             return this;
         }
 
+        /**
+         * Set maximum number of history request chunks which are in flight at the same time.
+         * If it's not provided it will be set to {@link Options#DEFAULT_MAX_CONCURRENT_REQUESTS}.
+         * Set to 1 to read request chunks one after another.
+         * @param maxConcurrentRequests maximum number of concurrent requests
+         * @return Builder Options Builder
+         */
+        public Builder maxConcurrentRequests(Integer maxConcurrentRequests) {
+            this.newMaxConcurrentRequests = maxConcurrentRequests;
+            return this;
+        }
+
+        /**
+         * Only read history since the last synced watermark, and merge it into previously
+         * synced time windows. It's meant to poll the same range over and over, eg. "today so far".
+         * The watermark lags the sync by the invalidation window of the history cache, so
+         * late-arriving data is picked up by the syncs within that window.
+         * @return Builder Options Builder
+         */
+        public Builder incremental() {
+            this.newIncremental = true;
+            return this;
+        }
+
+        /**
+         * Set overall time budget of the query, which is split across history request chunks
+         * that are still outstanding. Once it runs out, the query ends early with a partial
+         * result. If it's not provided, every chunk has its own fixed timeout.
+         * @param timeout time budget in milliseconds
+         * @return Builder Options Builder
+         */
+        public Builder timeout(Long timeout) {
+            this.newTimeout = timeout;
+            return this;
+        }
+
+        /**
+         * Distribute history values across time windows by milliseconds instead of whole minutes.
+         * Every value is split across all time windows it overlaps, so sub minute values are
+         * no longer rounded up to a minute, see
+         * {@link nl.sense.rninputkit.inputkit.googlefit.history.ExactDataNormalizer}.
+         * @return Builder Options Builder
+         */
+        public Builder exactDistribution() {
+            this.newExactDistribution = true;
+            return this;
+        }
+
         public Options build() {
             newStartTime = validateStartTime(newStartTime);
             newEndTime = validateEndTime(newStartTime, newEndTime);
@@ -115,7 +196,12 @@ public class Options {
                     newEndTime,
                     newUseDataAggregation,
                     newTimeInterval == null ? DEFAULT_TIME_INTERVAL : newTimeInterval,
-                    (newLimitation == null || newLimitation <= 0) ? null : newLimitation
+                    (newLimitation == null || newLimitation <= 0) ? null : newLimitation,
+                    (newMaxConcurrentRequests == null || newMaxConcurrentRequests <= 0)
+                            ? DEFAULT_MAX_CONCURRENT_REQUESTS : newMaxConcurrentRequests,
+                    newIncremental,
+                    (newTimeout == null || newTimeout <= 0) ? null : newTimeout,
+                    newExactDistribution
             );
         }
     }
@@ -17,6 +17,7 @@ public class IKStatus {
     public static final String INPUT_KIT_MONITOR_REGISTERED = "INPUT_KIT_MONITOR_ALREADY_REGISTERED";
     public static final String INPUT_KIT_MONITOR_UNREGISTERED = "INPUT_KIT_MONITOR_UNREGISTERED";
     public static final String INPUT_KIT_MONITORING_NOT_AVAILABLE = "INPUT_KIT_MONITORING_NOT_AVAILABLE";
+    public static final String INPUT_KIT_DEADLINE_EXCEEDED = "INPUT_KIT_DEADLINE_EXCEEDED";
     public static final String INPUT_KIT_UNREACHABLE_CONTEXT =
             String.format("UNREACHABLE_APPLICATION_CONTEXT \n%s %s",
                     "Context was no longer maintained in memory, ",
@@ -31,5 +32,6 @@ public class IKStatus {
         public static final int OUT_OF_DATE_PLAY_SERVICE = -6;
         public static final int INVALID_REQUEST = -7;
         public static final int REQUIRED_GRANTED_PERMISSIONS = -8;
+        public static final int DEADLINE_EXCEEDED = -9;
     }
 }
@@ -1,5 +1,6 @@
 package nl.sense.rninputkit.inputkit.constant;
 
+import androidx.annotation.Nullable;
 import androidx.annotation.StringDef;
 
 import java.lang.annotation.Retention;
@@ -28,4 +29,18 @@ public class Interval {
     public static final String HALF_HOUR = "halfHour";
     public static final String TEN_MINUTE = "tenMinute";
     public static final String ONE_MINUTE = "oneMinute";
+
+    /**
+     * Check whether given value is one of the known interval names.
+     * @param interval Interval name
+     * @return True if it's an {@link IntervalName}, False otherwise
+     */
+    public static boolean isValid(@Nullable String interval) {
+        return ONE_WEEK.equals(interval)
+                || ONE_DAY.equals(interval)
+                || AN_HOUR.equals(interval)
+                || HALF_HOUR.equals(interval)
+                || TEN_MINUTE.equals(interval)
+                || ONE_MINUTE.equals(interval);
+    }
 }
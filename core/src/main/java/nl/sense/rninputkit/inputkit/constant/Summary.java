@@ -0,0 +1,26 @@
+package nl.sense.rninputkit.inputkit.constant;
+
+import androidx.annotation.StringDef;
+
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+
+/**
+ * Summary of non additive values within a time window, eg. weight.
+ */
+public class Summary {
+    private Summary() { }
+
+    @Retention(RetentionPolicy.SOURCE)
+    @StringDef({
+            LAST,
+            MIN,
+            MAX,
+            AVERAGE
+    })
+    public @interface SummaryName { }
+    public static final String LAST = "last";
+    public static final String MIN = "min";
+    public static final String MAX = "max";
+    public static final String AVERAGE = "average";
+}
@@ -0,0 +1,117 @@
+package nl.sense.rninputkit.inputkit.entity;
+
+import com.google.gson.TypeAdapter;
+import com.google.gson.annotations.Expose;
+import com.google.gson.annotations.JsonAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+import java.text.DateFormat;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.Locale;
+
+/**
+ * Created by panjiyudasetya on 7/6/17.
+ */
+
+@JsonAdapter(DateContent.DateContentAdapter.class)
+public class DateContent {
+    private static final String STR_DATE_FORMAT = "yyyy-MM-dd HH:mm:ss Z";
+    /**
+     * {@link SimpleDateFormat} is not thread-safe, while date contents are created on history
+     * worker threads as well. So every thread gets its own formatter.
+     */
+    private static final ThreadLocal<DateFormat> DATE_FORMATTER = new ThreadLocal<DateFormat>() {
+        @Override
+        protected DateFormat initialValue() {
+            return new SimpleDateFormat(STR_DATE_FORMAT, Locale.US);
+        }
+    };
+    @Expose
+    private long epoch;
+    /**
+     * Formatted epoch. It will be computed on the first {@link #getString()} call.
+     */
+    @Expose
+    private String string;
+
+    public DateContent(long epoch) {
+        this.epoch = epoch;
+    }
+
+    public long getEpoch() {
+        return epoch;
+    }
+
+    public String getString() {
+        if (string == null) {
+            string = DATE_FORMATTER.get().format(new Date(epoch));
+        }
+        return string;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof DateContent)) return false;
+
+        DateContent that = (DateContent) o;
+        return epoch == that.epoch;
+    }
+
+    @Override
+    public int hashCode() {
+        return (int) (epoch ^ (epoch >>> 32));
+    }
+
+    @Override
+    public String toString() {
+        return "DateContent{"
+                + "epoch=" + epoch
+                + ", string='" + getString() + '\''
+                + '}';
+    }
+
+    /**
+     * Serialize date content with its formatted epoch, since {@link #string} is computed lazily.
+     */
+    static class DateContentAdapter extends TypeAdapter<DateContent> {
+        private static final String EPOCH = "epoch";
+        private static final String STRING = "string";
+
+        @Override
+        public void write(JsonWriter out, DateContent value) throws IOException {
+            if (value == null) {
+                out.nullValue();
+                return;
+            }
+            out.beginObject();
+            out.name(EPOCH).value(value.getEpoch());
+            out.name(STRING).value(value.getString());
+            out.endObject();
+        }
+
+        @Override
+        public DateContent read(JsonReader in) throws IOException {
+            if (in.peek() == JsonToken.NULL) {
+                in.nextNull();
+                return null;
+            }
+            DateContent dateContent = new DateContent(0);
+            in.beginObject();
+            while (in.hasNext()) {
+                String name = in.nextName();
+                if (EPOCH.equals(name)) {
+                    dateContent.epoch = in.nextLong();
+                } else {
+                    in.skipValue();
+                }
+            }
+            in.endObject();
+            return dateContent;
+        }
+    }
+}
@@ -0,0 +1,10 @@
+package nl.sense.rninputkit.inputkit.entity;
+
+/**
+ * Distance in meters of a time period.
+ */
+public class Distance extends IKValue<Float> {
+    public Distance(float value, long startDate, long endDate) {
+        super(value, new DateContent(startDate), new DateContent(endDate));
+    }
+}
@@ -0,0 +1,67 @@
+package nl.sense.rninputkit.inputkit.entity;
+
+import androidx.annotation.NonNull;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.annotations.Expose;
+
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Distribution of distance in meters, see {@link StepContent}.
+ */
+public class DistanceContent extends IKValue<List<Distance>> {
+    private static final Gson GSON = new GsonBuilder().excludeFieldsWithoutExposeAnnotation().create();
+    @Expose(serialize = false)
+    private boolean isQueryOk;
+    @Expose
+    private boolean isPartial;
+
+    public DistanceContent(boolean isQueryOk,
+                           long startDate,
+                           long endDate,
+                           @NonNull List<Distance> distances) {
+        super(distances, new DateContent(startDate), new DateContent(endDate));
+        this.isQueryOk = isQueryOk;
+    }
+
+    /**
+     * @return True if some of distance history couldn't be read, see
+     *         {@link TimeSeries#isPartial()}.
+     */
+    public boolean isPartial() {
+        return isPartial;
+    }
+
+    public void setPartial(boolean partial) {
+        isPartial = partial;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        if (!super.equals(o)) return false;
+        DistanceContent that = (DistanceContent) o;
+        return isQueryOk == that.isQueryOk
+                && isPartial == that.isPartial;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(super.hashCode(), isQueryOk, isPartial);
+    }
+
+    @Override
+    public String toString() {
+        return "DistanceContent{"
+                + "isQueryOk=" + isQueryOk
+                + ", isPartial=" + isPartial
+                + ", value=" + value
+                + ", startDate=" + startDate
+                + ", endDate=" + endDate
+                + '}';
+    }
+}
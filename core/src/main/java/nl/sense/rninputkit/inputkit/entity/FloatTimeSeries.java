@@ -0,0 +1,66 @@
+package nl.sense.rninputkit.inputkit.entity;
+
+import java.util.Arrays;
+
+/**
+ * {@link TimeSeries} of float values, eg. distance.
+ */
+public class FloatTimeSeries extends TimeSeries {
+    private float[] values;
+
+    public FloatTimeSeries() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public FloatTimeSeries(int capacity) {
+        super(capacity);
+        this.values = new float[capacity];
+    }
+
+    public FloatTimeSeries(long[] startTimes, long[] endTimes, float[] values, int size) {
+        super(startTimes, endTimes, size);
+        this.values = values;
+    }
+
+    /**
+     * Append a sample into this time series.
+     * @param startTime Start time of sample
+     * @param endTime   End time of sample
+     * @param value     Sample value
+     */
+    public void add(long startTime, long endTime, float value) {
+        ensureCapacity(size + 1);
+        startTimes[size] = startTime;
+        endTimes[size] = endTime;
+        values[size] = value;
+        size++;
+    }
+
+    public float getValue(int index) {
+        return values[index];
+    }
+
+    /**
+     * Backing array of values. Only the first {@link #size()} items are valid.
+     */
+    public float[] getValues() {
+        return values;
+    }
+
+    /**
+     * Get sum of all values.
+     * @return Total value
+     */
+    public float getTotal() {
+        float total = 0;
+        for (int i = 0; i < size; i++) {
+            total += values[i];
+        }
+        return total;
+    }
+
+    @Override
+    protected void resizeValues(int capacity) {
+        values = Arrays.copyOf(values, capacity);
+    }
+}
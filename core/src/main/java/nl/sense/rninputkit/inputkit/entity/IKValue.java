@@ -58,10 +58,19 @@ public class IKValue<T> {
         return endDate;
     }
 
+    /**
+     * @deprecated Normalizers no longer flag source values, overlap state is kept by
+     *             the normalizer itself. It's always false unless set by the caller.
+     */
+    @Deprecated
     public boolean isFlaggedOverlap() {
         return flagOverlap;
     }
 
+    /**
+     * @deprecated See {@link #isFlaggedOverlap()}
+     */
+    @Deprecated
     public void setFlagOverlap(boolean flagOverlap) {
         this.flagOverlap = flagOverlap;
     }
@@ -0,0 +1,81 @@
+package nl.sense.rninputkit.inputkit.entity;
+
+import java.util.Arrays;
+
+/**
+ * {@link TimeSeries} of integer values, eg. step count.
+ */
+public class IntTimeSeries extends TimeSeries {
+    private int[] values;
+
+    public IntTimeSeries() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public IntTimeSeries(int capacity) {
+        super(capacity);
+        this.values = new int[capacity];
+    }
+
+    public IntTimeSeries(long[] startTimes, long[] endTimes, int[] values, int size) {
+        super(startTimes, endTimes, size);
+        this.values = values;
+    }
+
+    /**
+     * Append a sample into this time series.
+     * @param startTime Start time of sample
+     * @param endTime   End time of sample
+     * @param value     Sample value
+     */
+    public void add(long startTime, long endTime, int value) {
+        ensureCapacity(size + 1);
+        startTimes[size] = startTime;
+        endTimes[size] = endTime;
+        values[size] = value;
+        size++;
+    }
+
+    public int getValue(int index) {
+        return values[index];
+    }
+
+    /**
+     * Backing array of values. Only the first {@link #size()} items are valid.
+     */
+    public int[] getValues() {
+        return values;
+    }
+
+    /**
+     * Get sum of all values.
+     * @return Total value
+     */
+    public int getTotal() {
+        int total = 0;
+        for (int i = 0; i < size; i++) {
+            total += values[i];
+        }
+        return total;
+    }
+
+    /**
+     * Copy the valid samples of this time series, eg. before truncating a shared one.
+     * @return Time series which doesn't share backing arrays with this one
+     */
+    public IntTimeSeries copy() {
+        IntTimeSeries copy = new IntTimeSeries(
+                Arrays.copyOf(startTimes, size),
+                Arrays.copyOf(endTimes, size),
+                Arrays.copyOf(values, size),
+                size);
+        copy.setPartial(partial);
+        copy.setDeadlineExceeded(deadlineExceeded);
+        return copy;
+    }
+
+    @Override
+    protected void resizeValues(int capacity) {
+        values = Arrays.copyOf(values, capacity);
+    }
+}
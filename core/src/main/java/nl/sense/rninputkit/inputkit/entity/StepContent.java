@@ -17,6 +17,8 @@ public class StepContent extends IKValue<List<Step>> {
     private static final Gson GSON = new GsonBuilder().excludeFieldsWithoutExposeAnnotation().create();
     @Expose(serialize = false)
     private boolean isQueryOk;
+    @Expose
+    private boolean isPartial;
 
     public StepContent(boolean isQueryOk,
                        long startDate,
@@ -26,24 +28,38 @@ public class StepContent extends IKValue<List<Step>> {
         this.isQueryOk = isQueryOk;
     }
 
+    /**
+     * @return True if some of step count history couldn't be read, see
+     *         {@link TimeSeries#isPartial()}.
+     */
+    public boolean isPartial() {
+        return isPartial;
+    }
+
+    public void setPartial(boolean partial) {
+        isPartial = partial;
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
         if (o == null || getClass() != o.getClass()) return false;
         if (!super.equals(o)) return false;
         StepContent that = (StepContent) o;
-        return isQueryOk == that.isQueryOk;
+        return isQueryOk == that.isQueryOk
+                && isPartial == that.isPartial;
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(super.hashCode(), isQueryOk);
+        return Objects.hash(super.hashCode(), isQueryOk, isPartial);
     }
 
     @Override
     public String toString() {
         return "StepContent{"
                 + "isQueryOk=" + isQueryOk
+                + ", isPartial=" + isPartial
                 + ", value=" + value
                 + ", startDate=" + startDate
                 + ", endDate=" + endDate
@@ -0,0 +1,110 @@
+package nl.sense.rninputkit.inputkit.entity;
+
+import java.util.Arrays;
+
+/**
+ * Compact columnar container of time series samples.
+ * Instead of holding an {@link IKValue} with two {@link DateContent} for every sample,
+ * start time, end time and value of the samples are stored in parallel primitive arrays.
+ * Arrays are growing on demand, only the first {@link #size()} items are valid.
+ */
+public abstract class TimeSeries {
+    protected static final int DEFAULT_CAPACITY = 16;
+    protected long[] startTimes;
+    protected long[] endTimes;
+    protected int size;
+    protected boolean partial;
+    protected boolean deadlineExceeded;
+
+    protected TimeSeries(int capacity) {
+        this.startTimes = new long[capacity];
+        this.endTimes = new long[capacity];
+    }
+
+    protected TimeSeries(long[] startTimes, long[] endTimes, int size) {
+        this.startTimes = startTimes;
+        this.endTimes = endTimes;
+        this.size = size;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * @return True if some of the source history couldn't be read, eg. because the deadline of
+     *         the query was exceeded. Time windows of missing history are counted as empty.
+     */
+    public boolean isPartial() {
+        return partial;
+    }
+
+    public void setPartial(boolean partial) {
+        this.partial = partial;
+    }
+
+    /**
+     * @return True if this time series is partial because the deadline of the query was
+     *         exceeded, rather than because some of the history requests failed.
+     */
+    public boolean isDeadlineExceeded() {
+        return deadlineExceeded;
+    }
+
+    public void setDeadlineExceeded(boolean deadlineExceeded) {
+        this.deadlineExceeded = deadlineExceeded;
+    }
+
+    public long getStartTime(int index) {
+        return startTimes[index];
+    }
+
+    public long getEndTime(int index) {
+        return endTimes[index];
+    }
+
+    /**
+     * Backing array of start times. Only the first {@link #size()} items are valid.
+     */
+    public long[] getStartTimes() {
+        return startTimes;
+    }
+
+    /**
+     * Backing array of end times. Only the first {@link #size()} items are valid.
+     */
+    public long[] getEndTimes() {
+        return endTimes;
+    }
+
+    /**
+     * Keep only the first samples of this time series.
+     * @param limit Maximum number of samples
+     */
+    public void truncate(int limit) {
+        if (limit >= 0 && limit < size) size = limit;
+    }
+
+    /**
+     * Make sure backing arrays are able to hold a given number of samples.
+     * @param minCapacity Required capacity
+     */
+    public void ensureCapacity(int minCapacity) {
+        if (minCapacity <= startTimes.length) return;
+
+        int capacity = Math.max(minCapacity, startTimes.length * 2);
+        startTimes = Arrays.copyOf(startTimes, capacity);
+        endTimes = Arrays.copyOf(endTimes, capacity);
+        resizeValues(capacity);
+    }
+
+    /**
+     * Resize backing array of values.
+     * @param capacity New capacity
+     */
+    protected abstract void resizeValues(int capacity);
+}
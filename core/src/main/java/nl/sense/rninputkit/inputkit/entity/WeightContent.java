@@ -0,0 +1,68 @@
+package nl.sense.rninputkit.inputkit.entity;
+
+import androidx.annotation.NonNull;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.annotations.Expose;
+
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Distribution of weight in kilograms, where every time window holds a summary of its weight
+ * measurements, see {@link nl.sense.rninputkit.inputkit.constant.Summary}.
+ */
+public class WeightContent extends IKValue<List<IKValue<Float>>> {
+    private static final Gson GSON = new GsonBuilder().excludeFieldsWithoutExposeAnnotation().create();
+    @Expose(serialize = false)
+    private boolean isQueryOk;
+    @Expose
+    private boolean isPartial;
+
+    public WeightContent(boolean isQueryOk,
+                         long startDate,
+                         long endDate,
+                         @NonNull List<IKValue<Float>> weights) {
+        super(weights, new DateContent(startDate), new DateContent(endDate));
+        this.isQueryOk = isQueryOk;
+    }
+
+    /**
+     * @return True if some of weight history couldn't be read, see
+     *         {@link TimeSeries#isPartial()}.
+     */
+    public boolean isPartial() {
+        return isPartial;
+    }
+
+    public void setPartial(boolean partial) {
+        isPartial = partial;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        if (!super.equals(o)) return false;
+        WeightContent that = (WeightContent) o;
+        return isQueryOk == that.isQueryOk
+                && isPartial == that.isPartial;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(super.hashCode(), isQueryOk, isPartial);
+    }
+
+    @Override
+    public String toString() {
+        return "WeightContent{"
+                + "isQueryOk=" + isQueryOk
+                + ", isPartial=" + isPartial
+                + ", value=" + value
+                + ", startDate=" + startDate
+                + ", endDate=" + endDate
+                + '}';
+    }
+}
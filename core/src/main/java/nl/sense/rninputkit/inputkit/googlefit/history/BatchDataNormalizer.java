@@ -0,0 +1,399 @@
+package nl.sense.rninputkit.inputkit.googlefit.history;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.TimeZone;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import nl.sense.rninputkit.inputkit.entity.FloatTimeSeries;
+import nl.sense.rninputkit.inputkit.entity.IntTimeSeries;
+import nl.sense.rninputkit.inputkit.entity.TimeInterval;
+import nl.sense.rninputkit.inputkit.entity.TimeSeries;
+
+/**
+ * Normalize many independent time series at once, eg. step history of thousands of users on
+ * a server. Each series is normalized by {@link IntDataNormalizer} or {@link FloatDataNormalizer}
+ * as a separate task of the given {@link ExecutorService}, so buckets are exactly the same with
+ * the ones normalized on the phone.
+ * <p>
+ * Series are isolated from each other : a failure of one series is reported on its own
+ * {@link Normalized} result and doesn't affect the rest of the batch.
+ */
+public class BatchDataNormalizer {
+    private final ExecutorService executor;
+
+    /**
+     * @param executor Executor of normalization tasks, eg. a fixed thread pool or
+     *                 a {@link java.util.concurrent.ForkJoinPool}. It is not shut down by
+     *                 this normalizer.
+     */
+    public BatchDataNormalizer(@NonNull ExecutorService executor) {
+        this.executor = executor;
+    }
+
+    /**
+     * Normalize integer time series, see {@link DataNormalizer#setAsInt}.
+     *
+     * @param requests Series to be normalized
+     * @return Normalized series in order of the requests
+     * @throws InterruptedException when interrupted while waiting for the batch
+     */
+    @NonNull
+    public BatchResult<IntTimeSeries> normalizeInt(
+            @NonNull List<Request<IntTimeSeries>> requests) throws InterruptedException {
+        final IntDataNormalizer normalizer = new IntDataNormalizer();
+        return normalize(requests, new SeriesNormalizer<IntTimeSeries>() {
+            @Override
+            public IntTimeSeries normalize(@NonNull Request<IntTimeSeries> request) {
+                IntTimeSeries values = request.getValues();
+                return normalizer.normalize(request.getStartTime(), request.getEndTime(),
+                        values.getStartTimes(), values.getEndTimes(), values.getValues(),
+                        values.size(), request.getInterval(), request.getTimeZone());
+            }
+        });
+    }
+
+    /**
+     * Normalize float time series, see {@link DataNormalizer#setAsFloat}.
+     *
+     * @param requests Series to be normalized
+     * @return Normalized series in order of the requests
+     * @throws InterruptedException when interrupted while waiting for the batch
+     */
+    @NonNull
+    public BatchResult<FloatTimeSeries> normalizeFloat(
+            @NonNull List<Request<FloatTimeSeries>> requests) throws InterruptedException {
+        final FloatDataNormalizer normalizer = new FloatDataNormalizer();
+        return normalize(requests, new SeriesNormalizer<FloatTimeSeries>() {
+            @Override
+            public FloatTimeSeries normalize(@NonNull Request<FloatTimeSeries> request) {
+                FloatTimeSeries values = request.getValues();
+                return normalizer.normalize(request.getStartTime(), request.getEndTime(),
+                        values.getStartTimes(), values.getEndTimes(), values.getValues(),
+                        values.size(), request.getInterval(), request.getTimeZone());
+            }
+        });
+    }
+
+    @NonNull
+    private <S extends TimeSeries> BatchResult<S> normalize(
+            @NonNull List<Request<S>> requests,
+            @NonNull final SeriesNormalizer<S> normalizer) throws InterruptedException {
+        long startedAt = System.nanoTime();
+
+        List<Callable<Normalized<S>>> tasks = new ArrayList<>(requests.size());
+        for (final Request<S> request : requests) {
+            tasks.add(new Callable<Normalized<S>>() {
+                @Override
+                public Normalized<S> call() {
+                    long taskStartedAt = System.nanoTime();
+                    try {
+                        S series = normalizer.normalize(request);
+                        return new Normalized<>(request, series, null,
+                                System.nanoTime() - taskStartedAt);
+                    } catch (RuntimeException e) {
+                        return new Normalized<>(request, null, e,
+                                System.nanoTime() - taskStartedAt);
+                    }
+                }
+            });
+        }
+
+        List<Future<Normalized<S>>> futures = executor.invokeAll(tasks);
+        List<Normalized<S>> results = new ArrayList<>(futures.size());
+        for (int i = 0; i < futures.size(); i++) {
+            try {
+                results.add(futures.get(i).get());
+            } catch (ExecutionException e) {
+                results.add(new Normalized<>(requests.get(i), null, e, 0));
+            }
+        }
+        return new BatchResult<>(results, System.nanoTime() - startedAt);
+    }
+
+    private interface SeriesNormalizer<S extends TimeSeries> {
+        S normalize(@NonNull Request<S> request);
+    }
+
+    /**
+     * Time series of a single user to be normalized.
+     *
+     * @param <S> Type of time series
+     */
+    public static class Request<S extends TimeSeries> {
+        private final String id;
+        private final long startTime;
+        private final long endTime;
+        private final S values;
+        private final TimeInterval interval;
+        private final TimeZone timeZone;
+
+        private Request(String id, long startTime, long endTime, S values,
+                        TimeInterval interval, TimeZone timeZone) {
+            this.id = id;
+            this.startTime = startTime;
+            this.endTime = endTime;
+            this.values = values;
+            this.interval = interval;
+            this.timeZone = timeZone;
+        }
+
+        public String getId() {
+            return id;
+        }
+
+        public long getStartTime() {
+            return startTime;
+        }
+
+        public long getEndTime() {
+            return endTime;
+        }
+
+        public S getValues() {
+            return values;
+        }
+
+        public TimeInterval getInterval() {
+            return interval;
+        }
+
+        public TimeZone getTimeZone() {
+            return timeZone;
+        }
+
+        public static class Builder<S extends TimeSeries> {
+            private String id;
+            private Long startTime;
+            private Long endTime;
+            private S values;
+            private TimeInterval interval;
+            private TimeZone timeZone;
+
+            /**
+             * Set identifier of the series, eg. user id
+             * @param id Series identifier
+             * @return Builder class
+             */
+            public Builder<S> id(String id) {
+                this.id = id;
+                return this;
+            }
+
+            /**
+             * Set start time of normalized series
+             * @param startTime Start time
+             * @return Builder class
+             */
+            public Builder<S> startTime(long startTime) {
+                this.startTime = startTime;
+                return this;
+            }
+
+            /**
+             * Set end time of normalized series
+             * @param endTime End time
+             * @return Builder class
+             */
+            public Builder<S> endTime(long endTime) {
+                this.endTime = endTime;
+                return this;
+            }
+
+            /**
+             * Set source values
+             * @param values Source time series
+             * @return Builder class
+             */
+            public Builder<S> values(S values) {
+                this.values = values;
+                return this;
+            }
+
+            /**
+             * Set bucket interval
+             * @param interval {@link TimeInterval}
+             * @return Builder class
+             */
+            public Builder<S> timeInterval(TimeInterval interval) {
+                this.interval = interval;
+                return this;
+            }
+
+            /**
+             * Set time zone of day based buckets. Default time zone is used when it's not set.
+             * @param timeZone {@link TimeZone} of the user
+             * @return Builder class
+             */
+            public Builder<S> timeZone(TimeZone timeZone) {
+                this.timeZone = timeZone;
+                return this;
+            }
+
+            public Request<S> build() {
+                if (startTime == null) throw new IllegalStateException("Start time should be defined!");
+                if (endTime == null) throw new IllegalStateException("End time should be defined!");
+                if (values == null) throw new IllegalStateException("Source values should be defined!");
+                if (interval == null) throw new IllegalStateException("Time interval should be defined!");
+                return new Request<>(id, startTime, endTime, values, interval,
+                        timeZone == null ? TimeZone.getDefault() : timeZone);
+            }
+        }
+    }
+
+    /**
+     * Normalization result of a single series.
+     *
+     * @param <S> Type of time series
+     */
+    public static class Normalized<S extends TimeSeries> {
+        private final Request<S> request;
+        private final S series;
+        private final Exception exception;
+        private final long elapsedNanos;
+
+        Normalized(Request<S> request, S series, Exception exception, long elapsedNanos) {
+            this.request = request;
+            this.series = series;
+            this.exception = exception;
+            this.elapsedNanos = elapsedNanos;
+        }
+
+        public Request<S> getRequest() {
+            return request;
+        }
+
+        /**
+         * @return Normalized series, or null when normalization was failed.
+         */
+        @Nullable
+        public S getSeries() {
+            return series;
+        }
+
+        /**
+         * @return Failure cause, eg. invalid time period, or null when normalization succeed.
+         */
+        @Nullable
+        public Exception getException() {
+            return exception;
+        }
+
+        public boolean isSuccessful() {
+            return exception == null;
+        }
+
+        /**
+         * @return Time spent on normalizing this series, in nanoseconds
+         */
+        public long getElapsedNanos() {
+            return elapsedNanos;
+        }
+    }
+
+    /**
+     * Normalized series of a batch along with its throughput metrics.
+     *
+     * @param <S> Type of time series
+     */
+    public static class BatchResult<S extends TimeSeries> {
+        private final List<Normalized<S>> results;
+        private final long elapsedNanos;
+        private final long busyNanos;
+        private final long sampleCount;
+        private final long bucketCount;
+        private final int failureCount;
+
+        BatchResult(@NonNull List<Normalized<S>> results, long elapsedNanos) {
+            this.results = Collections.unmodifiableList(results);
+            this.elapsedNanos = elapsedNanos;
+
+            long busy = 0, samples = 0, buckets = 0;
+            int failures = 0;
+            for (Normalized<S> result : results) {
+                busy += result.getElapsedNanos();
+                samples += result.getRequest().getValues().size();
+                if (result.isSuccessful()) {
+                    buckets += result.getSeries().size();
+                } else {
+                    failures++;
+                }
+            }
+            this.busyNanos = busy;
+            this.sampleCount = samples;
+            this.bucketCount = buckets;
+            this.failureCount = failures;
+        }
+
+        /**
+         * @return Normalized series in order of the requests
+         */
+        @NonNull
+        public List<Normalized<S>> getResults() {
+            return results;
+        }
+
+        /**
+         * @return Number of series which couldn't be normalized
+         */
+        public int getFailureCount() {
+            return failureCount;
+        }
+
+        /**
+         * @return Number of source values of all series
+         */
+        public long getSampleCount() {
+            return sampleCount;
+        }
+
+        /**
+         * @return Number of normalized buckets of all series
+         */
+        public long getBucketCount() {
+            return bucketCount;
+        }
+
+        /**
+         * @return Wall clock time of the batch, in nanoseconds
+         */
+        public long getElapsedNanos() {
+            return elapsedNanos;
+        }
+
+        /**
+         * @return Sum of time spent on each series, in nanoseconds.
+         *         Divided by {@link #getElapsedNanos()} it gives the effective parallelism.
+         */
+        public long getBusyNanos() {
+            return busyNanos;
+        }
+
+        /**
+         * @return Number of normalized series per second
+         */
+        public double getSeriesPerSecond() {
+            return perSecond(results.size());
+        }
+
+        /**
+         * @return Number of source values normalized per second
+         */
+        public double getSamplesPerSecond() {
+            return perSecond(sampleCount);
+        }
+
+        private double perSecond(long count) {
+            if (elapsedNanos <= 0) return 0;
+            return count * (double) TimeUnit.SECONDS.toNanos(1) / elapsedNanos;
+        }
+    }
+}
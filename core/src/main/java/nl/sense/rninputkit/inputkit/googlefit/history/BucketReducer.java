@@ -0,0 +1,192 @@
+package nl.sense.rninputkit.inputkit.googlefit.history;
+
+import androidx.annotation.NonNull;
+
+import java.util.Arrays;
+
+/**
+ * Strategy of reducing source values into a time window, see {@link ReducingDataNormalizer}.
+ * A reducer either splits source values across the time windows they overlap, like
+ * {@link #SUM_PROPORTIONAL}, or assigns every source value to the time window of its start time.
+ * The latter doesn't need any split arithmetic, so the normalizer runs a single sweep for them.
+ * Results of a time window are kept in a flat primitive array, {@link #getWidth()} values
+ * per time window starting at the given offset.
+ */
+public abstract class BucketReducer {
+    /**
+     * Sum of source values, where source values which overlap several time windows are
+     * distributed by minutes. Same as {@link FloatDataNormalizer}.
+     */
+    public static final BucketReducer SUM_PROPORTIONAL = new BucketReducer() {
+        @Override
+        public boolean isProportional() {
+            return true;
+        }
+
+        @Override
+        protected void accumulate(float[] results, int offset, int count,
+                                  float value, boolean isLatest) {
+            results[offset] += value;
+        }
+    };
+
+    /**
+     * Sum of source values, where every source value is counted into the time window of
+     * its start time.
+     */
+    public static final BucketReducer SUM_BY_START = new BucketReducer() {
+        @Override
+        protected void accumulate(float[] results, int offset, int count,
+                                  float value, boolean isLatest) {
+            results[offset] += value;
+        }
+    };
+
+    /**
+     * Maximum of source values
+     */
+    public static final BucketReducer MAX = new BucketReducer() {
+        @Override
+        public boolean isSparse() {
+            return true;
+        }
+
+        @Override
+        protected void accumulate(float[] results, int offset, int count,
+                                  float value, boolean isLatest) {
+            results[offset] = count == 0 ? value : Math.max(results[offset], value);
+        }
+    };
+
+    /**
+     * Minimum of source values
+     */
+    public static final BucketReducer MIN = new BucketReducer() {
+        @Override
+        public boolean isSparse() {
+            return true;
+        }
+
+        @Override
+        protected void accumulate(float[] results, int offset, int count,
+                                  float value, boolean isLatest) {
+            results[offset] = count == 0 ? value : Math.min(results[offset], value);
+        }
+    };
+
+    /**
+     * Arithmetic mean of source values
+     */
+    public static final BucketReducer MEAN = new BucketReducer() {
+        @Override
+        public boolean isSparse() {
+            return true;
+        }
+
+        @Override
+        protected void accumulate(float[] results, int offset, int count,
+                                  float value, boolean isLatest) {
+            // Keep the sum, it's divided once all values are reduced
+            results[offset] += value;
+        }
+
+        @Override
+        protected void finish(float[] results, int offset, int count) {
+            if (count > 0) results[offset] /= count;
+        }
+    };
+
+    /**
+     * Source value which ends the latest. The first one wins when several of them end at
+     * the same time.
+     */
+    public static final BucketReducer LAST = new BucketReducer() {
+        @Override
+        public boolean isSparse() {
+            return true;
+        }
+
+        @Override
+        protected void accumulate(float[] results, int offset, int count,
+                                  float value, boolean isLatest) {
+            if (isLatest) results[offset] = value;
+        }
+    };
+
+    /**
+     * Create a reducer which counts source values per bin.
+     * Bin 0 holds values below the first edge, bin `i` holds values from edge `i - 1` up to
+     * edge `i`, and the last bin holds values from the last edge, so no value is dropped.
+     *
+     * @param edges Ascending bin edges
+     * @return {@link BucketReducer} of `edges.length + 1` values per time window
+     */
+    public static BucketReducer histogram(@NonNull float... edges) {
+        for (int i = 1; i < edges.length; i++) {
+            if (edges[i - 1] >= edges[i]) {
+                throw new IllegalStateException("Histogram edges must be ascending.");
+            }
+        }
+        final float[] binEdges = Arrays.copyOf(edges, edges.length);
+        return new BucketReducer() {
+            @Override
+            public int getWidth() {
+                return binEdges.length + 1;
+            }
+
+            @Override
+            protected void accumulate(float[] results, int offset, int count,
+                                      float value, boolean isLatest) {
+                int bin = Arrays.binarySearch(binEdges, value);
+                // Value on an edge belongs to the bin which starts at that edge
+                bin = bin >= 0 ? bin + 1 : -bin - 1;
+                results[offset + bin]++;
+            }
+        };
+    }
+
+    /**
+     * @return True if source values which overlap several time windows are split across them.
+     *         Otherwise every source value belongs to the time window of its start time.
+     */
+    public boolean isProportional() {
+        return false;
+    }
+
+    /**
+     * @return True if time windows without any source value are left out of the result,
+     *         eg. there is no minimum of an empty time window.
+     */
+    public boolean isSparse() {
+        return false;
+    }
+
+    /**
+     * @return Number of result values of every time window
+     */
+    public int getWidth() {
+        return 1;
+    }
+
+    /**
+     * Reduce a source value into a time window.
+     *
+     * @param results  Results of all time windows
+     * @param offset   Offset of the first result of the time window
+     * @param count    Number of source values which are already reduced into the time window
+     * @param value    Source value
+     * @param isLatest True if the source value ends later than every source value which is
+     *                 already reduced into the time window
+     */
+    protected abstract void accumulate(float[] results, int offset, int count,
+                                       float value, boolean isLatest);
+
+    /**
+     * Complete results of a time window once all of its source values are reduced.
+     *
+     * @param results Results of all time windows
+     * @param offset  Offset of the first result of the time window
+     * @param count   Number of source values of the time window
+     */
+    protected void finish(float[] results, int offset, int count) { }
+}
@@ -2,7 +2,6 @@ package nl.sense.rninputkit.inputkit.googlefit.history;
 
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
-import android.util.Pair;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -15,8 +14,15 @@ import nl.sense.rninputkit.inputkit.helper.CollectionUtils;
 import static nl.sense.rninputkit.inputkit.helper.InputKitTimeUtils.getMinuteDiff;
 import static nl.sense.rninputkit.inputkit.helper.InputKitTimeUtils.isOverlappingTimeWindow;
 import static nl.sense.rninputkit.inputkit.helper.InputKitTimeUtils.isWithinTimeWindow;
-import static nl.sense.rninputkit.inputkit.helper.InputKitTimeUtils.populateTimeWindows;
-
+import static nl.sense.rninputkit.inputkit.helper.InputKitTimeUtils.populateTimeWindowBoundaries;
+
+/**
+ * Normalizer of input kit values into time windows.
+ * Normalization is free of side effects : source values are neither sorted in place nor flagged.
+ * Whether a source value has already been distributed over a time window boundary is kept in
+ * an {@link OverlapState} of a single normalization, so the same source values can be normalized
+ * several times, eg. at several intervals, and from several threads at once.
+ */
 public abstract class DataNormalizer<T> {
 
     /**
@@ -27,11 +33,13 @@ public abstract class DataNormalizer<T> {
      * @param currentItem  Current item input kit value
      * @param nextItem     Next item input kit value
      * @param sourceValues Source values
+     * @param overlapState Overlap state of the source values
      */
     protected abstract void setValueItems(
             @NonNull IKValue<T> currentItem,
             @Nullable IKValue<T> nextItem,
-            @NonNull List<IKValue<T>> sourceValues);
+            @NonNull List<IKValue<T>> sourceValues,
+            @NonNull OverlapState overlapState);
 
     /**
      * Normalize input kit values time window.
@@ -46,51 +54,81 @@ public abstract class DataNormalizer<T> {
                                       @NonNull List<IKValue<T>> values,
                                       @NonNull TimeInterval interval) {
         // populate proper time windows
-        List<Pair<Long, Long>> timeWindows = populateTimeWindows(
+        long[] boundaries = populateTimeWindowBoundaries(
                 startTime,
                 endTime,
                 interval
         );
 
-        // make sure to sort input kit values ascending
-        CollectionUtils.sort(true, values);
-        List<IKValue<T>> ikValues = populateIKValues(timeWindows);
+        // make sure to sort input kit values ascending, without reordering the caller's list
+        List<IKValue<T>> sortedValues = new ArrayList<>(values);
+        CollectionUtils.sort(true, sortedValues);
+        List<IKValue<T>> ikValues = populateIKValues(boundaries);
 
         // setup input kit values
-        setupIKValues(ikValues, values);
+        setupIKValues(ikValues, sortedValues);
         return ikValues;
     }
 
     /**
      * Populate proper time period for input kit values.
      *
-     * @param timeWindows   Time windows
+     * @param boundaries    Time window boundaries
      * @return Input kit values with proper time period
      */
     @NonNull
-    private List<IKValue<T>> populateIKValues(@NonNull List<Pair<Long, Long>> timeWindows) {
-        List<IKValue<T>> results = new ArrayList<>();
-        for (Pair<Long, Long> normalizedTimeWindow : timeWindows) {
+    private List<IKValue<T>> populateIKValues(@NonNull long[] boundaries) {
+        List<IKValue<T>> results = new ArrayList<>(boundaries.length - 1);
+        for (int i = 0; i < boundaries.length - 1; i++) {
             results.add(new IKValue<T>(
-                    new DateContent(normalizedTimeWindow.first),
-                    new DateContent(normalizedTimeWindow.second))
+                    new DateContent(boundaries[i]),
+                    new DateContent(boundaries[i + 1]))
             );
         }
         return results;
     }
 
     /**
-     * Setup input kit values according to source values
+     * Setup input kit values according to source values.
+     * Both time windows and source values are sorted ascending, so instead of scanning the whole
+     * source values for every time window we sweep them once with two cursors :
+     *  - `fromIndex` skips source values that end before current time window. Those values would
+     *    never be counted for current nor any following time windows.
+     *  - `toIndex` stops at the first source value that starts at or after the end of current
+     *    time window. Those values are never counted into current item, they would only stop
+     *    the scan.
+     * Every time window therefore only sees source values which are relevant for it, and the
+     * result stays exactly the same with scanning the whole source values.
+     *
      * @param ikValues      Input kit values within proper time period
-     * @param sourceValues  Source values
+     * @param sourceValues  Source values, sorted ascending by start time
      */
     private void setupIKValues(@NonNull List<IKValue<T>> ikValues,
                                @NonNull List<IKValue<T>> sourceValues) {
+        int fromIndex = 0;
+        int toIndex = 0;
+        int sourceSize = sourceValues.size();
+        OverlapState overlapState = new OverlapState(sourceSize);
         for (int i = 0; i < ikValues.size(); i++) {
             IKValue<T> currentItem = ikValues.get(i);
             IKValue<T> nextItem = i == ikValues.size() - 1
                     ? null : ikValues.get(i + 1);
-            setValueItems(currentItem, nextItem, sourceValues);
+
+            long currentStart = currentItem.getStartDate().getEpoch();
+            long currentEnd = currentItem.getEndDate().getEpoch();
+            while (fromIndex < sourceSize
+                    && sourceValues.get(fromIndex).getEndDate().getEpoch() < currentStart) {
+                fromIndex++;
+            }
+            if (toIndex < fromIndex) toIndex = fromIndex;
+            while (toIndex < sourceSize
+                    && sourceValues.get(toIndex).getStartDate().getEpoch() < currentEnd) {
+                toIndex++;
+            }
+
+            overlapState.offset = fromIndex;
+            setValueItems(currentItem, nextItem, sourceValues.subList(fromIndex, toIndex),
+                    overlapState);
         }
     }
 
@@ -104,12 +142,10 @@ public abstract class DataNormalizer<T> {
     private TimePeriod getPairTimePeriod(
             @NonNull IKValue<?> currentItem,
             @Nullable IKValue<?> nextItem) {
-        Pair<Long, Long> currentTimePeriod = Pair.create(currentItem.getStartDate().getEpoch(),
-                currentItem.getEndDate().getEpoch());
-        Pair<Long, Long> nextTimePeriod = nextItem == null
-                ? null
-                : Pair.create(nextItem.getStartDate().getEpoch(), nextItem.getEndDate().getEpoch());
-        return new TimePeriod(currentTimePeriod, nextTimePeriod);
+        return new TimePeriod(currentItem.getStartDate().getEpoch(),
+                currentItem.getEndDate().getEpoch(),
+                nextItem != null,
+                nextItem == null ? 0 : nextItem.getEndDate().getEpoch());
     }
 
     /**
@@ -118,17 +154,18 @@ public abstract class DataNormalizer<T> {
      * @param currentItem  Current item input kit value
      * @param nextItem     Next item input kit value
      * @param sourceValues Source values
+     * @param overlapState Overlap state of the source values
      */
     protected void setAsFloat(
             @NonNull IKValue<Float> currentItem,
             @Nullable IKValue<Float> nextItem,
-            @NonNull List<IKValue<Float>> sourceValues) {
+            @NonNull List<IKValue<Float>> sourceValues,
+            @NonNull OverlapState overlapState) {
         TimePeriod timePeriod = getPairTimePeriod(currentItem, nextItem);
 
         // Get pair of overlap values.
         // First item will be added to current item, second value will be added to the next value.
-        ValueItems valueItems = getValuePair(timePeriod.currentPeriod,
-                timePeriod.nexTimePeriod, sourceValues);
+        ValueItems valueItems = getValuePair(timePeriod, sourceValues, overlapState);
 
         // Setup current value.
         Float value = currentItem.getValue();
@@ -149,17 +186,18 @@ public abstract class DataNormalizer<T> {
      * @param currentItem  Current item input kit value
      * @param nextItem     Next item input kit value
      * @param sourceValues Source values
+     * @param overlapState Overlap state of the source values
      */
     protected void setAsInt(
             @NonNull IKValue<Integer> currentItem,
             @Nullable IKValue<Integer> nextItem,
-            @NonNull List<IKValue<Integer>> sourceValues) {
+            @NonNull List<IKValue<Integer>> sourceValues,
+            @NonNull OverlapState overlapState) {
         TimePeriod timePeriod = getPairTimePeriod(currentItem, nextItem);
 
         // Get pair of overlap values.
         // First item will be added to current item, second value will be added to the next value.
-        ValueItems valueItems = getValuePair(timePeriod.currentPeriod,
-                timePeriod.nexTimePeriod, sourceValues);
+        ValueItems valueItems = getValuePair(timePeriod, sourceValues, overlapState);
 
         // Setup current value.
         Integer value = currentItem.getValue();
@@ -177,9 +215,10 @@ public abstract class DataNormalizer<T> {
     /**
      * Get value for current and next value item according to source values.
      *
-     * @param currentTimePeriod  Current time period input kit value
-     * @param nextTimePeriod     Next time period of input kit value
+     * @param timePeriod   Time period of current and the next input kit value
      * @param sourceValues Source values
+     * @param overlapState Overlap state of the source values, source values which are
+     *                     distributed into the next item are marked there.
      * @return Pair of total value source.
      *          - First value is a total of source values if it's completely inside time period
      *              of current item.
@@ -187,34 +226,38 @@ public abstract class DataNormalizer<T> {
      *              time period as well.
      */
     private <X extends Number> ValueItems getValuePair(
-            @NonNull Pair<Long, Long> currentTimePeriod,
-            @Nullable Pair<Long, Long> nextTimePeriod,
-            @NonNull List<IKValue<X>> sourceValues) {
+            @NonNull TimePeriod timePeriod,
+            @NonNull List<IKValue<X>> sourceValues,
+            @NonNull OverlapState overlapState) {
         Number totalValue = 0, nextValue = 0, actualValue = 0;
-        for (IKValue<X> value : sourceValues) {
-            Pair<Long, Long> valueTimePeriod = Pair.create(value.getStartDate().getEpoch(),
-                    value.getEndDate().getEpoch());
+        for (int i = 0; i < sourceValues.size(); i++) {
+            IKValue<X> value = sourceValues.get(i);
+            long valueStart = value.getStartDate().getEpoch();
+            long valueEnd = value.getEndDate().getEpoch();
 
             // Stop counting if value time period exceed end time of the next item time period.
-            if (nextTimePeriod != null && valueTimePeriod.second > nextTimePeriod.second) {
+            if (timePeriod.hasNext && valueEnd > timePeriod.nextEnd) {
                 break;
             }
 
             // Sum up current total value with source value when it still completely within time period.
-            if (isWithinTimeWindow(valueTimePeriod.first, valueTimePeriod.second, currentTimePeriod)) {
+            if (isWithinTimeWindow(valueStart, valueEnd,
+                    timePeriod.currentStart, timePeriod.currentEnd)) {
                 totalValue  = sumValues(totalValue,  value.getValue());
                 actualValue = sumValues(actualValue, value.getValue());
                 continue;
             }
 
             // Distribute value source to current and the next item when it's overlap.
-            if (isOverlappingTimeWindow(valueTimePeriod.first, valueTimePeriod.second, currentTimePeriod)
-                    && !value.isFlaggedOverlap()) {
-                Pair<Float, Float> overlappingValuePair = getOverlappingValuePair(currentTimePeriod, value);
-                totalValue  = sumValues(totalValue,  overlappingValuePair.first);
+            if (isOverlappingTimeWindow(valueStart, valueEnd,
+                    timePeriod.currentStart, timePeriod.currentEnd)
+                    && !overlapState.isOverlapped(i)) {
+                ValueDistribution distribution = getOverlappingValuePair(
+                        timePeriod.currentStart, timePeriod.currentEnd, value);
+                totalValue  = sumValues(totalValue,  distribution.current);
                 actualValue = sumValues(actualValue, value.getValue());
-                nextValue   = overlappingValuePair.second;
-                value.setFlagOverlap(true);
+                nextValue   = distribution.next;
+                overlapState.setOverlapped(i);
                 break;
             }
         }
@@ -224,20 +267,22 @@ public abstract class DataNormalizer<T> {
     /**
      * Distribute value among current and the next item when source value item overlap those.
      *
-     * @param currentTimePeriod  Current time period of input kit value
+     * @param currentStart Start time of current input kit value
+     * @param currentEnd   End time of current input kit value
      * @param sourceValue  Source value item
-     * @return Pair of overlapping value.
-     *          First value is a total value for current item.
-     *          Second value is an overlap value for the next item.
+     * @return Distribution of overlapping value.
+     *          Current value is a total value for current item.
+     *          Next value is an overlap value for the next item.
      */
-    private <X extends Number> Pair<Float, Float> getOverlappingValuePair(
-            @NonNull Pair<Long, Long> currentTimePeriod,
+    private <X extends Number> ValueDistribution getOverlappingValuePair(
+            long currentStart,
+            long currentEnd,
             @NonNull IKValue<X> sourceValue) {
         // Get specific source value overlapping item information
-        Pair<Long, Long> sourceTimePeriod = Pair.create(sourceValue.getStartDate().getEpoch(),
-                sourceValue.getEndDate().getEpoch());
-        boolean isStartWithinTimePeriod = isWithinTimeWindow(sourceTimePeriod.first, currentTimePeriod);
-        boolean isEndWithinTimePeriod = isWithinTimeWindow(sourceTimePeriod.second, currentTimePeriod);
+        long sourceStart = sourceValue.getStartDate().getEpoch();
+        long sourceEnd = sourceValue.getEndDate().getEpoch();
+        boolean isStartWithinTimePeriod = isWithinTimeWindow(sourceStart, currentStart, currentEnd);
+        boolean isEndWithinTimePeriod = isWithinTimeWindow(sourceEnd, currentStart, currentEnd);
 
         // It means : Source value end time exceed an end time of current time period
         // In this case, we distribute `right`-extra-value to the next input kit item
@@ -246,8 +291,8 @@ public abstract class DataNormalizer<T> {
         //  - current time period : 08.00 - 08.10
         //  - source time period  : 08.00 - 08.11
         if (isStartWithinTimePeriod && !isEndWithinTimePeriod
-                && sourceTimePeriod.second >= currentTimePeriod.second) {
-            return getValuePair(sourceValue, currentTimePeriod.second, sourceTimePeriod);
+                && sourceEnd >= currentEnd) {
+            return getValuePair(sourceValue, currentEnd, sourceStart, sourceEnd);
         }
 
         // It means : Source value `start-time` was below of `start-time` of the current time period
@@ -257,11 +302,11 @@ public abstract class DataNormalizer<T> {
         // eg.
         //  - current time period : 08.00 - 08.10
         //  - source time period  : 07.58 - 08.08
-        if (!isStartWithinTimePeriod && sourceTimePeriod.first < currentTimePeriod.first
+        if (!isStartWithinTimePeriod && sourceStart < currentStart
                 && isEndWithinTimePeriod) {
-            Pair<Float, Float> valuePair = getValuePair(sourceValue,
-                    currentTimePeriod.first, sourceTimePeriod);
-            return Pair.create(valuePair.second, 0f);
+            ValueDistribution distribution = getValuePair(sourceValue,
+                    currentStart, sourceStart, sourceEnd);
+            return new ValueDistribution(distribution.next, 0f);
         }
 
         // It means : Time period was completely within source value `time-window`. In this case,
@@ -271,36 +316,38 @@ public abstract class DataNormalizer<T> {
         // eg.
         //  - current time period : 08.00 - 08.10
         //  - source time period  : 07.58 - 08.18
-        if (!isStartWithinTimePeriod && sourceTimePeriod.first < currentTimePeriod.first
-                && !isEndWithinTimePeriod && sourceTimePeriod.second >= currentTimePeriod.second) {
+        if (!isStartWithinTimePeriod && sourceStart < currentStart
+                && !isEndWithinTimePeriod && sourceEnd >= currentEnd) {
             float srcAvgPerMinute = averageValuePerMinute(sourceValue);
-            long timePeriodMinDiff = getMinuteDiff(currentTimePeriod.second, currentTimePeriod.first);
-            return Pair.create(srcAvgPerMinute * timePeriodMinDiff, 0f);
+            long timePeriodMinDiff = getMinuteDiff(currentEnd, currentStart);
+            return new ValueDistribution(srcAvgPerMinute * timePeriodMinDiff, 0f);
         }
 
-        return Pair.create(0f, 0f);
+        return new ValueDistribution(0f, 0f);
     }
 
     /**
      * Get left-right step count value distribution per minute.
      * @param sourceValue       Source value
      * @param anchorTime        Anchor time
-     * @param sourceTimePeriod  Source time period
-     * @return Pair of left and right overlap value.
+     * @param sourceStart       Start time of source value
+     * @param sourceEnd         End time of source value
+     * @return Distribution of left and right overlap value.
      */
-    private <X extends Number> Pair<Float, Float> getValuePair(
+    private <X extends Number> ValueDistribution getValuePair(
             @NonNull IKValue<X> sourceValue,
             long anchorTime,
-            @NonNull Pair<Long, Long> sourceTimePeriod) {
+            long sourceStart,
+            long sourceEnd) {
         float srcAvgPerMinute = averageValuePerMinute(sourceValue);
-        long leftMinDiff = getMinuteDiff(sourceTimePeriod.first, anchorTime);
-        long rightMinDiff = getMinuteDiff(anchorTime, sourceTimePeriod.second);
+        long leftMinDiff = getMinuteDiff(sourceStart, anchorTime);
+        long rightMinDiff = getMinuteDiff(anchorTime, sourceEnd);
         if (leftMinDiff == 0 && rightMinDiff == 0) {
             // In this case, source time period overlap anchor time within milliseconds.
             // Then distribute average value into current item of input kit value.
-            return Pair.create(srcAvgPerMinute, 0f);
+            return new ValueDistribution(srcAvgPerMinute, 0f);
         }
-        return Pair.create(srcAvgPerMinute * leftMinDiff, srcAvgPerMinute * rightMinDiff);
+        return new ValueDistribution(srcAvgPerMinute * leftMinDiff, srcAvgPerMinute * rightMinDiff);
     }
 
     /**
@@ -366,6 +413,27 @@ public abstract class DataNormalizer<T> {
         return 1f;
     }
 
+    /**
+     * Source values of a single normalization which have already been distributed into
+     * the next item. Indexes are relative to the source values of the current item.
+     */
+    protected static class OverlapState {
+        private final boolean[] overlapped;
+        private int offset;
+
+        OverlapState(int size) {
+            this.overlapped = new boolean[size];
+        }
+
+        boolean isOverlapped(int index) {
+            return overlapped[offset + index];
+        }
+
+        void setOverlapped(int index) {
+            overlapped[offset + index] = true;
+        }
+    }
+
     class ValueItems {
         private Number current;
         private Number next;
@@ -388,12 +456,26 @@ public abstract class DataNormalizer<T> {
     }
 
     class TimePeriod {
-        private Pair<Long, Long> currentPeriod;
-        private Pair<Long, Long> nexTimePeriod;
+        private long currentStart;
+        private long currentEnd;
+        private boolean hasNext;
+        private long nextEnd;
+
+        TimePeriod(long currentStart, long currentEnd, boolean hasNext, long nextEnd) {
+            this.currentStart = currentStart;
+            this.currentEnd = currentEnd;
+            this.hasNext = hasNext;
+            this.nextEnd = nextEnd;
+        }
+    }
+
+    class ValueDistribution {
+        private float current;
+        private float next;
 
-        TimePeriod(Pair<Long, Long> currentPeriod, Pair<Long, Long> nexTimePeriod) {
-            this.currentPeriod = currentPeriod;
-            this.nexTimePeriod = nexTimePeriod;
+        ValueDistribution(float current, float next) {
+            this.current = current;
+            this.next = next;
         }
     }
 }
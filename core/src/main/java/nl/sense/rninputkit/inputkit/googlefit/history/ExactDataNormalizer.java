@@ -0,0 +1,229 @@
+package nl.sense.rninputkit.inputkit.googlefit.history;
+
+import androidx.annotation.NonNull;
+
+import java.util.Arrays;
+import java.util.TimeZone;
+
+import nl.sense.rninputkit.inputkit.entity.FloatTimeSeries;
+import nl.sense.rninputkit.inputkit.entity.IntTimeSeries;
+import nl.sense.rninputkit.inputkit.entity.TimeInterval;
+
+import static nl.sense.rninputkit.inputkit.helper.InputKitTimeUtils.populateTimeWindowBoundaries;
+
+/**
+ * Millisecond precision variant of {@link IntDataNormalizer} and {@link FloatDataNormalizer}.
+ * Source values are distributed across every time window they overlap, proportional to
+ * the milliseconds of the overlap, instead of whole minutes of the current and next time window.
+ * <p>
+ * Shares are taken from the cumulative value at both ends of the overlap, so the shares of
+ * a source value always add up to the source value itself. Integer values are distributed in
+ * fixed point, ie. `round(value * elapsed / duration)`, so no rounding offset needs to be
+ * carried into the next time window. Source values don't need to be sorted either.
+ * Parts of source values outside of the requested time range are left out, and source values
+ * without duration belong to the time window of their start time.
+ */
+public class ExactDataNormalizer {
+
+    /**
+     * Normalize integer time series time window.
+     *
+     * @param startTime Start time
+     * @param endTime   End time
+     * @param values    Source time series
+     * @param interval  {@link TimeInterval}
+     * @return Time series within proper time windows.
+     */
+    @NonNull
+    public IntTimeSeries normalize(long startTime,
+                                   long endTime,
+                                   @NonNull IntTimeSeries values,
+                                   @NonNull TimeInterval interval) {
+        return normalize(startTime, endTime, values.getStartTimes(), values.getEndTimes(),
+                values.getValues(), values.size(), interval, TimeZone.getDefault());
+    }
+
+    /**
+     * Normalize integer source values time window within specific {@link TimeZone}.
+     *
+     * @param startTime  Start time
+     * @param endTime    End time
+     * @param startTimes Start time of source values
+     * @param endTimes   End time of source values
+     * @param values     Source values
+     * @param size       Number of source values
+     * @param interval   {@link TimeInterval}
+     * @param timeZone   {@link TimeZone} of day based time windows
+     * @return Time series within proper time windows.
+     */
+    @NonNull
+    public IntTimeSeries normalize(long startTime,
+                                   long endTime,
+                                   @NonNull long[] startTimes,
+                                   @NonNull long[] endTimes,
+                                   @NonNull int[] values,
+                                   int size,
+                                   @NonNull TimeInterval interval,
+                                   @NonNull TimeZone timeZone) {
+        long[] boundaries = populateTimeWindowBoundaries(startTime, endTime, interval, timeZone);
+        int windowSize = boundaries.length - 1;
+        int[] results = new int[windowSize];
+        int window = 0;
+        for (int i = 0; i < size; i++) {
+            window = getTimeWindow(boundaries, startTimes[i], window);
+            long duration = endTimes[i] - startTimes[i];
+            if (duration <= 0) {
+                if (isWithinRange(boundaries, startTimes[i])) results[window] += values[i];
+                continue;
+            }
+
+            // Source value within a single time window doesn't need to be split
+            if (window < windowSize && startTimes[i] >= boundaries[window]
+                    && endTimes[i] <= boundaries[window + 1]) {
+                results[window] += values[i];
+                continue;
+            }
+
+            // Fixed point share of every overlapped time window
+            long value = values[i];
+            for (int j = window; j < windowSize && boundaries[j] < endTimes[i]; j++) {
+                long from = Math.max(startTimes[i], boundaries[j]) - startTimes[i];
+                long to = Math.min(endTimes[i], boundaries[j + 1]) - startTimes[i];
+                if (to <= from) continue;
+                results[j] += (int) (round(value * to, duration) - round(value * from, duration));
+            }
+        }
+
+        return new IntTimeSeries(
+                Arrays.copyOf(boundaries, windowSize),
+                Arrays.copyOfRange(boundaries, 1, windowSize + 1),
+                results,
+                windowSize
+        );
+    }
+
+    /**
+     * Normalize float time series time window.
+     *
+     * @param startTime Start time
+     * @param endTime   End time
+     * @param values    Source time series
+     * @param interval  {@link TimeInterval}
+     * @return Time series within proper time windows.
+     */
+    @NonNull
+    public FloatTimeSeries normalize(long startTime,
+                                     long endTime,
+                                     @NonNull FloatTimeSeries values,
+                                     @NonNull TimeInterval interval) {
+        return normalize(startTime, endTime, values.getStartTimes(), values.getEndTimes(),
+                values.getValues(), values.size(), interval, TimeZone.getDefault());
+    }
+
+    /**
+     * Normalize float source values time window within specific {@link TimeZone}.
+     * Shares are accumulated in double precision and only narrowed into float per time window.
+     *
+     * @param startTime  Start time
+     * @param endTime    End time
+     * @param startTimes Start time of source values
+     * @param endTimes   End time of source values
+     * @param values     Source values
+     * @param size       Number of source values
+     * @param interval   {@link TimeInterval}
+     * @param timeZone   {@link TimeZone} of day based time windows
+     * @return Time series within proper time windows.
+     */
+    @NonNull
+    public FloatTimeSeries normalize(long startTime,
+                                     long endTime,
+                                     @NonNull long[] startTimes,
+                                     @NonNull long[] endTimes,
+                                     @NonNull float[] values,
+                                     int size,
+                                     @NonNull TimeInterval interval,
+                                     @NonNull TimeZone timeZone) {
+        long[] boundaries = populateTimeWindowBoundaries(startTime, endTime, interval, timeZone);
+        int windowSize = boundaries.length - 1;
+        double[] totals = new double[windowSize];
+        int window = 0;
+        for (int i = 0; i < size; i++) {
+            window = getTimeWindow(boundaries, startTimes[i], window);
+            long duration = endTimes[i] - startTimes[i];
+            if (duration <= 0) {
+                if (isWithinRange(boundaries, startTimes[i])) totals[window] += values[i];
+                continue;
+            }
+
+            if (window < windowSize && startTimes[i] >= boundaries[window]
+                    && endTimes[i] <= boundaries[window + 1]) {
+                totals[window] += values[i];
+                continue;
+            }
+
+            double value = values[i];
+            for (int j = window; j < windowSize && boundaries[j] < endTimes[i]; j++) {
+                long from = Math.max(startTimes[i], boundaries[j]) - startTimes[i];
+                long to = Math.min(endTimes[i], boundaries[j + 1]) - startTimes[i];
+                if (to <= from) continue;
+                totals[j] += value * to / duration - value * from / duration;
+            }
+        }
+
+        float[] results = new float[windowSize];
+        for (int i = 0; i < windowSize; i++) {
+            results[i] = (float) totals[i];
+        }
+        return new FloatTimeSeries(
+                Arrays.copyOf(boundaries, windowSize),
+                Arrays.copyOfRange(boundaries, 1, windowSize + 1),
+                results,
+                windowSize
+        );
+    }
+
+    /**
+     * Find the first time window which may hold a part of a source value.
+     * Sorted source values only move the cursor forward, otherwise it's searched from scratch.
+     *
+     * @param boundaries Time window boundaries
+     * @param time       Start time of source value
+     * @param cursor     Time window of the previous source value
+     * @return Time window of the given time, 0 if it's before the first time window, or
+     *         the last time window if it's after the last one.
+     */
+    private static int getTimeWindow(@NonNull long[] boundaries, long time, int cursor) {
+        int last = boundaries.length - 2;
+        if (last < 0 || time < boundaries[0]) return 0;
+        if (time >= boundaries[last + 1]) return last;
+        if (time < boundaries[cursor]) {
+            int index = Arrays.binarySearch(boundaries, time);
+            return index >= 0 ? index : -index - 2;
+        }
+        while (time >= boundaries[cursor + 1]) cursor++;
+        return cursor;
+    }
+
+    private static boolean isWithinRange(@NonNull long[] boundaries, long time) {
+        return boundaries.length > 1
+                && time >= boundaries[0]
+                && time < boundaries[boundaries.length - 1];
+    }
+
+    /**
+     * Round half up a fixed point fraction.
+     *
+     * @param dividend Scaled value, ie. value multiplied by elapsed time
+     * @param divisor  Duration of source value
+     * @return Rounded quotient
+     */
+    private static long round(long dividend, long divisor) {
+        long quotient = dividend / divisor;
+        long remainder = dividend % divisor;
+        if (remainder < 0) {
+            quotient--;
+            remainder += divisor;
+        }
+        return remainder * 2 >= divisor ? quotient + 1 : quotient;
+    }
+}
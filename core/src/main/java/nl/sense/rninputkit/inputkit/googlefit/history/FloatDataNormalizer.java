@@ -0,0 +1,187 @@
+package nl.sense.rninputkit.inputkit.googlefit.history;
+
+import androidx.annotation.NonNull;
+
+import java.util.Arrays;
+import java.util.TimeZone;
+
+import nl.sense.rninputkit.inputkit.entity.FloatTimeSeries;
+import nl.sense.rninputkit.inputkit.entity.TimeInterval;
+
+import static nl.sense.rninputkit.inputkit.helper.InputKitTimeUtils.isOverlappingTimeWindow;
+import static nl.sense.rninputkit.inputkit.helper.InputKitTimeUtils.isWithinTimeWindow;
+import static nl.sense.rninputkit.inputkit.helper.InputKitTimeUtils.populateTimeWindowBoundaries;
+
+/**
+ * Float variant of {@link DataNormalizer}. It gives the same result with
+ * {@link DataNormalizer#setAsFloat}, but source values are accumulated as primitives.
+ */
+public class FloatDataNormalizer extends PrimitiveDataNormalizer {
+
+    /**
+     * Normalize time series time window.
+     *
+     * @param startTime Start time
+     * @param endTime   End time
+     * @param values    Source time series
+     * @param interval  {@link TimeInterval}
+     * @return Time series within proper time windows.
+     */
+    @NonNull
+    public FloatTimeSeries normalize(long startTime,
+                                     long endTime,
+                                     @NonNull FloatTimeSeries values,
+                                     @NonNull TimeInterval interval) {
+        return normalize(startTime, endTime, values.getStartTimes(), values.getEndTimes(),
+                values.getValues(), values.size(), interval);
+    }
+
+    /**
+     * Normalize source values time window.
+     *
+     * @param startTime  Start time
+     * @param endTime    End time
+     * @param startTimes Start time of source values
+     * @param endTimes   End time of source values
+     * @param values     Source values
+     * @param size       Number of source values
+     * @param interval   {@link TimeInterval}
+     * @return Time series within proper time windows.
+     */
+    @NonNull
+    public FloatTimeSeries normalize(long startTime,
+                                     long endTime,
+                                     @NonNull long[] startTimes,
+                                     @NonNull long[] endTimes,
+                                     @NonNull float[] values,
+                                     int size,
+                                     @NonNull TimeInterval interval) {
+        return normalize(startTime, endTime, startTimes, endTimes, values, size, interval,
+                TimeZone.getDefault());
+    }
+
+    /**
+     * Normalize source values time window within specific {@link TimeZone}.
+     *
+     * @param startTime  Start time
+     * @param endTime    End time
+     * @param startTimes Start time of source values
+     * @param endTimes   End time of source values
+     * @param values     Source values
+     * @param size       Number of source values
+     * @param interval   {@link TimeInterval}
+     * @param timeZone   {@link TimeZone} of day based time windows
+     * @return Time series within proper time windows.
+     */
+    @NonNull
+    public FloatTimeSeries normalize(long startTime,
+                                     long endTime,
+                                     @NonNull long[] startTimes,
+                                     @NonNull long[] endTimes,
+                                     @NonNull float[] values,
+                                     int size,
+                                     @NonNull TimeInterval interval,
+                                     @NonNull TimeZone timeZone) {
+        long[] boundaries = populateTimeWindowBoundaries(startTime, endTime, interval, timeZone);
+
+        // make sure to sort source values ascending
+        int[] order = getSortedOrder(startTimes, size);
+        if (order != null) {
+            startTimes = reorder(startTimes, order);
+            endTimes = reorder(endTimes, order);
+            values = reorder(values, order);
+        }
+
+        int windowSize = boundaries.length - 1;
+        return new FloatTimeSeries(
+                Arrays.copyOf(boundaries, windowSize),
+                Arrays.copyOfRange(boundaries, 1, windowSize + 1),
+                normalize(boundaries, startTimes, endTimes, values, size),
+                windowSize
+        );
+    }
+
+    /**
+     * Distribute sorted source values into time windows.
+     *
+     * @param boundaries Time window boundaries
+     * @param startTimes Start time of source values, sorted ascending
+     * @param endTimes   End time of source values
+     * @param values     Source values
+     * @param size       Number of source values
+     * @return Value of each time window
+     */
+    @NonNull
+    private float[] normalize(@NonNull long[] boundaries,
+                              @NonNull long[] startTimes,
+                              @NonNull long[] endTimes,
+                              @NonNull float[] values,
+                              int size) {
+        int windowSize = boundaries.length - 1;
+        float[] results = new float[windowSize];
+        boolean[] overlapped = new boolean[size];
+        int fromIndex = 0;
+        int toIndex = 0;
+        for (int i = 0; i < windowSize; i++) {
+            long windowStart = boundaries[i];
+            long windowEnd = boundaries[i + 1];
+            boolean hasNext = i < windowSize - 1;
+            long nextWindowEnd = hasNext ? boundaries[i + 2] : 0;
+
+            // See DataNormalizer#setupIKValues for these cursors
+            while (fromIndex < size && endTimes[fromIndex] < windowStart) fromIndex++;
+            if (toIndex < fromIndex) toIndex = fromIndex;
+            while (toIndex < size && startTimes[toIndex] < windowEnd) toIndex++;
+
+            float total = 0f, actual = 0f, next = 0f;
+            for (int j = fromIndex; j < toIndex; j++) {
+                // Stop counting if value time period exceed end time of the next item time period.
+                if (hasNext && endTimes[j] > nextWindowEnd) break;
+
+                // Sum up current total value when it still completely within time period.
+                if (isWithinTimeWindow(startTimes[j], windowStart, windowEnd)
+                        && isWithinTimeWindow(endTimes[j], windowStart, windowEnd)) {
+                    total += values[j];
+                    actual += values[j];
+                    continue;
+                }
+
+                // Distribute value source to current and the next item when it's overlap.
+                if (isOverlappingTimeWindow(startTimes[j], endTimes[j], windowStart, windowEnd)
+                        && !overlapped[j]) {
+                    float avgPerMinute = averageValuePerMinute(startTimes[j], endTimes[j], values[j]);
+                    total += getCurrentShare(windowStart, windowEnd,
+                            startTimes[j], endTimes[j], avgPerMinute);
+                    next = getNextShare(windowStart, windowEnd,
+                            startTimes[j], endTimes[j], avgPerMinute);
+                    actual += values[j];
+                    overlapped[j] = true;
+                    break;
+                }
+            }
+
+            results[i] = i == 0 ? total : results[i] + total;
+            if (hasNext) {
+                results[i] = results[i] + (actual - (total + next));
+                results[i + 1] = next;
+            }
+        }
+        return results;
+    }
+
+    /**
+     * Copy source values into sorted order.
+     *
+     * @param values Source values
+     * @param order  Sorted indexes
+     * @return Sorted values
+     */
+    @NonNull
+    private static float[] reorder(@NonNull float[] values, @NonNull int[] order) {
+        float[] sorted = new float[order.length];
+        for (int i = 0; i < order.length; i++) {
+            sorted[i] = values[order[i]];
+        }
+        return sorted;
+    }
+}
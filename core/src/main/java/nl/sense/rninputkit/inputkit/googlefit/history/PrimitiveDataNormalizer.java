@@ -0,0 +1,228 @@
+package nl.sense.rninputkit.inputkit.googlefit.history;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.util.Arrays;
+
+import static nl.sense.rninputkit.inputkit.helper.InputKitTimeUtils.getMinuteDiff;
+import static nl.sense.rninputkit.inputkit.helper.InputKitTimeUtils.isWithinTimeWindow;
+
+/**
+ * Shared helpers of {@link IntDataNormalizer} and {@link FloatDataNormalizer}.
+ * Both of them are working on parallel arrays of start time, end time and value instead of
+ * input kit values, so normalizing source values doesn't need to box any number. Distribution of
+ * overlapping source values follows exactly the same rules with {@link DataNormalizer}.
+ */
+public abstract class PrimitiveDataNormalizer {
+
+    /**
+     * Find time windows whose normalized value doesn't depend on the normalized range, so it's
+     * the same whether the time window is the first, the last or any other one of a query.
+     * A value which overlaps a time window boundary, or ends right at it, is split by the
+     * minute based rules together with its neighbours, which depends on where normalization
+     * started. Time windows are therefore stable when:
+     *  - every source value is a whole time window, eg. buckets of aggregated history, or
+     *  - no source value is split into or out of them, see {@link IntDataNormalizer}.
+     *
+     * @param boundaries Time window boundaries
+     * @param startTimes Start time of source values
+     * @param endTimes   End time of source values
+     * @param size       Number of source values
+     * @return Flag of every time window, true if its value is stable.
+     */
+    @NonNull
+    public static boolean[] getStableWindows(@NonNull long[] boundaries,
+                                             @NonNull long[] startTimes,
+                                             @NonNull long[] endTimes,
+                                             int size) {
+        int windowSize = Math.max(0, boundaries.length - 1);
+        boolean[] stable = new boolean[windowSize];
+        Arrays.fill(stable, true);
+        if (isWholeWindows(boundaries, startTimes, endTimes, size)) return stable;
+
+        for (int i = 0; i < size; i++) {
+            // Time windows which take the value into account, see IntDataNormalizer#normalize
+            int first = Arrays.binarySearch(boundaries, startTimes[i]);
+            first = first >= 0 ? first : Math.max(0, -first - 2);
+            int last = Arrays.binarySearch(boundaries, endTimes[i]);
+            last = last >= 0 ? last : -last - 2;
+            last = Math.min(last, windowSize - 1);
+            // Values which are completely within a single time window are simply summed up
+            if (first == last && startTimes[i] >= boundaries[first]
+                    && endTimes[i] < boundaries[first + 1]) continue;
+
+            for (int j = first; j <= last; j++) {
+                stable[j] = false;
+            }
+        }
+        return stable;
+    }
+
+    /**
+     * Check whether every source value is exactly one of the time windows.
+     */
+    private static boolean isWholeWindows(@NonNull long[] boundaries,
+                                          @NonNull long[] startTimes,
+                                          @NonNull long[] endTimes,
+                                          int size) {
+        for (int i = 0; i < size; i++) {
+            int window = Arrays.binarySearch(boundaries, startTimes[i]);
+            if (window < 0 || window >= boundaries.length - 1
+                    || boundaries[window + 1] != endTimes[i]) return false;
+        }
+        return true;
+    }
+
+    /**
+     * Get stable ascending order of source values by their start time.
+     *
+     * @param startTimes Start time of source values
+     * @param size       Number of source values
+     * @return Null when source values already sorted ascending, otherwise sorted indexes.
+     */
+    @Nullable
+    protected static int[] getSortedOrder(@NonNull long[] startTimes, int size) {
+        boolean isSorted = true;
+        for (int i = 1; i < size; i++) {
+            if (startTimes[i - 1] > startTimes[i]) {
+                isSorted = false;
+                break;
+            }
+        }
+        if (isSorted) return null;
+
+        int[] order = new int[size];
+        for (int i = 0; i < size; i++) {
+            order[i] = i;
+        }
+        mergeSort(startTimes, order, new int[size], 0, size);
+        return order;
+    }
+
+    /**
+     * Stable merge sort of indexes by start time, to keep the same order with
+     * {@link nl.sense.rninputkit.inputkit.helper.CollectionUtils#sort(boolean, java.util.List)}.
+     */
+    private static void mergeSort(long[] startTimes, int[] order, int[] buffer, int from, int to) {
+        if (to - from < 2) return;
+        int middle = (from + to) >>> 1;
+        mergeSort(startTimes, order, buffer, from, middle);
+        mergeSort(startTimes, order, buffer, middle, to);
+
+        int left = from;
+        int right = middle;
+        int index = from;
+        while (left < middle && right < to) {
+            buffer[index++] = startTimes[order[right]] < startTimes[order[left]]
+                    ? order[right++] : order[left++];
+        }
+        while (left < middle) buffer[index++] = order[left++];
+        while (right < to) buffer[index++] = order[right++];
+        System.arraycopy(buffer, from, order, from, to - from);
+    }
+
+    /**
+     * Copy source times into sorted order.
+     *
+     * @param times Start or end time of source values
+     * @param order Sorted indexes
+     * @return Sorted times
+     */
+    @NonNull
+    protected static long[] reorder(@NonNull long[] times, @NonNull int[] order) {
+        long[] sorted = new long[order.length];
+        for (int i = 0; i < order.length; i++) {
+            sorted[i] = times[order[i]];
+        }
+        return sorted;
+    }
+
+    /**
+     * Average value per minutes of a source value.
+     *
+     * @param startTime Start time of source value
+     * @param endTime   End time of source value
+     * @param value     Source value
+     * @return Average value per minute
+     */
+    protected static float averageValuePerMinute(long startTime, long endTime, float value) {
+        float minDiff = getMinuteDiff(endTime, startTime);
+        minDiff = minDiff == 0f ? 1f : minDiff;
+        return value / minDiff;
+    }
+
+    /**
+     * Get part of overlapping source value which belongs to current time window.
+     *
+     * @param windowStart     Start time of current time window
+     * @param windowEnd       End time of current time window
+     * @param startTime       Start time of source value
+     * @param endTime         End time of source value
+     * @param avgPerMinute    Average source value per minute
+     * @return Value for current time window
+     */
+    protected static float getCurrentShare(long windowStart,
+                                           long windowEnd,
+                                           long startTime,
+                                           long endTime,
+                                           float avgPerMinute) {
+        boolean isStartWithinTimePeriod = isWithinTimeWindow(startTime, windowStart, windowEnd);
+        boolean isEndWithinTimePeriod = isWithinTimeWindow(endTime, windowStart, windowEnd);
+
+        // Source value exceeds end time of current time window, eg.
+        //  - current time period : 08.00 - 08.10
+        //  - source time period  : 08.00 - 08.11
+        if (isStartWithinTimePeriod && !isEndWithinTimePeriod && endTime >= windowEnd) {
+            long leftMinDiff = getMinuteDiff(startTime, windowEnd);
+            long rightMinDiff = getMinuteDiff(windowEnd, endTime);
+            if (leftMinDiff == 0 && rightMinDiff == 0) return avgPerMinute;
+            return avgPerMinute * leftMinDiff;
+        }
+
+        // Source value starts before current time window, eg.
+        //  - current time period : 08.00 - 08.10
+        //  - source time period  : 07.58 - 08.08
+        if (!isStartWithinTimePeriod && startTime < windowStart && isEndWithinTimePeriod) {
+            long leftMinDiff = getMinuteDiff(startTime, windowStart);
+            long rightMinDiff = getMinuteDiff(windowStart, endTime);
+            if (leftMinDiff == 0 && rightMinDiff == 0) return 0f;
+            return avgPerMinute * rightMinDiff;
+        }
+
+        // Current time window is completely within source value, eg.
+        //  - current time period : 08.00 - 08.10
+        //  - source time period  : 07.58 - 08.18
+        if (!isStartWithinTimePeriod && startTime < windowStart
+                && !isEndWithinTimePeriod && endTime >= windowEnd) {
+            return avgPerMinute * getMinuteDiff(windowEnd, windowStart);
+        }
+        return 0f;
+    }
+
+    /**
+     * Get part of overlapping source value which belongs to the next time window.
+     *
+     * @param windowStart     Start time of current time window
+     * @param windowEnd       End time of current time window
+     * @param startTime       Start time of source value
+     * @param endTime         End time of source value
+     * @param avgPerMinute    Average source value per minute
+     * @return Value for the next time window
+     */
+    protected static float getNextShare(long windowStart,
+                                        long windowEnd,
+                                        long startTime,
+                                        long endTime,
+                                        float avgPerMinute) {
+        if (isWithinTimeWindow(startTime, windowStart, windowEnd)
+                && !isWithinTimeWindow(endTime, windowStart, windowEnd)
+                && endTime >= windowEnd) {
+            long leftMinDiff = getMinuteDiff(startTime, windowEnd);
+            long rightMinDiff = getMinuteDiff(windowEnd, endTime);
+            if (leftMinDiff == 0 && rightMinDiff == 0) return 0f;
+            return avgPerMinute * rightMinDiff;
+        }
+        return 0f;
+    }
+}
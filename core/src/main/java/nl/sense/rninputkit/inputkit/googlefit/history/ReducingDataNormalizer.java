@@ -0,0 +1,109 @@
+package nl.sense.rninputkit.inputkit.googlefit.history;
+
+import androidx.annotation.NonNull;
+
+import java.util.Arrays;
+import java.util.TimeZone;
+
+import nl.sense.rninputkit.inputkit.entity.FloatTimeSeries;
+import nl.sense.rninputkit.inputkit.entity.TimeInterval;
+
+import static nl.sense.rninputkit.inputkit.helper.InputKitTimeUtils.populateTimeWindowBoundaries;
+
+/**
+ * Normalizer which reduces source values into time windows by a pluggable {@link BucketReducer}.
+ * Proportional reducers are distributed by {@link FloatDataNormalizer}. Every other reducer
+ * assigns source values to the time window of their start time within a single sweep, without
+ * sorting source values nor splitting them by minutes.
+ * A reducer with more than one value per time window, eg. a histogram, results in consecutive
+ * samples of the same time window, one for every value.
+ */
+public class ReducingDataNormalizer {
+    private FloatDataNormalizer proportionalNormalizer = new FloatDataNormalizer();
+
+    /**
+     * Normalize time series time window.
+     *
+     * @param startTime Start time
+     * @param endTime   End time
+     * @param values    Source time series
+     * @param interval  {@link TimeInterval}
+     * @param reducer   {@link BucketReducer} of time windows
+     * @return Time series within proper time windows.
+     */
+    @NonNull
+    public FloatTimeSeries normalize(long startTime,
+                                     long endTime,
+                                     @NonNull FloatTimeSeries values,
+                                     @NonNull TimeInterval interval,
+                                     @NonNull BucketReducer reducer) {
+        return normalize(startTime, endTime, values, interval, reducer, TimeZone.getDefault());
+    }
+
+    /**
+     * Normalize time series time window within specific {@link TimeZone}.
+     *
+     * @param startTime Start time
+     * @param endTime   End time
+     * @param values    Source time series
+     * @param interval  {@link TimeInterval}
+     * @param reducer   {@link BucketReducer} of time windows
+     * @param timeZone  {@link TimeZone} of day based time windows
+     * @return Time series within proper time windows.
+     */
+    @NonNull
+    public FloatTimeSeries normalize(long startTime,
+                                     long endTime,
+                                     @NonNull FloatTimeSeries values,
+                                     @NonNull TimeInterval interval,
+                                     @NonNull BucketReducer reducer,
+                                     @NonNull TimeZone timeZone) {
+        if (reducer.isProportional()) {
+            return proportionalNormalizer.normalize(startTime, endTime, values.getStartTimes(),
+                    values.getEndTimes(), values.getValues(), values.size(), interval, timeZone);
+        }
+
+        long[] boundaries = populateTimeWindowBoundaries(startTime, endTime, interval, timeZone);
+        int windowSize = Math.max(0, boundaries.length - 1);
+        int width = reducer.getWidth();
+        float[] results = new float[windowSize * width];
+        int[] counts = new int[windowSize];
+        // End time of the source value which is currently the latest one of a time window
+        long[] lastEndTimes = new long[windowSize];
+
+        long[] startTimes = values.getStartTimes();
+        long[] endTimes = values.getEndTimes();
+        float[] sourceValues = values.getValues();
+        int window = 0;
+        for (int i = 0; i < values.size(); i++) {
+            long time = startTimes[i];
+            if (windowSize == 0 || time < boundaries[0] || time >= boundaries[windowSize]) {
+                continue;
+            }
+
+            if (time < boundaries[window]) {
+                // Source values are not sorted, look up the time window from scratch
+                int index = Arrays.binarySearch(boundaries, time);
+                window = index >= 0 ? index : -index - 2;
+            } else {
+                while (time >= boundaries[window + 1]) window++;
+            }
+
+            boolean isLatest = counts[window] == 0 || endTimes[i] > lastEndTimes[window];
+            reducer.accumulate(results, window * width, counts[window], sourceValues[i], isLatest);
+            if (isLatest) lastEndTimes[window] = endTimes[i];
+            counts[window]++;
+        }
+
+        FloatTimeSeries normalized = new FloatTimeSeries(windowSize * width);
+        for (int i = 0; i < windowSize; i++) {
+            if (counts[i] == 0 && reducer.isSparse()) continue;
+
+            reducer.finish(results, i * width, counts[i]);
+            for (int j = 0; j < width; j++) {
+                normalized.add(boundaries[i], boundaries[i + 1], results[i * width + j]);
+            }
+        }
+        return normalized;
+    }
+}
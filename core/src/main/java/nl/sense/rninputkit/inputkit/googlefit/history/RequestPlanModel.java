@@ -0,0 +1,233 @@
+package nl.sense.rninputkit.inputkit.googlefit.history;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+import com.google.gson.annotations.Expose;
+import com.google.gson.reflect.TypeToken;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import nl.sense.rninputkit.inputkit.entity.TimeInterval;
+
+/**
+ * Observed data density and latency of history requests, which is used by
+ * {@link SafeRequestHandler} to plan request chunks of the user.
+ * Observations are kept per time unit of {@link TimeInterval} and per aggregation, since
+ * aggregated requests return buckets rather than raw data points.
+ * Every observation is blended into an exponential moving average, so the model follows
+ * the user when their data gets denser or sparser over time.
+ */
+public class RequestPlanModel {
+    /**
+     * Persistent storage of the model, eg. shared preferences.
+     */
+    public interface Store {
+        @Nullable
+        String read();
+
+        void write(@NonNull String json);
+    }
+
+    /**
+     * Weight of the latest observation
+     */
+    private static final double SMOOTHING_FACTOR = 0.3;
+    private static final Gson GSON = new Gson();
+
+    private final Store store;
+    private Map<String, Stats> stats;
+    private boolean isDirty;
+
+    /**
+     * Model which lives in memory only
+     */
+    public RequestPlanModel() {
+        this(null);
+    }
+
+    /**
+     * Model which is restored from and saved into given store
+     * @param store {@link Store}
+     */
+    public RequestPlanModel(@Nullable Store store) {
+        this.store = store;
+        this.stats = read(store);
+    }
+
+    /**
+     * Record an observation of a finished history request.
+     *
+     * @param interval           {@link TimeInterval} of the request
+     * @param useDataAggregation True if the request is aggregated by a bucket of time periods
+     * @param startTime          Start time of the request
+     * @param endTime            End time of the request
+     * @param dataPoints         Number of returned data points
+     * @param latencyMillis      Time until the response was received, in milliseconds
+     */
+    public synchronized void record(@NonNull TimeInterval interval,
+                                    boolean useDataAggregation,
+                                    long startTime,
+                                    long endTime,
+                                    int dataPoints,
+                                    long latencyMillis) {
+        if (endTime <= startTime) return;
+
+        double hours = (double) (endTime - startTime) / TimeUnit.HOURS.toMillis(1);
+        double density = dataPoints / hours;
+        double latencyPerHour = latencyMillis / hours;
+
+        String key = toKey(interval, useDataAggregation);
+        Stats current = stats.get(key);
+        if (current == null) {
+            stats.put(key, new Stats(density, latencyPerHour, 1));
+        } else {
+            // Density is unknown when only timeouts have been observed so far
+            current.density = current.density > 0 ? smooth(current.density, density) : density;
+            current.latencyPerHour = smooth(current.latencyPerHour, latencyPerHour);
+            current.observations++;
+        }
+        isDirty = true;
+    }
+
+    /**
+     * Record a history request which was timed out. Its data density is unknown, but its
+     * latency was at least the timeout.
+     *
+     * @param interval           {@link TimeInterval} of the request
+     * @param useDataAggregation True if the request is aggregated by a bucket of time periods
+     * @param startTime          Start time of the request
+     * @param endTime            End time of the request
+     * @param timeoutMillis      Request timeout, in milliseconds
+     */
+    public synchronized void recordTimeout(@NonNull TimeInterval interval,
+                                           boolean useDataAggregation,
+                                           long startTime,
+                                           long endTime,
+                                           long timeoutMillis) {
+        if (endTime <= startTime) return;
+
+        double hours = (double) (endTime - startTime) / TimeUnit.HOURS.toMillis(1);
+        double latencyPerHour = timeoutMillis / hours;
+
+        String key = toKey(interval, useDataAggregation);
+        Stats current = stats.get(key);
+        if (current == null) {
+            stats.put(key, new Stats(0, latencyPerHour, 1));
+        } else {
+            current.latencyPerHour = smooth(current.latencyPerHour, latencyPerHour);
+            current.observations++;
+        }
+        isDirty = true;
+    }
+
+    /**
+     * Get observed data density.
+     *
+     * @param interval           {@link TimeInterval} of the request
+     * @param useDataAggregation True if the request is aggregated by a bucket of time periods
+     * @return Average number of data points per hour, zero or a negative number if it's unknown.
+     */
+    public synchronized double getDensity(@NonNull TimeInterval interval,
+                                          boolean useDataAggregation) {
+        Stats current = stats.get(toKey(interval, useDataAggregation));
+        return current == null ? -1 : current.density;
+    }
+
+    /**
+     * Get observed request latency.
+     *
+     * @param interval           {@link TimeInterval} of the request
+     * @param useDataAggregation True if the request is aggregated by a bucket of time periods
+     * @return Average latency per hour of requested time period, in milliseconds,
+     *         or a negative number if it's unknown.
+     */
+    public synchronized double getLatencyPerHour(@NonNull TimeInterval interval,
+                                                 boolean useDataAggregation) {
+        Stats current = stats.get(toKey(interval, useDataAggregation));
+        return current == null ? -1 : current.latencyPerHour;
+    }
+
+    /**
+     * Get number of recorded observations.
+     *
+     * @param interval           {@link TimeInterval} of the request
+     * @param useDataAggregation True if the request is aggregated by a bucket of time periods
+     * @return Number of observations
+     */
+    public synchronized int getObservationCount(@NonNull TimeInterval interval,
+                                                boolean useDataAggregation) {
+        Stats current = stats.get(toKey(interval, useDataAggregation));
+        return current == null ? 0 : current.observations;
+    }
+
+    /**
+     * Save recorded observations into the store, if there is any.
+     */
+    public void save() {
+        String json;
+        synchronized (this) {
+            if (!isDirty || store == null) return;
+            json = GSON.toJson(stats);
+            isDirty = false;
+        }
+        store.write(json);
+    }
+
+    /**
+     * Forget all observations, eg. when user is disconnected.
+     */
+    public void clear() {
+        synchronized (this) {
+            stats.clear();
+            isDirty = true;
+        }
+        save();
+    }
+
+    @Override
+    public synchronized String toString() {
+        return GSON.toJson(stats);
+    }
+
+    private static double smooth(double average, double value) {
+        return average + SMOOTHING_FACTOR * (value - average);
+    }
+
+    private static String toKey(@NonNull TimeInterval interval, boolean useDataAggregation) {
+        return interval.getTimeUnit().name() + (useDataAggregation ? "_aggregated" : "");
+    }
+
+    @NonNull
+    private static Map<String, Stats> read(@Nullable Store store) {
+        String json = store == null ? null : store.read();
+        if (json == null || json.isEmpty()) return new HashMap<>();
+        try {
+            Map<String, Stats> stats = GSON.fromJson(json,
+                    new TypeToken<HashMap<String, Stats>>() { }.getType());
+            return stats == null ? new HashMap<String, Stats>() : stats;
+        } catch (JsonParseException e) {
+            // Start over rather than planning with a broken model
+            return new HashMap<>();
+        }
+    }
+
+    static class Stats {
+        @Expose
+        private double density;
+        @Expose
+        private double latencyPerHour;
+        @Expose
+        private int observations;
+
+        Stats(double density, double latencyPerHour, int observations) {
+            this.density = density;
+            this.latencyPerHour = latencyPerHour;
+            this.observations = observations;
+        }
+    }
+}
@@ -0,0 +1,179 @@
+package nl.sense.rninputkit.inputkit.googlefit.history;
+
+import androidx.annotation.NonNull;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.TimeZone;
+
+import nl.sense.rninputkit.inputkit.entity.IntTimeSeries;
+import nl.sense.rninputkit.inputkit.entity.TimeInterval;
+
+import static nl.sense.rninputkit.inputkit.helper.InputKitTimeUtils.populateTimeWindowBoundaries;
+
+/**
+ * Derive several resolutions of additive values, eg. step count, out of a single normalized
+ * time series of the finest {@link TimeInterval}.
+ * Resolutions are rolled up in cascade from fine to coarse, every one of them out of the coarsest
+ * resolution whose time windows are nested in its own ones, eg. days out of hours out of minutes.
+ * Rolling up only sums time windows, so the cost of all coarser resolutions together stays below
+ * the cost of a single pass over the finest one.
+ * <p>
+ * Time windows of a finer resolution which are crossing a coarser time window, eg. hours across
+ * a daylight saving day, belong to the coarser time window of their start time.
+ */
+public class RollupDataNormalizer {
+
+    /**
+     * Get the finest interval, which the source time series should be normalized at.
+     *
+     * @param intervals Requested intervals
+     * @return {@link TimeInterval} with the shortest time window
+     */
+    @NonNull
+    public static TimeInterval getFinestInterval(@NonNull List<TimeInterval> intervals) {
+        if (intervals.isEmpty()) throw new IllegalStateException("Intervals must be provided.");
+        TimeInterval finest = intervals.get(0);
+        for (TimeInterval interval : intervals) {
+            if (getLength(interval) < getLength(finest)) finest = interval;
+        }
+        return finest;
+    }
+
+    /**
+     * Roll up a normalized time series into every requested interval.
+     *
+     * @param startTime Start time
+     * @param endTime   End time
+     * @param finest    Time series normalized at {@link #getFinestInterval(List)}
+     * @param intervals Requested intervals
+     * @return Time series of every interval, in order of the requested intervals.
+     */
+    @NonNull
+    public List<IntTimeSeries> rollup(long startTime,
+                                      long endTime,
+                                      @NonNull IntTimeSeries finest,
+                                      @NonNull List<TimeInterval> intervals) {
+        return rollup(startTime, endTime, finest, intervals, TimeZone.getDefault());
+    }
+
+    /**
+     * Roll up a normalized time series into every requested interval within specific
+     * {@link TimeZone}.
+     *
+     * @param startTime Start time
+     * @param endTime   End time
+     * @param finest    Time series normalized at {@link #getFinestInterval(List)}
+     * @param intervals Requested intervals
+     * @param timeZone  {@link TimeZone} of day based time windows
+     * @return Time series of every interval, in order of the requested intervals.
+     *         Time series of the finest interval is the given one, every coarser one keeps
+     *         its partial and deadline exceeded state.
+     */
+    @NonNull
+    public List<IntTimeSeries> rollup(long startTime,
+                                      long endTime,
+                                      @NonNull IntTimeSeries finest,
+                                      @NonNull List<TimeInterval> intervals,
+                                      @NonNull TimeZone timeZone) {
+        TimeInterval finestInterval = getFinestInterval(intervals);
+
+        // Roll up from fine to coarse, so every resolution can be derived from a finer one
+        Integer[] order = new Integer[intervals.size()];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = i;
+        }
+        final List<TimeInterval> requested = intervals;
+        Arrays.sort(order, new Comparator<Integer>() {
+            @Override
+            public int compare(Integer index1, Integer index2) {
+                long length1 = getLength(requested.get(index1));
+                long length2 = getLength(requested.get(index2));
+                return length1 < length2 ? -1 : (length1 == length2 ? 0 : 1);
+            }
+        });
+
+        IntTimeSeries[] results = new IntTimeSeries[intervals.size()];
+        List<IntTimeSeries> rolledUp = new ArrayList<>(intervals.size());
+        rolledUp.add(finest);
+        for (int index : order) {
+            TimeInterval interval = intervals.get(index);
+            if (interval.equals(finestInterval)) {
+                results[index] = finest;
+                continue;
+            }
+
+            long[] boundaries = populateTimeWindowBoundaries(startTime, endTime, interval, timeZone);
+            IntTimeSeries source = finest;
+            for (int i = rolledUp.size() - 1; i > 0; i--) {
+                if (isNested(boundaries, rolledUp.get(i))) {
+                    source = rolledUp.get(i);
+                    break;
+                }
+            }
+            results[index] = rollup(boundaries, source);
+            rolledUp.add(results[index]);
+        }
+        return Collections.unmodifiableList(Arrays.asList(results));
+    }
+
+    /**
+     * Sum time windows of a finer time series into coarser time windows.
+     *
+     * @param boundaries Coarser time window boundaries
+     * @param source     Finer time series
+     * @return Time series of the coarser time windows
+     */
+    @NonNull
+    private static IntTimeSeries rollup(@NonNull long[] boundaries, @NonNull IntTimeSeries source) {
+        int windowSize = Math.max(0, boundaries.length - 1);
+        int[] results = new int[windowSize];
+        long[] startTimes = source.getStartTimes();
+        int[] values = source.getValues();
+        int window = 0;
+        for (int i = 0; i < source.size() && windowSize > 0; i++) {
+            long time = startTimes[i];
+            if (time < boundaries[0]) continue;
+            while (window < windowSize && time >= boundaries[window + 1]) window++;
+            if (window == windowSize) break;
+            results[window] += values[i];
+        }
+
+        IntTimeSeries rolledUp = new IntTimeSeries(
+                Arrays.copyOf(boundaries, windowSize),
+                Arrays.copyOfRange(boundaries, 1, windowSize + 1),
+                results,
+                windowSize
+        );
+        rolledUp.setPartial(source.isPartial());
+        rolledUp.setDeadlineExceeded(source.isDeadlineExceeded());
+        return rolledUp;
+    }
+
+    /**
+     * Check whether every coarser time window boundary is a boundary of a finer time series.
+     *
+     * @param boundaries Coarser time window boundaries
+     * @param source     Finer time series
+     * @return True if finer time windows never cross a coarser time window
+     */
+    private static boolean isNested(@NonNull long[] boundaries, @NonNull IntTimeSeries source) {
+        if (source.isEmpty()) return false;
+        long[] startTimes = source.getStartTimes();
+        long lastEndTime = source.getEndTime(source.size() - 1);
+        int index = 0;
+        for (long boundary : boundaries) {
+            if (boundary == lastEndTime) continue;
+            while (index < source.size() && startTimes[index] < boundary) index++;
+            if (index == source.size() || startTimes[index] != boundary) return false;
+        }
+        return true;
+    }
+
+    private static long getLength(@NonNull TimeInterval interval) {
+        return interval.getTimeUnit().toMillis(interval.getValue());
+    }
+}
@@ -0,0 +1,542 @@
+package nl.sense.rninputkit.inputkit.googlefit.history;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.VisibleForTesting;
+
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.TimeZone;
+import java.util.concurrent.TimeUnit;
+
+import nl.sense.rninputkit.inputkit.entity.TimeInterval;
+
+import static nl.sense.rninputkit.inputkit.helper.InputKitTimeUtils.ONE_DAY;
+import static nl.sense.rninputkit.inputkit.helper.InputKitTimeUtils.isValidTimePeriod;
+import static nl.sense.rninputkit.inputkit.helper.InputKitTimeUtils.populateTimeWindowBoundaries;
+
+/**
+ * Split a history request into chunks which Fit can safely serve.
+ * Without a {@link RequestPlanModel} chunks have a fixed length per time unit. With a model,
+ * chunk length follows the observed data density and latency of the user : sparse periods are
+ * merged into fewer requests and dense ones are split into smaller requests.
+ * <p>
+ * Aggregated history can also be routed per query, see
+ * {@link #getRequestPlan(long, long, TimeInterval, boolean, TimeZone)}.
+ */
+public class SafeRequestHandler {
+    /**
+     * How history of a request plan is read from Fit
+     */
+    public enum Strategy {
+        /**
+         * Raw data points are read and bucketed locally.
+         */
+        RAW,
+        /**
+         * Fit aggregates every time window of the query into a single bucket.
+         */
+        BUCKETED,
+        /**
+         * Like {@link #BUCKETED}, but time windows which are not as long as the requested
+         * interval (eg. days of daylight saving transitions) are requested on their own.
+         */
+        MIXED,
+        /**
+         * Fit aggregates day based intervals per day, and buckets are re-bucketed locally.
+         * It's the plan of {@link #getRequestPlan(long, long, TimeInterval, boolean)}.
+         */
+        LEGACY
+    }
+
+    /**
+     * As for minutely request, we should use safe number for maximum datapoints within those
+     * period.
+     * eg.:
+     *  - 24 hours *  1 minute datapoints = 1440 datapoint <- this one would be pretty rare. consider
+     *                                                        no one would keep walking or running
+     *                                                        for entire 24 hours without a rest
+     *  - 24 hours * 10 minute datapoints = 144 datapoint
+     *  - 24 hours * 30 minute datapoints = 48 datapoint
+     */
+    private static final int SAFE_HOURS_NUMBER_FOR_MINUTELY = 24;
+    /**
+     * As for hourly / daily / weekly interval, we should use maximum datapoints for those period
+     * eg.:
+     *   - max minutely : when `minuteValue` == 1 minute-interval -> 12 HOURS
+     *                    when `minuteValue` >  1 minute-interval -> 24 HOURS
+     *   - max hourly   : 1000 hours = 1000 datapoint within hourly period
+     *   - max daily    : 1000 days  = 1000 datapoint within the day period
+     *   - max weekly   : 1000 days  = 1000 datapoint within the day period
+     *
+     * 1000 days = 1000 datapoint for daily basis time interval
+     */
+    private static final int SAFE_HOURS_NUMBER_FOR_HOURLY = 1000;
+    private static final int SAFE_DAYS_NUMBER_FOR_DAILY = 1000;
+    /**
+     * Fit refuses to return more than 1000 data points within a request. Adaptive chunks are
+     * aiming lower, so a denser than usual period still fits within a single request.
+     */
+    private static final int MAX_DATA_POINTS_PER_REQUEST = 1000;
+    /**
+     * Bucketed chunks hold at most this many buckets. The fixed length plan has always read
+     * a whole day of one-minute buckets within a single request, so a bucketed plan keeps
+     * a one-minute day in a single chunk as well.
+     */
+    private static final int MAX_BUCKETS_PER_REQUEST =
+            (int) TimeUnit.HOURS.toMinutes(SAFE_HOURS_NUMBER_FOR_MINUTELY);
+    private static final int TARGET_DATA_POINTS_PER_REQUEST = 600;
+    /**
+     * Adaptive chunks are aiming to be served well within the shortest await timeout of
+     * {@link HistoryTaskFactory}.
+     */
+    private static final long TARGET_LATENCY_PER_REQUEST = TimeUnit.SECONDS.toMillis(15);
+    /**
+     * Sparse periods are merged into at most this many fixed length chunks.
+     */
+    private static final int MAX_MERGED_CHUNKS = 4;
+    /**
+     * Number of observations before the model is trusted to plan chunks.
+     */
+    private static final int MIN_OBSERVATIONS = 3;
+
+    private final RequestPlanModel model;
+
+    /**
+     * Request handler with fixed length chunks
+     */
+    public SafeRequestHandler() {
+        this(null);
+    }
+
+    /**
+     * Request handler with adaptive chunks
+     * @param model Observed data density and latency, see {@link RequestPlanModel}
+     */
+    public SafeRequestHandler(@Nullable RequestPlanModel model) {
+        this.model = model;
+    }
+
+    /**
+     * Get safe request of requested start and end date.
+     * This is required to avoid 1000++ datapoints error. Through this way, we will create another
+     * request chunk per 12 hours with an asumptions that :
+     * 12 hours * 1 minute datapoints = 720 datapoint
+     * @param startDate Date of start time request
+     * @param endDate   Date of end time request
+     * @param timeInterval   {@link TimeInterval} that specified by client
+     * @return Boundaries of request chunks. Chunks are contiguous, so chunk `i` is starting at
+     *         `boundaries[i]` and ending at `boundaries[i + 1]`.
+     *         Number of chunks is `boundaries.length - 1`.
+     */
+    public long[] getSafeRequest(long startDate, long endDate, TimeInterval timeInterval) {
+        return getSafeRequest(startDate, endDate, timeInterval, false);
+    }
+
+    /**
+     * Get safe request of requested start and end date, see {@link #getRequestPlan}.
+     * @param startDate          Date of start time request
+     * @param endDate            Date of end time request
+     * @param timeInterval       {@link TimeInterval} that specified by client
+     * @param useDataAggregation True if history is aggregated by a bucket of time periods
+     * @return Boundaries of request chunks.
+     */
+    public long[] getSafeRequest(long startDate,
+                                 long endDate,
+                                 TimeInterval timeInterval,
+                                 boolean useDataAggregation) {
+        return getRequestPlan(startDate, endDate, timeInterval, useDataAggregation).getBoundaries();
+    }
+
+    /**
+     * Plan request chunks of requested start and end date, and route aggregated history to the
+     * cheapest way of reading it :
+     * <ul>
+     *     <li>{@link Strategy#RAW} when the user's raw data is expected to have fewer data points
+     *     than the time windows of the query, eg. a minutely distribution of a quiet week.</li>
+     *     <li>{@link Strategy#BUCKETED} or {@link Strategy#MIXED} otherwise : request chunks are
+     *     aligned with the time windows of the query, so every bucket of Fit is exactly a time
+     *     window and nothing has to be re-bucketed locally.</li>
+     * </ul>
+     * History which is not aggregated is always read raw.
+     *
+     * @param startDate          Date of start time request
+     * @param endDate            Date of end time request
+     * @param timeInterval       {@link TimeInterval} that specified by client
+     * @param useDataAggregation True if history may be aggregated by a bucket of time periods
+     * @param timeZone           {@link TimeZone} of day based time windows
+     * @return {@link RequestPlan}, bucket length of every chunk is provided.
+     */
+    @NonNull
+    public RequestPlan getRequestPlan(long startDate,
+                                      long endDate,
+                                      @NonNull TimeInterval timeInterval,
+                                      boolean useDataAggregation,
+                                      @NonNull TimeZone timeZone) {
+        if (!isValidTimePeriod(startDate, endDate) || endDate <= startDate) {
+            return getRequestPlan(startDate, endDate, timeInterval, useDataAggregation);
+        }
+
+        if (!useDataAggregation) return getRawRequestPlan(startDate, endDate, timeInterval, -1);
+
+        long[] windows = populateTimeWindowBoundaries(startDate, endDate, timeInterval, timeZone);
+        int windowCount = windows.length - 1;
+        long estimatedRawDataPoints = estimateRawDataPoints(startDate, endDate, timeInterval);
+        if (estimatedRawDataPoints >= 0 && estimatedRawDataPoints < windowCount) {
+            return getRawRequestPlan(startDate, endDate, timeInterval, estimatedRawDataPoints);
+        }
+        return getBucketedRequestPlan(windows, timeInterval);
+    }
+
+    /**
+     * Plan request chunks of requested start and end date.
+     * @param startDate          Date of start time request
+     * @param endDate            Date of end time request
+     * @param timeInterval       {@link TimeInterval} that specified by client
+     * @param useDataAggregation True if history is aggregated by a bucket of time periods
+     * @return {@link RequestPlan}
+     */
+    @NonNull
+    public RequestPlan getRequestPlan(long startDate,
+                                      long endDate,
+                                      @NonNull TimeInterval timeInterval,
+                                      boolean useDataAggregation) {
+        long chunkLength = getSafeIntervalInMilliseconds(timeInterval);
+        double density = -1;
+        double latencyPerHour = -1;
+        boolean isAdaptive = model != null
+                && model.getObservationCount(timeInterval, useDataAggregation) >= MIN_OBSERVATIONS;
+        if (isAdaptive) {
+            density = model.getDensity(timeInterval, useDataAggregation);
+            latencyPerHour = model.getLatencyPerHour(timeInterval, useDataAggregation);
+            chunkLength = getAdaptiveIntervalInMilliseconds(timeInterval, useDataAggregation,
+                    density, latencyPerHour);
+        }
+        return new RequestPlan(getChunkBoundaries(startDate, endDate, chunkLength),
+                chunkLength, isAdaptive, density, latencyPerHour);
+    }
+
+    /**
+     * Plan raw request chunks.
+     * @param startDate              Date of start time request
+     * @param endDate                Date of end time request
+     * @param timeInterval           {@link TimeInterval} that specified by client
+     * @param estimatedDataPoints    Expected number of raw data points, or a negative number
+     *                               if it's unknown.
+     * @return {@link RequestPlan} of {@link Strategy#RAW}
+     */
+    private RequestPlan getRawRequestPlan(long startDate,
+                                          long endDate,
+                                          @NonNull TimeInterval timeInterval,
+                                          long estimatedDataPoints) {
+        RequestPlan plan = getRequestPlan(startDate, endDate, timeInterval, false);
+        long[] bucketLengths = new long[plan.getChunkCount()];
+        return new RequestPlan(plan.boundaries, plan.chunkLength, plan.isAdaptive,
+                plan.density, plan.latencyPerHour, Strategy.RAW, bucketLengths,
+                estimatedDataPoints);
+    }
+
+    /**
+     * Plan aggregated request chunks which are aligned with time windows of the query.
+     * Consecutive windows of the requested interval length share a chunk and are bucketed by
+     * the interval, other windows are requested on their own as a single bucket.
+     * @param windows      Time window boundaries of the query
+     * @param timeInterval {@link TimeInterval} that specified by client
+     * @return {@link RequestPlan} of {@link Strategy#BUCKETED} or {@link Strategy#MIXED}
+     */
+    private RequestPlan getBucketedRequestPlan(@NonNull long[] windows,
+                                               @NonNull TimeInterval timeInterval) {
+        long startDate = windows[0];
+        long endDate = windows[windows.length - 1];
+        long intervalLength = timeInterval.getTimeUnit().toMillis(timeInterval.getValue());
+        RequestPlan safePlan = getRequestPlan(startDate, endDate, timeInterval, true);
+        long maxChunkLength = Math.max(safePlan.getChunkLength(), intervalLength);
+
+        int windowCount = windows.length - 1;
+        long[] boundaries = new long[windowCount + 1];
+        long[] bucketLengths = new long[windowCount];
+        int size = 0;
+        boolean isMixed = false;
+        boundaries[size] = startDate;
+        int window = 0;
+        while (window < windowCount) {
+            long windowLength = windows[window + 1] - windows[window];
+            int last = window + 1;
+            if (windowLength == intervalLength) {
+                // Merge windows of the interval length until the chunk is full
+                while (last < windowCount
+                        && windows[last + 1] - windows[last] == intervalLength
+                        && last - window < MAX_BUCKETS_PER_REQUEST
+                        && windows[last + 1] - windows[window] <= maxChunkLength) {
+                    last++;
+                }
+            } else {
+                isMixed = true;
+            }
+            bucketLengths[size] = windowLength;
+            boundaries[++size] = windows[last];
+            window = last;
+        }
+        return new RequestPlan(Arrays.copyOf(boundaries, size + 1), maxChunkLength,
+                safePlan.isAdaptive, safePlan.density, safePlan.latencyPerHour,
+                isMixed ? Strategy.MIXED : Strategy.BUCKETED,
+                Arrays.copyOf(bucketLengths, size), windowCount);
+    }
+
+    /**
+     * Estimate number of raw data points upon observed density of raw requests.
+     * @param startDate    Date of start time request
+     * @param endDate      Date of end time request
+     * @param timeInterval {@link TimeInterval} that specified by client
+     * @return Expected number of raw data points, or a negative number if it's unknown.
+     */
+    private long estimateRawDataPoints(long startDate, long endDate, TimeInterval timeInterval) {
+        if (model == null || model.getObservationCount(timeInterval, false) < MIN_OBSERVATIONS) {
+            return -1;
+        }
+        // Density is zero when only timeouts have been observed, see RequestPlanModel
+        double density = model.getDensity(timeInterval, false);
+        if (density <= 0) return -1;
+
+        double hours = (double) (endDate - startDate) / TimeUnit.HOURS.toMillis(1);
+        return (long) Math.ceil(density * hours);
+    }
+
+    /**
+     * Split requested start and end date into chunks, which are ending at the start of a day
+     * in UTC when possible.
+     * @param startDate   Date of start time request
+     * @param endDate     Date of end time request
+     * @param chunkLength Maximum length of a chunk in milliseconds
+     * @return Boundaries of request chunks.
+     */
+    @VisibleForTesting
+    long[] getChunkBoundaries(long startDate, long endDate, long chunkLength) {
+        // Get the time difference between start and end date
+        long diffMillis = endDate - startDate;
+
+        // Check if the difference between Start and End Time is less then chunk length
+        if (diffMillis <= chunkLength) {
+            return new long[] {startDate, endDate};
+        }
+
+        long[] boundaries = new long[(int) Math.min(diffMillis / chunkLength + 3, 1024)];
+        int size = 0;
+        boundaries[size++] = startDate;
+        long start = startDate;
+
+        while (start < endDate) {
+            long relativeEndTime = start + chunkLength;
+
+            // Chunks which are shorter than a day can't always end at the start of a day
+            long spanRelStartTime = getStartOfDay(relativeEndTime);
+            if (relativeEndTime > spanRelStartTime && spanRelStartTime > start) {
+                relativeEndTime = spanRelStartTime;
+            }
+
+            if (relativeEndTime > endDate) relativeEndTime = endDate;
+
+            if (size == boundaries.length) {
+                boundaries = Arrays.copyOf(boundaries, size * 2);
+            }
+            boundaries[size++] = relativeEndTime;
+
+            start = relativeEndTime;
+        }
+        return size == boundaries.length ? boundaries : Arrays.copyOf(boundaries, size);
+    }
+
+    /**
+     * Get a safe interval in milliseconds for the time interval passed to the function
+     * @param timeInterval Given time interval
+     * @return The safe number of milliseconds to use as interval
+     */
+    private long getSafeIntervalInMilliseconds(TimeInterval timeInterval) {
+        // TODO: Add unit test for 1001 days
+        if (timeInterval.getTimeUnit() == TimeUnit.DAYS) {
+            return TimeUnit.DAYS.toMillis(SAFE_DAYS_NUMBER_FOR_DAILY);
+        }
+        if (timeInterval.getTimeUnit() == TimeUnit.HOURS) {
+            return TimeUnit.HOURS.toMillis(SAFE_HOURS_NUMBER_FOR_HOURLY);
+        }
+        return TimeUnit.HOURS.toMillis(SAFE_HOURS_NUMBER_FOR_MINUTELY);
+    }
+
+    /**
+     * Get an interval in milliseconds which is expected to return
+     * {@link #TARGET_DATA_POINTS_PER_REQUEST} within {@link #TARGET_LATENCY_PER_REQUEST}.
+     * @param timeInterval       Given time interval
+     * @param useDataAggregation True if history is aggregated by a bucket of time periods
+     * @param density            Observed data points per hour
+     * @param latencyPerHour     Observed latency per hour of requested time period
+     * @return The number of milliseconds to use as interval
+     */
+    private long getAdaptiveIntervalInMilliseconds(TimeInterval timeInterval,
+                                                   boolean useDataAggregation,
+                                                   double density,
+                                                   double latencyPerHour) {
+        long oneHour = TimeUnit.HOURS.toMillis(1);
+        double hours = Double.MAX_VALUE;
+        if (density > 0) hours = Math.min(hours, TARGET_DATA_POINTS_PER_REQUEST / density);
+        if (latencyPerHour > 0) hours = Math.min(hours, TARGET_LATENCY_PER_REQUEST / latencyPerHour);
+
+        long bucketLength = getBucketLength(timeInterval);
+        long safeInterval = getSafeIntervalInMilliseconds(timeInterval);
+        long maxInterval = safeInterval * MAX_MERGED_CHUNKS;
+        if (useDataAggregation) {
+            // Every bucket is a data point, no matter how sparse the data is
+            maxInterval = Math.min(maxInterval,
+                    Math.max(safeInterval, bucketLength * MAX_DATA_POINTS_PER_REQUEST));
+        }
+        long minInterval = timeInterval.getTimeUnit() == TimeUnit.DAYS ? ONE_DAY : oneHour;
+        if (useDataAggregation) minInterval = Math.max(minInterval, bucketLength);
+
+        long interval = hours >= (double) maxInterval / oneHour
+                ? maxInterval
+                : (long) (hours * oneHour);
+        return Math.max(minInterval, Math.min(maxInterval, interval));
+    }
+
+    /**
+     * Get length of aggregated bucket. Day based buckets are aggregated per day, see
+     * {@link HistoryTaskFactory}.
+     * @param timeInterval Given time interval
+     * @return Bucket length in milliseconds
+     */
+    private long getBucketLength(TimeInterval timeInterval) {
+        if (timeInterval.getTimeUnit() == TimeUnit.DAYS) return ONE_DAY;
+        return timeInterval.getTimeUnit().toMillis(timeInterval.getValue());
+    }
+
+    /**
+     * Get time stamp of begining of the day of the given anchor time.
+     * eg.:
+     *   when `anchorTime` = '2018-10-01 00:07:00' -> `beginingOfDay`  = '2018-10-01 00:00:00'
+     *   when `anchorTime` = '2018-10-01 23:00:12' -> `beginingOfDay`  = '2018-10-01 00:00:00'
+     *   and so on
+     * Days are counted in UTC, so it doesn't need any calendar.
+     * @param anchorTime anchor time
+     * @return Time of end of day of the anchor time.
+     */
+    private long getStartOfDay(long anchorTime) {
+        long startOfDay = anchorTime - anchorTime % ONE_DAY;
+        return anchorTime < 0 && startOfDay != anchorTime ? startOfDay - ONE_DAY : startOfDay;
+    }
+
+    /**
+     * Planned request chunks, eg. for diagnostics.
+     */
+    public static class RequestPlan {
+        private final long[] boundaries;
+        private final long chunkLength;
+        private final boolean isAdaptive;
+        private final double density;
+        private final double latencyPerHour;
+        private final Strategy strategy;
+        private final long[] bucketLengths;
+        private final long estimatedDataPoints;
+
+        RequestPlan(long[] boundaries,
+                    long chunkLength,
+                    boolean isAdaptive,
+                    double density,
+                    double latencyPerHour) {
+            this(boundaries, chunkLength, isAdaptive, density, latencyPerHour,
+                    Strategy.LEGACY, null, -1);
+        }
+
+        RequestPlan(long[] boundaries,
+                    long chunkLength,
+                    boolean isAdaptive,
+                    double density,
+                    double latencyPerHour,
+                    Strategy strategy,
+                    long[] bucketLengths,
+                    long estimatedDataPoints) {
+            this.boundaries = boundaries;
+            this.chunkLength = chunkLength;
+            this.isAdaptive = isAdaptive;
+            this.density = density;
+            this.latencyPerHour = latencyPerHour;
+            this.strategy = strategy;
+            this.bucketLengths = bucketLengths;
+            this.estimatedDataPoints = estimatedDataPoints;
+        }
+
+        /**
+         * @return Boundaries of request chunks, chunk `i` is starting at `boundaries[i]`
+         *         and ending at `boundaries[i + 1]`.
+         */
+        public long[] getBoundaries() {
+            return boundaries;
+        }
+
+        public int getChunkCount() {
+            return Math.max(0, boundaries.length - 1);
+        }
+
+        /**
+         * @return Maximum length of a chunk in milliseconds
+         */
+        public long getChunkLength() {
+            return chunkLength;
+        }
+
+        /**
+         * @return True if chunk length is planned upon observed density and latency,
+         *         False if it's a fixed one.
+         */
+        public boolean isAdaptive() {
+            return isAdaptive;
+        }
+
+        /**
+         * @return Observed data points per hour, or a negative number if it's unknown.
+         */
+        public double getDensity() {
+            return density;
+        }
+
+        /**
+         * @return Observed latency per hour of requested time period in milliseconds,
+         *         or a negative number if it's unknown.
+         */
+        public double getLatencyPerHour() {
+            return latencyPerHour;
+        }
+
+        /**
+         * @return How history is read from Fit
+         */
+        @NonNull
+        public Strategy getStrategy() {
+            return strategy;
+        }
+
+        /**
+         * @return Bucket length of every request chunk in milliseconds, zero if the chunk is read
+         *         raw. It's null for {@link Strategy#LEGACY} plans, which are aggregated as
+         *         requested by the query.
+         */
+        @Nullable
+        public long[] getBucketLengths() {
+            return bucketLengths;
+        }
+
+        /**
+         * @return Expected number of data points to be read, or a negative number if it's unknown.
+         */
+        public long getEstimatedDataPoints() {
+            return estimatedDataPoints;
+        }
+
+        @Override
+        public String toString() {
+            return String.format(Locale.US,
+                    "RequestPlan{strategy=%s, chunks=%d, chunkLength=%dms, adaptive=%b, "
+                            + "density=%.2f/h, latency=%.2fms/h, estimatedDataPoints=%d}",
+                    strategy, getChunkCount(), chunkLength, isAdaptive, density, latencyPerHour,
+                    estimatedDataPoints);
+        }
+    }
+}
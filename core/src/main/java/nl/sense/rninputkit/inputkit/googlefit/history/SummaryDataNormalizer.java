@@ -0,0 +1,75 @@
+package nl.sense.rninputkit.inputkit.googlefit.history;
+
+import androidx.annotation.NonNull;
+
+import java.util.TimeZone;
+
+import nl.sense.rninputkit.inputkit.constant.Summary;
+import nl.sense.rninputkit.inputkit.entity.FloatTimeSeries;
+import nl.sense.rninputkit.inputkit.entity.TimeInterval;
+
+/**
+ * Normalizer of non additive values, eg. weight.
+ * Unlike {@link DataNormalizer}, source values are never split across time windows. Every source
+ * value belongs to the time window of its start time, and values of a time window are reduced
+ * into a single {@link Summary}. Time windows without any source value are left out.
+ */
+public class SummaryDataNormalizer {
+    private ReducingDataNormalizer normalizer = new ReducingDataNormalizer();
+
+    /**
+     * Normalize time series time window.
+     *
+     * @param startTime Start time
+     * @param endTime   End time
+     * @param values    Source time series
+     * @param interval  {@link TimeInterval}
+     * @param summary   {@link Summary.SummaryName} of time windows
+     * @return Time series of time windows which have at least a source value.
+     */
+    @NonNull
+    public FloatTimeSeries normalize(long startTime,
+                                     long endTime,
+                                     @NonNull FloatTimeSeries values,
+                                     @NonNull TimeInterval interval,
+                                     @NonNull @Summary.SummaryName String summary) {
+        return normalize(startTime, endTime, values, interval, summary, TimeZone.getDefault());
+    }
+
+    /**
+     * Normalize time series time window within specific {@link TimeZone}.
+     *
+     * @param startTime Start time
+     * @param endTime   End time
+     * @param values    Source time series
+     * @param interval  {@link TimeInterval}
+     * @param summary   {@link Summary.SummaryName} of time windows
+     * @param timeZone  {@link TimeZone} of day based time windows
+     * @return Time series of time windows which have at least a source value.
+     */
+    @NonNull
+    public FloatTimeSeries normalize(long startTime,
+                                     long endTime,
+                                     @NonNull FloatTimeSeries values,
+                                     @NonNull TimeInterval interval,
+                                     @NonNull @Summary.SummaryName String summary,
+                                     @NonNull TimeZone timeZone) {
+        return normalizer.normalize(startTime, endTime, values, interval,
+                getReducer(summary), timeZone);
+    }
+
+    /**
+     * Get reducer of a summary
+     *
+     * @param summary {@link Summary.SummaryName} of time windows
+     * @return {@link BucketReducer} which reduces time windows into the given summary
+     */
+    @NonNull
+    public static BucketReducer getReducer(@NonNull @Summary.SummaryName String summary) {
+        if (Summary.LAST.equals(summary)) return BucketReducer.LAST;
+        if (Summary.MIN.equals(summary)) return BucketReducer.MIN;
+        if (Summary.MAX.equals(summary)) return BucketReducer.MAX;
+        if (Summary.AVERAGE.equals(summary)) return BucketReducer.MEAN;
+        throw new IllegalStateException("Unsupported summary " + summary);
+    }
+}
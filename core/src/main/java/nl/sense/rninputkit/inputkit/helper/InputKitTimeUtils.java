@@ -0,0 +1,277 @@
+package nl.sense.rninputkit.inputkit.helper;
+
+import androidx.annotation.NonNull;
+
+import java.text.SimpleDateFormat;
+import java.util.Arrays;
+import java.util.Calendar;
+import java.util.Locale;
+import java.util.TimeZone;
+import java.util.concurrent.TimeUnit;
+
+import nl.sense.rninputkit.inputkit.entity.TimeInterval;
+
+/**
+ * Created by panjiyudasetya on 6/19/17.
+ */
+
+public class InputKitTimeUtils {
+    public static final long ONE_DAY = 24 * 60 * 60 * 1000;
+
+    private InputKitTimeUtils() {
+    }
+
+    /**
+     * Get minute difference between two timestamp values.
+     * @param timeStamp1 First timestamp
+     * @param timeStamp2 Second timestamp
+     * @return A minute difference
+     */
+    public static long getMinuteDiff(long timeStamp1, long timeStamp2) {
+        // Make sure to exclude milliseconds calculation
+        timeStamp1 = timeStamp1 / 1000 * 1000;
+        timeStamp2 = timeStamp2 / 1000 * 1000;
+        return Math.abs(TimeUnit.MILLISECONDS.toMinutes(timeStamp2 - timeStamp1));
+    }
+
+    /**
+     * Helper function to detect whether given start and end time are overlapping time window.
+     * @param startTime   Start time
+     * @param endTime     End time
+     * @param windowStart Start time of time window
+     * @param windowEnd   End time of time window
+     * @return True if overlapping time window, False otherwise.
+     */
+    public static boolean isOverlappingTimeWindow(long startTime,
+                                                  long endTime,
+                                                  long windowStart,
+                                                  long windowEnd) {
+        return (startTime < windowStart && endTime >= windowStart)
+                || (startTime < windowEnd && endTime >= windowEnd);
+    }
+
+    /**
+     * Helper function to detect whether given start and end time are within time window or not.
+     *
+     * @param startTime   Start time
+     * @param endTime     End time
+     * @param windowStart Start time of time window
+     * @param windowEnd   End time of time window
+     * @return True if within time window, False otherwise.
+     */
+    public static boolean isWithinTimeWindow(long startTime,
+                                             long endTime,
+                                             long windowStart,
+                                             long windowEnd) {
+        return isWithinTimeWindow(startTime, windowStart, windowEnd)
+                && isWithinTimeWindow(endTime, windowStart, windowEnd);
+    }
+
+    /**
+     * Check is a given time within time period or not.
+     * @param time1       Timestamp that needs to be checked
+     * @param windowStart Start time of time period
+     * @param windowEnd   End time of time period
+     * @return True if a given time within time period, False otherwise.
+     */
+    public static boolean isWithinTimeWindow(long time1, long windowStart, long windowEnd) {
+        return time1 >= windowStart && time1 < windowEnd;
+    }
+
+    /**
+     * Helper function to populate boundaries of time windows based on specific range and
+     * {@link TimeInterval}. Time windows are contiguous, so time window `i` is starting at
+     * `boundaries[i]` and ending at `boundaries[i + 1]`. No object is created per time window.
+     *
+     * @param startTime Start time
+     * @param endTime   End time
+     * @param interval  {@link TimeInterval}
+     * @return Time window boundaries. Number of time windows is `boundaries.length - 1`.
+     */
+    public static long[] populateTimeWindowBoundaries(long startTime,
+                                                      long endTime,
+                                                      @NonNull TimeInterval interval) {
+        return populateTimeWindowBoundaries(startTime, endTime, interval, TimeZone.getDefault());
+    }
+
+    /**
+     * Helper function to populate boundaries of time windows within specific {@link TimeZone},
+     * eg. time zone of the user rather than the one of the device.
+     *
+     * @param startTime Start time
+     * @param endTime   End time
+     * @param interval  {@link TimeInterval}
+     * @param timeZone  {@link TimeZone} of day based time windows
+     * @return Time window boundaries. Number of time windows is `boundaries.length - 1`.
+     */
+    public static long[] populateTimeWindowBoundaries(long startTime,
+                                                      long endTime,
+                                                      @NonNull TimeInterval interval,
+                                                      @NonNull TimeZone timeZone) {
+        validateTimeInput(startTime, endTime);
+
+        long[] boundaries = new long[estimateTimeWindowCount(startTime, endTime, interval) + 1];
+        int size = 0;
+        boundaries[size++] = startTime;
+        while (startTime < endTime) {
+            long relativeEndTime = computeTimeWindow(startTime, interval, timeZone);
+            if (relativeEndTime > endTime) relativeEndTime = endTime;
+            if (size == boundaries.length) {
+                boundaries = Arrays.copyOf(boundaries, size * 2);
+            }
+            boundaries[size++] = relativeEndTime;
+            startTime = relativeEndTime;
+        }
+        return size == boundaries.length ? boundaries : Arrays.copyOf(boundaries, size);
+    }
+
+    /**
+     * Helper function to compute time based on {@link TimeInterval}
+     *
+     * @param anchorTime Anchor time
+     * @param interval   {@link TimeInterval}
+     * @return Previous time of known end time
+     */
+    public static long computeTimeWindow(long anchorTime, @NonNull TimeInterval interval) {
+        return computeTimeWindow(anchorTime, interval, TimeZone.getDefault());
+    }
+
+    /**
+     * Helper function to compute time based on {@link TimeInterval} in a specific time zone.
+     * It gives the same result with {@link Calendar#add}, but no calendar is created.
+     * Minute and hour intervals have a fixed length, while day intervals keep the wall-clock
+     * time of anchor time across daylight saving transitions.
+     *
+     * @param anchorTime Anchor time
+     * @param interval   {@link TimeInterval}
+     * @param timeZone   Time zone of the day boundaries
+     * @return Previous time of known end time
+     */
+    public static long computeTimeWindow(long anchorTime,
+                                         @NonNull TimeInterval interval,
+                                         @NonNull TimeZone timeZone) {
+        if (interval.getTimeUnit().equals(TimeUnit.DAYS)) {
+            return addDays(anchorTime, interval.getValue(), timeZone);
+        } else if (interval.getTimeUnit().equals(TimeUnit.HOURS)
+                || interval.getTimeUnit().equals(TimeUnit.MINUTES)) {
+            return anchorTime + interval.getTimeUnit().toMillis(interval.getValue());
+        } else
+            throw new IllegalStateException("Unsupported Time Interval detected!\n" + interval.toString());
+    }
+
+    /**
+     * Add number of days into anchor time, the same way as {@link Calendar#add} does with
+     * {@link Calendar#DAY_OF_MONTH}. When the wall-clock time of anchor time doesn't exist
+     * on the target day, eg. it's skipped by daylight saving, the time is shifted by the offset
+     * difference instead.
+     *
+     * @param anchorTime Anchor time
+     * @param days       Number of days
+     * @param timeZone   Time zone of the day boundaries
+     * @return Anchor time of the target day
+     */
+    private static long addDays(long anchorTime, int days, @NonNull TimeZone timeZone) {
+        int anchorOffset = timeZone.getOffset(anchorTime);
+        long targetLocalTime = anchorTime + anchorOffset + days * ONE_DAY;
+        long time = targetLocalTime - anchorOffset;
+
+        int offset = timeZone.getOffset(time);
+        if (offset != anchorOffset) {
+            long adjustedTime = time + (anchorOffset - offset);
+            if (localDay(adjustedTime, timeZone) == floorDiv(targetLocalTime, ONE_DAY)) {
+                time = adjustedTime;
+            }
+        }
+        return time;
+    }
+
+    private static long localDay(long time, @NonNull TimeZone timeZone) {
+        return floorDiv(time + timeZone.getOffset(time), ONE_DAY);
+    }
+
+    private static long floorDiv(long x, long y) {
+        long q = x / y;
+        return (x % y != 0 && ((x ^ y) < 0)) ? q - 1 : q;
+    }
+
+    /**
+     * Estimate number of time windows in a range, eg. to presize the output.
+     *
+     * @param startTime Start time
+     * @param endTime   End time
+     * @param interval  {@link TimeInterval}
+     * @return Estimated number of time windows
+     */
+    private static int estimateTimeWindowCount(long startTime,
+                                               long endTime,
+                                               @NonNull TimeInterval interval) {
+        long length = interval.getTimeUnit().toMillis(interval.getValue());
+        if (length <= 0) return 16;
+        // Day windows may be an hour shorter due to daylight saving
+        return (int) Math.min(Integer.MAX_VALUE - 1, (endTime - startTime) / length + 2);
+    }
+
+    /**
+     * get epoch time of today in current time zone
+     */
+    public static long getTodayStartTime() {
+        Calendar today = Calendar.getInstance();
+        today.set(Calendar.HOUR_OF_DAY, 0);
+        today.set(Calendar.MINUTE, 0);
+        today.set(Calendar.SECOND, 0);
+        today.set(Calendar.MILLISECOND, 0);
+        return today.getTimeInMillis();
+    }
+
+    /**
+     * Helper function to validate input time.
+     *
+     * @param startTime Given start time
+     * @param endTime   Given end time
+     * @throws {@link IllegalStateException}
+     */
+    private static void validateTimeInput(long startTime, long endTime) {
+        if (!isValidTimePeriod(startTime, endTime)) {
+            throw new IllegalStateException("Start time and end time should be greater than 0!");
+        }
+        if (!isValidStartTime(startTime, endTime)) {
+            throw new IllegalStateException("Start time should less or equals than end time!");
+        }
+    }
+
+    /**
+     * Validate time period.
+     *
+     * @param startTime Given start time
+     * @param endTime   Given end time
+     * @return True if valid, false otherwise.
+     */
+    public static boolean isValidTimePeriod(long startTime, long endTime) {
+        return (startTime > 0 && endTime > 0);
+    }
+
+    /**
+     * Validate start time value.
+     *
+     * @param startTime Given start time
+     * @param endTime   Given end time
+     * @return True if valid, false otherwise.
+     */
+    public static boolean isValidStartTime(long startTime, long endTime) {
+        return startTime <= endTime;
+    }
+
+    /**
+     * Helper function to convert time in human readable format
+     *
+     * @param stamp Given start time
+     *              example output : 02-Oct-2017 12:30:00
+     */
+    public static String timeStampToString(long stamp) {
+        final String TIME_FORMAT = "dd-MMM-yyyy HH:mm:ss";
+        Calendar c = Calendar.getInstance();
+        c.setTimeInMillis(stamp);
+        SimpleDateFormat dateFormat = new SimpleDateFormat(TIME_FORMAT, Locale.US);
+        return dateFormat.format(c.getTime());
+    }
+}
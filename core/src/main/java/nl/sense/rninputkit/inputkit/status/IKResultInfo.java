@@ -1,7 +1,6 @@
 package nl.sense.rninputkit.inputkit.status;
 
 import androidx.annotation.NonNull;
-import android.text.TextUtils;
 
 /**
  * Created by panjiyudasetya on 10/12/17.
@@ -19,7 +18,7 @@ public class IKResultInfo {
 
     public IKResultInfo(int resultCode, @NonNull String message) {
         this.resultCode = resultCode;
-        this.message = TextUtils.isEmpty(message)
+        this.message = message == null || message.isEmpty()
             ? defaultMessage
             : message;
     }
@@ -0,0 +1,29 @@
+package nl.sense.rninputkit.inputkit.constant;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Only known interval names are valid, unknown ones aren't mapped to any interval.
+ */
+public class IntervalTest {
+    @Test
+    public void knownIntervalsAreValid() {
+        assertTrue(Interval.isValid(Interval.ONE_WEEK));
+        assertTrue(Interval.isValid(Interval.ONE_DAY));
+        assertTrue(Interval.isValid(Interval.AN_HOUR));
+        assertTrue(Interval.isValid(Interval.HALF_HOUR));
+        assertTrue(Interval.isValid(Interval.TEN_MINUTE));
+        assertTrue(Interval.isValid(Interval.ONE_MINUTE));
+    }
+
+    @Test
+    public void unknownIntervalsAreInvalid() {
+        assertFalse(Interval.isValid(null));
+        assertFalse(Interval.isValid(""));
+        assertFalse(Interval.isValid("month"));
+        assertFalse(Interval.isValid("Day"));
+    }
+}
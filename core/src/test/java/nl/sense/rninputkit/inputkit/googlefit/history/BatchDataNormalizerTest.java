@@ -0,0 +1,162 @@
+package nl.sense.rninputkit.inputkit.googlefit.history;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import nl.sense.rninputkit.inputkit.constant.Interval;
+import nl.sense.rninputkit.inputkit.entity.DateContent;
+import nl.sense.rninputkit.inputkit.entity.FloatTimeSeries;
+import nl.sense.rninputkit.inputkit.entity.IKValue;
+import nl.sense.rninputkit.inputkit.entity.IntTimeSeries;
+import nl.sense.rninputkit.inputkit.entity.TimeInterval;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Normalization of many series on a fixed thread pool by {@link BatchDataNormalizer}.
+ */
+public class BatchDataNormalizerTest {
+    private static final long ONE_MINUTE = TimeUnit.MINUTES.toMillis(1);
+    private static final int SERIES = 24;
+    private static final int FAILING_SERIES = 7;
+    private static final String[] INTERVALS = {
+            Interval.TEN_MINUTE,
+            Interval.AN_HOUR,
+            Interval.ONE_DAY
+    };
+
+    private final ExecutorService executor = Executors.newFixedThreadPool(4);
+    private final BatchDataNormalizer batchNormalizer = new BatchDataNormalizer(executor);
+    private final DataNormalizer<Integer> legacyInt = new DataNormalizer<Integer>() {
+        @Override
+        protected void setValueItems(@NonNull IKValue<Integer> currentItem,
+                                     @Nullable IKValue<Integer> nextItem,
+                                     @NonNull List<IKValue<Integer>> sourceValues,
+                                     @NonNull OverlapState overlapState) {
+            setAsInt(currentItem, nextItem, sourceValues, overlapState);
+        }
+    };
+
+    @After
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void intSeriesMatchSingleNormalization() throws Exception {
+        List<BatchDataNormalizer.Request<IntTimeSeries>> requests = new ArrayList<>(SERIES);
+        for (int i = 0; i < SERIES; i++) {
+            IntTimeSeries values = DataNormalizerParityTest.generate(50 + 20 * i, i);
+            long startTime = values.getStartTime(0) / ONE_MINUTE * ONE_MINUTE;
+            long endTime = values.getEndTime(values.size() - 1) + ONE_MINUTE;
+            requests.add(new BatchDataNormalizer.Request.Builder<IntTimeSeries>()
+                    .id("user " + i)
+                    // invalid time period
+                    .startTime(i == FAILING_SERIES ? endTime : startTime)
+                    .endTime(i == FAILING_SERIES ? startTime : endTime)
+                    .values(values)
+                    .timeInterval(new TimeInterval(INTERVALS[i % INTERVALS.length]))
+                    .build());
+        }
+
+        BatchDataNormalizer.BatchResult<IntTimeSeries> batch = batchNormalizer.normalizeInt(requests);
+        assertEquals(SERIES, batch.getResults().size());
+        assertEquals(1, batch.getFailureCount());
+
+        IntDataNormalizer normalizer = new IntDataNormalizer();
+        long bucketCount = 0;
+        for (int i = 0; i < SERIES; i++) {
+            BatchDataNormalizer.Normalized<IntTimeSeries> result = batch.getResults().get(i);
+            BatchDataNormalizer.Request<IntTimeSeries> request = requests.get(i);
+            assertSame(request, result.getRequest());
+            if (i == FAILING_SERIES) {
+                // Failure is isolated on its own result
+                assertFalse(result.isSuccessful());
+                assertNull(result.getSeries());
+                assertTrue(result.getException() instanceof IllegalStateException);
+                continue;
+            }
+
+            assertTrue(result.isSuccessful());
+            IntTimeSeries series = result.getSeries();
+            assertNotNull(series);
+            IntTimeSeries expected = normalizer.normalize(request.getStartTime(),
+                    request.getEndTime(), request.getValues(), request.getInterval());
+            List<IKValue<Integer>> legacy = legacyInt.normalize(request.getStartTime(),
+                    request.getEndTime(), toIKValues(request.getValues()),
+                    request.getInterval());
+            assertEquals(expected.size(), series.size());
+            assertEquals(legacy.size(), series.size());
+            for (int j = 0; j < series.size(); j++) {
+                assertEquals(expected.getStartTime(j), series.getStartTime(j));
+                assertEquals(expected.getEndTime(j), series.getEndTime(j));
+                assertEquals(request.getId() + " window " + j,
+                        expected.getValue(j), series.getValue(j));
+                assertEquals(legacy.get(j).getValue().intValue(), series.getValue(j));
+            }
+            bucketCount += series.size();
+        }
+        assertEquals(bucketCount, batch.getBucketCount());
+    }
+
+    @Test
+    public void floatSeriesMatchSingleNormalization() throws Exception {
+        List<BatchDataNormalizer.Request<FloatTimeSeries>> requests = new ArrayList<>(SERIES);
+        for (int i = 0; i < SERIES; i++) {
+            IntTimeSeries steps = DataNormalizerParityTest.generate(100, 100 + i);
+            FloatTimeSeries values = new FloatTimeSeries(steps.size());
+            for (int j = 0; j < steps.size(); j++) {
+                values.add(steps.getStartTime(j), steps.getEndTime(j), steps.getValue(j) * 0.7f);
+            }
+            requests.add(new BatchDataNormalizer.Request.Builder<FloatTimeSeries>()
+                    .id("user " + i)
+                    .startTime(values.getStartTime(0) / ONE_MINUTE * ONE_MINUTE)
+                    .endTime(values.getEndTime(values.size() - 1) + ONE_MINUTE)
+                    .values(values)
+                    .timeInterval(new TimeInterval(INTERVALS[i % INTERVALS.length]))
+                    .build());
+        }
+
+        BatchDataNormalizer.BatchResult<FloatTimeSeries> batch =
+                batchNormalizer.normalizeFloat(requests);
+        assertEquals(0, batch.getFailureCount());
+
+        FloatDataNormalizer normalizer = new FloatDataNormalizer();
+        for (int i = 0; i < SERIES; i++) {
+            BatchDataNormalizer.Request<FloatTimeSeries> request = requests.get(i);
+            assertSame(request, batch.getResults().get(i).getRequest());
+            FloatTimeSeries series = batch.getResults().get(i).getSeries();
+            FloatTimeSeries expected = normalizer.normalize(request.getStartTime(),
+                    request.getEndTime(), request.getValues(), request.getInterval());
+            assertEquals(expected.size(), series.size());
+            for (int j = 0; j < series.size(); j++) {
+                assertEquals(expected.getValue(j), series.getValue(j), 0f);
+            }
+        }
+    }
+
+    @NonNull
+    private static List<IKValue<Integer>> toIKValues(@NonNull IntTimeSeries series) {
+        List<IKValue<Integer>> values = new ArrayList<>(series.size());
+        for (int i = 0; i < series.size(); i++) {
+            values.add(new IKValue<>(series.getValue(i),
+                    new DateContent(series.getStartTime(i)),
+                    new DateContent(series.getEndTime(i))));
+        }
+        return values;
+    }
+}
@@ -0,0 +1,232 @@
+package nl.sense.rninputkit.inputkit.googlefit.history;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import nl.sense.rninputkit.inputkit.constant.Interval;
+import nl.sense.rninputkit.inputkit.entity.DateContent;
+import nl.sense.rninputkit.inputkit.entity.FloatTimeSeries;
+import nl.sense.rninputkit.inputkit.entity.IKValue;
+import nl.sense.rninputkit.inputkit.entity.IntTimeSeries;
+import nl.sense.rninputkit.inputkit.entity.TimeInterval;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Parity of the single pass normalizers with the `setAsInt` and `setAsFloat` distribution of
+ * {@link DataNormalizer}, which is the reference implementation of rounding and overlap splitting.
+ */
+public class DataNormalizerParityTest {
+    /** 2019-01-01T00:00:00Z */
+    private static final long START_TIME = 1546300800000L;
+    private static final long ONE_MINUTE = TimeUnit.MINUTES.toMillis(1);
+    private static final long TEN_MINUTES = TimeUnit.MINUTES.toMillis(10);
+
+    private final DataNormalizer<Integer> legacyInt = new DataNormalizer<Integer>() {
+        @Override
+        protected void setValueItems(@NonNull IKValue<Integer> currentItem,
+                                     @Nullable IKValue<Integer> nextItem,
+                                     @NonNull List<IKValue<Integer>> sourceValues,
+                                     @NonNull OverlapState overlapState) {
+            setAsInt(currentItem, nextItem, sourceValues, overlapState);
+        }
+    };
+    private final DataNormalizer<Float> legacyFloat = new DataNormalizer<Float>() {
+        @Override
+        protected void setValueItems(@NonNull IKValue<Float> currentItem,
+                                     @Nullable IKValue<Float> nextItem,
+                                     @NonNull List<IKValue<Float>> sourceValues,
+                                     @NonNull OverlapState overlapState) {
+            setAsFloat(currentItem, nextItem, sourceValues, overlapState);
+        }
+    };
+    private final IntDataNormalizer intNormalizer = new IntDataNormalizer();
+    private final FloatDataNormalizer floatNormalizer = new FloatDataNormalizer();
+
+    @Test
+    public void emptySourceValues() {
+        IntTimeSeries series = new IntTimeSeries();
+        assertParity(START_TIME, START_TIME + TimeUnit.HOURS.toMillis(1), series,
+                Interval.TEN_MINUTE);
+    }
+
+    @Test
+    public void valuesWithinTimeWindows() {
+        IntTimeSeries series = new IntTimeSeries();
+        series.add(START_TIME + ONE_MINUTE, START_TIME + 2 * ONE_MINUTE, 40);
+        series.add(START_TIME + 3 * ONE_MINUTE, START_TIME + 5 * ONE_MINUTE, 75);
+        series.add(START_TIME + TEN_MINUTES + ONE_MINUTE, START_TIME + TEN_MINUTES + 4 * ONE_MINUTE, 12);
+        assertParity(START_TIME, START_TIME + TimeUnit.HOURS.toMillis(1), series,
+                Interval.TEN_MINUTE);
+    }
+
+    @Test
+    public void valuesStraddlingBoundaries() {
+        IntTimeSeries series = new IntTimeSeries();
+        // crosses a single boundary
+        series.add(START_TIME + 8 * ONE_MINUTE, START_TIME + 13 * ONE_MINUTE, 101);
+        // ends exactly at a boundary
+        series.add(START_TIME + 17 * ONE_MINUTE, START_TIME + 2 * TEN_MINUTES, 33);
+        // starts exactly at a boundary
+        series.add(START_TIME + 2 * TEN_MINUTES, START_TIME + 2 * TEN_MINUTES + ONE_MINUTE, 7);
+        // spans a whole time window and crosses two boundaries
+        series.add(START_TIME + 29 * ONE_MINUTE, START_TIME + 41 * ONE_MINUTE + 30000L, 260);
+        // crosses a boundary within milliseconds
+        series.add(START_TIME + 5 * TEN_MINUTES - 400L, START_TIME + 5 * TEN_MINUTES + 300L, 3);
+        assertParity(START_TIME, START_TIME + TimeUnit.HOURS.toMillis(1), series,
+                Interval.TEN_MINUTE);
+    }
+
+    @Test
+    public void overlappingValues() {
+        IntTimeSeries series = new IntTimeSeries();
+        // source values overlapping each other, as several Fit data sources do
+        series.add(START_TIME + 2 * ONE_MINUTE, START_TIME + 12 * ONE_MINUTE, 150);
+        series.add(START_TIME + 5 * ONE_MINUTE, START_TIME + 11 * ONE_MINUTE, 90);
+        series.add(START_TIME + 9 * ONE_MINUTE, START_TIME + 14 * ONE_MINUTE, 64);
+        series.add(START_TIME + 9 * ONE_MINUTE, START_TIME + 10 * ONE_MINUTE, 20);
+        assertParity(START_TIME, START_TIME + TimeUnit.HOURS.toMillis(1), series,
+                Interval.TEN_MINUTE);
+    }
+
+    @Test
+    public void unsortedValues() {
+        IntTimeSeries sorted = generate(500, 7);
+        List<Integer> order = new ArrayList<>(sorted.size());
+        for (int i = 0; i < sorted.size(); i++) {
+            order.add(i);
+        }
+        Collections.shuffle(order, new Random(11));
+
+        IntTimeSeries shuffled = new IntTimeSeries(sorted.size());
+        for (int index : order) {
+            shuffled.add(sorted.getStartTime(index), sorted.getEndTime(index),
+                    sorted.getValue(index));
+        }
+        long endTime = sorted.getEndTime(sorted.size() - 1) + ONE_MINUTE;
+        assertParity(START_TIME, endTime, shuffled, Interval.TEN_MINUTE);
+        assertParity(START_TIME, endTime, shuffled, Interval.AN_HOUR);
+    }
+
+    @Test
+    public void generatedValuesOfEveryInterval() {
+        IntTimeSeries series = generate(3000, 42);
+        long endTime = series.getEndTime(series.size() - 1) + ONE_MINUTE;
+        String[] intervals = {
+                Interval.ONE_MINUTE,
+                Interval.TEN_MINUTE,
+                Interval.HALF_HOUR,
+                Interval.AN_HOUR,
+                Interval.ONE_DAY,
+                Interval.ONE_WEEK
+        };
+        for (String interval : intervals) {
+            assertParity(START_TIME, endTime, series, interval);
+        }
+    }
+
+    @Test
+    public void sourceValuesCanBeNormalizedTwice() {
+        IntTimeSeries series = generate(200, 3);
+        long endTime = series.getEndTime(series.size() - 1) + ONE_MINUTE;
+        List<IKValue<Integer>> values = toIKValues(series);
+        List<IKValue<Integer>> first = legacyInt.normalize(START_TIME, endTime, values,
+                new TimeInterval(Interval.TEN_MINUTE));
+        List<IKValue<Integer>> second = legacyInt.normalize(START_TIME, endTime, values,
+                new TimeInterval(Interval.TEN_MINUTE));
+        assertEquals(first.size(), second.size());
+        for (int i = 0; i < first.size(); i++) {
+            assertEquals(first.get(i).getValue(), second.get(i).getValue());
+        }
+    }
+
+    private void assertParity(long startTime,
+                              long endTime,
+                              @NonNull IntTimeSeries series,
+                              @NonNull String interval) {
+        TimeInterval timeInterval = new TimeInterval(interval);
+
+        List<IKValue<Integer>> expectedInts = legacyInt.normalize(startTime, endTime,
+                toIKValues(series), timeInterval);
+        IntTimeSeries actualInts = intNormalizer.normalize(startTime, endTime, series,
+                timeInterval);
+        assertEquals(interval, expectedInts.size(), actualInts.size());
+        for (int i = 0; i < expectedInts.size(); i++) {
+            IKValue<Integer> expected = expectedInts.get(i);
+            assertEquals(expected.getStartDate().getEpoch(), actualInts.getStartTime(i));
+            assertEquals(expected.getEndDate().getEpoch(), actualInts.getEndTime(i));
+            assertEquals(interval + " window " + i,
+                    expected.getValue().intValue(), actualInts.getValue(i));
+        }
+
+        FloatTimeSeries floats = toFloatTimeSeries(series);
+        List<IKValue<Float>> expectedFloats = legacyFloat.normalize(startTime, endTime,
+                toFloatIKValues(floats), timeInterval);
+        FloatTimeSeries actualFloats = floatNormalizer.normalize(startTime, endTime, floats,
+                timeInterval);
+        assertEquals(interval, expectedFloats.size(), actualFloats.size());
+        for (int i = 0; i < expectedFloats.size(); i++) {
+            assertEquals(interval + " window " + i,
+                    expectedFloats.get(i).getValue(), actualFloats.getValue(i), 1e-3f);
+        }
+    }
+
+    /**
+     * Step count shaped like step deltas of Fit : mostly one minute long samples, some of them
+     * spanning a few minutes, with idle gaps and sub-minute offsets.
+     */
+    @NonNull
+    static IntTimeSeries generate(int size, long seed) {
+        Random random = new Random(seed);
+        IntTimeSeries series = new IntTimeSeries(size);
+        long time = START_TIME;
+        for (int i = 0; i < size; i++) {
+            time += random.nextInt(4) * ONE_MINUTE;
+            long length = random.nextInt(10) == 0
+                    ? (2 + random.nextInt(4)) * ONE_MINUTE : ONE_MINUTE;
+            long startTime = time + random.nextInt(30) * 1000L;
+            series.add(startTime, startTime + length, random.nextInt(180));
+            time = startTime + length;
+        }
+        return series;
+    }
+
+    @NonNull
+    private static List<IKValue<Integer>> toIKValues(@NonNull IntTimeSeries series) {
+        List<IKValue<Integer>> values = new ArrayList<>(series.size());
+        for (int i = 0; i < series.size(); i++) {
+            values.add(new IKValue<>(series.getValue(i),
+                    new DateContent(series.getStartTime(i)),
+                    new DateContent(series.getEndTime(i))));
+        }
+        return values;
+    }
+
+    @NonNull
+    private static FloatTimeSeries toFloatTimeSeries(@NonNull IntTimeSeries series) {
+        FloatTimeSeries floats = new FloatTimeSeries(series.size());
+        for (int i = 0; i < series.size(); i++) {
+            floats.add(series.getStartTime(i), series.getEndTime(i), series.getValue(i) * 0.7f);
+        }
+        return floats;
+    }
+
+    @NonNull
+    private static List<IKValue<Float>> toFloatIKValues(@NonNull FloatTimeSeries series) {
+        List<IKValue<Float>> values = new ArrayList<>(series.size());
+        for (int i = 0; i < series.size(); i++) {
+            values.add(new IKValue<>(series.getValue(i),
+                    new DateContent(series.getStartTime(i)),
+                    new DateContent(series.getEndTime(i))));
+        }
+        return values;
+    }
+}
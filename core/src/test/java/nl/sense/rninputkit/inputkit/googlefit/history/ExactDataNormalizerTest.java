@@ -0,0 +1,153 @@
+package nl.sense.rninputkit.inputkit.googlefit.history;
+
+import androidx.annotation.NonNull;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.TimeZone;
+import java.util.concurrent.TimeUnit;
+
+import nl.sense.rninputkit.inputkit.constant.Interval;
+import nl.sense.rninputkit.inputkit.entity.FloatTimeSeries;
+import nl.sense.rninputkit.inputkit.entity.IntTimeSeries;
+import nl.sense.rninputkit.inputkit.entity.TimeInterval;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Millisecond distribution of {@link ExactDataNormalizer}: shares of split source values add up
+ * to the source values, and minute aligned source values are distributed as in minute mode.
+ */
+public class ExactDataNormalizerTest {
+    private static final TimeZone UTC = TimeZone.getTimeZone("UTC");
+    /** 2019-01-01T00:00:00Z */
+    private static final long START_TIME = 1546300800000L;
+    private static final long ONE_MINUTE = TimeUnit.MINUTES.toMillis(1);
+    private static final long TEN_MINUTES = TimeUnit.MINUTES.toMillis(10);
+
+    private final ExactDataNormalizer exactNormalizer = new ExactDataNormalizer();
+    private final IntDataNormalizer intNormalizer = new IntDataNormalizer();
+
+    @Test
+    public void sharesOfSplitValueAddUpToValue() {
+        IntTimeSeries series = new IntTimeSeries();
+        // spans five time windows, with sub minute offsets at both ends
+        series.add(START_TIME + 7 * ONE_MINUTE + 1234L, START_TIME + 49 * ONE_MINUTE + 17L, 997);
+        IntTimeSeries normalized = normalize(START_TIME, START_TIME + TimeUnit.HOURS.toMillis(1),
+                series, Interval.TEN_MINUTE);
+
+        assertEquals(997, normalized.getTotal());
+        for (int i = 0; i < normalized.size(); i++) {
+            // every share is proportional to the overlap, within rounding
+            long from = Math.max(START_TIME + 7 * ONE_MINUTE + 1234L, normalized.getStartTime(i));
+            long to = Math.min(START_TIME + 49 * ONE_MINUTE + 17L, normalized.getEndTime(i));
+            double expected = Math.max(0, to - from) * 997d / (42 * ONE_MINUTE - 1217L);
+            assertEquals("window " + i, expected, normalized.getValue(i), 1d);
+        }
+    }
+
+    @Test
+    public void totalIsKeptAcrossSplitValues() {
+        IntTimeSeries series = DataNormalizerParityTest.generate(3000, 17);
+        // some long source values which are split across many time windows
+        long endTime = series.getEndTime(series.size() - 1);
+        series.add(START_TIME + 3 * ONE_MINUTE + 500L, START_TIME + 95 * ONE_MINUTE, 4321);
+        series.add(START_TIME + TimeUnit.HOURS.toMillis(20) + 7L,
+                START_TIME + TimeUnit.HOURS.toMillis(26) + 3L, 12345);
+        endTime = Math.max(endTime, series.getEndTime(series.size() - 1)) + ONE_MINUTE;
+
+        String[] intervals = {
+                Interval.ONE_MINUTE,
+                Interval.TEN_MINUTE,
+                Interval.HALF_HOUR,
+                Interval.AN_HOUR,
+                Interval.ONE_DAY
+        };
+        for (String interval : intervals) {
+            assertEquals(interval, series.getTotal(),
+                    normalize(START_TIME, endTime, series, interval).getTotal());
+
+            FloatTimeSeries floats = toFloatTimeSeries(series);
+            FloatTimeSeries normalized = exactNormalizer.normalize(START_TIME, endTime,
+                    floats.getStartTimes(), floats.getEndTimes(), floats.getValues(),
+                    floats.size(), new TimeInterval(interval), UTC);
+            // totals of about 200k are summed up in float
+            assertEquals(interval, floats.getTotal(), normalized.getTotal(),
+                    floats.getTotal() * 1e-5f);
+        }
+    }
+
+    @Test
+    public void minuteAlignedValuesMatchMinuteMode() {
+        // Minute mode only splits a value into the current and the next time window
+        assertMinuteModeParity(generateMinuteAligned(1), Interval.ONE_MINUTE);
+        IntTimeSeries series = generateMinuteAligned(5);
+        assertMinuteModeParity(series, Interval.TEN_MINUTE);
+        assertMinuteModeParity(series, Interval.HALF_HOUR);
+        assertMinuteModeParity(series, Interval.AN_HOUR);
+        assertMinuteModeParity(series, Interval.ONE_DAY);
+    }
+
+    @Test
+    public void valuesOutsideOfRangeAreLeftOut() {
+        IntTimeSeries series = new IntTimeSeries();
+        // half of it is before the requested range
+        series.add(START_TIME - 5 * ONE_MINUTE, START_TIME + 5 * ONE_MINUTE, 100);
+        series.add(START_TIME + TEN_MINUTES, START_TIME + TEN_MINUTES, 8);
+        IntTimeSeries normalized = normalize(START_TIME, START_TIME + 2 * TEN_MINUTES, series,
+                Interval.TEN_MINUTE);
+        assertArrayEquals(new int[] {50, 8}, Arrays.copyOf(normalized.getValues(), 2));
+    }
+
+    private void assertMinuteModeParity(@NonNull IntTimeSeries series, @NonNull String interval) {
+        long endTime = series.getEndTime(series.size() - 1) + ONE_MINUTE;
+        IntTimeSeries minuteMode = intNormalizer.normalize(START_TIME, endTime,
+                series.getStartTimes(), series.getEndTimes(), series.getValues(),
+                series.size(), new TimeInterval(interval), UTC);
+        IntTimeSeries exact = normalize(START_TIME, endTime, series, interval);
+        assertEquals(interval, minuteMode.size(), exact.size());
+        assertArrayEquals(interval,
+                Arrays.copyOf(minuteMode.getValues(), minuteMode.size()),
+                Arrays.copyOf(exact.getValues(), exact.size()));
+    }
+
+    /**
+     * Source values of whole minutes, whose value per minute is a whole number, so shares of
+     * whole minutes don't need to be rounded in either mode.
+     */
+    @NonNull
+    private static IntTimeSeries generateMinuteAligned(int maxMinutes) {
+        Random random = new Random(23);
+        IntTimeSeries series = new IntTimeSeries();
+        long time = START_TIME;
+        for (int i = 0; i < 2000; i++) {
+            time += random.nextInt(4) * ONE_MINUTE;
+            int minutes = 1 + random.nextInt(maxMinutes);
+            series.add(time, time + minutes * ONE_MINUTE, minutes * random.nextInt(40));
+            time += minutes * ONE_MINUTE;
+        }
+        return series;
+    }
+
+    @NonNull
+    private IntTimeSeries normalize(long startTime,
+                                    long endTime,
+                                    @NonNull IntTimeSeries series,
+                                    @NonNull String interval) {
+        return exactNormalizer.normalize(startTime, endTime, series.getStartTimes(),
+                series.getEndTimes(), series.getValues(), series.size(),
+                new TimeInterval(interval), UTC);
+    }
+
+    @NonNull
+    private static FloatTimeSeries toFloatTimeSeries(@NonNull IntTimeSeries series) {
+        FloatTimeSeries floats = new FloatTimeSeries(series.size());
+        for (int i = 0; i < series.size(); i++) {
+            floats.add(series.getStartTime(i), series.getEndTime(i), series.getValue(i) * 0.7f);
+        }
+        return floats;
+    }
+}
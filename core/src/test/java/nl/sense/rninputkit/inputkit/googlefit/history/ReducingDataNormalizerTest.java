@@ -0,0 +1,160 @@
+package nl.sense.rninputkit.inputkit.googlefit.history;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.TimeZone;
+import java.util.concurrent.TimeUnit;
+
+import nl.sense.rninputkit.inputkit.constant.Interval;
+import nl.sense.rninputkit.inputkit.entity.FloatTimeSeries;
+import nl.sense.rninputkit.inputkit.entity.IntTimeSeries;
+import nl.sense.rninputkit.inputkit.entity.TimeInterval;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Reduction of time windows by every {@link BucketReducer} of {@link ReducingDataNormalizer}.
+ */
+public class ReducingDataNormalizerTest {
+    /** 2019-01-01T00:00:00Z */
+    private static final long START_TIME = 1546300800000L;
+    private static final long ONE_MINUTE = TimeUnit.MINUTES.toMillis(1);
+    private static final long TEN_MINUTES = TimeUnit.MINUTES.toMillis(10);
+    private static final long ONE_HOUR = TimeUnit.HOURS.toMillis(1);
+    private static final TimeZone UTC = TimeZone.getTimeZone("UTC");
+    private static final TimeInterval INTERVAL = new TimeInterval(Interval.TEN_MINUTE);
+    private static final String[] INTERVALS = {
+            Interval.TEN_MINUTE,
+            Interval.AN_HOUR,
+            Interval.ONE_DAY
+    };
+
+    private final ReducingDataNormalizer normalizer = new ReducingDataNormalizer();
+
+    @Test
+    public void sumProportionalMatchesFloatDataNormalizer() {
+        FloatDataNormalizer floatNormalizer = new FloatDataNormalizer();
+        for (String interval : INTERVALS) {
+            FloatTimeSeries values = toFloat(DataNormalizerParityTest.generate(500, 7));
+            long startTime = values.getStartTime(0) / ONE_MINUTE * ONE_MINUTE;
+            long endTime = values.getEndTime(values.size() - 1) + ONE_MINUTE;
+            TimeInterval timeInterval = new TimeInterval(interval);
+
+            FloatTimeSeries expected = floatNormalizer.normalize(startTime, endTime,
+                    values.getStartTimes(), values.getEndTimes(), values.getValues(),
+                    values.size(), timeInterval, UTC);
+            FloatTimeSeries reduced = normalizer.normalize(startTime, endTime, values,
+                    timeInterval, BucketReducer.SUM_PROPORTIONAL, UTC);
+            assertSeriesEquals(interval, expected, reduced);
+        }
+    }
+
+    @Test
+    public void valuesAreReducedIntoWindowOfTheirStartTime() {
+        FloatTimeSeries values = new FloatTimeSeries();
+        values.add(START_TIME, START_TIME + ONE_MINUTE, 5f);
+        values.add(START_TIME + 2 * ONE_MINUTE, START_TIME + 4 * ONE_MINUTE, 3f);
+        // Both of them end the latest, the first one wins
+        values.add(START_TIME + 4 * ONE_MINUTE, START_TIME + 6 * ONE_MINUTE, 9f);
+        values.add(START_TIME + 5 * ONE_MINUTE, START_TIME + 6 * ONE_MINUTE, 1f);
+        // Second window is empty, the value of the third one overlaps the fourth window
+        values.add(START_TIME + 28 * ONE_MINUTE, START_TIME + 35 * ONE_MINUTE, 7f);
+        long endTime = START_TIME + 4 * TEN_MINUTES;
+
+        assertValues(reduce(values, endTime, BucketReducer.SUM_BY_START),
+                new long[] {0, 1, 2, 3}, 18f, 0f, 7f, 0f);
+        // Empty windows are left out of sparse reducers
+        assertValues(reduce(values, endTime, BucketReducer.MIN), new long[] {0, 2}, 1f, 7f);
+        assertValues(reduce(values, endTime, BucketReducer.MAX), new long[] {0, 2}, 9f, 7f);
+        assertValues(reduce(values, endTime, BucketReducer.MEAN), new long[] {0, 2}, 4.5f, 7f);
+        assertValues(reduce(values, endTime, BucketReducer.LAST), new long[] {0, 2}, 9f, 7f);
+    }
+
+    @Test
+    public void histogramValueOnEdgeBelongsToUpperBin() {
+        FloatTimeSeries values = new FloatTimeSeries();
+        float[] weights = {5f, 10f, 15f, 20f, 25f};
+        for (int i = 0; i < weights.length; i++) {
+            long time = START_TIME + i * ONE_MINUTE;
+            values.add(time, time + ONE_MINUTE, weights[i]);
+        }
+
+        // Every window holds a value of each bin, including the empty one
+        FloatTimeSeries histogram = reduce(values, START_TIME + 2 * TEN_MINUTES,
+                BucketReducer.histogram(10f, 20f));
+        assertValues(histogram, new long[] {0, 0, 0, 1, 1, 1}, 1f, 2f, 2f, 0f, 0f, 0f);
+    }
+
+    @Test
+    public void unsortedValuesAreReducedAsSortedOnes() {
+        IntTimeSeries steps = DataNormalizerParityTest.generate(400, 11);
+        FloatTimeSeries sorted = toFloat(steps);
+        List<Integer> order = new ArrayList<>(steps.size());
+        for (int i = 0; i < steps.size(); i++) {
+            order.add(i);
+        }
+        Collections.shuffle(order, new Random(3));
+        FloatTimeSeries shuffled = new FloatTimeSeries(steps.size());
+        for (int i : order) {
+            shuffled.add(sorted.getStartTime(i), sorted.getEndTime(i), sorted.getValue(i));
+        }
+        // Values before and after the requested time period are dropped
+        shuffled.add(START_TIME - ONE_HOUR, START_TIME - ONE_HOUR + ONE_MINUTE, 1000f);
+        shuffled.add(START_TIME + 100 * ONE_HOUR, START_TIME + 100 * ONE_HOUR + ONE_MINUTE, 1000f);
+
+        long endTime = sorted.getEndTime(sorted.size() - 1) / TEN_MINUTES * TEN_MINUTES
+                + TEN_MINUTES;
+        BucketReducer[] reducers = {
+                BucketReducer.SUM_BY_START,
+                BucketReducer.MIN,
+                BucketReducer.MAX,
+                BucketReducer.MEAN,
+                BucketReducer.LAST,
+                BucketReducer.histogram(30f, 90f, 150f)
+        };
+        for (int i = 0; i < reducers.length; i++) {
+            assertSeriesEquals("reducer " + i, reduce(sorted, endTime, reducers[i]),
+                    reduce(shuffled, endTime, reducers[i]));
+        }
+    }
+
+    private FloatTimeSeries reduce(FloatTimeSeries values, long endTime, BucketReducer reducer) {
+        return normalizer.normalize(START_TIME, endTime, values, INTERVAL, reducer, UTC);
+    }
+
+    /**
+     * Assert reduced values, where every value is a sample of the given ten minute window.
+     */
+    private static void assertValues(FloatTimeSeries series, long[] windows, float... values) {
+        assertEquals(values.length, series.size());
+        for (int i = 0; i < values.length; i++) {
+            assertEquals(START_TIME + windows[i] * TEN_MINUTES, series.getStartTime(i));
+            assertEquals(START_TIME + (windows[i] + 1) * TEN_MINUTES, series.getEndTime(i));
+            assertEquals("sample " + i, values[i], series.getValue(i), 1e-4f);
+        }
+    }
+
+    private static void assertSeriesEquals(String message,
+                                           FloatTimeSeries expected,
+                                           FloatTimeSeries actual) {
+        assertEquals(message, expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals(message, expected.getStartTime(i), actual.getStartTime(i));
+            assertEquals(message, expected.getEndTime(i), actual.getEndTime(i));
+            assertEquals(message + " window " + i, expected.getValue(i), actual.getValue(i),
+                    1e-3f);
+        }
+    }
+
+    private static FloatTimeSeries toFloat(IntTimeSeries steps) {
+        FloatTimeSeries values = new FloatTimeSeries(steps.size());
+        for (int i = 0; i < steps.size(); i++) {
+            values.add(steps.getStartTime(i), steps.getEndTime(i), steps.getValue(i) * 0.7f);
+        }
+        return values;
+    }
+}
@@ -0,0 +1,132 @@
+package nl.sense.rninputkit.inputkit.googlefit.history;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import nl.sense.rninputkit.inputkit.constant.Interval;
+import nl.sense.rninputkit.inputkit.entity.TimeInterval;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Observations of {@link RequestPlanModel} and their persistence through its store.
+ */
+public class RequestPlanModelTest {
+    /** 2019-01-01T00:00:00Z */
+    private static final long START_TIME = 1546300800000L;
+    private static final long ONE_HOUR = TimeUnit.HOURS.toMillis(1);
+    private static final double DELTA = 1e-9;
+    private static final TimeInterval TEN_MINUTES = new TimeInterval(Interval.TEN_MINUTE);
+    private static final TimeInterval ONE_DAY = new TimeInterval(Interval.ONE_DAY);
+
+    @Test
+    public void observationsAreBlended() {
+        RequestPlanModel model = new RequestPlanModel();
+        assertEquals(-1, model.getDensity(TEN_MINUTES, false), DELTA);
+        assertEquals(-1, model.getLatencyPerHour(TEN_MINUTES, false), DELTA);
+
+        model.record(TEN_MINUTES, false, START_TIME, START_TIME + 2 * ONE_HOUR, 200, 2000);
+        assertEquals(100, model.getDensity(TEN_MINUTES, false), DELTA);
+        assertEquals(1000, model.getLatencyPerHour(TEN_MINUTES, false), DELTA);
+
+        // Latest observation weighs 0.3
+        model.record(TEN_MINUTES, false, START_TIME, START_TIME + ONE_HOUR, 400, 2000);
+        assertEquals(190, model.getDensity(TEN_MINUTES, false), DELTA);
+        assertEquals(1300, model.getLatencyPerHour(TEN_MINUTES, false), DELTA);
+        assertEquals(2, model.getObservationCount(TEN_MINUTES, false));
+
+        // Aggregation and other time units are observed separately
+        assertEquals(0, model.getObservationCount(TEN_MINUTES, true));
+        assertEquals(0, model.getObservationCount(ONE_DAY, false));
+
+        // Empty time periods are ignored
+        model.record(TEN_MINUTES, false, START_TIME, START_TIME, 10, 100);
+        assertEquals(2, model.getObservationCount(TEN_MINUTES, false));
+    }
+
+    @Test
+    public void timeoutsKeepDensityUnknown() {
+        RequestPlanModel model = new RequestPlanModel();
+        model.recordTimeout(TEN_MINUTES, true, START_TIME, START_TIME + 4 * ONE_HOUR, 8000);
+        assertTrue(model.getDensity(TEN_MINUTES, true) <= 0);
+        assertEquals(2000, model.getLatencyPerHour(TEN_MINUTES, true), DELTA);
+
+        // First observed density isn't blended with the unknown one
+        model.record(TEN_MINUTES, true, START_TIME, START_TIME + ONE_HOUR, 6, 1000);
+        assertEquals(6, model.getDensity(TEN_MINUTES, true), DELTA);
+        assertEquals(1700, model.getLatencyPerHour(TEN_MINUTES, true), DELTA);
+
+        // Later timeouts only slow down the latency
+        model.recordTimeout(TEN_MINUTES, true, START_TIME, START_TIME + ONE_HOUR, 2700);
+        assertEquals(6, model.getDensity(TEN_MINUTES, true), DELTA);
+        assertEquals(2000, model.getLatencyPerHour(TEN_MINUTES, true), DELTA);
+        assertEquals(3, model.getObservationCount(TEN_MINUTES, true));
+    }
+
+    @Test
+    public void modelIsRestoredFromStore() {
+        MemoryStore store = new MemoryStore(null);
+        RequestPlanModel model = new RequestPlanModel(store);
+        model.record(TEN_MINUTES, false, START_TIME, START_TIME + ONE_HOUR, 120, 1500);
+        model.record(ONE_DAY, true, START_TIME, START_TIME + 24 * ONE_HOUR, 24, 4800);
+        model.save();
+        assertEquals(1, store.writes);
+        assertNotNull(store.json);
+
+        // Nothing is written when there is no new observation
+        model.save();
+        assertEquals(1, store.writes);
+
+        RequestPlanModel restored = new RequestPlanModel(store);
+        assertEquals(120, restored.getDensity(TEN_MINUTES, false), DELTA);
+        assertEquals(1500, restored.getLatencyPerHour(TEN_MINUTES, false), DELTA);
+        assertEquals(1, restored.getObservationCount(TEN_MINUTES, false));
+        assertEquals(1, restored.getDensity(ONE_DAY, true), DELTA);
+        assertEquals(200, restored.getLatencyPerHour(ONE_DAY, true), DELTA);
+
+        restored.clear();
+        assertEquals(0, new RequestPlanModel(store).getObservationCount(ONE_DAY, true));
+    }
+
+    @Test
+    public void corruptModelIsStartedOver() {
+        String[] corruptJsons = {"{\"MINUTES\": [", "[1, 2]", "null", ""};
+        for (String json : corruptJsons) {
+            MemoryStore store = new MemoryStore(json);
+            RequestPlanModel model = new RequestPlanModel(store);
+            assertEquals(json, -1, model.getDensity(TEN_MINUTES, false), DELTA);
+
+            model.record(TEN_MINUTES, false, START_TIME, START_TIME + ONE_HOUR, 60, 500);
+            model.save();
+            assertEquals(json, 60, new RequestPlanModel(store).getDensity(TEN_MINUTES, false),
+                    DELTA);
+        }
+    }
+
+    private static class MemoryStore implements RequestPlanModel.Store {
+        private String json;
+        private int writes;
+
+        MemoryStore(@Nullable String json) {
+            this.json = json;
+        }
+
+        @Nullable
+        @Override
+        public String read() {
+            return json;
+        }
+
+        @Override
+        public void write(@NonNull String json) {
+            this.json = json;
+            writes++;
+        }
+    }
+}
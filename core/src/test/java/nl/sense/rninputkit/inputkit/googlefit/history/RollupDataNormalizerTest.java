@@ -0,0 +1,160 @@
+package nl.sense.rninputkit.inputkit.googlefit.history;
+
+import androidx.annotation.NonNull;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Calendar;
+import java.util.List;
+import java.util.TimeZone;
+import java.util.concurrent.TimeUnit;
+
+import nl.sense.rninputkit.inputkit.constant.Interval;
+import nl.sense.rninputkit.inputkit.entity.IntTimeSeries;
+import nl.sense.rninputkit.inputkit.entity.TimeInterval;
+
+import static nl.sense.rninputkit.inputkit.helper.InputKitTimeUtils.populateTimeWindowBoundaries;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Rollup of a normalized time series into coarser resolutions.
+ */
+public class RollupDataNormalizerTest {
+    private static final TimeZone AMSTERDAM = TimeZone.getTimeZone("Europe/Amsterdam");
+    private static final TimeZone UTC = TimeZone.getTimeZone("UTC");
+    /** 2019-01-01T00:00:00Z */
+    private static final long START_TIME = 1546300800000L;
+    private static final long TEN_MINUTES = TimeUnit.MINUTES.toMillis(10);
+    private static final long ONE_HOUR = TimeUnit.HOURS.toMillis(1);
+
+    private final RollupDataNormalizer rollupNormalizer = new RollupDataNormalizer();
+    private final IntDataNormalizer intNormalizer = new IntDataNormalizer();
+
+    @Test
+    public void finestIntervalIsTheShortest() {
+        List<TimeInterval> intervals = intervals(Interval.ONE_DAY, Interval.TEN_MINUTE,
+                Interval.AN_HOUR);
+        assertEquals(new TimeInterval(Interval.TEN_MINUTE),
+                RollupDataNormalizer.getFinestInterval(intervals));
+    }
+
+    @Test
+    public void resolutionsAreInRequestedOrder() {
+        IntTimeSeries series = DataNormalizerParityTest.generate(2000, 5);
+        long endTime = START_TIME + 3 * TimeUnit.DAYS.toMillis(1);
+        List<TimeInterval> intervals = intervals(Interval.ONE_DAY, Interval.TEN_MINUTE,
+                Interval.AN_HOUR, Interval.HALF_HOUR);
+        IntTimeSeries finest = intNormalizer.normalize(START_TIME, endTime,
+                series.getStartTimes(), series.getEndTimes(), series.getValues(), series.size(),
+                new TimeInterval(Interval.TEN_MINUTE), UTC);
+
+        List<IntTimeSeries> resolutions = rollupNormalizer.rollup(START_TIME, endTime, finest,
+                intervals, UTC);
+        assertEquals(intervals.size(), resolutions.size());
+        assertSame(finest, resolutions.get(1));
+        for (int i = 0; i < intervals.size(); i++) {
+            IntTimeSeries resolution = resolutions.get(i);
+            long[] boundaries = populateTimeWindowBoundaries(START_TIME, endTime,
+                    intervals.get(i), UTC);
+            assertArrayEquals(Arrays.copyOf(boundaries, boundaries.length - 1),
+                    Arrays.copyOf(resolution.getStartTimes(), resolution.size()));
+            assertArrayEquals(getWindowSums(boundaries, finest),
+                    Arrays.copyOf(resolution.getValues(), resolution.size()));
+            assertEquals(finest.getTotal(), resolution.getTotal());
+        }
+    }
+
+    @Test
+    public void daysOfDaylightSavingAreRolledUp() {
+        // 2019-03-31 has 23 hours in Amsterdam
+        long startTime = localMidnight(2019, Calendar.MARCH, 30);
+        long endTime = localMidnight(2019, Calendar.APRIL, 1);
+        IntTimeSeries hours = new IntTimeSeries();
+        for (long time = startTime; time < endTime; time += ONE_HOUR) {
+            hours.add(time, time + ONE_HOUR, 10);
+        }
+
+        List<IntTimeSeries> resolutions = rollupNormalizer.rollup(startTime, endTime, hours,
+                intervals(Interval.AN_HOUR, Interval.ONE_DAY), AMSTERDAM);
+        IntTimeSeries days = resolutions.get(1);
+        assertEquals(2, days.size());
+        assertEquals(240, days.getValue(0));
+        assertEquals(230, days.getValue(1));
+        assertEquals(endTime, days.getEndTime(1));
+    }
+
+    @Test
+    public void partialHistoryStaysPartial() {
+        IntTimeSeries hours = new IntTimeSeries();
+        for (int i = 0; i < 24; i++) {
+            hours.add(START_TIME + i * ONE_HOUR, START_TIME + (i + 1) * ONE_HOUR, i);
+        }
+        hours.setPartial(true);
+
+        List<IntTimeSeries> resolutions = rollupNormalizer.rollup(START_TIME,
+                START_TIME + 24 * ONE_HOUR, hours, intervals(Interval.AN_HOUR, Interval.ONE_DAY),
+                UTC);
+        assertTrue(resolutions.get(1).isPartial());
+        assertEquals(276, resolutions.get(1).getValue(0));
+    }
+
+    @Test
+    public void stateOfHistoryIsKeptByEveryResolution() {
+        boolean[][] states = {{false, false}, {true, false}, {false, true}, {true, true}};
+        for (boolean[] state : states) {
+            IntTimeSeries minutes = new IntTimeSeries();
+            for (int i = 0; i < 144; i++) {
+                minutes.add(START_TIME + i * TEN_MINUTES, START_TIME + (i + 1) * TEN_MINUTES, 1);
+            }
+            minutes.setPartial(state[0]);
+            minutes.setDeadlineExceeded(state[1]);
+
+            // Days are rolled up out of hours, which are rolled up out of minutes
+            List<IntTimeSeries> resolutions = rollupNormalizer.rollup(START_TIME,
+                    START_TIME + 24 * ONE_HOUR, minutes,
+                    intervals(Interval.ONE_DAY, Interval.TEN_MINUTE, Interval.AN_HOUR), UTC);
+            assertEquals(144, resolutions.get(0).getValue(0));
+            for (IntTimeSeries resolution : resolutions) {
+                assertEquals(state[0], resolution.isPartial());
+                assertEquals(state[1], resolution.isDeadlineExceeded());
+            }
+        }
+    }
+
+    @NonNull
+    private static List<TimeInterval> intervals(String... names) {
+        TimeInterval[] intervals = new TimeInterval[names.length];
+        for (int i = 0; i < names.length; i++) {
+            intervals[i] = new TimeInterval(names[i]);
+        }
+        return Arrays.asList(intervals);
+    }
+
+    /**
+     * Sum up values of the finer time windows which are starting within every boundary.
+     */
+    @NonNull
+    private static int[] getWindowSums(@NonNull long[] boundaries, @NonNull IntTimeSeries finer) {
+        int[] sums = new int[boundaries.length - 1];
+        for (int i = 0; i < finer.size(); i++) {
+            for (int window = 0; window < sums.length; window++) {
+                if (finer.getStartTime(i) >= boundaries[window]
+                        && finer.getStartTime(i) < boundaries[window + 1]) {
+                    sums[window] += finer.getValue(i);
+                }
+            }
+        }
+        return sums;
+    }
+
+    private static long localMidnight(int year, int month, int day) {
+        Calendar calendar = Calendar.getInstance(AMSTERDAM);
+        calendar.clear();
+        calendar.set(year, month, day);
+        return calendar.getTimeInMillis();
+    }
+}
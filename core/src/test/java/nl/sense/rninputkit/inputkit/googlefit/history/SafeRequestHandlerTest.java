@@ -0,0 +1,179 @@
+package nl.sense.rninputkit.inputkit.googlefit.history;
+
+import androidx.annotation.NonNull;
+
+import org.junit.Test;
+
+import java.util.Calendar;
+import java.util.TimeZone;
+import java.util.concurrent.TimeUnit;
+
+import nl.sense.rninputkit.inputkit.constant.Interval;
+import nl.sense.rninputkit.inputkit.entity.TimeInterval;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Request chunks of fixed length plans, and routing of aggregated history.
+ */
+public class SafeRequestHandlerTest {
+    private static final TimeZone AMSTERDAM = TimeZone.getTimeZone("Europe/Amsterdam");
+    private static final TimeZone UTC = TimeZone.getTimeZone("UTC");
+    /** 2019-01-01T00:00:00Z */
+    private static final long START_TIME = 1546300800000L;
+    private static final long ONE_HOUR = TimeUnit.HOURS.toMillis(1);
+    private static final long ONE_DAY = TimeUnit.DAYS.toMillis(1);
+
+    private final SafeRequestHandler handler = new SafeRequestHandler();
+
+    @Test
+    public void rangeWithinChunkLengthIsSingleChunk() {
+        long[] boundaries = handler.getChunkBoundaries(START_TIME, START_TIME + 5 * ONE_HOUR,
+                ONE_DAY);
+        assertArrayEquals(new long[] {START_TIME, START_TIME + 5 * ONE_HOUR}, boundaries);
+    }
+
+    @Test
+    public void chunksEndAtStartOfDay() {
+        // Starting at noon, the first chunk is cut at the next midnight in UTC
+        long startTime = START_TIME + 12 * ONE_HOUR;
+        long endTime = START_TIME + 3 * ONE_DAY + 6 * ONE_HOUR;
+        long[] boundaries = handler.getChunkBoundaries(startTime, endTime, ONE_DAY);
+        assertArrayEquals(new long[] {
+                startTime,
+                START_TIME + ONE_DAY,
+                START_TIME + 2 * ONE_DAY,
+                START_TIME + 3 * ONE_DAY,
+                endTime
+        }, boundaries);
+    }
+
+    @Test
+    public void chunksAreContiguousAndBounded() {
+        long chunkLength = 7 * ONE_HOUR;
+        long startTime = START_TIME + 3 * ONE_HOUR + 17;
+        long endTime = startTime + 400 * ONE_HOUR;
+        long[] boundaries = handler.getChunkBoundaries(startTime, endTime, chunkLength);
+        assertEquals(startTime, boundaries[0]);
+        assertEquals(endTime, boundaries[boundaries.length - 1]);
+        for (int i = 1; i < boundaries.length; i++) {
+            assertTrue(boundaries[i] > boundaries[i - 1]);
+            assertTrue(boundaries[i] - boundaries[i - 1] <= chunkLength);
+        }
+    }
+
+    @Test
+    public void fixedChunkLengthFollowsInterval() {
+        SafeRequestHandler.RequestPlan minutes = handler.getRequestPlan(START_TIME,
+                START_TIME + 3 * ONE_DAY, new TimeInterval(Interval.TEN_MINUTE), false);
+        assertEquals(ONE_DAY, minutes.getChunkLength());
+        assertEquals(3, minutes.getChunkCount());
+        assertFalse(minutes.isAdaptive());
+        assertEquals(SafeRequestHandler.Strategy.LEGACY, minutes.getStrategy());
+
+        SafeRequestHandler.RequestPlan days = handler.getRequestPlan(START_TIME,
+                START_TIME + 365 * ONE_DAY, new TimeInterval(Interval.ONE_DAY), false);
+        assertEquals(1, days.getChunkCount());
+    }
+
+    @Test
+    public void rawHistoryIsNotBucketed() {
+        SafeRequestHandler.RequestPlan plan = handler.getRequestPlan(START_TIME,
+                START_TIME + 2 * ONE_DAY, new TimeInterval(Interval.AN_HOUR), false, UTC);
+        assertEquals(SafeRequestHandler.Strategy.RAW, plan.getStrategy());
+        assertArrayEquals(new long[plan.getChunkCount()], plan.getBucketLengths());
+    }
+
+    @Test
+    public void aggregatedHistoryIsBucketedByInterval() {
+        SafeRequestHandler.RequestPlan plan = handler.getRequestPlan(START_TIME,
+                START_TIME + 2 * ONE_DAY, new TimeInterval(Interval.AN_HOUR), true, UTC);
+        assertEquals(SafeRequestHandler.Strategy.BUCKETED, plan.getStrategy());
+        assertArrayEquals(new long[] {START_TIME, START_TIME + 2 * ONE_DAY},
+                plan.getBoundaries());
+        assertArrayEquals(new long[] {ONE_HOUR}, plan.getBucketLengths());
+        assertEquals(48, plan.getEstimatedDataPoints());
+    }
+
+    @Test
+    public void sparseAggregatedHistoryIsReadRaw() {
+        TimeInterval tenMinutes = new TimeInterval(Interval.TEN_MINUTE);
+        // 288 time windows of two days
+        long endTime = START_TIME + 2 * ONE_DAY;
+
+        // 96 raw data points are cheaper than a bucket of every time window
+        SafeRequestHandler.RequestPlan plan = new SafeRequestHandler(observe(2))
+                .getRequestPlan(START_TIME, endTime, tenMinutes, true, UTC);
+        assertEquals(SafeRequestHandler.Strategy.RAW, plan.getStrategy());
+        assertEquals(96, plan.getEstimatedDataPoints());
+        assertArrayEquals(new long[plan.getChunkCount()], plan.getBucketLengths());
+
+        // As many raw data points as time windows
+        plan = new SafeRequestHandler(observe(6))
+                .getRequestPlan(START_TIME, endTime, tenMinutes, true, UTC);
+        assertEquals(SafeRequestHandler.Strategy.BUCKETED, plan.getStrategy());
+
+        // Density is unknown without enough observations, or when only timeouts are observed
+        RequestPlanModel model = new RequestPlanModel();
+        for (int i = 0; i < 3; i++) {
+            model.recordTimeout(tenMinutes, false, START_TIME, START_TIME + ONE_DAY, 60000);
+        }
+        plan = new SafeRequestHandler(model)
+                .getRequestPlan(START_TIME, endTime, tenMinutes, true, UTC);
+        assertEquals(SafeRequestHandler.Strategy.BUCKETED, plan.getStrategy());
+        plan = new SafeRequestHandler(new RequestPlanModel())
+                .getRequestPlan(START_TIME, endTime, tenMinutes, true, UTC);
+        assertEquals(SafeRequestHandler.Strategy.BUCKETED, plan.getStrategy());
+    }
+
+    @Test
+    public void oneMinuteDayIsSingleChunk() {
+        SafeRequestHandler.RequestPlan plan = handler.getRequestPlan(START_TIME,
+                START_TIME + 3 * ONE_DAY, new TimeInterval(Interval.ONE_MINUTE), true, UTC);
+        assertEquals(SafeRequestHandler.Strategy.BUCKETED, plan.getStrategy());
+        assertArrayEquals(handler.getRequestPlan(START_TIME, START_TIME + 3 * ONE_DAY,
+                new TimeInterval(Interval.ONE_MINUTE), true).getBoundaries(),
+                plan.getBoundaries());
+        assertEquals(3, plan.getChunkCount());
+    }
+
+    @Test
+    public void shorterDayIsRequestedOnItsOwn() {
+        // 2019-03-31 has 23 hours in Amsterdam
+        long startTime = localMidnight(2019, Calendar.MARCH, 29);
+        long endTime = localMidnight(2019, Calendar.APRIL, 3);
+        SafeRequestHandler.RequestPlan plan = handler.getRequestPlan(startTime, endTime,
+                new TimeInterval(Interval.ONE_DAY), true, AMSTERDAM);
+        assertEquals(SafeRequestHandler.Strategy.MIXED, plan.getStrategy());
+        assertArrayEquals(new long[] {
+                startTime,
+                localMidnight(2019, Calendar.MARCH, 31),
+                localMidnight(2019, Calendar.APRIL, 1),
+                endTime
+        }, plan.getBoundaries());
+        assertArrayEquals(new long[] {ONE_DAY, 23 * ONE_HOUR, ONE_DAY}, plan.getBucketLengths());
+    }
+
+    /**
+     * Model of raw ten minute history which is observed with the given density, three times.
+     */
+    @NonNull
+    private static RequestPlanModel observe(int dataPointsPerHour) {
+        RequestPlanModel model = new RequestPlanModel();
+        for (int i = 0; i < 3; i++) {
+            model.record(new TimeInterval(Interval.TEN_MINUTE), false, START_TIME,
+                    START_TIME + ONE_DAY, 24 * dataPointsPerHour, 500);
+        }
+        return model;
+    }
+
+    private static long localMidnight(int year, int month, int day) {
+        Calendar calendar = Calendar.getInstance(AMSTERDAM);
+        calendar.clear();
+        calendar.set(year, month, day);
+        return calendar.getTimeInMillis();
+    }
+}
@@ -0,0 +1,101 @@
+package nl.sense.rninputkit.inputkit.googlefit.history;
+
+import androidx.annotation.NonNull;
+
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import nl.sense.rninputkit.inputkit.constant.Interval;
+import nl.sense.rninputkit.inputkit.entity.IntTimeSeries;
+import nl.sense.rninputkit.inputkit.entity.TimeInterval;
+
+import static nl.sense.rninputkit.inputkit.helper.InputKitTimeUtils.populateTimeWindowBoundaries;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Time windows of minutes distribution whose value can be cached, see
+ * {@link PrimitiveDataNormalizer#getStableWindows}.
+ */
+public class StableWindowsTest {
+    /** 2019-01-01T00:00:00Z */
+    private static final long START_TIME = 1546300800000L;
+    private static final long ONE_MINUTE = TimeUnit.MINUTES.toMillis(1);
+    private static final long TEN_MINUTES = TimeUnit.MINUTES.toMillis(10);
+
+    private final IntDataNormalizer normalizer = new IntDataNormalizer();
+
+    @Test
+    public void valuesWithinTimeWindowsAreStable() {
+        IntTimeSeries series = new IntTimeSeries();
+        series.add(START_TIME + ONE_MINUTE, START_TIME + 2 * ONE_MINUTE, 40);
+        series.add(START_TIME + TEN_MINUTES, START_TIME + TEN_MINUTES + 4 * ONE_MINUTE, 12);
+        assertArrayEquals(new boolean[] {true, true, true}, getStableWindows(series, 3));
+    }
+
+    @Test
+    public void valuesOnBoundariesAreUnstable() {
+        IntTimeSeries series = new IntTimeSeries();
+        // crosses the first boundary
+        series.add(START_TIME + 8 * ONE_MINUTE, START_TIME + 13 * ONE_MINUTE, 101);
+        // ends exactly at the fourth boundary
+        series.add(START_TIME + 37 * ONE_MINUTE, START_TIME + 4 * TEN_MINUTES, 33);
+        assertArrayEquals(new boolean[] {false, false, true, false, false, true},
+                getStableWindows(series, 6));
+    }
+
+    @Test
+    public void wholeTimeWindowsAreStable() {
+        // Buckets of aggregated history
+        IntTimeSeries series = new IntTimeSeries();
+        series.add(START_TIME, START_TIME + TEN_MINUTES, 101);
+        series.add(START_TIME + TEN_MINUTES, START_TIME + 2 * TEN_MINUTES, 33);
+        series.add(START_TIME + 3 * TEN_MINUTES, START_TIME + 4 * TEN_MINUTES, 7);
+        assertArrayEquals(new boolean[] {true, true, true, true}, getStableWindows(series, 4));
+    }
+
+    @Test
+    public void stableWindowsDontDependOnStartOfQuery() {
+        IntTimeSeries series = DataNormalizerParityTest.generate(1500, 5);
+        long endTime = START_TIME + TimeUnit.HOURS.toMillis(24);
+        TimeInterval interval = new TimeInterval(Interval.TEN_MINUTE);
+        IntTimeSeries full = normalizer.normalize(START_TIME, endTime, series, interval);
+
+        for (int skipped = 1; skipped < full.size(); skipped += 7) {
+            long startTime = full.getStartTime(skipped);
+            IntTimeSeries values = getValuesEndingAfter(series, startTime);
+            long[] boundaries = populateTimeWindowBoundaries(startTime, endTime, interval);
+            boolean[] stable = PrimitiveDataNormalizer.getStableWindows(boundaries,
+                    values.getStartTimes(), values.getEndTimes(), values.size());
+            IntTimeSeries partial = normalizer.normalize(startTime, endTime, values, interval);
+
+            for (int i = 0; i < stable.length; i++) {
+                if (!stable[i]) continue;
+                assertEquals("window " + (skipped + i), full.getValue(skipped + i),
+                        partial.getValue(i));
+            }
+        }
+    }
+
+    @NonNull
+    private static boolean[] getStableWindows(@NonNull IntTimeSeries series, int windows) {
+        long[] boundaries = new long[windows + 1];
+        for (int i = 0; i < boundaries.length; i++) {
+            boundaries[i] = START_TIME + i * TEN_MINUTES;
+        }
+        return PrimitiveDataNormalizer.getStableWindows(boundaries, series.getStartTimes(),
+                series.getEndTimes(), series.size());
+    }
+
+    @NonNull
+    private static IntTimeSeries getValuesEndingAfter(@NonNull IntTimeSeries series,
+                                                      long startTime) {
+        IntTimeSeries values = new IntTimeSeries();
+        for (int i = 0; i < series.size(); i++) {
+            if (series.getEndTime(i) <= startTime) continue;
+            values.add(series.getStartTime(i), series.getEndTime(i), series.getValue(i));
+        }
+        return values;
+    }
+}
@@ -0,0 +1,133 @@
+package nl.sense.rninputkit.inputkit.helper;
+
+import androidx.annotation.NonNull;
+
+import org.junit.Test;
+
+import java.util.Calendar;
+import java.util.TimeZone;
+import java.util.concurrent.TimeUnit;
+
+import nl.sense.rninputkit.inputkit.constant.Interval;
+import nl.sense.rninputkit.inputkit.entity.TimeInterval;
+
+import static nl.sense.rninputkit.inputkit.helper.InputKitTimeUtils.populateTimeWindowBoundaries;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Time window boundaries, including days of daylight saving transitions.
+ */
+public class InputKitTimeUtilsTest {
+    private static final TimeZone AMSTERDAM = TimeZone.getTimeZone("Europe/Amsterdam");
+    private static final TimeZone UTC = TimeZone.getTimeZone("UTC");
+    /** 2019-01-01T00:00:00Z */
+    private static final long START_TIME = 1546300800000L;
+    private static final long ONE_HOUR = TimeUnit.HOURS.toMillis(1);
+    private static final long TEN_MINUTES = TimeUnit.MINUTES.toMillis(10);
+
+    @Test
+    public void fixedLengthTimeWindows() {
+        long[] boundaries = populateTimeWindowBoundaries(START_TIME, START_TIME + ONE_HOUR,
+                new TimeInterval(Interval.TEN_MINUTE), UTC);
+        long[] expected = new long[7];
+        for (int i = 0; i < expected.length; i++) {
+            expected[i] = START_TIME + i * TEN_MINUTES;
+        }
+        assertArrayEquals(expected, boundaries);
+    }
+
+    @Test
+    public void lastTimeWindowEndsAtEndTime() {
+        long endTime = START_TIME + 2 * ONE_HOUR + 5 * TimeUnit.MINUTES.toMillis(1);
+        long[] boundaries = populateTimeWindowBoundaries(START_TIME, endTime,
+                new TimeInterval(Interval.AN_HOUR), UTC);
+        assertArrayEquals(new long[] {
+                START_TIME, START_TIME + ONE_HOUR, START_TIME + 2 * ONE_HOUR, endTime
+        }, boundaries);
+    }
+
+    @Test
+    public void emptyRange() {
+        long[] boundaries = populateTimeWindowBoundaries(START_TIME, START_TIME,
+                new TimeInterval(Interval.ONE_DAY), UTC);
+        assertArrayEquals(new long[] {START_TIME}, boundaries);
+    }
+
+    @Test
+    public void dayOfSpringForwardIsShorter() {
+        // 2019-03-31 has 23 hours in Amsterdam
+        long[] boundaries = populateTimeWindowBoundaries(
+                localMidnight(2019, Calendar.MARCH, 30, AMSTERDAM),
+                localMidnight(2019, Calendar.APRIL, 2, AMSTERDAM),
+                new TimeInterval(Interval.ONE_DAY), AMSTERDAM);
+        assertArrayEquals(new long[] {24 * ONE_HOUR, 23 * ONE_HOUR, 24 * ONE_HOUR},
+                getLengths(boundaries));
+        assertLocalMidnights(boundaries, AMSTERDAM);
+    }
+
+    @Test
+    public void dayOfFallBackIsLonger() {
+        // 2019-10-27 has 25 hours in Amsterdam
+        long[] boundaries = populateTimeWindowBoundaries(
+                localMidnight(2019, Calendar.OCTOBER, 26, AMSTERDAM),
+                localMidnight(2019, Calendar.OCTOBER, 29, AMSTERDAM),
+                new TimeInterval(Interval.ONE_DAY), AMSTERDAM);
+        assertArrayEquals(new long[] {24 * ONE_HOUR, 25 * ONE_HOUR, 24 * ONE_HOUR},
+                getLengths(boundaries));
+        assertLocalMidnights(boundaries, AMSTERDAM);
+    }
+
+    @Test
+    public void hoursKeepTheirLengthAcrossDaylightSaving() {
+        long startTime = localMidnight(2019, Calendar.MARCH, 31, AMSTERDAM);
+        long[] boundaries = populateTimeWindowBoundaries(startTime, startTime + 6 * ONE_HOUR,
+                new TimeInterval(Interval.AN_HOUR), AMSTERDAM);
+        assertEquals(7, boundaries.length);
+        for (long length : getLengths(boundaries)) {
+            assertEquals(ONE_HOUR, length);
+        }
+    }
+
+    @Test
+    public void weeksMatchCalendar() {
+        long startTime = localMidnight(2019, Calendar.MARCH, 4, AMSTERDAM);
+        long endTime = localMidnight(2019, Calendar.DECEMBER, 2, AMSTERDAM);
+        long[] boundaries = populateTimeWindowBoundaries(startTime, endTime,
+                new TimeInterval(Interval.ONE_WEEK), AMSTERDAM);
+
+        Calendar calendar = Calendar.getInstance(AMSTERDAM);
+        calendar.setTimeInMillis(startTime);
+        for (long boundary : boundaries) {
+            assertEquals(Math.min(calendar.getTimeInMillis(), endTime), boundary);
+            calendar.add(Calendar.DAY_OF_MONTH, 7);
+        }
+        assertEquals(endTime, boundaries[boundaries.length - 1]);
+    }
+
+    private static long localMidnight(int year, int month, int day, @NonNull TimeZone timeZone) {
+        Calendar calendar = Calendar.getInstance(timeZone);
+        calendar.clear();
+        calendar.set(year, month, day);
+        return calendar.getTimeInMillis();
+    }
+
+    private static void assertLocalMidnights(@NonNull long[] boundaries,
+                                             @NonNull TimeZone timeZone) {
+        Calendar calendar = Calendar.getInstance(timeZone);
+        for (long boundary : boundaries) {
+            calendar.setTimeInMillis(boundary);
+            assertEquals(0, calendar.get(Calendar.HOUR_OF_DAY));
+            assertEquals(0, calendar.get(Calendar.MINUTE));
+        }
+    }
+
+    @NonNull
+    private static long[] getLengths(@NonNull long[] boundaries) {
+        long[] lengths = new long[boundaries.length - 1];
+        for (int i = 0; i < lengths.length; i++) {
+            lengths[i] = boundaries[i + 1] - boundaries[i];
+        }
+        return lengths;
+    }
+}
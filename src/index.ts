@@ -6,15 +6,22 @@ import Health from './modules/bridge/InputKit/Health';
 import {
     ActivitySample,
     BloodPressureDataPoint,
+    DistanceDistributionDataPoint,
     HealthProvider,
+    HistoryQueryOptions,
     IKDate,
     IKPayloadType,
     Interval,
     QuantitySamples,
+    RollupInterval,
     SampleType,
     SleepAnalysisDataPoint,
     StepCountDistributionDataPoint,
+    StepCountDistributionProgress,
+    StepCountRollup,
     WeightDataPoint,
+    WeightDistributionDataPoint,
+    WeightSummary,
 } from './modules/bridge/InputKit/types';
 import { EventHandlerTaskService } from './modules/js_services';
 
@@ -24,15 +31,22 @@ import { EventHandlerTaskService } from './modules/js_services';
 export {
     ActivitySample,
     BloodPressureDataPoint,
+    DistanceDistributionDataPoint,
     EventHandlerTaskService,
     Health,
     HealthProvider,
+    HistoryQueryOptions,
     IKDate,
     IKPayloadType,
     Interval,
     QuantitySamples,
+    RollupInterval,
     SampleType,
     SleepAnalysisDataPoint,
     StepCountDistributionDataPoint,
+    StepCountDistributionProgress,
+    StepCountRollup,
     WeightDataPoint,
+    WeightDistributionDataPoint,
+    WeightSummary,
 };
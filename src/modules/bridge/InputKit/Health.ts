@@ -5,21 +5,30 @@ import EventHandler from '../EventHandler/EventHandler';
 import {
     ActivitySample,
     BloodPressureDataPoint,
+    DistanceDistributionDataPoint,
     HealthBridge,
     HealthProvider,
+    HistoryQueryOptions,
     IKPayloadType,
     Interval,
     QuantitySamples,
+    RollupInterval,
     SampleType,
     SleepAnalysisDataPoint,
     StepCountDistributionDataPoint,
+    StepCountDistributionProgress,
+    StepCountRollup,
     WeightDataPoint,
+    WeightDistributionDataPoint,
+    WeightSummary,
 } from './types';
 
 const monitorUpdates = 'inputKitUpdates';
 const trackingUpdates = 'inputKitTracking';
+const historyProgressUpdates = 'inputKitHistoryProgress';
 
 type HealthCallback = (payload: IKPayloadType) => void;
+type ProgressCallback = (progress: StepCountDistributionProgress) => void;
 
 class Health {
     private healthBridge: HealthBridge;
@@ -28,6 +37,9 @@ class Health {
     // Object with topic as key and a callback as value
     private callbacks: { [topic: string]: HealthCallback } = {};
     private trackingCallbacks: { [topic: string]: HealthCallback } = {};
+    // Object with query id as key and a progress callback as value
+    private progressCallbacks: { [queryId: string]: ProgressCallback } = {};
+    private lastQueryId = 0;
 
     constructor() {
         this.healthBridge = NativeModules.HealthBridge;
@@ -52,10 +64,19 @@ class Health {
             }
         });
 
+        // Add history progress listener, progress doesn't need to be acknowledged
+        this.healthBridgeEmitter.addListener(historyProgressUpdates, (payload: StepCountDistributionProgress) => {
+            const callback = this.progressCallbacks[payload.queryId];
+            if (callback !== undefined) {
+                callback.call(null, payload);
+            }
+        });
+
         EventHandler.reqSharedInstance().then(eventHandler => {
             logger.native('Listener did mount');
             eventHandler.listenerDidMount(monitorUpdates);
             eventHandler.listenerDidMount(trackingUpdates);
+            eventHandler.listenerDidMount(historyProgressUpdates);
         });
     }
 
@@ -111,13 +132,38 @@ class Health {
      *
      *  @param startDate: start date of distance request.
      *  @param endDate: end date of distance request.
+     *  @param options: (Android only) query options, eg. `timeout` in milliseconds.
+     *  The promise is rejected once the timeout is exceeded.
      *  @return Promise containing: number for total walking and running distance in meters.
      */
-    getDistance(startDate: Date, endDate: Date): Promise<number> {
+    getDistance(startDate: Date, endDate: Date, options: HistoryQueryOptions = {}): Promise<number> {
         if (Platform.OS === 'ios') {
             return this.healthBridge.getAccurateDistance(startDate.getTime(), endDate.getTime());
         }
-        return this.healthBridge.getDistance(startDate.getTime(), endDate.getTime());
+        return this.healthBridge.getDistance(startDate.getTime(), endDate.getTime(), options);
+    }
+
+    /**
+     *  Returns Promise contains distribution of walking and running distance through out a specific range.
+     *  Android only.
+     *
+     *  @param startDate: start date of the range.
+     *  @param endDate: end date of the range.
+     *  @param interval: Interval
+     *  @param options: query options, eg. `timeout` in milliseconds.
+     *  @return Promise containing the same format as `getStepCountDistribution`,
+     *  where every value is a distance in meters.
+     */
+    getDistanceDistribution(
+        startDate: Date,
+        endDate: Date,
+        interval: Interval,
+        options: HistoryQueryOptions = {},
+    ): Promise<DistanceDistributionDataPoint> {
+        if (Platform.OS !== 'android') {
+            return Promise.reject('Not implemented for iOS');
+        }
+        return this.healthBridge.getDistanceDistribution(startDate.getTime(), endDate.getTime(), interval, options);
     }
 
     /**
@@ -156,9 +202,14 @@ class Health {
      *
      *  @param startDate: start date of get step count request.
      *  @param endDate: end date of get step count request.
+     *  @param options: (Android only) query options, eg. `timeout` in milliseconds.
+     *  The promise is rejected once the timeout is exceeded.
      *  @return Promise containing: number for total steps.
      */
-    getStepCount(startDate: Date, endDate: Date): Promise<number> {
+    getStepCount(startDate: Date, endDate: Date, options: HistoryQueryOptions = {}): Promise<number> {
+        if (Platform.OS === 'android') {
+            return this.healthBridge.getStepCount(startDate.getTime(), endDate.getTime(), options);
+        }
         return this.healthBridge.getStepCount(startDate.getTime(), endDate.getTime());
     }
 
@@ -168,10 +219,12 @@ class Health {
      *  @param startDate: start date of the range.
      *  @param endDate: end date of the range.
      *  @param interval: Interval
+     *  @param options: (Android only) query options, eg. `timeout` in milliseconds.
      *  @return Promise containing an array of objects formated as:
      *     value: Array of objects. Each element represents one interval.
      *     startDate: object contains timestamp and formatted string for startDate.
      *     endDate: object contains timestamp and formatted string for endDate.
+     *     partial: (Android only) true if the timeout was exceeded before the whole history was read.
      *
      *    eg)
      *       {
@@ -203,10 +256,86 @@ class Health {
         startDate: Date,
         endDate: Date,
         interval: Interval,
+        options: HistoryQueryOptions = {},
     ): Promise<StepCountDistributionDataPoint> {
+        if (Platform.OS === 'android') {
+            return this.healthBridge.getStepCountDistribution(
+                startDate.getTime(),
+                endDate.getTime(),
+                interval,
+                options,
+            );
+        }
         return this.healthBridge.getStepCountDistribution(startDate.getTime(), endDate.getTime(), interval);
     }
 
+    /**
+     *  Returns Promise contains distribution of step count value through out a specific range at several
+     *  intervals at once, eg. minutes, hours and days of a summary screen. History is only read at
+     *  the finest interval, coarser intervals are rolled up out of it.
+     *  Android only.
+     *
+     *  @param startDate: start date of the range.
+     *  @param endDate: end date of the range.
+     *  @param intervals: Intervals
+     *  @param options: query options, eg. `timeout` in milliseconds.
+     *  @return Promise containing a distribution of every interval, keyed by interval,
+     *  in the same format as `getStepCountDistribution`.
+     */
+    getStepCountRollup(
+        startDate: Date,
+        endDate: Date,
+        intervals: RollupInterval[],
+        options: HistoryQueryOptions = {},
+    ): Promise<StepCountRollup> {
+        if (Platform.OS !== 'android') {
+            return Promise.reject('Not implemented for iOS');
+        }
+        return this.healthBridge.getStepCountRollup(startDate.getTime(), endDate.getTime(), intervals, options);
+    }
+
+    /**
+     *  Returns Promise contains distribution of step count value through out a specific range,
+     *  while partial distribution is passed to `onProgress` as soon as a part of the history is read,
+     *  starting from the most recent one. Partial distribution is a preview only:
+     *  intervals on the edges of each part might be incomplete.
+     *  On iOS `onProgress` is not called, the promise is resolved like `getStepCountDistribution`.
+     *
+     *  @param startDate: start date of the range.
+     *  @param endDate: end date of the range.
+     *  @param interval: Interval
+     *  @param onProgress: callback of partial distribution, marked with `partial: true`.
+     *  @param options: (Android only) query options, eg. `timeout` in milliseconds.
+     *  @return Promise containing the same distribution as `getStepCountDistribution`.
+     */
+    getStepCountDistributionWithProgress(
+        startDate: Date,
+        endDate: Date,
+        interval: Interval,
+        onProgress: ProgressCallback,
+        options: HistoryQueryOptions = {},
+    ): Promise<StepCountDistributionDataPoint> {
+        if (Platform.OS !== 'android') {
+            return this.healthBridge.getStepCountDistribution(startDate.getTime(), endDate.getTime(), interval);
+        }
+
+        this.lastQueryId += 1;
+        const queryId = String(this.lastQueryId);
+        this.progressCallbacks[queryId] = onProgress;
+        const removeCallback = () => {
+            delete this.progressCallbacks[queryId];
+        };
+        const result = this.healthBridge.getStepCountDistributionWithProgress(
+            startDate.getTime(),
+            endDate.getTime(),
+            interval,
+            queryId,
+            options,
+        );
+        result.then(removeCallback, removeCallback);
+        return result;
+    }
+
     /**
      *  Returns Promise contains sleep analysis data of a specific range. Sorted recent data first.
      *  @deprecated unused
@@ -255,6 +384,38 @@ class Health {
         return this.healthBridge.getWeightData(startDate.getTime(), endDate.getTime());
     }
 
+    /**
+     *  Returns Promise contains distribution of weight through out a specific range. Android only.
+     *  Every value is a summary of the weight measurements within its interval,
+     *  intervals without any measurement are left out.
+     *
+     *  @param startDate: start date of the range.
+     *  @param endDate: end date of the range.
+     *  @param interval: Interval
+     *  @param summary: summary of an interval, either the last, min, max or average weight.
+     *  @param options: query options, eg. `timeout` in milliseconds.
+     *  @return Promise containing the same format as `getStepCountDistribution`,
+     *  where every value is a weight in kilograms.
+     */
+    getWeightDistribution(
+        startDate: Date,
+        endDate: Date,
+        interval: Interval,
+        summary: WeightSummary = 'last',
+        options: HistoryQueryOptions = {},
+    ): Promise<WeightDistributionDataPoint> {
+        if (Platform.OS !== 'android') {
+            return Promise.reject('Not implemented for iOS');
+        }
+        return this.healthBridge.getWeightDistribution(
+            startDate.getTime(),
+            endDate.getTime(),
+            interval,
+            summary,
+            options,
+        );
+    }
+
     /**
      * @deprecated this is restricted api (To be categorized as restricted in spring 2021) 
      * https://support.google.com/cloud/answer/9110914#restricted-scopes&zippy=%2Cgmail-drive-and-google-fit-apis
@@ -1,14 +1,21 @@
 export {
     ActivitySample,
     BloodPressureDataPoint,
+    DistanceDistributionDataPoint,
     HealthProvider,
+    HistoryQueryOptions,
     Interval,
     IKDate,
     IKPayloadType,
     QuantitySamples,
+    RollupInterval,
     SampleType,
     SleepAnalysisDataPoint,
     StepCountDistributionDataPoint,
+    StepCountDistributionProgress,
+    StepCountRollup,
     WeightDataPoint,
+    WeightDistributionDataPoint,
+    WeightSummary,
 } from './types';
 export { default as Health } from './Health';
@@ -3,13 +3,40 @@ export interface HealthBridge {
     isPermissionsAuthorised(types: SampleType[]): Promise<boolean>;
     isProviderInstalled(providerName: HealthProvider): Promise<boolean>;
     requestPermissions(types: SampleType[]): Promise<void>;
-    getDistance(startDate: number, endDate: number): Promise<number>;
+    getDistance(startDate: number, endDate: number, options?: HistoryQueryOptions): Promise<number>;
+    getDistanceDistribution(
+        startDate: number,
+        endDate: number,
+        interval: Interval,
+        options: HistoryQueryOptions,
+    ): Promise<DistanceDistributionDataPoint>;
+    getWeightDistribution(
+        startDate: number,
+        endDate: number,
+        interval: Interval,
+        summary: WeightSummary,
+        options: HistoryQueryOptions,
+    ): Promise<WeightDistributionDataPoint>;
     getDistanceSamples(startDate: number, endDate: number, limit: number): Promise<QuantitySamples[]>;
-    getStepCount(startDate: number, endDate: number): Promise<number>;
+    getStepCount(startDate: number, endDate: number, options?: HistoryQueryOptions): Promise<number>;
     getStepCountDistribution(
         startDate: number,
         endDate: number,
         interval: Interval,
+        options?: HistoryQueryOptions,
+    ): Promise<StepCountDistributionDataPoint>;
+    getStepCountRollup(
+        startDate: number,
+        endDate: number,
+        intervals: RollupInterval[],
+        options: HistoryQueryOptions,
+    ): Promise<StepCountRollup>;
+    getStepCountDistributionWithProgress(
+        startDate: number,
+        endDate: number,
+        interval: Interval,
+        queryId: string,
+        options: HistoryQueryOptions,
     ): Promise<StepCountDistributionDataPoint>;
     getAccurateDistance(startDate: number, endDate: number): Promise<number>;
     getSleepAnalysisSamples(startDate: number, endDate: number): Promise<SleepAnalysisDataPoint[]>;
@@ -29,6 +56,44 @@ export interface StepCountDistributionDataPoint {
     value: QuantitySamples[];
     startDate: IKDate;
     endDate: IKDate;
+    /** Android only: true if the deadline was exceeded before the whole history was read */
+    partial?: boolean;
+}
+
+/**
+ * Distribution of walking and running distance in meters (Android only)
+ */
+export declare type DistanceDistributionDataPoint = StepCountDistributionDataPoint;
+
+/**
+ * Distribution of weight in kilograms (Android only)
+ * Every value is a summary of the weight measurements within its interval.
+ */
+export declare type WeightDistributionDataPoint = StepCountDistributionDataPoint;
+
+/**
+ * Step count distribution of several intervals of the same range, keyed by interval (Android only)
+ */
+export declare type StepCountRollup = Partial<Record<RollupInterval, StepCountDistributionDataPoint>>;
+
+/**
+ * Partial step count distribution of a history query (Android only)
+ * queryId -> identifier of the query
+ * completedRequests -> number of history requests which have been read so far
+ * totalRequests -> total number of history requests
+ */
+export interface StepCountDistributionProgress extends StepCountDistributionDataPoint {
+    queryId: string;
+    completedRequests: number;
+    totalRequests: number;
+}
+
+/**
+ * Options of a history query (Android only)
+ * timeout -> overall time budget of the query in milliseconds
+ */
+export interface HistoryQueryOptions {
+    timeout?: number;
 }
 
 export interface SleepAnalysisDataPoint {
@@ -84,6 +149,13 @@ export interface IKDate {
 
 export declare type Interval = 'week' | 'day' | 'hour' | 'tenMinute';
 
+/**
+ * Intervals of a step count rollup, which also supports finer intervals (Android only)
+ */
+export declare type RollupInterval = Interval | 'halfHour' | 'oneMinute';
+
+export declare type WeightSummary = 'last' | 'min' | 'max' | 'average';
+
 export declare type RealTimeSampleType = 'stepCount' | 'distanceWalkingRunning';
 //TODO currently we only use stepCount. Is it safe to delete 'sleep' and 'distanceWalkingRunning'?
 export declare type SampleType = 'sleep' | 'stepCount' | 'distanceWalkingRunning';